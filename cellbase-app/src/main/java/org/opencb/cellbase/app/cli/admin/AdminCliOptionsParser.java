@@ -108,7 +108,7 @@ public class AdminCliOptionsParser extends CliOptionsParser {
         @ParametersDelegate
         public CommonCommandOptions commonOptions = commonCommandOptions;
 
-        @Parameter(names = {"-d", "--data"}, description = "Comma separated list of data to build: genome, genome_info, "
+        @Parameter(names = {"-d", "--data"}, description = "Comma separated list of data to build: genome, genome_2bit, genome_info, "
                 + "gene, variation, variation_functional_score, regulation, protein, ppi, conservation, drug, "
                 + "clinical_variants, repeats, svs, splice_score, pubmed. 'all' builds everything.", required = true, arity = 1)
         public String data;
@@ -135,6 +135,15 @@ public class AdminCliOptionsParser extends CliOptionsParser {
                 + "requires more memory and is less efficient.", required = false, arity = 0)
         public boolean flexibleGTFParsing = false;
 
+        @Parameter(names = {"--num-threads"}, description = "Maximum number of data builders running at the same time. Builders"
+                + " depending on others, e.g. gene on genome or clinical_variants on gene, wait for them to finish. Also the number of"
+                + " chromosomes of a tabix indexed CADD file parsed at the same time", arity = 1)
+        public int numThreads = 1;
+
+        @Parameter(names = {"--memory"}, description = "Memory, in MB, shared by the data builders running at the same time."
+                + " By default, the maximum heap size of the JVM", arity = 1)
+        public long memory;
+
     }
 
     @Parameters(commandNames = {"data-release"}, commandDescription = "Manage data releases in order to support multiple versions of data")
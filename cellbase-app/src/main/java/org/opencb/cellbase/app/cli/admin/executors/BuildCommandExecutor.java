@@ -20,6 +20,7 @@ import com.beust.jcommander.ParameterException;
 import org.apache.commons.lang.StringUtils;
 import org.opencb.cellbase.app.cli.CommandExecutor;
 import org.opencb.cellbase.app.cli.admin.AdminCliOptionsParser;
+import org.opencb.cellbase.core.config.GenomeProperties;
 import org.opencb.cellbase.core.config.SpeciesConfiguration;
 import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.serializer.CellBaseFileSerializer;
@@ -34,9 +35,7 @@ import org.opencb.cellbase.lib.builders.clinical.variant.ClinicalVariantBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 import static org.opencb.cellbase.lib.EtlCommons.*;
 
@@ -44,6 +43,29 @@ import static org.opencb.cellbase.lib.EtlCommons.*;
  * Created by imedina on 03/02/15.
  */
 public class BuildCommandExecutor extends CommandExecutor {
+
+    // Builders that must finish before a builder starts. Genome, gene, RefSeq and clinical variants builders read, and
+    // may index, the same reference genome FASTA file, so they run one after another. They do not use the data built
+    // by each other, a failed build does not skip the next ones
+    private static final Map<String, List<String>> BUILD_ORDER = new HashMap<>();
+    // Estimated memory, in MB, needed by each builder
+    private static final Map<String, Long> BUILD_MEMORY = new HashMap<>();
+    private static final long DEFAULT_BUILD_MEMORY = 1024;
+
+    static {
+        BUILD_ORDER.put(EtlCommons.GENE_DATA, Collections.singletonList(EtlCommons.GENOME_DATA));
+        BUILD_ORDER.put(EtlCommons.REFSEQ_DATA, Arrays.asList(EtlCommons.GENOME_DATA, EtlCommons.GENE_DATA));
+        BUILD_ORDER.put(EtlCommons.CLINICAL_VARIANTS_DATA, Arrays.asList(EtlCommons.GENOME_DATA, EtlCommons.GENE_DATA));
+
+        BUILD_MEMORY.put(EtlCommons.GENOME_DATA, 2048L);
+        BUILD_MEMORY.put(EtlCommons.GENE_DATA, 8192L);
+        BUILD_MEMORY.put(EtlCommons.REFSEQ_DATA, 4096L);
+        BUILD_MEMORY.put(EtlCommons.VARIATION_DATA, 4096L);
+        BUILD_MEMORY.put(EtlCommons.PROTEIN_DATA, 4096L);
+        BUILD_MEMORY.put(EtlCommons.CLINICAL_VARIANTS_DATA, 8192L);
+        BUILD_MEMORY.put(EtlCommons.PHARMACOGENOMICS_DATA, 4096L);
+    }
+
     private AdminCliOptionsParser.BuildCommandOptions buildCommandOptions;
 
     private Path output;
@@ -114,83 +136,76 @@ public class BuildCommandExecutor extends CommandExecutor {
                     buildOptions = buildCommandOptions.data.split(",");
                 }
 
-                for (int i = 0; i < buildOptions.length; i++) {
-                    String buildOption = buildOptions[i];
-
-                    logger.info("Building '{}' data", buildOption);
-                    CellBaseBuilder parser = null;
-                    switch (buildOption) {
-//                        case EtlCommons.GENOME_INFO_DATA:
-//                            buildGenomeInfo();
-//                            break;
-                        case EtlCommons.GENOME_DATA:
-                            parser = buildGenomeSequence();
-                            break;
-                        case EtlCommons.GENE_DATA:
-                            parser = buildGene();
-                            break;
-                        case EtlCommons.REFSEQ_DATA:
-                            parser = buildRefSeq();
-                            break;
-                        case EtlCommons.VARIATION_DATA:
-                            parser = buildVariation();
-                            break;
-                        case EtlCommons.VARIATION_FUNCTIONAL_SCORE_DATA:
-                            parser = buildCadd();
-                            break;
-                        case EtlCommons.MISSENSE_VARIATION_SCORE_DATA:
-                            parser = buildRevel();
-                            break;
-                        case EtlCommons.REGULATION_DATA:
-                            parser = buildRegulation();
-                            break;
-                        case EtlCommons.PROTEIN_DATA:
-                            parser = buildProtein();
-                            break;
-//                        case EtlCommons.PPI_DATA:
-//                            parser = getInteractionParser();
-//                            break;
-                        case EtlCommons.CONSERVATION_DATA:
-                            parser = buildConservation();
-                            break;
-                        case EtlCommons.CLINICAL_VARIANTS_DATA:
-                            parser = buildClinicalVariants();
-                            break;
-                        case EtlCommons.REPEATS_DATA:
-                            parser = buildRepeats();
-                            break;
-                        case EtlCommons.OBO_DATA:
-                            parser = buildObo();
-                            break;
-                        case EtlCommons.SPLICE_SCORE_DATA:
-                            parser = buildSplice();
-                            break;
-                        case EtlCommons.PUBMED_DATA:
-                            parser = buildPubMed();
-                            break;
-                        case EtlCommons.PHARMACOGENOMICS_DATA:
-                            parser = buildPharmacogenomics();
-                            break;
-                        default:
-                            logger.error("Build option '" + buildCommandOptions.data + "' is not valid");
-                            break;
-                    }
-
-                    if (parser != null) {
-                        try {
-                            parser.parse();
-                        } catch (Exception e) {
-                            logger.error("Error executing 'build' command " + buildCommandOptions.data + ": " + e.getMessage(), e);
-                        }
-                        parser.disconnect();
+                BuildScheduler buildScheduler = new BuildScheduler(buildCommandOptions.numThreads, getMemoryBudget());
+                for (String buildOption : buildOptions) {
+                    BuildScheduler.BuilderFactory builderFactory = getBuilderFactory(buildOption);
+                    if (builderFactory != null) {
+                        buildScheduler.add(buildOption, null, BUILD_ORDER.get(buildOption),
+                                BUILD_MEMORY.getOrDefault(buildOption, DEFAULT_BUILD_MEMORY), builderFactory);
+                    } else {
+                        logger.error("Build option '" + buildOption + "' is not valid");
                     }
                 }
+                buildScheduler.run();
             }
         } catch (ParameterException e) {
             logger.error("Error parsing build command line parameters: " + e.getMessage(), e);
         } catch (IOException | CellBaseException e) {
             logger.error(e.getMessage());
+        } catch (InterruptedException e) {
+            logger.error("Build interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BuildScheduler.BuilderFactory getBuilderFactory(String buildOption) {
+        switch (buildOption) {
+//            case EtlCommons.GENOME_INFO_DATA:
+//                return this::buildGenomeInfo;
+            case EtlCommons.GENOME_DATA:
+                return this::buildGenomeSequence;
+            case EtlCommons.GENOME_2BIT_DATA:
+                return this::buildGenomeSequenceTwoBit;
+            case EtlCommons.GENE_DATA:
+                return this::buildGene;
+            case EtlCommons.REFSEQ_DATA:
+                return this::buildRefSeq;
+            case EtlCommons.VARIATION_DATA:
+                return this::buildVariation;
+            case EtlCommons.VARIATION_FUNCTIONAL_SCORE_DATA:
+                return this::buildCadd;
+            case EtlCommons.MISSENSE_VARIATION_SCORE_DATA:
+                return this::buildRevel;
+            case EtlCommons.REGULATION_DATA:
+                return this::buildRegulation;
+            case EtlCommons.PROTEIN_DATA:
+                return this::buildProtein;
+//            case EtlCommons.PPI_DATA:
+//                return this::getInteractionParser;
+            case EtlCommons.CONSERVATION_DATA:
+                return this::buildConservation;
+            case EtlCommons.CLINICAL_VARIANTS_DATA:
+                return this::buildClinicalVariants;
+            case EtlCommons.REPEATS_DATA:
+                return this::buildRepeats;
+            case EtlCommons.OBO_DATA:
+                return this::buildObo;
+            case EtlCommons.SPLICE_SCORE_DATA:
+                return this::buildSplice;
+            case EtlCommons.PUBMED_DATA:
+                return this::buildPubMed;
+            case EtlCommons.PHARMACOGENOMICS_DATA:
+                return this::buildPharmacogenomics;
+            default:
+                return null;
+        }
+    }
+
+    private long getMemoryBudget() {
+        if (buildCommandOptions.memory > 0) {
+            return buildCommandOptions.memory;
         }
+        return Runtime.getRuntime().maxMemory() / (1024 * 1024);
     }
 
     private CellBaseBuilder buildRepeats() {
@@ -259,6 +274,11 @@ public class BuildCommandExecutor extends CommandExecutor {
         return new GenomeSequenceFastaBuilder(fastaFile, serializer);
     }
 
+    private CellBaseBuilder buildGenomeSequenceTwoBit() {
+        Path fastaFile = getFastaReferenceGenome();
+        return new GenomeSequenceTwoBitBuilder(fastaFile, buildFolder.resolve(GenomeProperties.TWO_BIT_FILE_NAME));
+    }
+
     private CellBaseBuilder buildGene() throws CellBaseException {
         Path geneFolderPath = downloadFolder.resolve("gene");
         copyVersionFiles(Arrays.asList(geneFolderPath.resolve("dgidbVersion.json"),
@@ -298,7 +318,8 @@ public class BuildCommandExecutor extends CommandExecutor {
         copyVersionFiles(Arrays.asList(variationFunctionalScorePath.resolve("caddVersion.json")));
         Path caddFilePath = variationFunctionalScorePath.resolve("whole_genome_SNVs.tsv.gz");
         CellBaseFileSerializer serializer = new CellBaseJsonFileSerializer(buildFolder, "cadd");
-        return new CaddScoreBuilder(caddFilePath, serializer);
+        // Chromosomes are parsed in parallel, with --num-threads threads, if the CADD file is indexed
+        return new CaddScoreBuilder(caddFilePath, buildCommandOptions.numThreads, serializer);
     }
 
     private CellBaseBuilder buildRevel() {
@@ -91,7 +91,7 @@ public class CellBaseCliOptionsParser extends CliOptionsParser {
         @Parameter(names = {"--exclude"}, description = "Comma separated list of annotation types to be excluded. Available options are {variation, populationFrequencies, conservation, functionalScore, traitAssociation, consequenceType, expression, geneDisease, drugInteraction, cytoband, repeats, hgvs, geneConstraints, mirnaTargets}", required = false)
         public String exclude;
 
-        @Parameter(names = {"-t", "--num-threads"}, description = "Number of threads to be used for loading", required = false, arity = 1)
+        @Parameter(names = {"-t", "--num-threads"}, description = "Number of threads to be used for annotating and for indexing custom and population frequency files", required = false, arity = 1)
         public int numThreads = 4;
 
         @Parameter(names = {"--batch-size"}, description = "Number of variants per batch", required = false, arity = 1)
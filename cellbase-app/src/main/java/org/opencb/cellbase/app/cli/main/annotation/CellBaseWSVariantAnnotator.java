@@ -22,6 +22,7 @@ import org.opencb.biodata.models.variant.avro.VariantAnnotation;
 import org.opencb.cellbase.client.rest.VariantClient;
 import org.opencb.cellbase.core.result.CellBaseDataResponse;
 import org.opencb.cellbase.lib.variant.annotation.VariantAnnotator;
+import org.opencb.commons.datastore.core.Event;
 import org.opencb.commons.datastore.core.QueryOptions;
 
 import org.opencb.cellbase.core.result.CellBaseDataResult;
@@ -72,6 +73,12 @@ public class CellBaseWSVariantAnnotator implements VariantAnnotator {
             //        List<CellBaseDataResult<CellBaseDataResult<VariantAnnotation>>> response1 = response.getResponse();
             List<CellBaseDataResult<VariantAnnotation>> cellBaseDataResultList = response.getResponses();
             for (int i = 0; i < cellBaseDataResultList.size(); i++) {
+                if (cellBaseDataResultList.get(i).getEvents() != null) {
+                    // e.g. annotators that did not finish on time in the server
+                    for (Event event : cellBaseDataResultList.get(i).getEvents()) {
+                        logger.error("Annotation of '{}' may be incomplete: {}", cellBaseDataResultList.get(i).getId(), event.getMessage());
+                    }
+                }
                 if (cellBaseDataResultList.get(i).getResults() != null && cellBaseDataResultList.get(i).getResults().size() > 0) {
                     if (variantList.get(i).getAnnotation() == null) {
                         variantList.get(i).setAnnotation(cellBaseDataResultList.get(i).getResults().get(0));
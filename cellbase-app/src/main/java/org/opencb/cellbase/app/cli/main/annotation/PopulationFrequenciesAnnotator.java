@@ -16,14 +16,11 @@
 
 package org.opencb.cellbase.app.cli.main.annotation;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.MapperFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.PopulationFrequency;
 import org.opencb.biodata.models.variant.avro.VariantAnnotation;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.app.cli.main.annotation.indexers.PopulationFrequencyIndexCodec;
 import org.opencb.cellbase.core.variant.PopulationFrequencyPhasedQueryManager;
 import org.opencb.cellbase.lib.variant.annotation.VariantAnnotator;
 import org.opencb.commons.datastore.core.QueryOptions;
@@ -48,17 +45,9 @@ public class PopulationFrequenciesAnnotator implements VariantAnnotator {
     private RandomAccessFile reader;
     private final QueryOptions queryOptions;
 
-
-    private static ObjectMapper mapper = new ObjectMapper();
-    private static ObjectWriter jsonObjectWriter;
     private static PopulationFrequencyPhasedQueryManager phasedQueryManager
             = new PopulationFrequencyPhasedQueryManager();
 
-    static {
-        mapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
-        jsonObjectWriter = mapper.writer();
-    }
-
     public PopulationFrequenciesAnnotator(String fileName, RocksDB dbIndex, QueryOptions queryOptions) {
         this.fileName = fileName;
         this.dbIndex = dbIndex;
@@ -123,8 +112,10 @@ public class PopulationFrequenciesAnnotator implements VariantAnnotator {
             byte[] variantKey = variant.toString().getBytes();
             byte[] dbContent = dbIndex.get(variantKey);
             if (dbContent != null) {
-                Variant variant1 = mapper.readValue(dbContent, Variant.class);
-                flagVisitedVariant(variantKey, variant1);
+                Variant variant1 = PopulationFrequencyIndexCodec.decode(variantKey, dbContent);
+                if (variant1.getAnnotation().getAdditionalAttributes() == null) {
+                    flagVisitedVariant(variantKey);
+                }
 
                 populationFrequencyCellBaseDataResult.setResults(Collections.singletonList(variant1));
                 populationFrequencyCellBaseDataResult.setNumResults(1);
@@ -140,16 +131,13 @@ public class PopulationFrequenciesAnnotator implements VariantAnnotator {
         return populationFrequencyCellBaseDataResult;
     }
 
-    private void flagVisitedVariant(byte[] key, Variant variant) {
-        // The annotation.additionalAttributes field is initialized with an empty map to flag this variant as
-        // already visited
-        variant.getAnnotation().setAdditionalAttributes(Collections.emptyMap());
+    private void flagVisitedVariant(byte[] key) {
+        // A visited operand is appended to the index entry to flag this variant as already visited, there is no need to
+        // re-write the population frequencies
         try {
-            dbIndex.put(key, jsonObjectWriter.writeValueAsBytes(variant));
+            dbIndex.merge(key, PopulationFrequencyIndexCodec.visitedOperand());
         } catch (RocksDBException e) {
             e.printStackTrace();
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
         }
     }
 
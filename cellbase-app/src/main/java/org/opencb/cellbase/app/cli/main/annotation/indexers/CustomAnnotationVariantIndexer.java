@@ -21,6 +21,7 @@ import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.VariantBuilder;
 import org.opencb.biodata.models.variant.avro.VariantType;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
 
 import java.io.IOException;
 import java.util.*;
@@ -41,14 +42,18 @@ public class CustomAnnotationVariantIndexer extends VariantIndexer {
 
     @Override
     protected void updateIndex(List<Variant> variantList) throws IOException, RocksDBException {
-        for (Variant variant : variantList) {
-            if (variant.getType() != VariantType.NO_VARIATION) {
-                dbIndex.put(variant.toString().getBytes(),
-                        jsonObjectWriter.writeValueAsBytes(getVariantToIndex(variant)));
+        WriteBatch writeBatch = new WriteBatch();
+        try {
+            for (Variant variant : variantList) {
+                if (variant.getType() != VariantType.NO_VARIATION) {
+                    writeBatch.put(variant.toString().getBytes(),
+                            jsonObjectWriter.writeValueAsBytes(getVariantToIndex(variant)));
+                }
             }
-
+            dbIndex.write(writeOptions, writeBatch);
+        } finally {
+            writeBatch.dispose();
         }
-
     }
 
     private Variant getVariantToIndex(Variant variant) {
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.app.cli.main.annotation.indexers;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.PopulationFrequency;
+import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary format of the values of the population frequencies RocksDB index. Values are built by the StringAppendOperator
+ * merge operator, i.e. a sequence of operands separated by one delimiter byte. Each operand starts with its type:
+ * a FREQUENCIES operand is followed by the number of population frequencies and the Avro binary encoding of each of
+ * them, a VARIANT operand is followed by the length and the Avro binary encoding of the indexed variant without its
+ * population frequencies and then by its population frequencies as in a FREQUENCIES operand, and a VISITED operand
+ * has no content and flags the variant as found in the file being annotated. The key of the index is the variant string, so a value with
+ * FREQUENCIES operands only is decoded into a variant rebuilt from the key.
+ */
+public final class PopulationFrequencyIndexCodec {
+
+    private static final byte FREQUENCIES = 0;
+    private static final byte VISITED = 1;
+    private static final byte VARIANT = 2;
+    private static final byte[] VISITED_OPERAND = new byte[]{VISITED};
+
+    // Avro datum readers and writers are thread safe
+    private static final SpecificDatumWriter<PopulationFrequency> WRITER
+            = new SpecificDatumWriter<>(PopulationFrequency.getClassSchema());
+    private static final SpecificDatumReader<PopulationFrequency> READER
+            = new SpecificDatumReader<>(PopulationFrequency.getClassSchema());
+    private static final SpecificDatumWriter<VariantAvro> VARIANT_WRITER = new SpecificDatumWriter<>(VariantAvro.getClassSchema());
+    private static final SpecificDatumReader<VariantAvro> VARIANT_READER = new SpecificDatumReader<>(VariantAvro.getClassSchema());
+
+    private PopulationFrequencyIndexCodec() {
+    }
+
+    /**
+     * Encodes the population frequencies of a variant as a merge operand.
+     *
+     * @param populationFrequencies population frequencies of the variant
+     * @return encoded operand
+     * @throws IOException if the population frequencies cannot be encoded
+     */
+    public static byte[] encode(List<PopulationFrequency> populationFrequencies) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(FREQUENCIES);
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        writePopulationFrequencies(populationFrequencies, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Encodes a variant and its population frequencies as a merge operand. All the fields of the variant (ids, names,
+     * attributes, other annotation fields...) are kept so that it can be written back as it was read, e.g. by
+     * complete-input-population.
+     *
+     * @param variant variant read from the population frequencies file
+     * @return encoded operand
+     * @throws IOException if the variant cannot be encoded
+     */
+    public static byte[] encode(Variant variant) throws IOException {
+        // Population frequencies are written apart, the variant is written from a shallow copy without them
+        VariantAnnotation annotation = shallowCopy(variant.getAnnotation(), new VariantAnnotation());
+        annotation.setPopulationFrequencies(Collections.emptyList());
+        VariantAvro variantAvro = shallowCopy(variant.getImpl(), new VariantAvro());
+        variantAvro.setAnnotation(annotation);
+
+        // The variant is length prefixed so that the ones of the next operands of the same key are skipped when decoding
+        ByteArrayOutputStream variantOutputStream = new ByteArrayOutputStream();
+        BinaryEncoder variantEncoder = EncoderFactory.get().binaryEncoder(variantOutputStream, null);
+        VARIANT_WRITER.write(variantAvro, variantEncoder);
+        variantEncoder.flush();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(VARIANT);
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        encoder.writeBytes(variantOutputStream.toByteArray());
+        writePopulationFrequencies(variant.getAnnotation().getPopulationFrequencies(), encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static <T extends SpecificRecordBase> T shallowCopy(T record, T copy) {
+        for (Schema.Field field : record.getSchema().getFields()) {
+            copy.put(field.pos(), record.get(field.pos()));
+        }
+        return copy;
+    }
+
+    private static void writePopulationFrequencies(List<PopulationFrequency> populationFrequencies, BinaryEncoder encoder)
+            throws IOException {
+        encoder.writeInt(populationFrequencies.size());
+        for (PopulationFrequency populationFrequency : populationFrequencies) {
+            WRITER.write(populationFrequency, encoder);
+        }
+    }
+
+    public static byte[] visitedOperand() {
+        return VISITED_OPERAND;
+    }
+
+    /**
+     * Decodes an index entry. The variant is the one of the first VARIANT operand, as the former JSON index kept the
+     * first variant indexed with this key, or is rebuilt from the key if there is none. It is annotated with all the
+     * population frequencies merged into the value. As in the former JSON index, annotation.additionalAttributes is
+     * initialized with an empty map if the variant was flagged as visited.
+     *
+     * @param key   index key, i.e. the variant string
+     * @param value index value
+     * @return variant with its population frequencies
+     * @throws IOException if the value cannot be decoded
+     */
+    public static Variant decode(byte[] key, byte[] value) throws IOException {
+        List<PopulationFrequency> populationFrequencies = new ArrayList<>();
+        Variant variant = null;
+        boolean visited = false;
+
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(value, null);
+        byte[] singleByte = new byte[1];
+        while (!decoder.isEnd()) {
+            decoder.readFixed(singleByte);
+            if (singleByte[0] == VISITED) {
+                visited = true;
+            } else if (singleByte[0] == FREQUENCIES) {
+                readPopulationFrequencies(decoder, populationFrequencies);
+            } else if (singleByte[0] == VARIANT) {
+                if (variant == null) {
+                    ByteBuffer variantBytes = decoder.readBytes(null);
+                    variant = new Variant(VARIANT_READER.read(null, DecoderFactory.get().binaryDecoder(variantBytes.array(),
+                            variantBytes.arrayOffset() + variantBytes.position(), variantBytes.remaining(), null)));
+                } else {
+                    decoder.skipBytes();
+                }
+                readPopulationFrequencies(decoder, populationFrequencies);
+            } else {
+                throw new IOException("Unexpected operand type " + singleByte[0] + " in population frequencies index entry "
+                        + new String(key));
+            }
+            // Skip the delimiter added by the StringAppendOperator between operands
+            if (!decoder.isEnd()) {
+                decoder.readFixed(singleByte);
+            }
+        }
+
+        if (variant == null) {
+            variant = new Variant(new String(key));
+        }
+        if (variant.getAnnotation() == null) {
+            variant.setAnnotation(new VariantAnnotation());
+        }
+        variant.getAnnotation().setPopulationFrequencies(populationFrequencies);
+        if (visited) {
+            variant.getAnnotation().setAdditionalAttributes(Collections.emptyMap());
+        }
+        return variant;
+    }
+
+    private static void readPopulationFrequencies(BinaryDecoder decoder, List<PopulationFrequency> populationFrequencies)
+            throws IOException {
+        int size = decoder.readInt();
+        for (int i = 0; i < size; i++) {
+            populationFrequencies.add(READER.read(null, decoder));
+        }
+    }
+}
@@ -23,7 +23,10 @@ import org.opencb.biodata.formats.variant.io.VariantReader;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.PopulationFrequency;
 import org.opencb.cellbase.core.variant.AnnotationBasedPhasedQueryManager;
+import org.rocksdb.Options;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.StringAppendOperator;
+import org.rocksdb.WriteBatch;
 
 import java.io.IOException;
 import java.util.List;
@@ -37,35 +40,36 @@ public class PopulationFrequencyVariantIndexer extends VariantIndexer {
         super(variantReader, maxOpenFiles, forceCreate);
     }
 
+    @Override
+    protected void configureOptions(Options options) {
+        // Population frequencies of the same variant found in different lines are appended by RocksDB, see
+        // PopulationFrequencyIndexCodec. Must also be set to read the index.
+        options.setMergeOperator(new StringAppendOperator());
+    }
+
     @Override
     protected void updateIndex(List<Variant> variantList) throws IOException, RocksDBException {
-        for (Variant variant : variantList) {
-            // If MNV then edit alternate allele to include a string tha represents all variants forming the MNV
-            String haplotypeString = AnnotationBasedPhasedQueryManager.getSampleAttribute(variant,
-                    AnnotationBasedPhasedQueryManager.PHASE_SET_TAG);
-            if (StringUtils.isNotBlank(haplotypeString)) {
-                Pair<String, String> alleleAlignment = getAlleleAlignment(haplotypeString, variant);
-                for (PopulationFrequency populationFrequency : variant.getAnnotation().getPopulationFrequencies()) {
-                    populationFrequency.setRefAllele(alleleAlignment.getLeft());
-                    populationFrequency.setAltAllele(alleleAlignment.getRight());
+        WriteBatch writeBatch = new WriteBatch();
+        try {
+            for (Variant variant : variantList) {
+                // If MNV then edit alternate allele to include a string tha represents all variants forming the MNV
+                String haplotypeString = AnnotationBasedPhasedQueryManager.getSampleAttribute(variant,
+                        AnnotationBasedPhasedQueryManager.PHASE_SET_TAG);
+                if (StringUtils.isNotBlank(haplotypeString)) {
+                    Pair<String, String> alleleAlignment = getAlleleAlignment(haplotypeString, variant);
+                    for (PopulationFrequency populationFrequency : variant.getAnnotation().getPopulationFrequencies()) {
+                        populationFrequency.setRefAllele(alleleAlignment.getLeft());
+                        populationFrequency.setAltAllele(alleleAlignment.getRight());
+                    }
                 }
-            }
 
-            byte[] dbContent = dbIndex.get(variant.toString().getBytes());
-            Variant variantToIndex;
-
-            if (dbContent == null) {
-                variantToIndex = variant;
-            } else {
-                variantToIndex = jsonObjectMapper.readValue(dbContent, Variant.class);
-
-                // Add all pop frequencies from current variant
-                variantToIndex
-                        .getAnnotation()
-                        .getPopulationFrequencies().addAll(variant.getAnnotation().getPopulationFrequencies());
+                // No need to read previous frequencies of this variant, the merge operator appends the new ones. The
+                // whole variant is kept so that complete-input-population writes it as it was read
+                writeBatch.merge(variant.toString().getBytes(), PopulationFrequencyIndexCodec.encode(variant));
             }
-
-            dbIndex.put(variantToIndex.toString().getBytes(), jsonObjectWriter.writeValueAsBytes(variantToIndex));
+            dbIndex.write(writeOptions, writeBatch);
+        } finally {
+            writeBatch.dispose();
         }
     }
 
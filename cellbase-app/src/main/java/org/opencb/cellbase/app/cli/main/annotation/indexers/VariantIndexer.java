@@ -21,20 +21,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.opencb.biodata.formats.variant.io.VariantReader;
 import org.opencb.biodata.models.variant.Variant;
+import org.rocksdb.FlushOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 public abstract class VariantIndexer {
 
+    // Memtables are larger than RocksDB defaults while the index is built: the whole file is loaded at once and is
+    // only read once loading has finished
+    private static final long BULK_LOAD_WRITE_BUFFER_SIZE = 256L * 1024 * 1024;
+    private static final int BULK_LOAD_MAX_WRITE_BUFFER_NUMBER = 4;
+    // Batches waiting to be indexed by each worker when the index is built with several threads
+    private static final int SHARD_QUEUE_CAPACITY = 4;
+    private static final List<Variant> END_OF_SHARD = Collections.emptyList();
+
     protected ObjectMapper jsonObjectMapper;
     protected ObjectWriter jsonObjectWriter;
 
@@ -43,8 +56,11 @@ public abstract class VariantIndexer {
     private final VariantReader variantReader;
     private final boolean forceCreate;
     private final int maxOpenFiles;
+    private int numThreads;
 
     protected RocksDB dbIndex;
+    // The index can be rebuilt from the source file, the WAL is disabled while loading it
+    protected WriteOptions writeOptions;
     private Options dbOption;
     private String dbLocation;
     private boolean indexingNeeded;
@@ -53,6 +69,7 @@ public abstract class VariantIndexer {
         this.variantReader = variantReader;
         this.forceCreate = forceCreate;
         this.maxOpenFiles = maxOpenFiles;
+        this.numThreads = 1;
 
         jsonObjectMapper = new ObjectMapper();
         jsonObjectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
@@ -60,6 +77,15 @@ public abstract class VariantIndexer {
 
     }
 
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public VariantIndexer setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+        return this;
+    }
+
     public RocksDB getDbIndex() {
         return dbIndex;
     }
@@ -75,6 +101,10 @@ public abstract class VariantIndexer {
         dbLocation = (String) dbConnection[2];
         indexingNeeded = (boolean) dbConnection[3];
 
+        if (indexingNeeded) {
+            writeOptions = new WriteOptions().setDisableWAL(true);
+        }
+
         variantReader.open();
         variantReader.pre();
 
@@ -91,6 +121,12 @@ public abstract class VariantIndexer {
         if (maxOpenFiles > 0) {
             options.setMaxOpenFiles(maxOpenFiles);
         }
+        if (indexingNeeded) {
+            options.setWriteBufferSize(BULK_LOAD_WRITE_BUFFER_SIZE)
+                    .setMaxWriteBufferNumber(BULK_LOAD_MAX_WRITE_BUFFER_NUMBER)
+                    .setIncreaseParallelism(Runtime.getRuntime().availableProcessors());
+        }
+        configureOptions(options);
 
         RocksDB db = null;
         try {
@@ -113,22 +149,90 @@ public abstract class VariantIndexer {
 
     public void run() throws IOException, RocksDBException {
         if (indexingNeeded) {
+            if (numThreads > 1) {
+                runSharded();
+            } else {
+                runSequential();
+            }
+
+            // Memtables are not backed by the WAL, they must be flushed before closing the index. Compaction leaves
+            // the index ready to be read
+            FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true);
+            try {
+                dbIndex.flush(flushOptions);
+            } finally {
+                flushOptions.dispose();
+            }
+            dbIndex.compactRange();
+            logger.info("Index created for {}", variantReader.getVariantFileMetadata().getPath());
+        } else {
+            logger.info("Index already present. Skipping index creation for {}",
+                    variantReader.getVariantFileMetadata().getPath());
+        }
+
+    }
+
+    private void runSequential() throws IOException, RocksDBException {
+        int recordCounter = 0;
+        List<Variant> variantList = variantReader.read();
+        while (!variantList.isEmpty()) {
+            try {
+                updateIndex(variantList);
+            } catch (IOException | RocksDBException e) {
+                e.printStackTrace();
+                throw e;
+            } catch (Exception e) {
+                if (recordCounter >= 0 && variantList != null) {
+                    logger.error("Error fond while trying to parse {}",
+                            variantList.stream().map(Variant::toString).collect(Collectors.joining()));
+                } else {
+                    logger.error("Error found while parsing {}", variantReader.getVariantFileMetadata().getPath());
+                }
+                throw e;
+            }
+
+            recordCounter++;
+            if (recordCounter % 100000 == 0) {
+                logger.info("{} records indexed", recordCounter);
+            }
+            variantList = variantReader.read();
+        }
+    }
+
+    /**
+     * Builds the index with one worker thread per shard. Variants are read sequentially and assigned to a shard by
+     * the hash of their key, all the variants with the same key are therefore written by the same worker and in the
+     * same order they are found in the file. Workers convert and write their variants concurrently into the index.
+     *
+     * @throws IOException      if the index cannot be written or a worker fails
+     * @throws RocksDBException if the index cannot be written
+     */
+    private void runSharded() throws IOException, RocksDBException {
+        logger.info("Indexing {} with {} threads", variantReader.getVariantFileMetadata().getPath(), numThreads);
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        List<BlockingQueue<List<Variant>>> shardQueues = new ArrayList<>(numThreads);
+        List<Future<Void>> shardFutures = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            BlockingQueue<List<Variant>> shardQueue = new ArrayBlockingQueue<>(SHARD_QUEUE_CAPACITY);
+            shardQueues.add(shardQueue);
+            shardFutures.add(executorService.submit(() -> indexShard(shardQueue)));
+        }
+
+        try {
             int recordCounter = 0;
             List<Variant> variantList = variantReader.read();
             while (!variantList.isEmpty()) {
-                try {
-                    updateIndex(variantList);
-                } catch (IOException | RocksDBException e) {
-                    e.printStackTrace();
-                    throw e;
-                } catch (Exception e) {
-                    if (recordCounter >= 0 && variantList != null) {
-                        logger.error("Error fond while trying to parse {}",
-                                variantList.stream().map(Variant::toString).collect(Collectors.joining()));
-                    } else {
-                        logger.error("Error found while parsing {}", variantReader.getVariantFileMetadata().getPath());
+                List<List<Variant>> shards = new ArrayList<>(numThreads);
+                for (int i = 0; i < numThreads; i++) {
+                    shards.add(new ArrayList<>());
+                }
+                for (Variant variant : variantList) {
+                    shards.get(Math.floorMod(variant.toString().hashCode(), numThreads)).add(variant);
+                }
+                for (int i = 0; i < numThreads; i++) {
+                    if (!shards.get(i).isEmpty()) {
+                        putShard(shardQueues.get(i), shards.get(i), shardFutures.get(i));
                     }
-                    throw e;
                 }
 
                 recordCounter++;
@@ -137,18 +241,81 @@ public abstract class VariantIndexer {
                 }
                 variantList = variantReader.read();
             }
-        } else {
-            logger.info("Index already present. Skipping index creation for {}",
-                    variantReader.getVariantFileMetadata().getPath());
+
+            for (int i = 0; i < numThreads; i++) {
+                putShard(shardQueues.get(i), END_OF_SHARD, shardFutures.get(i));
+            }
+            for (Future<Void> shardFuture : shardFutures) {
+                shardFuture.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing " + variantReader.getVariantFileMetadata().getPath(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RocksDBException) {
+                throw (RocksDBException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Error indexing " + variantReader.getVariantFileMetadata().getPath(), cause);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Void indexShard(BlockingQueue<List<Variant>> shardQueue) throws Exception {
+        List<Variant> variantList = shardQueue.take();
+        while (variantList != END_OF_SHARD) {
+            try {
+                updateIndex(variantList);
+            } catch (Exception e) {
+                logger.error("Error found while trying to index {}",
+                        variantList.stream().map(Variant::toString).collect(Collectors.joining(",")));
+                throw e;
+            }
+            variantList = shardQueue.take();
         }
+        return null;
+    }
+
+    private void putShard(BlockingQueue<List<Variant>> shardQueue, List<Variant> variantList, Future<Void> shardFuture)
+            throws InterruptedException, ExecutionException {
+        // A failed worker no longer takes variants from its queue, its error is raised instead of waiting forever
+        while (!shardQueue.offer(variantList, 1, TimeUnit.SECONDS)) {
+            if (shardFuture.isDone()) {
+                shardFuture.get();
+            }
+        }
+    }
 
+    /**
+     * Hook to set indexer specific options, e.g. a merge operator. Called both when the index is created and when an
+     * existing index is opened.
+     *
+     * @param options RocksDB options
+     */
+    protected void configureOptions(Options options) {
     }
 
+    /**
+     * Writes a batch of variants into the index. When the index is built with several threads this method is called
+     * concurrently, each call with variants of a different set of keys.
+     *
+     * @param variantList variants to be indexed
+     * @throws IOException      if a variant cannot be serialized
+     * @throws RocksDBException if the index cannot be written
+     */
     protected abstract void updateIndex(List<Variant> variantList) throws IOException, RocksDBException;
 
     public void close() {
         dbIndex.close();
         dbOption.dispose();
+        if (writeOptions != null) {
+            writeOptions.dispose();
+        }
 
         variantReader.post();
         variantReader.close();
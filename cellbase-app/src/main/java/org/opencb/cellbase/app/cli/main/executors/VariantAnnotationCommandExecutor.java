@@ -39,6 +39,7 @@ import org.opencb.cellbase.app.cli.CommandExecutor;
 import org.opencb.cellbase.app.cli.main.CellBaseCliOptionsParser;
 import org.opencb.cellbase.app.cli.main.annotation.*;
 import org.opencb.cellbase.app.cli.main.annotation.indexers.CustomAnnotationVariantIndexer;
+import org.opencb.cellbase.app.cli.main.annotation.indexers.PopulationFrequencyIndexCodec;
 import org.opencb.cellbase.app.cli.main.annotation.indexers.PopulationFrequencyVariantIndexer;
 import org.opencb.cellbase.app.cli.main.annotation.indexers.VariantIndexer;
 import org.opencb.cellbase.client.config.ClientConfiguration;
@@ -208,6 +209,7 @@ public class VariantAnnotationCommandExecutor extends CommandExecutor {
                     DataRelease dataRelease = dataReleaseManager.get(variantAnnotationCommandOptions.dataRelease);
                     VariantAnnotationCalculator variantAnnotationCalculator = new VariantAnnotationCalculator(species, assembly,
                             dataRelease, variantAnnotationCommandOptions.apiKey, cellBaseManagerFactory);
+                    variantAnnotationCalculator.setFailOnMissingAnnotations(true);
                     List<CellBaseDataResult<VariantAnnotation>> annotationByVariantList =
                             variantAnnotationCalculator.getAnnotationByVariantList(variants, serverQueryOptions);
 
@@ -323,12 +325,11 @@ public class VariantAnnotationCommandExecutor extends CommandExecutor {
                         .getDbIndex()
                         .newIterator();
 
-                ObjectMapper mapper = new ObjectMapper();
                 logger.info("Writing variants with frequencies that were not found within the input file {} to {}",
                         populationFrequenciesFile.toString(), output.toString());
                 int counter = 0;
                 for (rocksIterator.seekToFirst(); rocksIterator.isValid(); rocksIterator.next()) {
-                    Variant variant = mapper.readValue(rocksIterator.value(), Variant.class);
+                    Variant variant = PopulationFrequencyIndexCodec.decode(rocksIterator.key(), rocksIterator.value());
                     // The additional attributes field initialized with an empty map is used as the flag to indicate that
                     // this variant was not visited during the annotation process
                     if (variant.getAnnotation().getAdditionalAttributes() == null) {
@@ -484,8 +485,9 @@ public class VariantAnnotationCommandExecutor extends CommandExecutor {
             CellBaseManagerFactory cellBaseManagerFactory = new CellBaseManagerFactory(configuration);
             DataReleaseManager dataReleaseManager = cellBaseManagerFactory.getDataReleaseManager(species, assembly);
             DataRelease dataRelease = dataReleaseManager.get(variantAnnotationCommandOptions.dataRelease);
+            // Files are never written with annotations missing because an annotator did not finish on time
             return new CellBaseLocalVariantAnnotator(new VariantAnnotationCalculator(species, assembly, dataRelease,
-                    variantAnnotationCommandOptions.apiKey, cellBaseManagerFactory), serverQueryOptions);
+                    variantAnnotationCommandOptions.apiKey, cellBaseManagerFactory).setFailOnMissingAnnotations(true), serverQueryOptions);
         } else {
             try {
                 ClientConfiguration clientConfiguration = ClientConfiguration.load(getClass()
@@ -522,6 +524,7 @@ public class VariantAnnotationCommandExecutor extends CommandExecutor {
                         = new CustomAnnotationVariantIndexer(getVariantReader(customFiles.get(i), true),
                         maxOpenFiles,
                         customFileFields.get(i));
+                variantIndexer.setNumThreads(numThreads);
                 variantIndexer.open();
                 variantIndexer.run();
                 variantIndexerList.add(variantIndexer);
@@ -537,6 +540,7 @@ public class VariantAnnotationCommandExecutor extends CommandExecutor {
             VariantIndexer variantIndexer = new PopulationFrequencyVariantIndexer(variantReader,
                     maxOpenFiles,
                     true);
+            variantIndexer.setNumThreads(numThreads);
             variantIndexer.open();
             variantIndexer.run();
             variantIndexerList.add(variantIndexer);
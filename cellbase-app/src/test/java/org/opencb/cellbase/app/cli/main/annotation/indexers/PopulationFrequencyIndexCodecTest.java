@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.app.cli.main.annotation.indexers;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.PopulationFrequency;
+import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopulationFrequencyIndexCodecTest {
+
+    // Delimiter of the StringAppendOperator used by PopulationFrequencyVariantIndexer
+    private static final byte DELIMITER = ',';
+
+    @Test
+    public void testFrequenciesOnly() throws IOException {
+        List<PopulationFrequency> populationFrequencies = Arrays.asList(newPopulationFrequency("GNOMAD_GENOMES", "AMR"),
+                newPopulationFrequency("GNOMAD_GENOMES", "ALL"));
+
+        Variant variant = PopulationFrequencyIndexCodec.decode("1:10001:T:A".getBytes(),
+                PopulationFrequencyIndexCodec.encode(populationFrequencies));
+
+        assertEquals("1:10001:T:A", variant.toString());
+        assertEquals(populationFrequencies, variant.getAnnotation().getPopulationFrequencies());
+        assertNull(variant.getAnnotation().getAdditionalAttributes());
+    }
+
+    @Test
+    public void testEmptyFrequencies() throws IOException {
+        Variant variant = PopulationFrequencyIndexCodec.decode("1:10001:T:A".getBytes(),
+                PopulationFrequencyIndexCodec.encode(Collections.emptyList()));
+
+        assertTrue(variant.getAnnotation().getPopulationFrequencies().isEmpty());
+        assertNull(variant.getAnnotation().getAdditionalAttributes());
+    }
+
+    @Test
+    public void testMergedOperands() throws IOException {
+        Variant variant = newVariant("1:10001:T:A", "rs1", newPopulationFrequency("GNOMAD_GENOMES", "AMR"));
+        Variant otherVariant = newVariant("1:10001:T:A", "rs2", newPopulationFrequency("1kG_phase3", "EUR"),
+                newPopulationFrequency("1kG_phase3", "ALL"));
+        PopulationFrequency populationFrequency = newPopulationFrequency("GNOMAD_EXOMES", "ALL");
+
+        byte[] value = merge(PopulationFrequencyIndexCodec.encode(variant), PopulationFrequencyIndexCodec.encode(otherVariant),
+                PopulationFrequencyIndexCodec.encode(Collections.singletonList(populationFrequency)));
+        Variant decodedVariant = PopulationFrequencyIndexCodec.decode(variant.toString().getBytes(), value);
+
+        // The first variant indexed is kept, with all the population frequencies of the entry
+        assertEquals(variant.toString(), decodedVariant.toString());
+        assertEquals(Collections.singletonList("rs1"), decodedVariant.getNames());
+        assertEquals("rs1", decodedVariant.getAnnotation().getId());
+        List<PopulationFrequency> expected = new ArrayList<>(variant.getAnnotation().getPopulationFrequencies());
+        expected.addAll(otherVariant.getAnnotation().getPopulationFrequencies());
+        expected.add(populationFrequency);
+        assertEquals(expected, decodedVariant.getAnnotation().getPopulationFrequencies());
+        assertNull(decodedVariant.getAnnotation().getAdditionalAttributes());
+
+        // Encoding does not modify the indexed variant
+        assertEquals(1, variant.getAnnotation().getPopulationFrequencies().size());
+    }
+
+    @Test
+    public void testVisited() throws IOException {
+        Variant variant = newVariant("1:10001:T:A", "rs1", newPopulationFrequency("GNOMAD_GENOMES", "AMR"));
+
+        // Visited operands can be merged several times and before or after the frequencies
+        byte[] value = merge(PopulationFrequencyIndexCodec.visitedOperand(), PopulationFrequencyIndexCodec.encode(variant),
+                PopulationFrequencyIndexCodec.visitedOperand());
+        Variant decodedVariant = PopulationFrequencyIndexCodec.decode(variant.toString().getBytes(), value);
+
+        assertEquals(Collections.singletonList("rs1"), decodedVariant.getNames());
+        assertEquals(variant.getAnnotation().getPopulationFrequencies(), decodedVariant.getAnnotation().getPopulationFrequencies());
+        assertEquals(Collections.emptyMap(), decodedVariant.getAnnotation().getAdditionalAttributes());
+    }
+
+    @Test
+    public void testUnexpectedOperand() {
+        assertThrows(IOException.class, () -> PopulationFrequencyIndexCodec.decode("1:10001:T:A".getBytes(), new byte[]{9}));
+    }
+
+    private byte[] merge(byte[]... operands) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int i = 0; i < operands.length; i++) {
+            if (i > 0) {
+                outputStream.write(DELIMITER);
+            }
+            outputStream.write(operands[i]);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Variant newVariant(String variantString, String name, PopulationFrequency... populationFrequencies) {
+        Variant variant = new Variant(variantString);
+        variant.setNames(Collections.singletonList(name));
+        VariantAnnotation variantAnnotation = new VariantAnnotation();
+        variantAnnotation.setId(name);
+        variantAnnotation.setPopulationFrequencies(new ArrayList<>(Arrays.asList(populationFrequencies)));
+        variant.setAnnotation(variantAnnotation);
+        return variant;
+    }
+
+    private PopulationFrequency newPopulationFrequency(String study, String population) {
+        return new PopulationFrequency(study, population, "T", "A", 0.98f, 0.02f, null, null, null, null, null, null, null,
+                null);
+    }
+}
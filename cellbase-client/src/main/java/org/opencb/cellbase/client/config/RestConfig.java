@@ -25,6 +25,24 @@ public class RestConfig {
 
     private List<String> hosts;
     private int timeout = 60000;
+    private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+    // Consecutive failures after which a host is ejected, and for how long
+    private int maxHostFailures = 3;
+    private int hostEjectionTime = 30000;
+    // Threads running the batches of large and async calls, and HTTP connections kept per host
+    private int numThreads = 4;
+    private int maxConnectionsPerHost = 20;
+    // Ask for gzip compressed responses, and for Smile (binary JSON) instead of JSON
+    private boolean compression = true;
+    private boolean smile = false;
+
+    /**
+     * How requests are spread across hosts: in turn, or to the host with fewest requests in flight.
+     */
+    public enum LoadBalancing {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING_REQUESTS
+    }
 
     public RestConfig() {
     }
@@ -39,6 +57,13 @@ public class RestConfig {
         final StringBuilder sb = new StringBuilder("RestConfig{");
         sb.append("hosts=").append(hosts);
         sb.append(", timeout=").append(timeout);
+        sb.append(", loadBalancing=").append(loadBalancing);
+        sb.append(", maxHostFailures=").append(maxHostFailures);
+        sb.append(", hostEjectionTime=").append(hostEjectionTime);
+        sb.append(", numThreads=").append(numThreads);
+        sb.append(", maxConnectionsPerHost=").append(maxConnectionsPerHost);
+        sb.append(", compression=").append(compression);
+        sb.append(", smile=").append(smile);
         sb.append('}');
         return sb.toString();
     }
@@ -60,4 +85,67 @@ public class RestConfig {
         this.timeout = timeout;
         return this;
     }
+
+    public LoadBalancing getLoadBalancing() {
+        return loadBalancing;
+    }
+
+    public RestConfig setLoadBalancing(LoadBalancing loadBalancing) {
+        this.loadBalancing = loadBalancing;
+        return this;
+    }
+
+    public int getMaxHostFailures() {
+        return maxHostFailures;
+    }
+
+    public RestConfig setMaxHostFailures(int maxHostFailures) {
+        this.maxHostFailures = maxHostFailures;
+        return this;
+    }
+
+    public int getHostEjectionTime() {
+        return hostEjectionTime;
+    }
+
+    public RestConfig setHostEjectionTime(int hostEjectionTime) {
+        this.hostEjectionTime = hostEjectionTime;
+        return this;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public RestConfig setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+        return this;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public RestConfig setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public RestConfig setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public boolean isSmile() {
+        return smile;
+    }
+
+    public RestConfig setSmile(boolean smile) {
+        this.smile = smile;
+        return this;
+    }
 }
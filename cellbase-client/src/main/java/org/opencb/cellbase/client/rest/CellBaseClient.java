@@ -35,6 +35,7 @@ public class CellBaseClient {
     private ClientConfiguration clientConfiguration;
 
     private final Map<String, ParentRestClient> clients;
+    private final ClientResources resources;
 
 
     public CellBaseClient(ClientConfiguration clientConfiguration) {
@@ -71,6 +72,7 @@ public class CellBaseClient {
                     + " when building a CellBase client and cannot be empty");
         }
         clients = new ConcurrentHashMap<>();
+        resources = new ClientResources(clientConfiguration);
 
     }
 
@@ -113,7 +115,28 @@ public class CellBaseClient {
     @SuppressWarnings("unchecked")
     private <T extends ParentRestClient> T getClient(String key, Supplier<T> constructorIfAbsent) {
         // Avoid concurrent modifications
-        return (T) clients.computeIfAbsent(key, s -> constructorIfAbsent.get());
+        return (T) clients.computeIfAbsent(key, s -> {
+            T client = constructorIfAbsent.get();
+            // All the clients share the same connection pool, executor and hosts
+            client.setResources(resources);
+            return client;
+        });
+    }
+
+    /**
+     * Returns the number of requests, failures, requests in flight, latency and ejection status of each CellBase host.
+     *
+     * @return map of statistics by host URL
+     */
+    public Map<String, Object> getHostStats() {
+        return resources.getHostBalancer().getStats();
+    }
+
+    /**
+     * Closes the HTTP connections and stops the executor shared by the clients. Async calls still pending will fail.
+     */
+    public void close() {
+        resources.close();
     }
 
 
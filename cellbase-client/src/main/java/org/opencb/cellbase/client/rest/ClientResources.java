@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.client.rest;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.message.DeflateEncoder;
+import org.glassfish.jersey.message.GZipEncoder;
+import org.opencb.cellbase.client.config.ClientConfiguration;
+import org.opencb.cellbase.client.config.RestConfig;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP client, connection pool, executor and host balancer shared by all the clients of a CellBaseClient. Connections
+ * are kept alive and reused across calls, batches of large calls and async calls run in the executor.
+ */
+final class ClientResources {
+
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private final Client client;
+    private final ExecutorService executorService;
+    private final HostBalancer hostBalancer;
+
+    ClientResources(ClientConfiguration configuration) {
+        RestConfig restConfig = configuration.getRest();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(restConfig.getMaxConnectionsPerHost());
+        connectionManager.setMaxTotal(restConfig.getMaxConnectionsPerHost() * restConfig.getHosts().size());
+        ClientConfig clientConfig = new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+                .property(ClientProperties.CONNECT_TIMEOUT, CONNECT_TIMEOUT)
+                .property(ClientProperties.READ_TIMEOUT, restConfig.getTimeout());
+        if (restConfig.isCompression()) {
+            // Sends Accept-Encoding and decodes gzip and deflate responses
+            clientConfig.register(GZipEncoder.class).register(DeflateEncoder.class).register(EncodingFilter.class);
+        }
+        this.client = ClientBuilder.newClient(clientConfig);
+
+        // Daemon threads, released when idle, so that a client that is never closed does not keep the JVM alive
+        int numThreads = Math.max(1, restConfig.getNumThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "cellbase-client-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+
+        this.hostBalancer = new HostBalancer(restConfig);
+    }
+
+    void close() {
+        executorService.shutdown();
+        client.close();
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    HostBalancer getHostBalancer() {
+        return hostBalancer;
+    }
+}
@@ -25,7 +25,6 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import javax.ws.rs.client.WebTarget;
 import java.io.IOException;
 import java.net.URI;
-import java.util.List;
 
 /**
  * Created by fjlopez on 07/07/17.
@@ -48,9 +47,9 @@ public class GenericClient extends ParentRestClient<ObjectMap> {
     }
 
     @Override
-    protected WebTarget getBaseUrl(List<String> hosts, String version) {
+    protected WebTarget getBaseUrl(String host, String version) {
          WebTarget webTarget = client
-                .target(URI.create(hosts.get(0)))
+                .target(URI.create(host))
                 .path(WEBSERVICES)
                 .path(REST)
                 .path(version);
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.client.rest;
+
+import org.opencb.cellbase.client.config.RestConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads the REST calls across the hosts of RestConfig, in turn or to the host with fewest requests in flight.
+ * A host failing RestConfig.maxHostFailures consecutive times is ejected for RestConfig.hostEjectionTime milliseconds,
+ * after that it is tried again and ejected at its first failure until one call succeeds. If all hosts are ejected the
+ * one to be back first is used. One balancer is shared by all the clients of a CellBaseClient.
+ */
+public class HostBalancer {
+
+    private final List<HostState> hosts;
+    private final RestConfig.LoadBalancing loadBalancing;
+    private final int maxHostFailures;
+    private final long ejectionTimeNanos;
+    private final AtomicInteger nextIndex;
+
+    private static Logger logger = LoggerFactory.getLogger(HostBalancer.class);
+
+    public HostBalancer(RestConfig restConfig) {
+        this.hosts = new ArrayList<>(restConfig.getHosts().size());
+        for (String host : restConfig.getHosts()) {
+            hosts.add(new HostState(host));
+        }
+        this.loadBalancing = restConfig.getLoadBalancing() != null
+                ? restConfig.getLoadBalancing()
+                : RestConfig.LoadBalancing.ROUND_ROBIN;
+        this.maxHostFailures = Math.max(1, restConfig.getMaxHostFailures());
+        this.ejectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(restConfig.getHostEjectionTime());
+        this.nextIndex = new AtomicInteger();
+    }
+
+    /**
+     * Picks the host of the next call, which must be released with {@link #release(String, long, boolean)}.
+     *
+     * @param excluded hosts already tried for this call, they are only picked if there is no other host
+     * @return host URL
+     */
+    public String acquire(Collection<String> excluded) {
+        long now = System.nanoTime();
+        int start = Math.floorMod(nextIndex.getAndIncrement(), hosts.size());
+        HostState selected = null;
+        HostState fallback = null;
+        for (int i = 0; i < hosts.size(); i++) {
+            HostState host = hosts.get((start + i) % hosts.size());
+            if (excluded != null && excluded.contains(host.url)) {
+                continue;
+            }
+            if (host.isEjected(now)) {
+                if (fallback == null || host.ejectedUntil - fallback.ejectedUntil < 0) {
+                    fallback = host;
+                }
+                continue;
+            }
+            if (loadBalancing == RestConfig.LoadBalancing.ROUND_ROBIN) {
+                selected = host;
+                break;
+            }
+            if (selected == null || host.outstanding.get() < selected.outstanding.get()) {
+                selected = host;
+            }
+        }
+
+        if (selected == null) {
+            selected = fallback != null ? fallback : hosts.get(start);
+        }
+        selected.outstanding.incrementAndGet();
+        return selected.url;
+    }
+
+    /**
+     * Records the outcome of a call. Hosts failing RestConfig.maxHostFailures consecutive times are ejected.
+     *
+     * @param url          host URL, as returned by acquire
+     * @param latencyNanos duration of the call
+     * @param success      false if the host could not be reached or replied with a gateway or unavailable error
+     */
+    public void release(String url, long latencyNanos, boolean success) {
+        HostState host = getHost(url);
+        if (host == null) {
+            return;
+        }
+        host.outstanding.decrementAndGet();
+        host.requests.increment();
+        host.latencyNanos.add(latencyNanos);
+        host.maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        if (success) {
+            host.consecutiveFailures.set(0);
+        } else {
+            host.failures.increment();
+            if (host.consecutiveFailures.incrementAndGet() >= maxHostFailures) {
+                synchronized (host) {
+                    if (!host.isEjected(System.nanoTime())) {
+                        host.ejectedUntil = System.nanoTime() + ejectionTimeNanos;
+                        host.ejected = true;
+                        host.ejections.increment();
+                        logger.warn("CellBase host {} ejected for {} ms after {} consecutive failures", url,
+                                TimeUnit.NANOSECONDS.toMillis(ejectionTimeNanos), host.consecutiveFailures.get());
+                    }
+                }
+            }
+        }
+    }
+
+    public int getNumHosts() {
+        return hosts.size();
+    }
+
+    /**
+     * Returns the number of requests, failures, requests in flight, latency and ejection status of each host.
+     *
+     * @return map of statistics by host URL
+     */
+    public Map<String, Object> getStats() {
+        long now = System.nanoTime();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (HostState host : hosts) {
+            Map<String, Object> hostStats = new LinkedHashMap<>();
+            long numRequests = host.requests.sum();
+            hostStats.put("requests", numRequests);
+            hostStats.put("failures", host.failures.sum());
+            hostStats.put("outstanding", host.outstanding.get());
+            hostStats.put("meanLatencyMillis", numRequests == 0
+                    ? 0
+                    : (double) TimeUnit.NANOSECONDS.toMicros(host.latencyNanos.sum()) / numRequests / 1000);
+            hostStats.put("maxLatencyMillis", TimeUnit.NANOSECONDS.toMillis(host.maxLatencyNanos.get()));
+            hostStats.put("ejected", host.isEjected(now));
+            hostStats.put("ejections", host.ejections.sum());
+            stats.put(host.url, hostStats);
+        }
+        return stats;
+    }
+
+    private HostState getHost(String url) {
+        for (HostState host : hosts) {
+            if (host.url.equals(url)) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    private static class HostState {
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder ejections = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        // System.nanoTime() at which the ejection ends, only meaningful if ejected
+        private volatile long ejectedUntil;
+        private volatile boolean ejected;
+
+        HostState(String url) {
+            this.url = url;
+        }
+
+        boolean isEjected(long now) {
+            return ejected && ejectedUntil - now > 0;
+        }
+    }
+}
@@ -27,7 +27,6 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import javax.ws.rs.client.WebTarget;
 import java.io.IOException;
 import java.net.URI;
-import java.util.List;
 
 /**
  * Created by fjlopez on 06/07/17.
@@ -68,9 +67,9 @@ public class MetaClient extends ParentRestClient<ObjectMap> {
     }
 
     @Override
-    protected WebTarget getBaseUrl(List<String> hosts, String version) {
+    protected WebTarget getBaseUrl(String host, String version) {
         return client
-                .target(URI.create(hosts.get(0)))
+                .target(URI.create(host))
                 .path(WEBSERVICES)
                 .path(REST)
                 .path(version)
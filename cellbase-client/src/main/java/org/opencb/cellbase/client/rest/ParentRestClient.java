@@ -18,14 +18,18 @@ package org.opencb.cellbase.client.rest;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.client.ClientProperties;
 import org.opencb.biodata.models.variant.avro.ConsequenceType;
 import org.opencb.biodata.models.variant.avro.DrugResponseClassification;
 import org.opencb.biodata.models.variant.avro.GeneCancerAssociation;
@@ -44,17 +48,19 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static org.opencb.cellbase.core.ParamConstants.*;
 
@@ -67,7 +73,7 @@ public class ParentRestClient<T> {
     protected final String assembly;
     protected final String dataRelease;
     protected final String apiKey;
-    protected final Client client;
+    protected Client client;
 
     // TODO: Should this be final?
     protected String category;
@@ -76,8 +82,10 @@ public class ParentRestClient<T> {
     protected Class<T> clazz;
 
     protected final ClientConfiguration configuration;
+    private volatile ClientResources resources;
 
     protected static ObjectMapper jsonObjectMapper;
+    protected static ObjectMapper smileObjectMapper;
     protected final Logger logger;
 
     public static final int LIMIT = 10;
@@ -108,12 +116,6 @@ public class ParentRestClient<T> {
         this.apiKey = apiKey;
         this.configuration = configuration;
         logger = LoggerFactory.getLogger(this.getClass().toString());
-
-        this.client = ClientBuilder.newClient();
-        client.property(ClientProperties.CONNECT_TIMEOUT, 1000);
-        client.property(ClientProperties.READ_TIMEOUT, configuration.getRest().getTimeout());
-
-        logger.debug("Configure read timeout : " + configuration.getRest().getTimeout() + "ms");
     }
 
     public String getSpecies() {
@@ -132,15 +134,26 @@ public class ParentRestClient<T> {
         return apiKey;
     }
 
+    void setResources(ClientResources resources) {
+        // The client is assigned before the volatile resources, a thread seeing the resources also sees the client
+        this.client = resources.getClient();
+        this.resources = resources;
+    }
+
     static {
-        jsonObjectMapper = new ObjectMapper();
-        jsonObjectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        jsonObjectMapper.addMixIn(DrugResponseClassification.class, DrugResponseClassificationMixIn.class);
-        jsonObjectMapper.addMixIn(CellBaseDataResponse.class, CellBaseDataResponseMixIn.class);
-        jsonObjectMapper.addMixIn(CellBaseDataResult.class, CellBaseDataResultMixIn.class);
-        jsonObjectMapper.addMixIn(VariantAnnotation.class, VariantAnnotationMixin.class);
-        jsonObjectMapper.addMixIn(ConsequenceType.class, ConsequenceTypeMixin.class);
+        jsonObjectMapper = createObjectMapper(new JsonFactory());
+        smileObjectMapper = createObjectMapper(new SmileFactory());
+    }
 
+    private static ObjectMapper createObjectMapper(JsonFactory jsonFactory) {
+        ObjectMapper objectMapper = new ObjectMapper(jsonFactory);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.addMixIn(DrugResponseClassification.class, DrugResponseClassificationMixIn.class);
+        objectMapper.addMixIn(CellBaseDataResponse.class, CellBaseDataResponseMixIn.class);
+        objectMapper.addMixIn(CellBaseDataResult.class, CellBaseDataResultMixIn.class);
+        objectMapper.addMixIn(VariantAnnotation.class, VariantAnnotationMixin.class);
+        objectMapper.addMixIn(ConsequenceType.class, ConsequenceTypeMixin.class);
+        return objectMapper;
     }
 
     // These methods keep backwark compatability with CellBase 4.x
@@ -242,59 +255,123 @@ public class ParentRestClient<T> {
             return fetchData(idList, resource, options, clazz, post);
         }
 
-        // But if there are more than REST_CALL_BATCH_SIZE variants then we launch several threads to increase performance.
-        int numThreads = (options != null)
-                ? options.getInt("numThreads", DEFAULT_NUM_THREADS)
-                : DEFAULT_NUM_THREADS;
+        // But if there are more than REST_CALL_BATCH_SIZE variants then the batches run in parallel in the shared executor
+        try {
+            return executeAsync(idList, resource, options, clazz, post).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
 
-        // TODO: Use cached thread pool
-        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
-        List<Future<CellBaseDataResponse<U>>> futureList = new ArrayList<>((idList.size() / REST_CALL_BATCH_SIZE) + 1);
-        for (int i = 0; i < idList.size(); i += REST_CALL_BATCH_SIZE) {
-            final int from = i;
-            final int to = (from + REST_CALL_BATCH_SIZE > idList.size())
-                    ? idList.size()
-                    : from + REST_CALL_BATCH_SIZE;
-            futureList.add(executorService.submit(() ->
-                    fetchData(idList.subList(from, to), resource, options, clazz, post)
-            ));
+    /**
+     * Asynchronous version of execute. Ids are split in batches of REST_CALL_BATCH_SIZE that are fetched in the executor
+     * shared by all the clients of the CellBaseClient, so the caller can keep on sending calls while these are running.
+     *
+     * @param idList    ids
+     * @param resource  resource
+     * @param options   query options
+     * @param clazz     class of the results
+     * @param post      whether to use POST instead of GET
+     * @param <U>       type of the results
+     * @return future completed with one CellBaseDataResult per id, in the same order, or completed exceptionally with the
+     * IOException or WebApplicationException raised by the calls
+     */
+    protected <U> CompletableFuture<CellBaseDataResponse<U>> executeAsync(List<String> idList, String resource, QueryOptions options,
+                                                                          Class<U> clazz, boolean post) {
+        if (idList == null || idList.isEmpty()) {
+            return CompletableFuture.completedFuture(new CellBaseDataResponse<>());
         }
 
-        List<CellBaseDataResult<U>> cellBaseDataResults = new ArrayList<>(idList.size());
-        for (Future<CellBaseDataResponse<U>> responseFuture : futureList) {
-            try {
-                while (!responseFuture.isDone()) {
-                    Thread.sleep(5);
+        try {
+            lazyInit();
+        } catch (IOException e) {
+            CompletableFuture<CellBaseDataResponse<U>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        List<CompletableFuture<CellBaseDataResponse<U>>> futureList = new ArrayList<>((idList.size() / REST_CALL_BATCH_SIZE) + 1);
+        for (int i = 0; i < idList.size(); i += REST_CALL_BATCH_SIZE) {
+            List<String> batch = idList.subList(i, Math.min(i + REST_CALL_BATCH_SIZE, idList.size()));
+            futureList.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchData(batch, resource, options, clazz, post);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
                 }
-                cellBaseDataResults.addAll(responseFuture.get().getResponses());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new IOException(e);
-            } catch (ExecutionException e) {
-                throw new IOException(e);
+            }, resources.getExecutorService()));
+        }
+
+        if (futureList.size() == 1) {
+            return futureList.get(0);
+        }
+        return CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<CellBaseDataResult<U>> cellBaseDataResults = new ArrayList<>(idList.size());
+            for (CompletableFuture<CellBaseDataResponse<U>> future : futureList) {
+                cellBaseDataResults.addAll(future.join().getResponses());
             }
+            CellBaseDataResponse<U> finalResponse = new CellBaseDataResponse<>();
+            finalResponse.setResponses(cellBaseDataResults);
+            return finalResponse;
+        });
+    }
+
+    /**
+     * Streaming version of execute for calls with large results, e.g. the annotation of many variants. The
+     * CellBaseDataResult of each id is handed to the consumer as soon as it is decoded, in the order of the ids, so
+     * memory use does not grow with the number of ids. Ids are sent in batches of REST_CALL_BATCH_SIZE, one after the
+     * other, from the calling thread. Unlike execute, ids with more results than the limit are not queried again for the
+     * next pages, and failed calls are not split to skip the problematic ids.
+     *
+     * @param idList    ids
+     * @param resource  resource
+     * @param options   query options
+     * @param clazz     class of the results
+     * @param post      whether to use POST instead of GET
+     * @param consumer  receives the CellBaseDataResult of each id
+     * @param <U>       type of the results
+     * @throws IOException if a response cannot be decoded
+     */
+    protected <U> void executeStream(List<String> idList, String resource, QueryOptions options, Class<U> clazz, boolean post,
+                                     Consumer<CellBaseDataResult<U>> consumer) throws IOException {
+        if (idList == null || idList.isEmpty()) {
+            return;
         }
 
-        CellBaseDataResponse<U> finalResponse = new CellBaseDataResponse<>();
-        finalResponse.setResponses(cellBaseDataResults);
-        executorService.shutdown();
+        lazyInit();
 
-        return finalResponse;
+        QueryOptions queryOptions = options == null ? new QueryOptions() : new QueryOptions(options);
+        if (!queryOptions.containsKey(QueryOptions.LIMIT)) {
+            queryOptions.put(QueryOptions.LIMIT, LIMIT);
+        }
+        for (int i = 0; i < idList.size(); i += REST_CALL_BATCH_SIZE) {
+            List<String> batch = idList.subList(i, Math.min(i + REST_CALL_BATCH_SIZE, idList.size()));
+            int numResults = restCall(configuration.getVersion(), StringUtils.join(batch, ','), resource, queryOptions, post,
+                    (inputStream, objectMapper) -> parseResults(inputStream, objectMapper, clazz, consumer));
+            if (numResults != batch.size()) {
+                logger.warn("DataResponse size (" + numResults + ") != id list size (" + batch.size() + ").");
+            }
+        }
     }
 
     private <U> CellBaseDataResponse<U> fetchData(List<String> idList, String resource, QueryOptions options, Class<U> clazz,
                                            boolean post) throws IOException {
 
-        if (options == null) {
-            options = new QueryOptions();
-        }
+        // Do not modify input QueryOptions! Batches of the same call run concurrently with their own skip
+        options = options == null ? new QueryOptions() : new QueryOptions(options);
         int limit;
         if (options.containsKey(QueryOptions.LIMIT)) {
             limit = options.getInt(QueryOptions.LIMIT);
         } else {
             limit = LIMIT;
-            // Do not modify input QueryOptions!
-            options = new QueryOptions(options);
             options.put(QueryOptions.LIMIT, limit);
         }
 
@@ -374,8 +451,7 @@ public class ParentRestClient<T> {
         boolean queryError = false;
         CellBaseDataResponse<U> queryResponse;
         try {
-            queryResponse = restCall(configuration.getRest().getHosts(), configuration.getVersion(),
-                    ids, resource, queryOptions, clazz, post);
+            queryResponse = restCall(configuration.getVersion(), ids, resource, queryOptions, clazz, post);
             if (queryResponse == null) {
                 logger.warn("CellBase REST fail. Returned null for ids {}. hosts: {}, version: {}, "
                                 + "category: {}, subcategory: {}, resource: {}, queryOptions: {}",
@@ -435,10 +511,88 @@ public class ParentRestClient<T> {
         return queryResponse;
     }
 
-    private <U> CellBaseDataResponse<U> restCall(List<String> hosts, String version, String ids, String resource, QueryOptions queryOptions,
-                                          Class<U> clazz, boolean post) throws IOException {
+    private <U> CellBaseDataResponse<U> restCall(String version, String ids, String resource, QueryOptions queryOptions,
+                                                 Class<U> clazz, boolean post) throws IOException {
+        return restCall(version, ids, resource, queryOptions, post,
+                (inputStream, objectMapper) -> parseResult(inputStream, objectMapper, clazz));
+    }
+
+    /**
+     * Makes the REST call and decodes the response body as it is received.
+     *
+     * @param version       CellBase version
+     * @param ids           comma-separated ids
+     * @param resource      resource
+     * @param queryOptions  query options
+     * @param post          whether to use POST instead of GET
+     * @param bodyReader    decodes the response body
+     * @param <R>           type returned by the body reader
+     * @return value returned by the body reader
+     * @throws IOException if the response cannot be decoded
+     */
+    private <R> R restCall(String version, String ids, String resource, QueryOptions queryOptions, boolean post,
+                           BodyReader<R> bodyReader) throws IOException {
+        // Calls failing because the host is down or overloaded are retried once on each of the other hosts. Once the
+        // response body is being decoded the call is not retried, part of it may have already been handed to the caller
+        HostBalancer hostBalancer = resources.getHostBalancer();
+        List<String> triedHosts = new ArrayList<>(hostBalancer.getNumHosts());
+        while (true) {
+            String host = hostBalancer.acquire(triedHosts);
+            triedHosts.add(host);
+            long startTime = System.nanoTime();
+            Response response;
+            try {
+                response = call(getBaseUrl(host, version), ids, resource, queryOptions, post);
+            } catch (javax.ws.rs.ProcessingException | WebApplicationException e) {
+                boolean hostFailure = isHostFailure(e);
+                hostBalancer.release(host, System.nanoTime() - startTime, !hostFailure);
+                if (!hostFailure || triedHosts.size() >= hostBalancer.getNumHosts()) {
+                    throw e;
+                }
+                logger.warn("CellBase REST call to host {} failed, retrying on another host. Exception message: {}", host,
+                        e.getMessage());
+                continue;
+            }
 
-        WebTarget path = getBaseUrl(hosts, version);
+            boolean hostFailure = false;
+            // Server versions without Smile support reply with JSON
+            ObjectMapper objectMapper = isSmile(response.getMediaType()) ? smileObjectMapper : jsonObjectMapper;
+            try (InputStream inputStream = response.readEntity(InputStream.class)) {
+                return bodyReader.read(inputStream, objectMapper);
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                // Connection lost or timed out while reading, handled as the errors raised by the JAX-RS client
+                hostFailure = true;
+                throw new javax.ws.rs.ProcessingException(e);
+            } finally {
+                response.close();
+                hostBalancer.release(host, System.nanoTime() - startTime, !hostFailure);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<R> {
+        R read(InputStream inputStream, ObjectMapper objectMapper) throws IOException;
+    }
+
+    private static boolean isSmile(MediaType mediaType) {
+        return mediaType != null && SMILE_MEDIA_TYPE.equals(mediaType.getType() + "/" + mediaType.getSubtype());
+    }
+
+    private static boolean isHostFailure(RuntimeException e) {
+        if (e instanceof WebApplicationException) {
+            int status = ((WebApplicationException) e).getResponse().getStatus();
+            return status == Response.Status.BAD_GATEWAY.getStatusCode()
+                    || status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+                    || status == Response.Status.GATEWAY_TIMEOUT.getStatusCode();
+        }
+        // Connection refused, timeouts, ...
+        return true;
+    }
+
+    private Response call(WebTarget path, String ids, String resource, QueryOptions queryOptions, boolean post) throws IOException {
 
         WebTarget callUrl = path;
         if (ids != null && !ids.isEmpty() && !post) {
@@ -474,19 +628,32 @@ public class ParentRestClient<T> {
             }
         }
 
-        String jsonString;
+        // Resources are declared to produce JSON or text, so any type is still accepted to avoid a 406 from the server
+        Invocation.Builder request = configuration.getRest().isSmile()
+                ? callUrl.request().accept(SMILE_MEDIA_TYPE, MediaType.APPLICATION_JSON + ";q=0.9", MediaType.WILDCARD + ";q=0.8")
+                : callUrl.request();
+        Response response;
         if (post) {
             logger.debug("Making POST call to REST URL: {}", callUrl.getUri().toURL());
-            jsonString = callUrl.request().post(Entity.text(ids), String.class);
+            response = request.post(Entity.text(ids));
         } else {
             logger.debug("Making GET call to REST URL: {}", callUrl.getUri().toURL());
-            jsonString = callUrl.request().get(String.class);
+            response = request.get();
         }
-
-        return parseResult(jsonString, clazz);
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            response.close();
+            throw new WebApplicationException("HTTP " + response.getStatus() + " " + response.getStatusInfo().getReasonPhrase(),
+                    response);
+        }
+        return response;
     }
 
     private void lazyInit() throws IOException {
+        // Clients not created by a CellBaseClient get their own resources
+        if (resources == null) {
+            initResources();
+        }
+
         // Lazy init other variables.
         if (apiKey != null) {
             String serverVersion = getServerVersion();
@@ -500,6 +667,12 @@ public class ParentRestClient<T> {
         }
     }
 
+    private synchronized void initResources() {
+        if (resources == null) {
+            setResources(new ClientResources(configuration));
+        }
+    }
+
     /**
      * Get CellBase server version.
      * @return CellBase full version
@@ -514,14 +687,20 @@ public class ParentRestClient<T> {
 
     private synchronized void initServerVersion() throws IOException {
         if (serverVersion == null) {
-            ObjectMap about = new MetaClient(species, assembly, dataRelease, null, configuration).about().firstResult();
+            // The server version can be requested before any query
+            if (resources == null) {
+                initResources();
+            }
+            MetaClient metaClient = new MetaClient(species, assembly, dataRelease, null, configuration);
+            metaClient.setResources(resources);
+            ObjectMap about = metaClient.about().firstResult();
             serverVersion = about.getString("Version");
         }
     }
 
-    protected WebTarget getBaseUrl(List<String> hosts, String version) {
+    protected WebTarget getBaseUrl(String host, String version) {
         return client
-                    .target(URI.create(hosts.get(0)))
+                    .target(URI.create(host))
                     .path(WEBSERVICES)
                     .path(REST)
                     .path(version)
@@ -530,11 +709,50 @@ public class ParentRestClient<T> {
                     .path(subcategory);
     }
 
-    private static <U> CellBaseDataResponse<U> parseResult(String json, Class<U> clazz) throws IOException {
-        ObjectReader reader = jsonObjectMapper
-                .readerFor(jsonObjectMapper.getTypeFactory().constructParametrizedType(CellBaseDataResponse.class,
+    private static <U> CellBaseDataResponse<U> parseResult(InputStream inputStream, ObjectMapper objectMapper, Class<U> clazz)
+            throws IOException {
+        ObjectReader reader = objectMapper
+                .readerFor(objectMapper.getTypeFactory().constructParametrizedType(CellBaseDataResponse.class,
                         CellBaseDataResult.class, clazz));
-        return reader.readValue(json);
+        return reader.readValue(inputStream);
+    }
+
+    /**
+     * Decodes the CellBaseDataResults of a CellBaseDataResponse one at a time, only one of them is in memory at once.
+     * The other fields of the response are skipped.
+     *
+     * @param inputStream   response body
+     * @param objectMapper  object mapper of the response media type
+     * @param clazz         class of the results
+     * @param consumer      receives each CellBaseDataResult as soon as it is decoded
+     * @param <U>           type of the results
+     * @return number of CellBaseDataResults decoded
+     * @throws IOException if the response cannot be decoded
+     */
+    static <U> int parseResults(InputStream inputStream, ObjectMapper objectMapper, Class<U> clazz,
+                                Consumer<CellBaseDataResult<U>> consumer) throws IOException {
+        ObjectReader reader = objectMapper
+                .readerFor(objectMapper.getTypeFactory().constructParametricType(CellBaseDataResult.class, clazz));
+        int numResults = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "CellBaseDataResponse expected");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                // 'response' was used by CellBase 4.x
+                if (token == JsonToken.START_ARRAY && ("responses".equals(fieldName) || "response".equals(fieldName))) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        consumer.accept(reader.readValue(parser));
+                        numResults++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return numResults;
     }
 
 }
@@ -33,6 +33,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.opencb.cellbase.core.variant.AnnotationBasedPhasedQueryManager.GENOTYPE_TAG;
 import static org.opencb.cellbase.core.variant.AnnotationBasedPhasedQueryManager.PHASE_SET_TAG;
@@ -110,6 +112,45 @@ public final class VariantClient extends FeatureClient<Variant> {
     }
 
 
+    public CompletableFuture<CellBaseDataResponse<VariantAnnotation>> getAnnotationAsync(List<Variant> variants, QueryOptions options) {
+        return getAnnotationAsync(variants, options, false);
+    }
+
+    /**
+     * Asynchronous version of getAnnotation. Calls run in the executor shared by the clients of the CellBaseClient, so
+     * several blocks of variants can be annotated at the same time from one thread.
+     *
+     * @param variants  variants to annotate
+     * @param options   query options
+     * @param post      whether to use POST instead of GET
+     * @return future completed with one annotation result per variant, in the same order
+     */
+    public CompletableFuture<CellBaseDataResponse<VariantAnnotation>> getAnnotationAsync(List<Variant> variants, QueryOptions options,
+                                                                                         boolean post) {
+        return executeAsync(getVariantAnnotationIds(variants, options.getBoolean(IGNORE_PHASE)), "annotation", options,
+                VariantAnnotation.class, post)
+                .thenApply(this::initRequiredAnnotation);
+    }
+
+    /**
+     * Streaming version of getAnnotation. The annotation result of each variant is handed to the consumer as soon as it
+     * is decoded, in the order of the variants, without keeping the whole response in memory.
+     *
+     * @param variants  variants to annotate
+     * @param options   query options
+     * @param post      whether to use POST instead of GET
+     * @param consumer  receives the annotation result of each variant
+     * @throws IOException if a response cannot be decoded
+     */
+    public void getAnnotation(List<Variant> variants, QueryOptions options, boolean post,
+                              Consumer<CellBaseDataResult<VariantAnnotation>> consumer) throws IOException {
+        executeStream(getVariantAnnotationIds(variants, options.getBoolean(IGNORE_PHASE)), "annotation", options,
+                VariantAnnotation.class, post, result -> {
+                    initRequiredAnnotation(result.first());
+                    consumer.accept(result);
+                });
+    }
+
     // FIXME Next two methods should be moved near the Variant Annotation tool
     public String getVariantAnnotationId(Variant variant, Boolean ignorePhase) {
         StringBuilder stringBuilder = new StringBuilder(variant.toString());
@@ -162,48 +203,53 @@ public final class VariantClient extends FeatureClient<Variant> {
 
     private CellBaseDataResponse<VariantAnnotation> initRequiredAnnotation(CellBaseDataResponse<VariantAnnotation> queryResponse) {
         for (int i = 0; i < queryResponse.getResponses().size(); i++) {
-            VariantAnnotation annotation = queryResponse.getResponses().get(i).first();
-            // It can happen that no annotation is returned for variants that could not be parsed and raised problems
-            // e.g. 1:645710:A:<INS:ME:ALU>
-            if (annotation != null) {
-                // Patch to remove by updating the Evidence avdl model
-                if (annotation.getTraitAssociation() != null) {
-                    for (EvidenceEntry evidenceEntry : annotation.getTraitAssociation()) {
-                        if (evidenceEntry.getSubmissions() == null) {
-                            evidenceEntry.setSubmissions(Collections.emptyList());
-                        }
-                        if (evidenceEntry.getHeritableTraits() == null) {
-                            evidenceEntry.setHeritableTraits(Collections.emptyList());
-                        } else {
-                            for (HeritableTrait heritableTrait : evidenceEntry.getHeritableTraits()) {
-                                if (heritableTrait.getInheritanceMode() == null) {
-                                    heritableTrait.setInheritanceMode(ModeOfInheritance.unknown);
-                                }
+            initRequiredAnnotation(queryResponse.getResponses().get(i).first());
+        }
+        return queryResponse;
+    }
+
+    private static void initRequiredAnnotation(VariantAnnotation annotation) {
+        // It can happen that no annotation is returned for variants that could not be parsed and raised problems
+        // e.g. 1:645710:A:<INS:ME:ALU>
+        if (annotation != null) {
+            // Patch to remove by updating the Evidence avdl model
+            if (annotation.getTraitAssociation() != null) {
+                for (EvidenceEntry evidenceEntry : annotation.getTraitAssociation()) {
+                    if (evidenceEntry.getSubmissions() == null) {
+                        evidenceEntry.setSubmissions(Collections.emptyList());
+                    }
+                    if (evidenceEntry.getHeritableTraits() == null) {
+                        evidenceEntry.setHeritableTraits(Collections.emptyList());
+                    } else {
+                        for (HeritableTrait heritableTrait : evidenceEntry.getHeritableTraits()) {
+                            if (heritableTrait.getInheritanceMode() == null) {
+                                heritableTrait.setInheritanceMode(ModeOfInheritance.unknown);
                             }
                         }
-                        if (evidenceEntry.getGenomicFeatures() == null) {
-                            evidenceEntry.setGenomicFeatures(Collections.emptyList());
-                        }
-                        if (evidenceEntry.getAdditionalProperties() == null) {
-                            evidenceEntry.setAdditionalProperties(Collections.emptyList());
-                        }
-                        if (evidenceEntry.getEthnicity() == null) {
-                            evidenceEntry.setEthnicity(EthnicCategory.Z);
-                        }
-                        if (evidenceEntry.getBibliography() == null) {
-                            evidenceEntry.setBibliography(Collections.emptyList());
+                    }
+                    if (evidenceEntry.getGenomicFeatures() == null) {
+                        evidenceEntry.setGenomicFeatures(Collections.emptyList());
+                    }
+                    if (evidenceEntry.getAdditionalProperties() == null) {
+                        evidenceEntry.setAdditionalProperties(Collections.emptyList());
+                    }
+                    if (evidenceEntry.getEthnicity() == null) {
+                        evidenceEntry.setEthnicity(EthnicCategory.Z);
+                    }
+                    if (evidenceEntry.getBibliography() == null) {
+                        evidenceEntry.setBibliography(Collections.emptyList());
+                    }
+                    if (evidenceEntry.getSomaticInformation() != null) {
+                        if (evidenceEntry.getSomaticInformation().getSampleSource() == null) {
+                            evidenceEntry.getSomaticInformation().setSampleSource("");
                         }
-                        if (evidenceEntry.getSomaticInformation() != null) {
-                            if (evidenceEntry.getSomaticInformation().getSampleSource() == null) {
-                                evidenceEntry.getSomaticInformation().setSampleSource("");
-                            }
-                            if (evidenceEntry.getSomaticInformation().getTumourOrigin() == null) {
-                                evidenceEntry.getSomaticInformation().setTumourOrigin("");
-                            }
+                        if (evidenceEntry.getSomaticInformation().getTumourOrigin() == null) {
+                            evidenceEntry.getSomaticInformation().setTumourOrigin("");
                         }
                     }
                 }
-                // TODO This data model is obsolete, this code must be removed
+            }
+            // TODO This data model is obsolete, this code must be removed
 //                if (annotation.getVariantTraitAssociation() != null) {
 //                    if (annotation.getVariantTraitAssociation().getCosmic() != null) {
 //                        for (Cosmic cosmic : annotation.getVariantTraitAssociation().getCosmic()) {
@@ -228,9 +274,7 @@ public final class VariantClient extends FeatureClient<Variant> {
 //                        }
 //                    }
 //                }
-            }
         }
-        return queryResponse;
     }
 
     public CellBaseDataResponse<String> getAllConsequenceTypes(Query query) throws IOException {
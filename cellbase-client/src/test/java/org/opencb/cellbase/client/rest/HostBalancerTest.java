@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.client.rest;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.cellbase.client.config.RestConfig;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class HostBalancerTest {
+
+    private static final List<String> HOSTS = Arrays.asList("http://host1", "http://host2", "http://host3");
+
+    @Test
+    public void roundRobin() {
+        HostBalancer hostBalancer = new HostBalancer(new RestConfig(HOSTS, 1000));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            String host = hostBalancer.acquire(null);
+            counts.merge(host, 1, Integer::sum);
+            hostBalancer.release(host, 1000, true);
+        }
+        for (String host : HOSTS) {
+            assertEquals(10, counts.get(host).intValue());
+        }
+    }
+
+    @Test
+    public void leastOutstandingRequests() {
+        HostBalancer hostBalancer = new HostBalancer(new RestConfig(HOSTS, 1000)
+                .setLoadBalancing(RestConfig.LoadBalancing.LEAST_OUTSTANDING_REQUESTS));
+        // Requests kept in flight on the first two hosts, the third one must be picked
+        String busy1 = hostBalancer.acquire(null);
+        String busy2 = hostBalancer.acquire(Collections.singletonList(busy1));
+        for (int i = 0; i < 5; i++) {
+            String host = hostBalancer.acquire(null);
+            assertNotEquals(busy1, host);
+            assertNotEquals(busy2, host);
+            hostBalancer.release(host, 1000, true);
+        }
+    }
+
+    @Test
+    public void ejection() {
+        HostBalancer hostBalancer = new HostBalancer(new RestConfig(HOSTS, 1000).setMaxHostFailures(2).setHostEjectionTime(60000));
+        for (int i = 0; i < 2; i++) {
+            String host = hostBalancer.acquire(Arrays.asList("http://host2", "http://host3"));
+            assertEquals("http://host1", host);
+            hostBalancer.release(host, 1000, false);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            String host = hostBalancer.acquire(null);
+            assertNotEquals("http://host1", host);
+            hostBalancer.release(host, 1000, true);
+        }
+        // The ejected host is only used if all the other hosts have been tried
+        assertEquals("http://host1", hostBalancer.acquire(Arrays.asList("http://host2", "http://host3")));
+
+        Map<String, Object> host1Stats = (Map<String, Object>) hostBalancer.getStats().get("http://host1");
+        assertEquals(true, host1Stats.get("ejected"));
+        assertEquals(1L, host1Stats.get("ejections"));
+        assertEquals(2L, host1Stats.get("failures"));
+    }
+}
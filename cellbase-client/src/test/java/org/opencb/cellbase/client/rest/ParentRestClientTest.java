@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.client.rest;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.commons.datastore.core.ObjectMap;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParentRestClientTest {
+
+    @Test
+    public void parseResults() throws Exception {
+        String json = "{\"apiVersion\":\"v5\",\"time\":10,\"events\":[{\"type\":\"INFO\",\"message\":\"m\"}],"
+                + "\"params\":{\"limit\":10},"
+                + "\"responses\":[{\"id\":\"1:100:A:T\",\"numResults\":1,\"results\":[{\"a\":1}]},"
+                + "{\"id\":\"1:200:C:G\",\"numResults\":2,\"results\":[{\"a\":2},{\"a\":{\"b\":[3]}}]}],\"numResults\":2}";
+        List<CellBaseDataResult<ObjectMap>> results = new ArrayList<>();
+        int numResults = ParentRestClient.parseResults(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                ParentRestClient.jsonObjectMapper, ObjectMap.class, results::add);
+
+        assertEquals(2, numResults);
+        assertEquals(2, results.size());
+        assertEquals("1:100:A:T", results.get(0).getId());
+        assertEquals(1, results.get(0).first().getInt("a"));
+        assertEquals("1:200:C:G", results.get(1).getId());
+        assertEquals(2, results.get(1).getResults().size());
+    }
+
+    @Test
+    public void parseResultsCellBase4() throws Exception {
+        String json = "{\"response\":[{\"id\":\"BRCA2\",\"result\":[{\"a\":1}]}]}";
+        List<CellBaseDataResult<ObjectMap>> results = new ArrayList<>();
+        ParentRestClient.parseResults(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                ParentRestClient.jsonObjectMapper, ObjectMap.class, results::add);
+
+        assertEquals(1, results.size());
+        assertEquals(1, results.get(0).getResults().size());
+    }
+
+    @Test
+    public void parseResultsSmile() throws Exception {
+        String json = "{\"time\":10,\"responses\":[{\"id\":\"BRCA2\",\"numResults\":1,\"results\":[{\"a\":1}]}]}";
+        byte[] smile = ParentRestClient.smileObjectMapper.writeValueAsBytes(ParentRestClient.jsonObjectMapper.readTree(json));
+        List<CellBaseDataResult<ObjectMap>> results = new ArrayList<>();
+        ParentRestClient.parseResults(new ByteArrayInputStream(smile), ParentRestClient.smileObjectMapper, ObjectMap.class,
+                results::add);
+
+        assertEquals(1, results.size());
+        assertEquals("BRCA2", results.get(0).getId());
+        assertEquals(1, results.get(0).first().getInt("a"));
+    }
+}
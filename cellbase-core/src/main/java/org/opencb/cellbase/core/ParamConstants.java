@@ -122,6 +122,9 @@ public class ParamConstants {
     // For backward-compatibility, from v5.7 "token" is not used anymore
     public static final String TOKEN_PARAM = "token";
 
+    // Binary JSON, returned instead of JSON when requested in the Accept header
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
 
     public static final String DEFAULT_ASSEMBLY = "grch38";
     public static final String ASSEMBLY_DESCRIPTION = "Set the reference genome assembly, e.g. grch38. For a full list of "
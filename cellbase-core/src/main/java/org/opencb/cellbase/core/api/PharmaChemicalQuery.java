@@ -70,10 +70,6 @@ public class PharmaChemicalQuery extends AbstractQuery {
 
     public PharmaChemicalQuery(Map<String, String> params) throws QueryException {
         super(params);
-
-        objectMapper.readerForUpdating(this);
-        objectMapper.readerFor(PharmaChemicalQuery.class);
-        objectWriter = objectMapper.writerFor(PharmaChemicalQuery.class);
     }
 
     @Override
@@ -17,20 +17,14 @@
 package org.opencb.cellbase.core.api.query;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.reflect.FieldUtils;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.util.*;
 
 import static org.opencb.cellbase.core.ParamConstants.API_KEY_PARAM;
@@ -41,21 +35,15 @@ import static org.opencb.cellbase.core.ParamConstants.DATA_RELEASE_PARAM;
  */
 public abstract class AbstractQuery extends CellBaseQueryOptions {
 
-    protected static ObjectMapper objectMapper;
-    protected static ObjectWriter objectWriter;
+    // Shared by all the queries, Jackson caches the (de)serializers of each query class
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     protected Logger logger;
 
     //    public static final int DEFAULT_LIMIT = 50;
     public static final int DEFAULT_SKIP = 0;
 
-    // list of fields in this class
-    private Map<String, Field> classFields;
-    // key = transcripts.biotype, value = transcriptsBiotype
-    private Map<String, String> dotNotationToCamelCase;
-    // list of fields in this class, and associated type
-    private Map<String, Class<?>> classAttributesToType;
-    // key = camelCase name (transcriptsBiotype) to annotations
-    private Map<String, QueryParameter> annotations;
+    // annotations, property types and field accessors of this query class
+    private final QueryMetadata metadata;
 
     @QueryParameter(id = DATA_RELEASE_PARAM)
     private Integer dataRelease;
@@ -64,7 +52,8 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
     private String apiKey;
 
     public AbstractQuery() {
-        init();
+        metadata = QueryMetadata.of(this.getClass());
+        logger = metadata.getLogger();
     }
 
     public AbstractQuery(Map<String, String> params) throws QueryException {
@@ -73,10 +62,8 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
         updateParams(params);
     }
 
-    private void init() {
-        objectMapper = new ObjectMapper();
-
-        logger = LoggerFactory.getLogger(this.getClass());
+    static ObjectMapper getObjectMapper() {
+        return OBJECT_MAPPER;
     }
 
     /**
@@ -87,16 +74,11 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
      * @throws IllegalAccessException if field is not accessible
      */
     public ObjectMap toObjectMap() throws IllegalAccessException {
-        annotations = getAnnotations();
-        classFields = getClassFields();
         QueryOptions queryOptions = toQueryOptions();
         ObjectMap queryMap = new ObjectMap();
-        for (Map.Entry<String, QueryParameter> entry : annotations.entrySet()) {
-            String fieldNameCamelCase = entry.getKey();
-            String dotNotationName = annotations.get(fieldNameCamelCase).id();
-            Field field = classFields.get(fieldNameCamelCase);
-            field.setAccessible(true);
-            Object value = field.get(this);
+        for (QueryMetadata.QueryField queryField : metadata.getAnnotatedFields()) {
+            String dotNotationName = queryField.getParameter().id();
+            Object value = queryField.get(this);
             // don't add query options to the actual query
             if (value != null && !queryOptions.containsKey(dotNotationName) && !"exclude".equals(dotNotationName)) {
                 queryMap.put(dotNotationName, value);
@@ -108,7 +90,7 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
 
     public void updateParams(ObjectMap objectMap) {
         try {
-            objectMapper.updateValue(this, objectMap);
+            OBJECT_MAPPER.updateValue(this, objectMap);
         } catch (JsonMappingException e) {
             throw new IllegalArgumentException(e);
         }
@@ -120,43 +102,23 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
      * @param uriParams map from the REST
      */
     public void updateParams(Map<String, String> uriParams) {
-        classAttributesToType = getClassAttributesToType();
-        annotations = getAnnotations();
-
         try {
             // Skip this validation because some CellBase endpoint URL parameters are not included
             // in the query (such as GeneQuery, VariantQuery,...)
-            //validateParams(uriParams, classAttributesToType, annotations);
+            //validateParams(uriParams);
 
             Map<String, Object> objectHashMap = new HashMap<>();
-            for (Map.Entry<String, Class<?>> entry : classAttributesToType.entrySet()) {
-                String fieldNameDotNotation = null;
-                String[] fieldAliases = new String[0];
-                String fieldNameCamelCase = entry.getKey();
-                Class fieldType = entry.getValue();
-                QueryParameter queryParameter = annotations.get(fieldNameCamelCase);
-                if (queryParameter != null) {
-                    fieldNameDotNotation = queryParameter.id();
-                    fieldAliases = queryParameter.alias();
-                }
-                if (fieldNameDotNotation == null) {
-                    // field has no annotation
-                    continue;
-                }
+            for (QueryMetadata.QueryField queryField : metadata.getQueryProperties()) {
                 String value = null;
-                String s = fieldNameDotNotation.replace("\\.", "\\\\.");
-                if (uriParams.containsKey(s)) {
-                    value = uriParams.get(s);
-                } else {
-                    for (String alias : fieldAliases) {
-                        s = alias.replace("\\.", "\\\\.");
-                        if (uriParams.containsKey(s)) {
-                            value = uriParams.get(s);
-                            break;
-                        }
+                for (String paramName : queryField.getParamNames()) {
+                    value = uriParams.get(paramName);
+                    if (value != null) {
+                        break;
                     }
                 }
                 if (value != null) {
+                    String fieldNameCamelCase = queryField.getName();
+                    Class<?> fieldType = queryField.getType();
                     if (Collection.class.isAssignableFrom(fieldType)) {
                         if (LogicalList.class.isAssignableFrom(fieldType)) {
                             // AND
@@ -176,41 +138,21 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
                     }
                 }
             }
-            objectMapper.updateValue(this, objectHashMap);
+            if (!objectHashMap.isEmpty()) {
+                OBJECT_MAPPER.updateValue(this, objectHashMap);
+            }
         } catch (JsonProcessingException e) { // | QueryException e) {
             throw new IllegalArgumentException(e);
         }
     }
 
-    private void validateParams(Map<String, String> uriParams, Map<String, Class<?>> classAttributesToType,
-                                Map<String, QueryParameter> annotations) throws QueryException {
+    private void validateParams(Map<String, String> uriParams) throws QueryException {
         for (String uriParamName : uriParams.keySet()) {
             boolean validUriParamName = false;
-            for (Map.Entry<String, Class<?>> entry : classAttributesToType.entrySet()) {
-                String fieldNameDotNotation = null;
-                String[] fieldAliases = new String[0];
-                String fieldNameCamelCase = entry.getKey();
-                QueryParameter queryParameter = annotations.get(fieldNameCamelCase);
-                if (queryParameter != null) {
-                    fieldNameDotNotation = queryParameter.id();
-                    fieldAliases = queryParameter.alias();
-                }
-                if (fieldNameDotNotation == null) {
-                    // field has no annotation
-                    continue;
-                }
-                String s = fieldNameDotNotation.replace("\\.", "\\\\.");
-                if (uriParamName.equals(s)) {
+            for (QueryMetadata.QueryField queryField : metadata.getQueryProperties()) {
+                if (Arrays.asList(queryField.getParamNames()).contains(uriParamName)) {
                     validUriParamName = true;
                     break;
-                } else {
-                    for (String alias : fieldAliases) {
-                        s = alias.replace("\\.", "\\\\.");
-                        if (uriParamName.equals(s)) {
-                            validUriParamName = true;
-                            break;
-                        }
-                    }
                 }
             }
             if (!validUriParamName) {
@@ -219,43 +161,6 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
         }
     }
 
-    /**
-     * For this Query class, returns a map of class attributes and the types of those attributes.
-     *
-     *  key: fieldName, e.g. transcriptsBiotype
-     *  value: type, e.g. List<String>
-     *
-     * @return map of field names to type
-     */
-    private Map<String, Class<?>> loadPropertiesMap() {
-        final ObjectMapper objectMapper = new ObjectMapper();
-        BeanDescription beanDescription = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(this.getClass()));
-        Map<String, Class<?>> internalPropertiesMap = new HashMap<>(beanDescription.findProperties().size() * 2);
-        for (BeanPropertyDefinition property : beanDescription.findProperties()) {
-            internalPropertiesMap.put(property.getName(), property.getRawPrimaryType());
-        }
-        return internalPropertiesMap;
-    }
-
-    /**
-     * For this Query Class, generates a map of all annotations.
-     *
-     *  key: fieldName, e.g. transcriptsBiotype
-     *  value: QueryParameter for transcriptsBiotype
-     *
-     * @return map of field names to annotations.
-     */
-    private Map<String, QueryParameter> loadAnnotationMap() {
-        Map<String, QueryParameter> annotations = new HashMap<>();
-        for (Field declaredField : FieldUtils.getAllFields(this.getClass())) {
-            QueryParameter declaredAnnotation = declaredField.getDeclaredAnnotation(QueryParameter.class);
-            if (declaredAnnotation != null) {
-                annotations.put(declaredField.getName(), declaredAnnotation);
-            }
-        }
-        return annotations;
-    }
-
     /**
      * Subclasses can optionally add custom validation if needed.
      *
@@ -282,68 +187,13 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
         this.validateQuery();
     }
 
-    private Map<String, Class<?>> getClassAttributesToType() {
-        if (classAttributesToType == null) {
-            classAttributesToType = loadPropertiesMap();
-        }
-        return classAttributesToType;
-    }
-
-    private Map<String, QueryParameter> getAnnotations() {
-        if (annotations == null) {
-            annotations = loadAnnotationMap();
-        }
-        return annotations;
-    }
-
-    private Map<String, Field> getClassFields() {
-        if (classFields == null) {
-            classFields = new HashMap<>();
-            for (Field declaredField : FieldUtils.getAllFields(this.getClass())) {
-                classFields.put(declaredField.getName(), declaredField);
-            }
-        }
-        return classFields;
-    }
-
-    /**
-     * Returns the map. If map is empty, generates map.
-     *
-     * - key: dot notation, e.g. transcripts.biotype
-     * - value: camel case, e.g. transcriptsBiotype
-     *
-     * @return the map from dot notation to camel case
-     */
-    private Map<String, String> getDotNotationToCamelCase() {
-        if (dotNotationToCamelCase == null) {
-            dotNotationToCamelCase = new HashMap<>();
-            for (Map.Entry<String, Class<?>> entry : getClassAttributesToType().entrySet()) {
-                String fieldNameCamelCase = entry.getKey();
-                QueryParameter queryParameter = annotations.get(fieldNameCamelCase);
-                if (queryParameter != null) {
-                    String fieldNameDotNotation = queryParameter.id();
-                    dotNotationToCamelCase.put(fieldNameDotNotation, fieldNameCamelCase);
-                }
-            }
-        }
-        return dotNotationToCamelCase;
-    }
-
-    private void validateParams() throws QueryException, IllegalAccessException {
-        for (Map.Entry<String, Class<?>> classEntry : getClassAttributesToType().entrySet()) {
-            String fieldNameCamelCase = classEntry.getKey();
-            QueryParameter queryParameter = getAnnotations().get(fieldNameCamelCase);
-            if (queryParameter == null) {
-                // no annotation for this field, carry on
-                continue;
-            }
-
-            Field field = getClassFields().get(fieldNameCamelCase);
-            field.setAccessible(true);
-            Object value = field.get(this);
+    private void validateParams() throws QueryException {
+        for (QueryMetadata.QueryField queryField : metadata.getQueryProperties()) {
+            String fieldNameCamelCase = queryField.getName();
+            Object value = queryField.get(this);
 
             if (value == null) {
-                if (queryParameter.required()) {
+                if (queryField.getParameter().required()) {
                     throw new QueryException(fieldNameCamelCase + " is required");
                 } else {
                     // field is not required, and is empty. nothing to do.
@@ -351,61 +201,62 @@ public abstract class AbstractQuery extends CellBaseQueryOptions {
                 }
             }
 
-            checkDependsOn(fieldNameCamelCase, queryParameter.dependsOn());
+            checkDependsOn(fieldNameCamelCase, queryField.getParameter().dependsOn());
 
-            checkAllowedValues(fieldNameCamelCase, queryParameter.allowedValues(), value);
+            checkAllowedValues(queryField, value);
 
-            validateMin(fieldNameCamelCase, queryParameter.min(), value);
+            validateMin(queryField, value);
 
-            validateMax(fieldNameCamelCase, queryParameter.max(), value);
+            validateMax(queryField, value);
         }
 
     }
 
-    private void checkDependsOn(String fieldNameCamelCase, String requiredFieldDotNotation) throws IllegalAccessException, QueryException {
+    private void checkDependsOn(String fieldNameCamelCase, String requiredFieldDotNotation) throws QueryException {
         if (StringUtils.isNotEmpty(requiredFieldDotNotation)) {
-            String requiredFieldCamelCase = getDotNotationToCamelCase().get(requiredFieldDotNotation);
-            Field requiredField = getClassFields().get(requiredFieldCamelCase);
+            QueryMetadata.QueryField requiredField = metadata.getQueryField(requiredFieldDotNotation);
             if (requiredField.get(this) == null) {
-                throw new QueryException(requiredFieldCamelCase + " is required because " + fieldNameCamelCase + " has a value");
+                throw new QueryException(requiredField.getName() + " is required because " + fieldNameCamelCase + " has a value");
             }
         }
     }
 
-    private void checkAllowedValues(String fieldNameCamelCase, String[] allowedValuesArray, Object value) throws QueryException {
-        List<String> allowedValues = Arrays.asList(allowedValuesArray);
-        if (allowedValues.size() > 0 && StringUtils.isNotEmpty(allowedValues.get(0))) {
+    private void checkAllowedValues(QueryMetadata.QueryField queryField, Object value) throws QueryException {
+        List<String> allowedValues = queryField.getAllowedValues();
+        if (allowedValues != null) {
             if (value instanceof List) {
                 List<String> values = (List<String>) value;
                 for (String s : values) {
                     if (!allowedValues.contains(s)) {
-                        throw new QueryException("'" + s + "' is not a legal value for '" + fieldNameCamelCase + "'. Looking for "
-                                + StringUtils.join(allowedValuesArray, ","));
+                        throw new QueryException("'" + s + "' is not a legal value for '" + queryField.getName() + "'. Looking for "
+                                + StringUtils.join(allowedValues, ","));
                     }
                 }
             } else {
                 if (!allowedValues.contains(value.toString())) {
-                    throw new QueryException("'" + value + "' is not a legal value for '" + fieldNameCamelCase + "'. Looking for "
-                            + StringUtils.join(allowedValuesArray, ","));
+                    throw new QueryException("'" + value + "' is not a legal value for '" + queryField.getName() + "'. Looking for "
+                            + StringUtils.join(allowedValues, ","));
                 }
             }
         }
     }
 
-    private void validateMax(String fieldNameCamelCase, String max, Object value) throws QueryException {
-        if (StringUtils.isNotEmpty(max)) {
-            double doubleValue = new Double((Integer) value);
-            if (doubleValue > Double.parseDouble(max)) {
-                throw new QueryException(fieldNameCamelCase + " must be less than " + max + " but was " + doubleValue);
+    private void validateMax(QueryMetadata.QueryField queryField, Object value) throws QueryException {
+        if (queryField.getMax() != null) {
+            double doubleValue = (Integer) value;
+            if (doubleValue > queryField.getMax()) {
+                throw new QueryException(queryField.getName() + " must be less than " + queryField.getParameter().max()
+                        + " but was " + doubleValue);
             }
         }
     }
 
-    private void validateMin(String fieldNameCamelCase, String min, Object value) throws QueryException {
-        if (StringUtils.isNotEmpty(min)) {
-            double doubleValue = new Double((Integer) value);
-            if (doubleValue < Double.parseDouble(min)) {
-                throw new QueryException(fieldNameCamelCase + " must be at least " + min + " but was " + doubleValue);
+    private void validateMin(QueryMetadata.QueryField queryField, Object value) throws QueryException {
+        if (queryField.getMin() != null) {
+            double doubleValue = (Integer) value;
+            if (doubleValue < queryField.getMin()) {
+                throw new QueryException(queryField.getName() + " must be at least " + queryField.getParameter().min()
+                        + " but was " + doubleValue);
             }
         }
     }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.core.api.query;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Annotations, property types and field accessors of a query class. They are computed the first time the class is used
+ * and shared by all its instances, so that creating, updating and validating a query does not use reflection.
+ */
+final class QueryMetadata {
+
+    private static final ClassValue<QueryMetadata> METADATA = new ClassValue<QueryMetadata>() {
+        @Override
+        protected QueryMetadata computeValue(Class<?> type) {
+            return new QueryMetadata(type);
+        }
+    };
+
+    // Annotated fields, key = camel case name (transcriptsBiotype)
+    private final Map<String, QueryField> annotatedFields;
+    // Annotated fields that are also bean properties, i.e. the ones that can be set from the REST parameters
+    private final List<QueryField> queryProperties;
+    // key = transcripts.biotype, value = transcriptsBiotype
+    private final Map<String, String> dotNotationToCamelCase;
+    private final Logger logger;
+
+    private QueryMetadata(Class<?> type) {
+        Map<String, Field> classFields = new HashMap<>();
+        Map<String, QueryParameter> annotations = new HashMap<>();
+        for (Field declaredField : FieldUtils.getAllFields(type)) {
+            classFields.put(declaredField.getName(), declaredField);
+            QueryParameter declaredAnnotation = declaredField.getDeclaredAnnotation(QueryParameter.class);
+            if (declaredAnnotation != null) {
+                annotations.put(declaredField.getName(), declaredAnnotation);
+            }
+        }
+
+        Map<String, QueryField> annotatedFields = new LinkedHashMap<>();
+        for (Map.Entry<String, QueryParameter> entry : annotations.entrySet()) {
+            Field field = classFields.get(entry.getKey());
+            annotatedFields.put(entry.getKey(), new QueryField(entry.getKey(), entry.getValue(), field.getType(), getter(field)));
+        }
+
+        ObjectMapper objectMapper = AbstractQuery.getObjectMapper();
+        BeanDescription beanDescription = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(type));
+        List<QueryField> queryProperties = new ArrayList<>();
+        Map<String, String> dotNotationToCamelCase = new HashMap<>();
+        for (BeanPropertyDefinition property : beanDescription.findProperties()) {
+            QueryField queryField = annotatedFields.get(property.getName());
+            if (queryField != null) {
+                QueryField queryProperty = new QueryField(queryField.name, queryField.parameter, property.getRawPrimaryType(),
+                        queryField.getter);
+                queryProperties.add(queryProperty);
+                dotNotationToCamelCase.put(queryField.parameter.id(), queryField.name);
+            }
+        }
+
+        this.annotatedFields = Collections.unmodifiableMap(annotatedFields);
+        this.queryProperties = Collections.unmodifiableList(queryProperties);
+        this.dotNotationToCamelCase = Collections.unmodifiableMap(dotNotationToCamelCase);
+        this.logger = LoggerFactory.getLogger(type);
+    }
+
+    static QueryMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field " + field.getName() + " of " + field.getDeclaringClass() + " is not accessible", e);
+        }
+    }
+
+    Collection<QueryField> getAnnotatedFields() {
+        return annotatedFields.values();
+    }
+
+    List<QueryField> getQueryProperties() {
+        return queryProperties;
+    }
+
+    QueryField getQueryField(String dotNotationName) {
+        String camelCaseName = dotNotationToCamelCase.get(dotNotationName);
+        return camelCaseName != null ? annotatedFields.get(camelCaseName) : null;
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Annotated field of a query, with the parameter names it is read from and the validation values already parsed.
+     */
+    static final class QueryField {
+
+        private final String name;
+        private final QueryParameter parameter;
+        private final Class<?> type;
+        private final MethodHandle getter;
+        // id and aliases, as found in the REST parameters
+        private final String[] paramNames;
+        private final List<String> allowedValues;
+        private final Double min;
+        private final Double max;
+
+        private QueryField(String name, QueryParameter parameter, Class<?> type, MethodHandle getter) {
+            this.name = name;
+            this.parameter = parameter;
+            this.type = type;
+            this.getter = getter;
+
+            this.paramNames = new String[parameter.alias().length + 1];
+            paramNames[0] = parameter.id().replace("\\.", "\\\\.");
+            for (int i = 0; i < parameter.alias().length; i++) {
+                paramNames[i + 1] = parameter.alias()[i].replace("\\.", "\\\\.");
+            }
+            this.allowedValues = parameter.allowedValues().length > 0 && StringUtils.isNotEmpty(parameter.allowedValues()[0])
+                    ? Arrays.asList(parameter.allowedValues())
+                    : null;
+            this.min = StringUtils.isNotEmpty(parameter.min()) ? Double.parseDouble(parameter.min()) : null;
+            this.max = StringUtils.isNotEmpty(parameter.max()) ? Double.parseDouble(parameter.max()) : null;
+        }
+
+        Object get(Object query) {
+            try {
+                return (Object) getter.invokeExact(query);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        String getName() {
+            return name;
+        }
+
+        QueryParameter getParameter() {
+            return parameter;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        String[] getParamNames() {
+            return paramNames;
+        }
+
+        List<String> getAllowedValues() {
+            return allowedValues;
+        }
+
+        Double getMin() {
+            return min;
+        }
+
+        Double getMax() {
+            return max;
+        }
+    }
+}
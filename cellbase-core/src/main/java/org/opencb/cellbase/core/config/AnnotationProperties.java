@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.core.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variant annotation settings. The annotator tasks (population frequencies, conservation, clinical...) of all variant
+ * annotation batches run on one shared executor: numThreads bounds the number of tasks running at the same time and
+ * queueSize the number of tasks waiting, when both are exhausted the thread submitting the batch runs the task itself.
+ * virtualThreads runs the tasks on virtual threads when the JVM supports them (Java 21+).
+ * Each annotator must finish within its timeout (milliseconds, defaultTimeout if not present in timeouts), counted from
+ * its submission, and all of them within batchTimeout, counted from the moment the batch starts waiting for them. A
+ * timeout of 0 means no timeout. Annotators not finished on time are reported as missing.
+ * geneCache keeps in memory the gene models of the chromosomes being annotated, per data release and source, instead of
+ * querying them for every batch. The least recently used chromosomes are evicted once geneCacheMaxGenes are cached.
+ */
+public class AnnotationProperties {
+
+    public static final int DEFAULT_NUM_THREADS = 64;
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+    public static final long DEFAULT_TIMEOUT = 30000;
+    public static final long DEFAULT_BATCH_TIMEOUT = 60000;
+    public static final long DEFAULT_GENE_CACHE_MAX_GENES = 150000;
+
+    private int numThreads;
+    private int queueSize;
+    private boolean virtualThreads;
+    private long defaultTimeout;
+    private long batchTimeout;
+    private Map<String, Long> timeouts;
+    private boolean geneCache;
+    private long geneCacheMaxGenes;
+
+    public AnnotationProperties() {
+        this.numThreads = DEFAULT_NUM_THREADS;
+        this.queueSize = DEFAULT_QUEUE_SIZE;
+        this.virtualThreads = false;
+        this.defaultTimeout = DEFAULT_TIMEOUT;
+        this.batchTimeout = DEFAULT_BATCH_TIMEOUT;
+        this.timeouts = new HashMap<>();
+        this.geneCache = false;
+        this.geneCacheMaxGenes = DEFAULT_GENE_CACHE_MAX_GENES;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AnnotationProperties{");
+        sb.append("numThreads=").append(numThreads);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", virtualThreads=").append(virtualThreads);
+        sb.append(", defaultTimeout=").append(defaultTimeout);
+        sb.append(", batchTimeout=").append(batchTimeout);
+        sb.append(", timeouts=").append(timeouts);
+        sb.append(", geneCache=").append(geneCache);
+        sb.append(", geneCacheMaxGenes=").append(geneCacheMaxGenes);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public AnnotationProperties setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public AnnotationProperties setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public AnnotationProperties setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public long getTimeout(String annotator) {
+        if (timeouts != null && timeouts.get(annotator) != null) {
+            return timeouts.get(annotator);
+        }
+        return defaultTimeout;
+    }
+
+    public long getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public AnnotationProperties setDefaultTimeout(long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        return this;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    public AnnotationProperties setBatchTimeout(long batchTimeout) {
+        this.batchTimeout = batchTimeout;
+        return this;
+    }
+
+    public Map<String, Long> getTimeouts() {
+        return timeouts;
+    }
+
+    public AnnotationProperties setTimeouts(Map<String, Long> timeouts) {
+        this.timeouts = timeouts;
+        return this;
+    }
+
+    public boolean isGeneCache() {
+        return geneCache;
+    }
+
+    public AnnotationProperties setGeneCache(boolean geneCache) {
+        this.geneCache = geneCache;
+        return this;
+    }
+
+    public long getGeneCacheMaxGenes() {
+        return geneCacheMaxGenes;
+    }
+
+    public AnnotationProperties setGeneCacheMaxGenes(long geneCacheMaxGenes) {
+        this.geneCacheMaxGenes = geneCacheMaxGenes;
+        return this;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.core.config;
+
+/**
+ * API key quota and stats accounting. Queries are counted in memory and flushed to the database every flushInterval
+ * milliseconds, when the counts of the other servers are read back. A server flushes before that as soon as it has
+ * quotaTolerance queries of an API key not yet flushed, so that a quota is exceeded by at most quotaTolerance queries
+ * per server plus the queries served by the other servers since their last flush.
+ */
+public class ApiKeyStatsProperties {
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 10000;
+    public static final int DEFAULT_QUOTA_TOLERANCE = 100;
+
+    private long flushInterval;
+    private int quotaTolerance;
+
+    public ApiKeyStatsProperties() {
+        this.flushInterval = DEFAULT_FLUSH_INTERVAL;
+        this.quotaTolerance = DEFAULT_QUOTA_TOLERANCE;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ApiKeyStatsProperties{");
+        sb.append("flushInterval=").append(flushInterval);
+        sb.append(", quotaTolerance=").append(quotaTolerance);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public ApiKeyStatsProperties setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public int getQuotaTolerance() {
+        return quotaTolerance;
+    }
+
+    public ApiKeyStatsProperties setQuotaTolerance(int quotaTolerance) {
+        this.quotaTolerance = quotaTolerance;
+        return this;
+    }
+}
@@ -45,6 +45,8 @@ public class CellBaseConfiguration {
     private DownloadProperties download;
     private SpeciesProperties species;
     private ServerProperties server;
+    private AnnotationProperties annotation;
+    private GenomeProperties genome;
 
     public static final String CELLBASE_PREFIX = "CELLBASE_";
     public static final String CELLBASE_DATABASES_MONGODB_HOST = "CELLBASE_DATABASES_MONGODB_HOST";
@@ -281,6 +283,24 @@ public class CellBaseConfiguration {
         this.server = server;
     }
 
+    public AnnotationProperties getAnnotation() {
+        return annotation;
+    }
+
+    public CellBaseConfiguration setAnnotation(AnnotationProperties annotation) {
+        this.annotation = annotation;
+        return this;
+    }
+
+    public GenomeProperties getGenome() {
+        return genome;
+    }
+
+    public CellBaseConfiguration setGenome(GenomeProperties genome) {
+        this.genome = genome;
+        return this;
+    }
+
     public String getLogLevel() {
         return logLevel;
     }
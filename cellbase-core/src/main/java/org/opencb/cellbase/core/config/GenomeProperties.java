@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.core.config;
+
+/**
+ * Genome sequence settings. sequenceBackend selects where genome sequences are read from: "mongodb" (default) or "2bit",
+ * in which case the file built by the genome_2bit build step is read from
+ * sequenceDirectory/{species}_{assembly}/genome_sequence.2bit, e.g. /opt/cellbase/genome/hsapiens_grch38/genome_sequence.2bit.
+ */
+public class GenomeProperties {
+
+    public static final String MONGODB_BACKEND = "mongodb";
+    public static final String TWO_BIT_BACKEND = "2bit";
+    public static final String TWO_BIT_FILE_NAME = "genome_sequence.2bit";
+
+    private String sequenceBackend;
+    private String sequenceDirectory;
+
+    public GenomeProperties() {
+        this.sequenceBackend = MONGODB_BACKEND;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("GenomeProperties{");
+        sb.append("sequenceBackend='").append(sequenceBackend).append('\'');
+        sb.append(", sequenceDirectory='").append(sequenceDirectory).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public boolean isTwoBitBackend() {
+        return TWO_BIT_BACKEND.equalsIgnoreCase(sequenceBackend);
+    }
+
+    public String getSequenceBackend() {
+        return sequenceBackend;
+    }
+
+    public GenomeProperties setSequenceBackend(String sequenceBackend) {
+        this.sequenceBackend = sequenceBackend;
+        return this;
+    }
+
+    public String getSequenceDirectory() {
+        return sequenceDirectory;
+    }
+
+    public GenomeProperties setSequenceDirectory(String sequenceDirectory) {
+        this.sequenceDirectory = sequenceDirectory;
+        return this;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.core.config;
+
+/**
+ * In-memory cache of the info results (genes, transcripts, variants... by id) served by the managers. Entries are keyed
+ * by species, assembly, data release, licensed sources, ids and projection; the least recently used ones are evicted once
+ * maxEntries are cached and all of them expire expireAfterWrite milliseconds after being loaded, so that data releases
+ * updated by other processes are eventually seen. Releases updated by this process invalidate the cache at once.
+ */
+public class InfoCacheProperties {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE = 600000;
+
+    private boolean enabled;
+    private int maxEntries;
+    private long expireAfterWrite;
+
+    public InfoCacheProperties() {
+        this.enabled = false;
+        this.maxEntries = DEFAULT_MAX_ENTRIES;
+        this.expireAfterWrite = DEFAULT_EXPIRE_AFTER_WRITE;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InfoCacheProperties{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", maxEntries=").append(maxEntries);
+        sb.append(", expireAfterWrite=").append(expireAfterWrite);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public InfoCacheProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public InfoCacheProperties setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public InfoCacheProperties setExpireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+}
@@ -19,6 +19,13 @@ package org.opencb.cellbase.core.config;
 public class ServerProperties {
 
     private Rest rest;
+    private ApiKeyStatsProperties apiKeyStats;
+    private InfoCacheProperties infoCache;
+
+    public ServerProperties() {
+        this.apiKeyStats = new ApiKeyStatsProperties();
+        this.infoCache = new InfoCacheProperties();
+    }
 
     public Rest getRest() {
         return rest;
@@ -27,4 +34,20 @@ public class ServerProperties {
     public void setRest(Rest rest) {
         this.rest = rest;
     }
+
+    public ApiKeyStatsProperties getApiKeyStats() {
+        return apiKeyStats;
+    }
+
+    public void setApiKeyStats(ApiKeyStatsProperties apiKeyStats) {
+        this.apiKeyStats = apiKeyStats;
+    }
+
+    public InfoCacheProperties getInfoCache() {
+        return infoCache;
+    }
+
+    public void setInfoCache(InfoCacheProperties infoCache) {
+        this.infoCache = infoCache;
+    }
 }
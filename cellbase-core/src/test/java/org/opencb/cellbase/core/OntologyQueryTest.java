@@ -17,11 +17,14 @@
 package org.opencb.cellbase.core;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.opencb.cellbase.core.api.OntologyQuery;
 import org.opencb.cellbase.core.api.query.QueryException;
+import org.opencb.commons.datastore.core.ObjectMap;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -66,4 +69,57 @@ public class OntologyQueryTest {
         assertEquals("child1", query.getChildren().get(0));
         assertEquals("child2", query.getChildren().get(1));
     }
+
+    @Test
+    public void testToObjectMap() throws Exception {
+        paramMap.put("id", "GO:1234,GO:5678");
+        paramMap.put("parents", "parent1;parent2");
+        paramMap.put("limit", "10");
+        paramMap.put("exclude", "_id");
+        paramMap.put("dataRelease", "3");
+
+        // Several queries of the same class share the metadata, each one keeps its own values
+        OntologyQuery other = new OntologyQuery(new HashMap<>());
+        query = new OntologyQuery(paramMap);
+        query.validate();
+        other.validate();
+
+        ObjectMap objectMap = query.toObjectMap();
+        assertEquals(3, objectMap.size());
+        assertEquals(2, ((List) objectMap.get("id")).size());
+        assertTrue(query.getParents().isAnd());
+        assertEquals(3, objectMap.get("dataRelease"));
+        assertTrue(other.toObjectMap().isEmpty());
+
+        paramMap.put("limit", "-1");
+        assertThrows(QueryException.class, () -> new OntologyQuery(paramMap).validate());
+
+        paramMap.remove("limit");
+        paramMap.put("order", "ASCENDING");
+        assertThrows(QueryException.class, () -> new OntologyQuery(paramMap).validate());
+    }
+
+    @Test
+    @Disabled
+    public void testQueryTime() throws Exception {
+        paramMap.put("id", "GO:1234,GO:5678");
+        paramMap.put("name", "go term name");
+        paramMap.put("parents", "parent1;parent2");
+        paramMap.put("limit", "10");
+        paramMap.put("exclude", "_id");
+        paramMap.put("dataRelease", "3");
+
+        // Time per query built, validated and converted as the web services do, run it before and after a change
+        int numQueries = 100000;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < numQueries; i++) {
+                query = new OntologyQuery(paramMap);
+                query.validate();
+                query.toObjectMap();
+                query.toQueryOptions();
+            }
+            System.out.println("Run " + run + ": " + (System.nanoTime() - start) / 1000.0 / numQueries + " us/query");
+        }
+    }
 }
@@ -38,6 +38,7 @@ public class EtlCommons {
     public static final String HOMO_SAPIENS_NAME ="Homo sapiens";
 
     public static final String GENOME_DATA = "genome";
+    public static final String GENOME_2BIT_DATA = "genome_2bit";
     public static final String GENE_DATA = "gene";
     public static final String REFSEQ_DATA = "refseq";
     public static final String GENE_DISEASE_ASSOCIATION_DATA = "gene_disease_association";
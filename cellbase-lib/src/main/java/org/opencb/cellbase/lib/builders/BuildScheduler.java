@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.builders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs CellBaseBuilders concurrently honouring the dependencies between them. A builder starts once all the builders it
+ * depends on, among the ones added to the scheduler, have finished successfully. Builders depending on a failed builder
+ * are skipped. A builder can also be run after other builders without depending on their data, e.g. because they read
+ * the same files: it starts once they have finished, whatever their status. At most numThreads builders run at the
+ * same time and the sum of their estimated memory must fit in the memory budget, a builder needing more memory than the
+ * budget runs alone. Ready builders start in the order they were added.
+ */
+public class BuildScheduler {
+
+    private final int numThreads;
+    private final long memoryBudget;
+    private final Map<String, BuildTask> tasks;
+
+    private final Logger logger;
+
+    @FunctionalInterface
+    public interface BuilderFactory {
+        CellBaseBuilder create() throws Exception;
+    }
+
+    public enum Status {
+        DONE, FAILED, SKIPPED
+    }
+
+    /**
+     * @param numThreads   maximum number of builders running at the same time
+     * @param memoryBudget memory, in MB, shared by the builders running at the same time
+     */
+    public BuildScheduler(int numThreads, long memoryBudget) {
+        this.numThreads = Math.max(1, numThreads);
+        this.memoryBudget = memoryBudget;
+        this.tasks = new LinkedHashMap<>();
+
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * Adds a builder to be run.
+     *
+     * @param name            data name, e.g. gene
+     * @param dependencies    data names that must be built before, ignored if they are not added to this scheduler
+     * @param memory          estimated memory needed by the builder, in MB
+     * @param builderFactory  creates the builder, it is called when the builder is about to run
+     * @return this scheduler
+     */
+    public BuildScheduler add(String name, Collection<String> dependencies, long memory, BuilderFactory builderFactory) {
+        return add(name, dependencies, null, memory, builderFactory);
+    }
+
+    /**
+     * Adds a builder to be run.
+     *
+     * @param name            data name, e.g. gene
+     * @param dependencies    data names that must be built before, ignored if they are not added to this scheduler
+     * @param after           data names whose builders must finish before, successfully or not, ignored if they are not
+     *                        added to this scheduler
+     * @param memory          estimated memory needed by the builder, in MB
+     * @param builderFactory  creates the builder, it is called when the builder is about to run
+     * @return this scheduler
+     */
+    public BuildScheduler add(String name, Collection<String> dependencies, Collection<String> after, long memory,
+                              BuilderFactory builderFactory) {
+        tasks.put(name, new BuildTask(name, dependencies, after, memory, builderFactory));
+        return this;
+    }
+
+    /**
+     * Runs all the builders and waits for them to finish.
+     *
+     * @return status of each builder, in the order they were added
+     * @throws InterruptedException if interrupted while waiting for the builders
+     */
+    public Map<String, Status> run() throws InterruptedException {
+        Map<String, Status> statuses = new LinkedHashMap<>();
+        List<BuildTask> pending = new ArrayList<>(tasks.values());
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, pending.size())));
+        CompletionService<BuildTask> completionService = new ExecutorCompletionService<>(executorService);
+        long startTime = System.currentTimeMillis();
+        int numRunning = 0;
+        long memoryInUse = 0;
+        try {
+            while (!pending.isEmpty() || numRunning > 0) {
+                Iterator<BuildTask> iterator = pending.iterator();
+                while (iterator.hasNext() && numRunning < numThreads) {
+                    BuildTask task = iterator.next();
+                    String failedDependency = getFailedDependency(task, statuses);
+                    if (failedDependency != null) {
+                        logger.error("Skipping '{}' build, '{}' build did not succeed", task.name, failedDependency);
+                        statuses.put(task.name, Status.SKIPPED);
+                        iterator.remove();
+                        // Tasks already checked may depend on this one
+                        iterator = pending.iterator();
+                        continue;
+                    }
+                    if (isReady(task, statuses) && (numRunning == 0 || memoryInUse + task.memory <= memoryBudget)) {
+                        logger.info("Building '{}' data ({} builders running, {} MB of {} MB in use)", task.name, numRunning + 1,
+                                memoryInUse + task.memory, memoryBudget);
+                        completionService.submit(task::run);
+                        numRunning++;
+                        memoryInUse += task.memory;
+                        iterator.remove();
+                    }
+                }
+
+                if (numRunning == 0) {
+                    // Nothing can run, the remaining builders depend on each other
+                    for (BuildTask task : pending) {
+                        logger.error("Skipping '{}' build, circular dependency with {} {}", task.name, task.dependencies, task.after);
+                        statuses.put(task.name, Status.SKIPPED);
+                    }
+                    break;
+                }
+
+                BuildTask task = getTask(completionService.take());
+                numRunning--;
+                memoryInUse -= task.memory;
+                statuses.put(task.name, task.status);
+                logger.info("'{}' build {} in {} s, {} of {} builders finished", task.name, task.status,
+                        task.time / 1000, statuses.size(), tasks.size());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        logger.info("Build finished in {} s", (System.currentTimeMillis() - startTime) / 1000);
+        Map<String, Status> result = new LinkedHashMap<>();
+        for (String name : tasks.keySet()) {
+            result.put(name, statuses.get(name));
+        }
+        return result;
+    }
+
+    private boolean isReady(BuildTask task, Map<String, Status> statuses) {
+        for (String dependency : task.dependencies) {
+            if (tasks.containsKey(dependency) && statuses.get(dependency) != Status.DONE) {
+                return false;
+            }
+        }
+        for (String name : task.after) {
+            if (tasks.containsKey(name) && !statuses.containsKey(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getFailedDependency(BuildTask task, Map<String, Status> statuses) {
+        for (String dependency : task.dependencies) {
+            Status status = statuses.get(dependency);
+            if (status == Status.FAILED || status == Status.SKIPPED) {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
+    private BuildTask getTask(Future<BuildTask> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // BuildTask.run catches everything
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private class BuildTask {
+        private final String name;
+        private final Set<String> dependencies;
+        private final Set<String> after;
+        private final long memory;
+        private final BuilderFactory builderFactory;
+        private Status status;
+        private long time;
+
+        BuildTask(String name, Collection<String> dependencies, Collection<String> after, long memory,
+                  BuilderFactory builderFactory) {
+            this.name = name;
+            this.dependencies = dependencies != null ? new LinkedHashSet<>(dependencies) : Collections.emptySet();
+            this.after = after != null ? new LinkedHashSet<>(after) : Collections.emptySet();
+            this.memory = memory;
+            this.builderFactory = builderFactory;
+        }
+
+        BuildTask run() {
+            long start = System.currentTimeMillis();
+            CellBaseBuilder builder = null;
+            try {
+                builder = builderFactory.create();
+                if (builder != null) {
+                    builder.parse();
+                }
+                status = Status.DONE;
+            } catch (Throwable e) {
+                logger.error("Error executing '" + name + "' build: " + e.getMessage(), e);
+                status = Status.FAILED;
+            } finally {
+                if (builder != null) {
+                    builder.disconnect();
+                }
+                time = System.currentTimeMillis() - start;
+            }
+            return this;
+        }
+    }
+}
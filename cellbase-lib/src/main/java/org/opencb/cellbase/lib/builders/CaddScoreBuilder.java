@@ -16,17 +16,34 @@
 
 package org.opencb.cellbase.lib.builders;
 
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.tribble.index.Block;
+import htsjdk.tribble.index.tabix.TabixIndex;
 import org.opencb.biodata.models.core.GenomicScoreRegion;
+import org.opencb.cellbase.core.serializer.CellBaseJsonFileSerializer;
 import org.opencb.cellbase.core.serializer.CellBaseSerializer;
 import org.opencb.commons.utils.FileUtils;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Created by imedina on 06/11/15.
@@ -34,13 +51,35 @@ import java.util.Map;
 public class CaddScoreBuilder extends CellBaseBuilder {
 
     private Path caddFilePath;
+    private int numThreads;
 
     private static final int CHUNK_SIZE = 1000;
     private static final int DECIMAL_RESOLUTION = 100;
+    // Maximum tabix coordinate
+    private static final int MAX_POSITION = 1 << 29;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Powers of ten exactly representable as floats
+    private static final float[] POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    // Largest integer such that all the integers up to it are exactly representable as floats
+    private static final long MAX_EXACT_FLOAT_INTEGER = 1 << 24;
 
     public CaddScoreBuilder(Path caddFilePath, CellBaseSerializer serializer) {
+        this(caddFilePath, 1, serializer);
+    }
+
+    /**
+     * CADD file chromosomes are parsed in parallel when the file is indexed with tabix, numThreads is greater than one
+     * and the serializer is a CellBaseJsonFileSerializer. Each chromosome is serialized to its own file, then the files
+     * are appended in the order of the index to the serializer file, which is a valid multi-member gzip file.
+     *
+     * @param caddFilePath  CADD whole_genome_SNVs.tsv.gz file
+     * @param numThreads    number of chromosomes parsed at the same time
+     * @param serializer    serializer
+     */
+    public CaddScoreBuilder(Path caddFilePath, int numThreads, CellBaseSerializer serializer) {
         super(serializer);
         this.caddFilePath = caddFilePath;
+        this.numThreads = numThreads;
 
         logger = LoggerFactory.getLogger(CaddScoreBuilder.class);
     }
@@ -59,149 +98,387 @@ public class CaddScoreBuilder extends CellBaseBuilder {
     public void parse() throws Exception {
         FileUtils.checkPath(caddFilePath);
 
-        BufferedReader bufferedReader = FileUtils.newBufferedReader(caddFilePath);
-        List<Long> rawValues = new ArrayList<>(CHUNK_SIZE);
-        List<Long> scaledValues = new ArrayList<>(CHUNK_SIZE);
-
-        int start = 1;
-//        int end = 1999;
-        int end = CHUNK_SIZE - 1;
-        String line;
-        String[] fields = new String[0];
-        short v;
-        int lineCount = 0;
-        int counter = 1;
-        int serializedChunks = 0;
-        int previousPosition = 0;
-        int newPosition = 0;
-        String chromosome = null;
-
-        String[] nucleotides = new String[]{"A", "C", "G", "T"};
-        long rawLongValue = 0;
-        long scaledLongValue = 0;
-        Map<String, Float> rawScoreValuesMap = new HashMap<>();
-        Map<String, Float> scaledScoreValuesMap = new HashMap<>();
-        while ((line = bufferedReader.readLine()) != null) {
-            if (!line.startsWith("#")) {
-                fields = line.split("\t");
-                newPosition = Integer.parseInt(fields[1]);
-//                if (fields[0].equals("1") && fields[1].equals("249240621")) {
-//                if (fields[0].equals("1") && fields[1].equals("69100")) {
-//                if (fields[0].equals("1") && fields[1].equals("144854598")) {
-//                    logger.debug("line {} reached", line);
-//                    logger.debug("Associated chunk count {}", serializedChunks);
-//                    logger.debug("start {}", start);
-//                    logger.debug("end {}", end);
-//                    logger.debug("chunk size {}", CHUNK_SIZE);
-//                }
-                // this only happens the first time, when we start reading the file
-                if (chromosome == null) {
-                    logger.info("Parsing chr {} ", fields[0]);
-                    chromosome = fields[0];
-
-                    start = newPosition;
-                    previousPosition = newPosition;
-                    end = start + CHUNK_SIZE - 2;
+        Path indexPath = Paths.get(caddFilePath + ".tbi");
+        if (numThreads > 1 && serializer instanceof CellBaseJsonFileSerializer && Files.exists(indexPath)) {
+            parseByChromosome(indexPath, (CellBaseJsonFileSerializer) serializer);
+        } else {
+            try (InputStream inputStream = caddFilePath.toString().endsWith(".gz")
+                    ? new GZIPInputStream(Files.newInputStream(caddFilePath), BUFFER_SIZE)
+                    : Files.newInputStream(caddFilePath)) {
+                new CaddLineParser(serializer, null).parse(inputStream);
+            }
+        }
+
+        serializer.close();
+        logger.info("Parsing finished.");
+    }
+
+    private void parseByChromosome(Path indexPath, CellBaseJsonFileSerializer jsonFileSerializer) throws Exception {
+        TabixIndex tabixIndex = new TabixIndex(indexPath.toFile());
+        List<String> chromosomes = tabixIndex.getSequenceNames();
+        logger.info("Parsing {} chromosomes with {} threads", chromosomes.size(), numThreads);
+
+        Path chromosomeFolder = Files.createTempDirectory(jsonFileSerializer.getOutdir(), jsonFileSerializer.getFileName());
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, chromosomes.size())));
+        try {
+            List<Future<Path>> futures = new ArrayList<>(chromosomes.size());
+            for (String chromosome : chromosomes) {
+                futures.add(executorService.submit(() -> parseChromosome(tabixIndex, chromosome, chromosomeFolder,
+                        jsonFileSerializer.getFileName())));
+            }
+
+            // Concatenated gzip members are read as a single gzip file
+            Path outputPath = jsonFileSerializer.getOutdir().resolve(jsonFileSerializer.getFileName() + ".json.gz");
+            try (OutputStream outputStream = Files.newOutputStream(outputPath)) {
+                for (Future<Path> future : futures) {
+                    Path chromosomePath = getPath(future);
+                    if (chromosomePath != null && Files.exists(chromosomePath)) {
+                        Files.copy(chromosomePath, outputStream);
+                        Files.delete(chromosomePath);
+                    }
                 }
+            }
+        } finally {
+            executorService.shutdownNow();
+            deleteChromosomeFolder(executorService, chromosomeFolder);
+        }
+    }
 
-                if (!chromosome.equals(fields[0])) {
-                    logger.info("Parsing chr {} ", fields[0]);
-                    // both raw and scaled are serialized
-                    GenomicScoreRegion<Long> genomicScoreRegion =
-                            new GenomicScoreRegion<>(chromosome, start, previousPosition, "cadd_raw", rawValues);
-                    serializer.serialize(genomicScoreRegion);
-
-                    genomicScoreRegion = new GenomicScoreRegion<>(chromosome, start, previousPosition, "cadd_scaled", scaledValues);
-                    serializer.serialize(genomicScoreRegion);
-
-                    serializedChunks++;
-                    chromosome = fields[0];
-                    start = newPosition;
-//                    end = CHUNK_SIZE - 1;
-                    end = start + CHUNK_SIZE - 2;
-
-                    counter = 0;
-                    rawValues.clear();
-                    scaledValues.clear();
-//                    rawLongValue = 0;
-//                    lineCount = 0;
-//                    rawScoreValuesMap.clear();
-//                    scaledScoreValuesMap.clear();
-                // The series of cadd scores is not continuous through the whole chromosome
-                } else if (end < newPosition || (newPosition - previousPosition) > 1) {
-                    // both raw and scaled are serialized
-                    GenomicScoreRegion genomicScoreRegion
-                            = new GenomicScoreRegion<>(fields[0], start, previousPosition, "cadd_raw", rawValues);
-                    serializer.serialize(genomicScoreRegion);
-
-                    genomicScoreRegion
-                            = new GenomicScoreRegion<>(fields[0], start, previousPosition, "cadd_scaled", scaledValues);
-                    serializer.serialize(genomicScoreRegion);
-
-                    serializedChunks++;
-                    start = newPosition;
-//                    start = end + 1;
-//                    end += CHUNK_SIZE;
-                    end = (start / CHUNK_SIZE) * CHUNK_SIZE + CHUNK_SIZE - 1;
-
-                    counter = 0;
-                    rawValues.clear();
-                    scaledValues.clear();
+    private void deleteChromosomeFolder(ExecutorService executorService, Path chromosomeFolder) {
+        try {
+            // Parsers still running after a failure stop at their next read, their files are removed once they finish
+            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("CADD parsers still running, temporary folder {} not removed", chromosomeFolder);
+                return;
+            }
+            try (Stream<Path> paths = Files.list(chromosomeFolder)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    Files.deleteIfExists(path);
                 }
+            }
+            Files.deleteIfExists(chromosomeFolder);
+        } catch (IOException e) {
+            logger.warn("Error removing temporary folder {}: {}", chromosomeFolder, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Path parseChromosome(TabixIndex tabixIndex, String chromosome, Path outdir, String fileName) throws IOException {
+        // Virtual file offset of the first line of the chromosome
+        long offset = Long.MAX_VALUE;
+        for (Block block : tabixIndex.getBlocks(chromosome, 1, MAX_POSITION)) {
+            offset = Math.min(offset, block.getStartPosition());
+        }
+        if (offset == Long.MAX_VALUE) {
+            return null;
+        }
+
+        String chromosomeFileName = fileName + "_" + chromosome;
+        CellBaseJsonFileSerializer chromosomeSerializer = new CellBaseJsonFileSerializer(outdir, chromosomeFileName);
+        try (BlockCompressedInputStream inputStream = new BlockCompressedInputStream(caddFilePath.toFile())) {
+            inputStream.seek(offset);
+            new CaddLineParser(chromosomeSerializer, chromosome).parse(inputStream);
+        } finally {
+            chromosomeSerializer.close();
+        }
+        return outdir.resolve(chromosomeFileName + ".json.gz");
+    }
+
+    private Path getPath(Future<Path> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Parses CADD lines from bytes, without creating Strings, and serializes the raw and scaled scores of each chunk of
+     * consecutive positions. The four scores of a position are packed in a long, 16 bits each, in A, C, G, T order.
+     */
+    private class CaddLineParser {
+
+        private final CellBaseSerializer serializer;
+        // Only this chromosome is parsed, lines before it are skipped and parsing stops after it
+        private final byte[] onlyChromosome;
+
+        private byte[] chromosome;
+        private String chromosomeName;
+        private int start;
+        private int end;
+        private int previousPosition;
+        private final LongList rawValues = new LongList();
+        private final LongList scaledValues = new LongList();
 
-                rawScoreValuesMap.put(fields[3], Float.valueOf(fields[4]));
-                scaledScoreValuesMap.put(fields[3], Float.valueOf(fields[5]));
-
-                if (++lineCount == 3) {
-//                    if (fields[0].equals("1") && fields[1].equals("249240621")) {
-//                    if (fields[0].equals("1") && fields[1].equals("69100")) {
-//                    if (fields[0].equals("1") && fields[1].equals("144854598")) {
-//                        logger.info("offset: {}", rawValues.size());
-//                    }
-
-                    for (String nucleotide : nucleotides) {
-                        // raw CADD score values can be negative, we add 10 to make positive
-                        float a = rawScoreValuesMap.getOrDefault(nucleotide, 10f) + 10.0f;
-                        v = (short) (a * DECIMAL_RESOLUTION);
-                        rawLongValue = (rawLongValue << 16) | v;
-
-                        // scaled CADD scores are always positive
-                        a = scaledScoreValuesMap.getOrDefault(nucleotide, 0f);
-                        v = (short) (a * DECIMAL_RESOLUTION);
-                        scaledLongValue = (scaledLongValue << 16) | v;
+        private int lineCount;
+        private final float[] rawScores = new float[4];
+        private final float[] scaledScores = new float[4];
+        // Bit set of the nucleotides with scores in the current position
+        private int scoredNucleotides;
+
+        CaddLineParser(CellBaseSerializer serializer, String onlyChromosome) {
+            this.serializer = serializer;
+            this.onlyChromosome = onlyChromosome != null ? onlyChromosome.getBytes(StandardCharsets.US_ASCII) : null;
+        }
+
+        void parse(InputStream inputStream) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length = 0;
+            int lineStart = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("CADD parsing interrupted");
+                }
+                length += read;
+                int lineEnd;
+                while ((lineEnd = indexOf(buffer, (byte) '\n', lineStart, length)) != -1) {
+                    if (!parseLine(buffer, lineStart, lineEnd)) {
+                        flush();
+                        return;
                     }
+                    lineStart = lineEnd + 1;
+                }
+
+                // Incomplete line moved to the beginning of the buffer
+                if (lineStart == 0 && length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, length - lineStart);
+                    length -= lineStart;
+                    lineStart = 0;
+                }
+            }
+            if (length > lineStart) {
+                parseLine(buffer, lineStart, length);
+            }
+            flush();
+        }
+
+        // Returns false if the line belongs to the chromosome after the one to be parsed
+        private boolean parseLine(byte[] line, int lineStart, int lineEnd) {
+            if (lineEnd > lineStart && line[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart || line[lineStart] == '#') {
+                return true;
+            }
 
-//                    if (rawLongValue < 0 || scaledLongValue < 0) {
-//                        logger.error("raw/scaled Long Values cannot be 0");
-//                        logger.error("Last read line {}", line);
-//                        System.exit(1);
-//                    }
-                    rawValues.add(rawLongValue);
-                    scaledValues.add(scaledLongValue);
-
-                    counter++;
-                    rawLongValue = 0;
-                    lineCount = 0;
-                    rawScoreValuesMap.clear();
-                    scaledScoreValuesMap.clear();
+            int chromosomeEnd = indexOf(line, (byte) '\t', lineStart, lineEnd);
+            int positionEnd = indexOf(line, (byte) '\t', chromosomeEnd + 1, lineEnd);
+            int referenceEnd = indexOf(line, (byte) '\t', positionEnd + 1, lineEnd);
+            int alternateEnd = indexOf(line, (byte) '\t', referenceEnd + 1, lineEnd);
+            int rawScoreEnd = indexOf(line, (byte) '\t', alternateEnd + 1, lineEnd);
+            if (rawScoreEnd == -1) {
+                throw new IllegalArgumentException("Invalid CADD line: "
+                        + new String(line, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII));
+            }
+            int scaledScoreEnd = indexOf(line, (byte) '\t', rawScoreEnd + 1, lineEnd);
+            if (scaledScoreEnd == -1) {
+                scaledScoreEnd = lineEnd;
+            }
+
+            if (onlyChromosome != null && !regionEquals(onlyChromosome, line, lineStart, chromosomeEnd)) {
+                // Lines of other chromosomes before the first line of the chromosome can share the BGZF block
+                return chromosome == null;
+            }
+
+            int newPosition = parseInt(line, chromosomeEnd + 1, positionEnd);
+            if (chromosome == null || !regionEquals(chromosome, line, lineStart, chromosomeEnd)) {
+                if (chromosome != null) {
+                    serializeChunk();
                 }
+                chromosome = Arrays.copyOfRange(line, lineStart, chromosomeEnd);
+                chromosomeName = new String(chromosome, StandardCharsets.US_ASCII);
+                logger.info("Parsing chr {} ", chromosomeName);
+
+                start = newPosition;
                 previousPosition = newPosition;
+                end = start + CHUNK_SIZE - 2;
+            } else if (end < newPosition || (newPosition - previousPosition) > 1) {
+                // The series of cadd scores is not continuous through the whole chromosome
+                serializeChunk();
+                start = newPosition;
+                end = (start / CHUNK_SIZE) * CHUNK_SIZE + CHUNK_SIZE - 1;
+            }
+
+            int nucleotide = alternateEnd - referenceEnd == 2 ? getNucleotideIndex(line[referenceEnd + 1]) : -1;
+            float rawScore = parseFloat(line, alternateEnd + 1, rawScoreEnd);
+            float scaledScore = parseFloat(line, rawScoreEnd + 1, scaledScoreEnd);
+            if (nucleotide != -1) {
+                rawScores[nucleotide] = rawScore;
+                scaledScores[nucleotide] = scaledScore;
+                scoredNucleotides |= 1 << nucleotide;
             }
+
+            if (++lineCount == 3) {
+                long rawLongValue = 0;
+                long scaledLongValue = 0;
+                short v;
+                for (int i = 0; i < 4; i++) {
+                    boolean scored = (scoredNucleotides & (1 << i)) != 0;
+                    // raw CADD score values can be negative, we add 10 to make positive
+                    float a = (scored ? rawScores[i] : 10f) + 10.0f;
+                    v = (short) (a * DECIMAL_RESOLUTION);
+                    rawLongValue = (rawLongValue << 16) | v;
+
+                    // scaled CADD scores are always positive
+                    a = scored ? scaledScores[i] : 0f;
+                    v = (short) (a * DECIMAL_RESOLUTION);
+                    scaledLongValue = (scaledLongValue << 16) | v;
+                }
+                rawValues.add(rawLongValue);
+                scaledValues.add(scaledLongValue);
+
+                lineCount = 0;
+                scoredNucleotides = 0;
+            }
+            previousPosition = newPosition;
+            return true;
         }
 
-        // Last chunks can be incomplete for both raw and scaled are serialized
-//        GenomicScoreRegion<Long> genomicScoreRegion =
-//                new GenomicScoreRegion<>(fields[0], start, start + rawValues.size() - 1, "cadd_raw", rawValues);
-        GenomicScoreRegion<Long> genomicScoreRegion =
-                new GenomicScoreRegion<>(fields[0], start, newPosition, "cadd_raw", rawValues);
-        serializer.serialize(genomicScoreRegion);
+        private void flush() {
+            // Last chunks can be incomplete for both raw and scaled are serialized
+            if (chromosome != null) {
+                serializeChunk();
+            }
+        }
 
-//        genomicScoreRegion = new GenomicScoreRegion<>(fields[0], start, start + scaledValues.size() - 1, "cadd_scaled", scaledValues);
-        genomicScoreRegion = new GenomicScoreRegion<>(fields[0], start, newPosition, "cadd_scaled", scaledValues);
-        serializer.serialize(genomicScoreRegion);
+        private void serializeChunk() {
+            // both raw and scaled are serialized
+            serializer.serialize(new GenomicScoreRegion<>(chromosomeName, start, previousPosition, "cadd_raw", rawValues));
+            serializer.serialize(new GenomicScoreRegion<>(chromosomeName, start, previousPosition, "cadd_scaled", scaledValues));
+            rawValues.clear();
+            scaledValues.clear();
+        }
+    }
 
-        serializer.close();
-        bufferedReader.close();
-        logger.info("Parsing finished.");
+    private static int getNucleotideIndex(byte nucleotide) {
+        switch (nucleotide) {
+            case 'A':
+                return 0;
+            case 'C':
+                return 1;
+            case 'G':
+                return 2;
+            case 'T':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        if (from < 0) {
+            return -1;
+        }
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(byte[] value, byte[] bytes, int from, int to) {
+        if (to - from != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (value[i] != bytes[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int parseInt(byte[] bytes, int from, int to) {
+        if (from >= to) {
+            throw new NumberFormatException("Empty integer");
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the same value as Float.parseFloat. Plain decimals with up to 7 significant digits, as in CADD files, are
+     * the quotient of two floats that are exact and so it is correctly rounded, anything else is handed to Float.parseFloat.
+     */
+    static float parseFloat(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int numDigits = 0;
+        int numDecimals = 0;
+        boolean decimalPoint = false;
+        for (; i < to; i++) {
+            byte c = bytes[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                numDigits++;
+                if (decimalPoint) {
+                    numDecimals++;
+                }
+                if (mantissa > MAX_EXACT_FLOAT_INTEGER || numDecimals >= POWERS_OF_TEN.length) {
+                    return Float.parseFloat(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+                }
+            } else if (c == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else {
+                return Float.parseFloat(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+            }
+        }
+        if (numDigits == 0) {
+            return Float.parseFloat(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+        float value = (float) mantissa / POWERS_OF_TEN[numDecimals];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Growable list of primitive longs. GenomicScoreRegion values are serialized from it, values are only boxed one at
+     * a time while being written.
+     */
+    private static class LongList extends AbstractList<Long> {
+
+        private long[] values = new long[CHUNK_SIZE];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            size = 0;
+        }
     }
 }
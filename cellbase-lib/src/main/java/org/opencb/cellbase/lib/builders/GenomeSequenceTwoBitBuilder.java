@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.builders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opencb.cellbase.lib.impl.core.GenomeSequenceTwoBitAdaptor;
+import org.opencb.commons.utils.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a UCSC .2bit file with the genome sequence, read by GenomeSequenceTwoBitAdaptor. Sequences are filtered as in
+ * GenomeSequenceFastaBuilder. The .2bit format only stores A, C, G, T and N: any other IUPAC code is stored as N, lower
+ * case bases are kept as mask blocks. A JSON file with the sequence type and assembly of each sequence, taken from the
+ * FASTA headers, is written next to it.
+ */
+public class GenomeSequenceTwoBitBuilder extends CellBaseBuilder {
+
+    private static final int VERSION = 0;
+    private static final long MAX_FILE_SIZE = 0xFFFFFFFFL;
+
+    private Path genomeReferenceFastaFile;
+    private Path twoBitFile;
+
+    public GenomeSequenceTwoBitBuilder(Path genomeReferenceFastaFile, Path twoBitFile) {
+        super(null);
+        this.genomeReferenceFastaFile = genomeReferenceFastaFile;
+        this.twoBitFile = twoBitFile;
+    }
+
+    @Override
+    public void parse() throws IOException {
+        List<String> sequenceNames = new ArrayList<>();
+        List<Long> recordSizes = new ArrayList<>();
+        Map<String, String> sequenceTypes = new LinkedHashMap<>();
+        String assembly = null;
+
+        // Sequence records are written to a temporary file since the index, with the offset of every record, goes first
+        Path recordsFile = Files.createTempFile(twoBitFile.getParent(), "genome_sequence", ".records");
+        try {
+            try (BufferedReader br = FileUtils.newBufferedReader(genomeReferenceFastaFile);
+                 DataOutputStream records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsFile)))) {
+                String sequenceName = null;
+                StringBuilder sequenceStringBuilder = new StringBuilder();
+                String line;
+                while (true) {
+                    line = br.readLine();
+                    if (line != null && !line.startsWith(">")) {
+                        sequenceStringBuilder.append(line);
+                        continue;
+                    }
+
+                    // New sequence or end of file, write previous sequence
+                    if (sequenceName != null && isValidSequence(sequenceName)) {
+                        logger.info("Writing sequence {}, {} bases", sequenceName, sequenceStringBuilder.length());
+                        sequenceNames.add(sequenceName);
+                        recordSizes.add(writeRecord(sequenceStringBuilder, records));
+                    }
+                    if (line == null) {
+                        break;
+                    }
+
+                    String[] lineParts = line.replace(">", "").split(" ");
+                    sequenceName = lineParts[0];
+                    // Non ENSEMBL fasta files may not contain this extra info in the sequence header
+                    if (lineParts.length > 2 && lineParts[2].contains(":")) {
+                        sequenceTypes.put(sequenceName, lineParts[2].split(":")[0]);
+                        assembly = lineParts[2].split(":")[1];
+                    }
+                    sequenceStringBuilder.setLength(0);
+                }
+            }
+
+            writeTwoBitFile(sequenceNames, recordSizes, recordsFile);
+        } finally {
+            Files.deleteIfExists(recordsFile);
+        }
+
+        sequenceTypes.keySet().retainAll(sequenceNames);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put(GenomeSequenceTwoBitAdaptor.ASSEMBLY, assembly);
+        metadata.put(GenomeSequenceTwoBitAdaptor.SEQUENCE_TYPES, sequenceTypes);
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(Paths.get(twoBitFile.toString() + GenomeSequenceTwoBitAdaptor.METADATA_SUFFIX).toFile(), metadata);
+        logger.info("Genome sequence written to {}, {} sequences", twoBitFile, sequenceNames.size());
+    }
+
+    private boolean isValidSequence(String sequenceName) {
+        return !sequenceName.contains("PATCH") && !sequenceName.contains("HSCHR") && !sequenceName.contains("contig");
+    }
+
+    private void writeTwoBitFile(List<String> sequenceNames, List<Long> recordSizes, Path recordsFile) throws IOException {
+        long indexSize = 0;
+        for (String sequenceName : sequenceNames) {
+            indexSize += 1 + sequenceName.getBytes(StandardCharsets.US_ASCII).length + 4;
+        }
+
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(twoBitFile))) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(GenomeSequenceTwoBitAdaptor.SIGNATURE).putInt(VERSION).putInt(sequenceNames.size()).putInt(0);
+            outputStream.write(header.array());
+
+            long offset = 16 + indexSize;
+            for (int i = 0; i < sequenceNames.size(); i++) {
+                if (offset > MAX_FILE_SIZE) {
+                    throw new IOException("Genome too large for the .2bit format, sequence " + sequenceNames.get(i)
+                            + " would start at offset " + offset);
+                }
+                byte[] name = sequenceNames.get(i).getBytes(StandardCharsets.US_ASCII);
+                ByteBuffer entry = ByteBuffer.allocate(1 + name.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+                entry.put((byte) name.length).put(name).putInt((int) offset);
+                outputStream.write(entry.array());
+                offset += recordSizes.get(i);
+            }
+
+            Files.copy(recordsFile, outputStream);
+        }
+    }
+
+    /**
+     * Writes the .2bit record of a sequence: length, N blocks, mask blocks, reserved field and packed bases.
+     *
+     * @param sequence  sequence
+     * @param records   output stream
+     * @return number of bytes written
+     * @throws IOException if the record cannot be written
+     */
+    private long writeRecord(CharSequence sequence, DataOutputStream records) throws IOException {
+        int length = sequence.length();
+        List<int[]> nBlocks = new ArrayList<>();
+        List<int[]> maskBlocks = new ArrayList<>();
+        int nBlockStart = -1;
+        int maskBlockStart = -1;
+        for (int i = 0; i <= length; i++) {
+            char base = i < length ? sequence.charAt(i) : 'A';
+            boolean isN = i < length && code(base) < 0;
+            boolean isMasked = i < length && Character.isLowerCase(base);
+            if (isN && nBlockStart < 0) {
+                nBlockStart = i;
+            } else if (!isN && nBlockStart >= 0) {
+                nBlocks.add(new int[]{nBlockStart, i - nBlockStart});
+                nBlockStart = -1;
+            }
+            if (isMasked && maskBlockStart < 0) {
+                maskBlockStart = i;
+            } else if (!isMasked && maskBlockStart >= 0) {
+                maskBlocks.add(new int[]{maskBlockStart, i - maskBlockStart});
+                maskBlockStart = -1;
+            }
+        }
+
+        int packedLength = (length + 3) / 4;
+        ByteBuffer record = ByteBuffer.allocate(4 + 4 + 8 * nBlocks.size() + 4 + 8 * maskBlocks.size() + 4 + packedLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(length);
+        putBlocks(nBlocks, record);
+        putBlocks(maskBlocks, record);
+        record.putInt(0);
+        for (int i = 0; i < packedLength; i++) {
+            int packedByte = 0;
+            for (int j = 0; j < 4; j++) {
+                int position = 4 * i + j;
+                // Ns and padding are stored as T (0), Ns are restored from the N blocks
+                int code = position < length ? Math.max(0, code(sequence.charAt(position))) : 0;
+                packedByte |= code << (6 - 2 * j);
+            }
+            record.put((byte) packedByte);
+        }
+        records.write(record.array());
+        return record.capacity();
+    }
+
+    private void putBlocks(List<int[]> blocks, ByteBuffer record) {
+        record.putInt(blocks.size());
+        for (int[] block : blocks) {
+            record.putInt(block[0]);
+        }
+        for (int[] block : blocks) {
+            record.putInt(block[1]);
+        }
+    }
+
+    private static int code(char base) {
+        switch (Character.toUpperCase(base)) {
+            case 'T':
+                return 0;
+            case 'C':
+                return 1;
+            case 'A':
+                return 2;
+            case 'G':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        // No serializer, the file is closed by parse
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.lib.cache;
+
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory cache loading its values on demand. Concurrent requests of the same key wait for one single load and failed
+ * loads are not cached. Each loaded value has a weight, e.g. 1 to bound the number of entries, and the least recently used
+ * entries are evicted once the total weight exceeds maxWeight, the entry just loaded is kept even if heavier than the
+ * cache. Entries expire expireAfterWriteNanos after being loaded.
+ *
+ * @param <K> key
+ * @param <V> cached value, shared by all the callers
+ */
+public class LoadingCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final long expireAfterWriteNanos;
+    // Access ordered, the first entry is the least recently used one. Guarded by this
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    private static Logger logger = LoggerFactory.getLogger(LoadingCache.class);
+
+    /**
+     * @param name                  name of the cached values, used in messages
+     * @param maxWeight             maximum total weight of the loaded values
+     * @param weigher               weight of a loaded value
+     * @param expireAfterWriteNanos time after which a loaded value is loaded again, Long.MAX_VALUE for never
+     */
+    public LoadingCache(String name, long maxWeight, ToLongFunction<? super V> weigher, long expireAfterWriteNanos) {
+        this.name = name;
+        this.maxWeight = Math.max(1, maxWeight);
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true);
+        this.weight = 0;
+    }
+
+    /**
+     * Returns the value cached under the key, loading it if not cached yet or expired.
+     *
+     * @param key    cache key
+     * @param loader returns the value to be cached under the key
+     * @return the cached value
+     * @throws CellBaseException if the value cannot be loaded, unless the loader throws a RuntimeException
+     */
+    public V get(K key, Callable<? extends V> loader) throws CellBaseException {
+        CacheEntry<V> entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime(), expireAfterWriteNanos)) {
+                remove(key, entry);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new CacheEntry<>(new FutureTask<>(loader::call));
+                entries.put(key, entry);
+                load = true;
+            }
+        }
+
+        if (load) {
+            misses.increment();
+            long start = System.nanoTime();
+            entry.task.run();
+            loadTimeNanos.add(System.nanoTime() - start);
+        } else {
+            hits.increment();
+        }
+
+        try {
+            V value = entry.task.get();
+            if (load) {
+                loaded(key, entry, weigher.applyAsLong(value));
+            }
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CellBaseException("Interrupted while loading " + name + " " + key, e);
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                // Failed loads are not cached, next request will try again
+                remove(key, entry);
+            }
+            if (e.getCause() instanceof CellBaseException) {
+                throw (CellBaseException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CellBaseException("Error loading " + name + " " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Removes the entries whose key matches the predicate.
+     *
+     * @param predicate keys to remove
+     * @return number of entries removed
+     */
+    public synchronized int invalidateIf(Predicate<? super K> predicate) {
+        int numRemoved = 0;
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+                numRemoved++;
+            }
+        }
+        return numRemoved;
+    }
+
+    /**
+     * Returns the size and hit/miss counters of the cache.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("numEntries", entries.size());
+            stats.put("weight", weight);
+        }
+        stats.put("maxWeight", maxWeight);
+        long numHits = hits.sum();
+        long numMisses = misses.sum();
+        stats.put("hits", numHits);
+        stats.put("misses", numMisses);
+        stats.put("hitRatio", numHits + numMisses == 0 ? 0 : (double) numHits / (numHits + numMisses));
+        stats.put("evictions", evictions.sum());
+        stats.put("loadTimeMillis", TimeUnit.NANOSECONDS.toMillis(loadTimeNanos.sum()));
+        return stats;
+    }
+
+    private synchronized void loaded(K key, CacheEntry<V> entry, long entryWeight) {
+        if (entries.get(key) != entry) {
+            // Invalidated while loading
+            return;
+        }
+        entry.loaded = true;
+        entry.loadedNanos = System.nanoTime();
+        entry.weight = entryWeight;
+        weight += entryWeight;
+        logger.debug("{} {} loaded, weight {}, {} of {} in use", name, key, entryWeight, weight, maxWeight);
+
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> eldest = iterator.next();
+            // Entries being loaded have no weight yet
+            if (eldest.getValue() != entry && eldest.getValue().loaded) {
+                weight -= eldest.getValue().weight;
+                iterator.remove();
+                evictions.increment();
+                logger.debug("{} {} evicted", name, eldest.getKey());
+            }
+        }
+    }
+
+    private void remove(K key, CacheEntry<V> entry) {
+        if (entries.remove(key, entry)) {
+            weight -= entry.weight;
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final FutureTask<V> task;
+        // Guarded by the cache
+        private boolean loaded;
+        private long loadedNanos;
+        private long weight;
+
+        CacheEntry(FutureTask<V> task) {
+            this.task = task;
+        }
+
+        boolean isExpired(long now, long expireAfterWriteNanos) {
+            return loaded && now - loadedNanos > expireAfterWriteNanos;
+        }
+    }
+}
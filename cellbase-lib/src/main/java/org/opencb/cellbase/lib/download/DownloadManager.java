@@ -248,6 +248,8 @@ public class DownloadManager {
 
             saveVersionData(EtlCommons.VARIATION_FUNCTIONAL_SCORE_DATA, CADD_NAME, url.split("/")[5], getTimeStamp(),
                     Collections.singletonList(url), buildFolder.resolve("caddVersion.json"));
+            // The tabix index allows building the CADD scores of several chromosomes in parallel
+            downloadFile(url + ".tbi", variationFunctionalScoreFolder.resolve("whole_genome_SNVs.tsv.gz.tbi").toString());
             return downloadFile(url, variationFunctionalScoreFolder.resolve("whole_genome_SNVs.tsv.gz").toString());
         }
         return null;
@@ -34,6 +34,7 @@ import org.opencb.cellbase.lib.iterator.CellBaseIterator;
 import org.opencb.cellbase.lib.iterator.CellBaseMongoDBIterator;
 import org.opencb.cellbase.lib.managers.GenomeManager;
 import org.opencb.cellbase.lib.variant.hgvs.HgvsCalculator;
+import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryParam;
@@ -57,6 +58,7 @@ public class ClinicalMongoDBAdaptor extends CellBaseDBAdaptor implements CellBas
     private static final String SEPARATOR = ",";
     // TODO: watch out this prefix only works for ENSMBL hgvs strings!!
     private static final String PROTEIN_HGVS_PREFIX = "ENSP";
+    private static final int CLINICAL_BATCH_SIZE = 1000;
     private static ClinicalPhasedQueryManager phasedQueryManager = new ClinicalPhasedQueryManager();
 
     private GenomeManager genomeManager;
@@ -447,9 +449,33 @@ public class ClinicalMongoDBAdaptor extends CellBaseDBAdaptor implements CellBas
 
     public List<CellBaseDataResult<Variant>> getByVariant(List<Variant> variants, List<Gene> geneList, QueryOptions queryOptions,
                                                           int dataRelease) throws CellBaseException {
-        List<CellBaseDataResult<Variant>> results = new ArrayList<>(variants.size());
-        for (Variant variant: variants) {
-            results.add(getClinicalVariant(variant, genomeManager, geneList, queryOptions, dataRelease));
+        return getByVariant(variants, geneList, null, queryOptions, dataRelease);
+    }
+
+    /**
+     * Queries the clinical variants matching each variant of the list. Variants are matched by their protein HGVS if
+     * checkAminoAcidChange is enabled and they are protein coding, or by chromosome, start, reference and alternate
+     * otherwise. All the variants of the batch are queried with one single $or query per CLINICAL_BATCH_SIZE variants,
+     * except CNVs and the variants that cannot be matched by an exact query, which are still queried one by one.
+     * @param variants list of Variant objects to query
+     * @param geneList genes overlapping the variants, used to calculate the HGVS
+     * @param hgvsList HGVS of each variant, same size and order as the "variants" list, e.g. as already calculated by the
+     *                 annotator. If null, HGVS are calculated here when checkAminoAcidChange is enabled
+     * @param queryOptions query options
+     * @param dataRelease release of the data (aka, version)
+     * @return list of CellBaseDataResult of Variant objects, same size and order as the "variants" list
+     * @throws CellBaseException CellBase exception
+     */
+    public List<CellBaseDataResult<Variant>> getByVariant(List<Variant> variants, List<Gene> geneList, List<List<String>> hgvsList,
+                                                          QueryOptions queryOptions, int dataRelease) throws CellBaseException {
+        List<CellBaseDataResult<Variant>> results;
+        if (isBatchQueryable(queryOptions)) {
+            results = getClinicalVariants(variants, geneList, hgvsList, queryOptions, dataRelease);
+        } else {
+            results = new ArrayList<>(variants.size());
+            for (Variant variant: variants) {
+                results.add(getClinicalVariant(variant, genomeManager, geneList, queryOptions, dataRelease));
+            }
         }
         if (queryOptions.get(ParamConstants.QueryParams.PHASE.key()) != null
                 && (Boolean) queryOptions.get(ParamConstants.QueryParams.PHASE.key())) {
@@ -459,6 +485,147 @@ public class ClinicalMongoDBAdaptor extends CellBaseDBAdaptor implements CellBas
         return results;
     }
 
+    private List<CellBaseDataResult<Variant>> getClinicalVariants(List<Variant> variants, List<Gene> geneList,
+                                                                  List<List<String>> hgvsList, QueryOptions queryOptions,
+                                                                  int dataRelease) throws CellBaseException {
+        List<CellBaseDataResult<Variant>> results = new ArrayList<>(Collections.nCopies(variants.size(), null));
+
+        boolean checkAminoAcidChange = queryOptions.get(ParamConstants.QueryParams.CHECK_AMINO_ACID_CHANGE.key()) != null
+                && (Boolean) queryOptions.get(ParamConstants.QueryParams.CHECK_AMINO_ACID_CHANGE.key());
+        // One calculator for the whole batch, only needed if the HGVS have not been calculated yet
+        HgvsCalculator hgvsCalculator = null;
+        if (checkAminoAcidChange && hgvsList == null && genomeManager != null && geneList != null && !geneList.isEmpty()) {
+            hgvsCalculator = new HgvsCalculator(genomeManager, dataRelease);
+        }
+
+        // Protein HGVS of each variant, if empty the variant is matched by its genomic coordinates
+        List<List<String>> proteinHgvsLists = new ArrayList<>(Collections.nCopies(variants.size(), Collections.emptyList()));
+        List<Integer> batchIndexes = new ArrayList<>(variants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            Variant variant = variants.get(i);
+            if (VariantType.CNV.equals(variant.getType()) || !isExactVariantQuery(variant)) {
+                results.set(i, getClinicalVariant(variant, genomeManager, geneList, queryOptions, dataRelease));
+                continue;
+            }
+            if (checkAminoAcidChange) {
+                if (hgvsList != null) {
+                    if (hgvsList.get(i) != null) {
+                        proteinHgvsLists.set(i, getProteinHgvs(hgvsList.get(i)));
+                    }
+                } else if (hgvsCalculator != null) {
+                    proteinHgvsLists.set(i, getProteinHgvs(hgvsCalculator.run(variant, geneList)));
+                }
+            }
+            batchIndexes.add(i);
+        }
+
+        if (batchIndexes.isEmpty()) {
+            return results;
+        }
+
+        // Documents must contain the fields used to match them with the variants
+        QueryOptions options = addPrivateExcludeOptions(parseQueryOptions(queryOptions, new Query()), PRIVATE_CLINICAL_FIELDS);
+        if (options.containsKey(QueryOptions.INCLUDE)) {
+            options.put(QueryOptions.INCLUDE, options.getString(QueryOptions.INCLUDE)
+                    + ",chromosome,start,reference,alternate,annotation.hgvs");
+        }
+        // Like the per variant queries, numMatches is only set if count is requested
+        boolean count = options.getBoolean(QueryOptions.COUNT, false);
+        options.remove(QueryOptions.COUNT);
+        MongoDBCollection mongoDBCollection = getCollectionByRelease(mongoDBCollectionByRelease, dataRelease);
+
+        for (int from = 0; from < batchIndexes.size(); from += CLINICAL_BATCH_SIZE) {
+            List<Integer> indexes = batchIndexes.subList(from, Math.min(from + CLINICAL_BATCH_SIZE, batchIndexes.size()));
+
+            // Duplicated variants and HGVS in the batch are queried only once
+            Map<String, List<Variant>> variantsByKey = new HashMap<>();
+            Map<String, List<Variant>> variantsByHgvs = new HashMap<>();
+            List<Bson> orBsonList = new ArrayList<>(indexes.size() + 1);
+            for (int index : indexes) {
+                Variant variant = variants.get(index);
+                List<String> proteinHgvsList = proteinHgvsLists.get(index);
+                if (proteinHgvsList.isEmpty()) {
+                    String key = getVariantKey(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                            variant.getAlternate());
+                    if (!variantsByKey.containsKey(key)) {
+                        variantsByKey.put(key, new ArrayList<>());
+                        orBsonList.add(Filters.and(Filters.eq("chromosome", variant.getChromosome()),
+                                Filters.eq("start", variant.getStart()),
+                                Filters.eq("reference", variant.getReference()),
+                                Filters.eq("alternate", variant.getAlternate())));
+                    }
+                } else {
+                    for (String hgvs : proteinHgvsList) {
+                        variantsByHgvs.putIfAbsent(hgvs, new ArrayList<>());
+                    }
+                }
+            }
+            if (!variantsByHgvs.isEmpty()) {
+                orBsonList.add(Filters.in("annotation.hgvs", variantsByHgvs.keySet()));
+            }
+
+            Bson bson = orBsonList.size() == 1 ? orBsonList.get(0) : Filters.or(orBsonList);
+            logger.debug("query: {}", bson.toBsonDocument().toJson());
+            DataResult<Variant> dataResult = mongoDBCollection.find(bson, null, Variant.class, options);
+            for (Variant clinicalVariant : dataResult.getResults()) {
+                List<Variant> variantList = variantsByKey.get(getVariantKey(clinicalVariant.getChromosome(),
+                        clinicalVariant.getStart(), clinicalVariant.getReference(), clinicalVariant.getAlternate()));
+                if (variantList != null) {
+                    variantList.add(clinicalVariant);
+                }
+                if (!variantsByHgvs.isEmpty() && clinicalVariant.getAnnotation() != null
+                        && clinicalVariant.getAnnotation().getHgvs() != null) {
+                    for (String hgvs : clinicalVariant.getAnnotation().getHgvs()) {
+                        variantList = variantsByHgvs.get(hgvs);
+                        if (variantList != null) {
+                            variantList.add(clinicalVariant);
+                        }
+                    }
+                }
+            }
+
+            for (int index : indexes) {
+                Variant variant = variants.get(index);
+                List<Variant> variantList;
+                List<String> proteinHgvsList = proteinHgvsLists.get(index);
+                if (proteinHgvsList.isEmpty()) {
+                    variantList = variantsByKey.get(getVariantKey(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                            variant.getAlternate()));
+                } else {
+                    // A clinical variant may match several HGVS of the variant, but it must be returned once
+                    Set<Variant> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+                    variantList = new ArrayList<>();
+                    for (String hgvs : proteinHgvsList) {
+                        for (Variant clinicalVariant : variantsByHgvs.get(hgvs)) {
+                            if (matches.add(clinicalVariant)) {
+                                variantList.add(clinicalVariant);
+                            }
+                        }
+                    }
+                }
+                results.set(index, new CellBaseDataResult<>(variant.toString(), dataResult.getTime(), new ArrayList<>(),
+                        variantList.size(), new ArrayList<>(variantList), count ? variantList.size() : -1));
+            }
+        }
+
+        return results;
+    }
+
+    private boolean isBatchQueryable(QueryOptions queryOptions) {
+        // Pagination and sorting are applied per variant, this cannot be reproduced by a single query for the whole batch
+        return queryOptions.getInt(QueryOptions.LIMIT, 0) <= 0 && queryOptions.getInt(QueryOptions.SKIP, 0) <= 0
+                && !queryOptions.containsKey(QueryOptions.SORT);
+    }
+
+    private boolean isExactVariantQuery(Variant variant) {
+        return variant.getReference() != null && !variant.getReference().contains(",")
+                && variant.getAlternate() != null && !variant.getAlternate().contains(",");
+    }
+
+    private String getVariantKey(String chromosome, int start, String reference, String alternate) {
+        return chromosome + ":" + start + ":" + reference + ":" + alternate;
+    }
+
     @Override
     public CellBaseIterator iterator(ClinicalVariantQuery query) throws CellBaseException {
         Bson bson = parseQuery(query);
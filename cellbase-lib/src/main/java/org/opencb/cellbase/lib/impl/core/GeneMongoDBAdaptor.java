@@ -139,6 +139,28 @@ public class GeneMongoDBAdaptor extends CellBaseDBAdaptor implements CellBaseCor
         return groupBy(bsonQuery, geneQuery, "name", mongoDBCollection);
     }
 
+    /**
+     * Returns all the genes of a chromosome, used to load the gene models of the variant annotation cache.
+     *
+     * @param chromosome  chromosome name
+     * @param source      gene source: ensembl (default) or refseq
+     * @param includes    gene fields to be returned
+     * @param dataRelease data release
+     * @return genes of the chromosome
+     * @throws CellBaseException if the data release is not valid
+     */
+    public CellBaseDataResult<Gene> getByChromosome(String chromosome, String source, List<String> includes, int dataRelease)
+            throws CellBaseException {
+        MongoDBCollection mongoDBCollection;
+        if (ParamConstants.QueryParams.REFSEQ.key().equalsIgnoreCase(source)) {
+            mongoDBCollection = getCollectionByRelease(refseqCollectionByRelease, dataRelease);
+        } else {
+            mongoDBCollection = getCollectionByRelease(mongoDBCollectionByRelease, dataRelease);
+        }
+        return new CellBaseDataResult<>(mongoDBCollection.find(Filters.eq("chromosome", chromosome),
+                Projections.include(includes), CONVERTER, new QueryOptions()));
+    }
+
     public CellBaseDataResult<Gene> startsWith(String id, QueryOptions options, int dataRelease) throws CellBaseException {
         Bson regex;
         if (id.startsWith("ENSG")) {
@@ -417,6 +417,115 @@ public class GenomeMongoDBAdaptor extends CellBaseDBAdaptor implements CellBaseC
         return allScoresByRegionList;
     }
 
+    /**
+     * Batch version of getAllScoresByRegionList intended for short regions, e.g. the regions of an annotation batch. The
+     * conservation chunks overlapping all regions are fetched with one single query, each chunk being decoded just once
+     * into a primitive array, and the scores of every region are then taken from the decoded chunks. Results are
+     * the same as those returned by getAllScoresByRegionList.
+     * @param regionList list of regions
+     * @param dataRelease release of the data (aka, version)
+     * @return list of CellBaseDataResult of Score objects, same size and order as the "regionList" list
+     * @throws CellBaseException CellBase exception
+     */
+    public List<CellBaseDataResult<Score>> getAllScoresByRegionBatch(List<Region> regionList, int dataRelease)
+            throws CellBaseException {
+        Map<String, List<ConservationChunk>> chunksByChunkId = new HashMap<>();
+        for (Region region : regionList) {
+            // positions below 1 are not allowed
+            if (region.getStart() < 1) {
+                region.setStart(1);
+            }
+            if (region.getEnd() < 1) {
+                region.setEnd(1);
+            }
+            for (String chunkId : getConservationChunkIds(region)) {
+                chunksByChunkId.putIfAbsent(chunkId, new ArrayList<>());
+            }
+        }
+
+        if (!chunksByChunkId.isEmpty()) {
+            MongoDBCollection mongoDBCollection = getCollectionByRelease(conservationMongoDBCollectionByRelease, dataRelease);
+            Bson bson = Filters.in("_chunkIds", chunksByChunkId.keySet());
+            QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, "_chunkIds,start,source,values");
+            logger.debug("query: {}", bson.toBsonDocument().toJson());
+            MongoDBIterator<Document> iterator = mongoDBCollection.nativeQuery().find(bson, options);
+            while (iterator.hasNext()) {
+                Document chunk = iterator.next();
+                ArrayList valuesChunk = chunk.get("values", ArrayList.class);
+                if (valuesChunk == null) {
+                    logger.error("values field not present in conservation chunk document. This "
+                            + "should not be happening - every conservation chunk must have a list of values."
+                            + " Please check. Chunk id: " + chunk.get("_chunkIds"));
+                    continue;
+                }
+                float[] values = new float[valuesChunk.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = ((Number) valuesChunk.get(i)).floatValue();
+                }
+                ConservationChunk conservationChunk = new ConservationChunk(chunk.getString("source"), chunk.getInteger("start"),
+                        values);
+                for (Object chunkId : chunk.get("_chunkIds", List.class)) {
+                    List<ConservationChunk> chunks = chunksByChunkId.get(chunkId.toString());
+                    if (chunks != null) {
+                        chunks.add(conservationChunk);
+                    }
+                }
+            }
+        }
+
+        List<CellBaseDataResult<Score>> allScoresByRegionList = new ArrayList<>(regionList.size());
+        for (Region region : regionList) {
+            int regionSize = region.getEnd() - region.getStart() + 1;
+            // A chunk document overlapping several chunks of the region must be used once
+            Set<ConservationChunk> visitedChunks = Collections.newSetFromMap(new IdentityHashMap<>());
+            Map<String, float[]> typeMap = new HashMap<>();
+            Map<String, boolean[]> presentMap = new HashMap<>();
+            for (String chunkId : getConservationChunkIds(region)) {
+                for (ConservationChunk chunk : chunksByChunkId.get(chunkId)) {
+                    if (!visitedChunks.add(chunk)) {
+                        continue;
+                    }
+                    float[] values = typeMap.computeIfAbsent(chunk.source, k -> new float[regionSize]);
+                    boolean[] present = presentMap.computeIfAbsent(chunk.source, k -> new boolean[regionSize]);
+                    int pos = Math.max(0, region.getStart() - chunk.start);
+                    for (; pos < chunk.values.length && pos + chunk.start <= region.getEnd(); pos++) {
+                        values[pos + chunk.start - region.getStart()] = chunk.values[pos];
+                        present[pos + chunk.start - region.getStart()] = true;
+                    }
+                }
+            }
+
+            List<Score> resultList = new ArrayList<>();
+            for (Map.Entry<String, float[]> elem : typeMap.entrySet()) {
+                boolean[] present = presentMap.get(elem.getKey());
+                for (int i = 0; i < regionSize; i++) {
+                    if (present[i]) {
+                        resultList.add(new Score((double) elem.getValue()[i], elem.getKey(), null));
+                    }
+                }
+            }
+            CellBaseDataResult<Score> result = new CellBaseDataResult<>();
+            if (!resultList.isEmpty()) {
+                result.setResults(resultList);
+            } else {
+                result.setResults(null);
+            }
+            allScoresByRegionList.add(result);
+        }
+
+        return allScoresByRegionList;
+    }
+
+    private List<String> getConservationChunkIds(Region region) {
+        int chunkStart = getChunkId(region.getStart(), CONSERVATION_CHUNK_SIZE);
+        int chunkEnd = getChunkId(region.getEnd(), CONSERVATION_CHUNK_SIZE);
+        List<String> chunkIds = new ArrayList<>(chunkEnd - chunkStart + 1);
+        for (int chunkId = chunkStart; chunkId <= chunkEnd; chunkId++) {
+            chunkIds.add(getChunkIdPrefix(region.getChromosome(), chunkId * CONSERVATION_CHUNK_SIZE, CONSERVATION_CHUNK_SIZE));
+        }
+        return chunkIds;
+    }
+
     public CellBaseDataResult<GenomeSequenceChunk> getGenomeSequenceRawData(List<String> chunkIds, int dataRelease)
             throws CellBaseException {
         MongoDBCollection mongoDBCollection = getCollectionByRelease(mongoDBCollectionByRelease, dataRelease);
@@ -598,4 +707,16 @@ public class GenomeMongoDBAdaptor extends CellBaseDBAdaptor implements CellBaseC
         chunkIdSet.add(getChunkIdPrefix(region.getChromosome(), region.getEnd(), GENOME_SEQUENCE_CHUNK_SIZE));
         return new ArrayList<>(chunkIdSet);
     }
+
+    private static class ConservationChunk {
+        private final String source;
+        private final int start;
+        private final float[] values;
+
+        ConservationChunk(String source, int start, float[] values) {
+            this.source = source;
+            this.start = start;
+            this.values = values;
+        }
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.impl.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opencb.biodata.models.core.GenomeSequenceFeature;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads genome sequences from a UCSC .2bit file, as written by GenomeSequenceTwoBitBuilder. The index and the N and
+ * mask blocks are read when the file is opened, the packed bases of each sequence are memory mapped and only the bytes
+ * of the requested region are decoded. One adaptor is opened per file and shared by all the managers.
+ * The sequence type and assembly of each sequence, which the .2bit format does not store, are read from the JSON file
+ * written next to it by the builder.
+ */
+public final class GenomeSequenceTwoBitAdaptor {
+
+    public static final int SIGNATURE = 0x1A412743;
+    public static final String METADATA_SUFFIX = ".json";
+    public static final String SEQUENCE_TYPES = "sequenceTypes";
+    public static final String ASSEMBLY = "assembly";
+
+    private static final char[] BASES = {'T', 'C', 'A', 'G'};
+    private static final Map<Path, GenomeSequenceTwoBitAdaptor> ADAPTORS = new ConcurrentHashMap<>();
+
+    private final Path twoBitFile;
+    private final Map<String, TwoBitSequence> sequences;
+    private final String assembly;
+
+    private static Logger logger = LoggerFactory.getLogger(GenomeSequenceTwoBitAdaptor.class);
+
+    private GenomeSequenceTwoBitAdaptor(Path twoBitFile) throws IOException {
+        this.twoBitFile = twoBitFile;
+        this.sequences = new HashMap<>();
+
+        Map<String, String> sequenceTypes = new HashMap<>();
+        String metadataAssembly = null;
+        Path metadataFile = Paths.get(twoBitFile.toString() + METADATA_SUFFIX);
+        if (Files.exists(metadataFile)) {
+            Map<String, Object> metadata = new ObjectMapper().readValue(metadataFile.toFile(), Map.class);
+            if (metadata.get(SEQUENCE_TYPES) instanceof Map) {
+                sequenceTypes.putAll((Map<String, String>) metadata.get(SEQUENCE_TYPES));
+            }
+            metadataAssembly = (String) metadata.get(ASSEMBLY);
+        }
+        this.assembly = metadataAssembly;
+
+        try (FileChannel channel = FileChannel.open(twoBitFile, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, 16, ByteOrder.LITTLE_ENDIAN);
+            ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+            int signature = header.getInt();
+            if (signature != SIGNATURE) {
+                if (Integer.reverseBytes(signature) != SIGNATURE) {
+                    throw new IOException("Not a .2bit file: " + twoBitFile);
+                }
+                byteOrder = ByteOrder.BIG_ENDIAN;
+                header.order(byteOrder);
+            }
+            int version = header.getInt();
+            if (version != 0) {
+                throw new IOException("Unsupported .2bit version " + version + ": " + twoBitFile);
+            }
+            int sequenceCount = header.getInt();
+
+            // Index: name length, name and offset of each sequence
+            long position = 16;
+            Map<String, Long> offsets = new LinkedHashMap<>();
+            for (int i = 0; i < sequenceCount; i++) {
+                int nameLength = read(channel, position, 1, byteOrder).get() & 0xFF;
+                ByteBuffer entry = read(channel, position + 1, nameLength + 4, byteOrder);
+                byte[] name = new byte[nameLength];
+                entry.get(name);
+                offsets.put(new String(name, StandardCharsets.US_ASCII), Integer.toUnsignedLong(entry.getInt()));
+                position += 1 + nameLength + 4;
+            }
+
+            for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+                sequences.put(entry.getKey(), readSequence(channel, entry.getValue(), byteOrder,
+                        sequenceTypes.get(entry.getKey())));
+            }
+        }
+        logger.info("Genome sequence file {} opened, {} sequences", twoBitFile, sequences.size());
+    }
+
+    /**
+     * Returns the adaptor of a .2bit file, opening it on the first call.
+     *
+     * @param twoBitFile path to the .2bit file
+     * @return the shared adaptor of the file
+     * @throws CellBaseException if the file cannot be read
+     */
+    public static GenomeSequenceTwoBitAdaptor getInstance(Path twoBitFile) throws CellBaseException {
+        try {
+            return ADAPTORS.computeIfAbsent(twoBitFile.toAbsolutePath(), path -> {
+                try {
+                    return new GenomeSequenceTwoBitAdaptor(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new CellBaseException("Error opening genome sequence file " + twoBitFile + ": " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Returns the sequence of a region, in the same way as GenomeMongoDBAdaptor.getSequence: the region end is truncated
+     * to the sequence length and no result is returned for unknown sequences.
+     *
+     * @param region region, 1-based and inclusive
+     * @return sequence of the region
+     */
+    public CellBaseDataResult<GenomeSequenceFeature> getSequence(Region region) {
+        long startTime = System.currentTimeMillis();
+        CellBaseDataResult<GenomeSequenceFeature> result = new CellBaseDataResult<>(region.toString());
+        TwoBitSequence twoBitSequence = sequences.get(region.getChromosome());
+        if (twoBitSequence != null) {
+            int start = Math.max(1, region.getStart());
+            int end = Math.min(region.getEnd(), twoBitSequence.length);
+            if (start <= end) {
+                String sequence = twoBitSequence.getSequence(start - 1, end);
+                result.setResults(Collections.singletonList(new GenomeSequenceFeature(region.getChromosome(), region.getStart(),
+                        region.getEnd(), 1, twoBitSequence.sequenceType, assembly, sequence)));
+                result.setNumMatches(1);
+                result.setNumResults(1);
+            }
+        }
+        result.setTime((int) (System.currentTimeMillis() - startTime));
+        return result;
+    }
+
+    public Set<String> getSequenceNames() {
+        return Collections.unmodifiableSet(sequences.keySet());
+    }
+
+    public Path getTwoBitFile() {
+        return twoBitFile;
+    }
+
+    private static TwoBitSequence readSequence(FileChannel channel, long offset, ByteOrder byteOrder, String sequenceType)
+            throws IOException {
+        long position = offset;
+        ByteBuffer buffer = read(channel, position, 8, byteOrder);
+        int length = buffer.getInt();
+        int nBlockCount = buffer.getInt();
+        position += 8;
+        int[][] nBlocks = readBlocks(channel, position, nBlockCount, byteOrder);
+        position += 8L * nBlockCount;
+
+        int maskBlockCount = read(channel, position, 4, byteOrder).getInt();
+        position += 4;
+        int[][] maskBlocks = readBlocks(channel, position, maskBlockCount, byteOrder);
+        // Mask blocks and the reserved field
+        position += 8L * maskBlockCount + 4;
+
+        MappedByteBuffer packedBases = channel.map(FileChannel.MapMode.READ_ONLY, position, (length + 3) / 4);
+        return new TwoBitSequence(length, nBlocks[0], nBlocks[1], maskBlocks[0], maskBlocks[1], packedBases, sequenceType);
+    }
+
+    private static int[][] readBlocks(FileChannel channel, long position, int count, ByteOrder byteOrder) throws IOException {
+        int[][] blocks = new int[2][count];
+        if (count > 0) {
+            ByteBuffer buffer = read(channel, position, 8 * count, byteOrder);
+            buffer.asIntBuffer().get(blocks[0]);
+            buffer.position(4 * count);
+            buffer.slice().order(byteOrder).asIntBuffer().get(blocks[1]);
+        }
+        return blocks;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size, ByteOrder byteOrder) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(byteOrder);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of .2bit file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class TwoBitSequence {
+        private final int length;
+        // Sorted starts (0-based) and sizes of the runs of Ns and of the lower case (masked) blocks
+        private final int[] nBlockStarts;
+        private final int[] nBlockSizes;
+        private final int[] maskBlockStarts;
+        private final int[] maskBlockSizes;
+        // Four bases per byte, the first base in the two most significant bits. Only absolute gets are used, the buffer
+        // can be read by several threads
+        private final MappedByteBuffer packedBases;
+        private final String sequenceType;
+
+        TwoBitSequence(int length, int[] nBlockStarts, int[] nBlockSizes, int[] maskBlockStarts, int[] maskBlockSizes,
+                       MappedByteBuffer packedBases, String sequenceType) {
+            this.length = length;
+            this.nBlockStarts = nBlockStarts;
+            this.nBlockSizes = nBlockSizes;
+            this.maskBlockStarts = maskBlockStarts;
+            this.maskBlockSizes = maskBlockSizes;
+            this.packedBases = packedBases;
+            this.sequenceType = sequenceType;
+        }
+
+        /**
+         * Decodes the bases in [start, end).
+         *
+         * @param start start, 0-based and inclusive
+         * @param end   end, exclusive
+         * @return sequence
+         */
+        String getSequence(int start, int end) {
+            char[] sequence = new char[end - start];
+            for (int position = start; position < end; position++) {
+                int packedByte = packedBases.get(position >>> 2);
+                sequence[position - start] = BASES[(packedByte >>> (6 - 2 * (position & 3))) & 3];
+            }
+
+            for (int i = firstBlockEndingAfter(nBlockStarts, nBlockSizes, start); i < nBlockStarts.length
+                    && nBlockStarts[i] < end; i++) {
+                int blockEnd = Math.min(end, nBlockStarts[i] + nBlockSizes[i]);
+                Arrays.fill(sequence, Math.max(start, nBlockStarts[i]) - start, blockEnd - start, 'N');
+            }
+            for (int i = firstBlockEndingAfter(maskBlockStarts, maskBlockSizes, start); i < maskBlockStarts.length
+                    && maskBlockStarts[i] < end; i++) {
+                int blockEnd = Math.min(end, maskBlockStarts[i] + maskBlockSizes[i]);
+                for (int j = Math.max(start, maskBlockStarts[i]); j < blockEnd; j++) {
+                    sequence[j - start] = Character.toLowerCase(sequence[j - start]);
+                }
+            }
+            return new String(sequence);
+        }
+
+        private static int firstBlockEndingAfter(int[] blockStarts, int[] blockSizes, int position) {
+            // Blocks do not overlap, the first block that may contain the position is the last one starting before it
+            int index = Arrays.binarySearch(blockStarts, position);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            if (index < 0) {
+                return 0;
+            }
+            return blockStarts[index] + blockSizes[index] > position ? index : index + 1;
+        }
+    }
+}
@@ -21,21 +21,18 @@ import com.mongodb.WriteConcern;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Updates;
 import org.bson.BsonDocument;
-import org.bson.Document;
 import org.bson.conversions.Bson;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.opencb.cellbase.core.api.key.ApiKeyStats;
 import org.opencb.cellbase.core.api.query.AbstractQuery;
 import org.opencb.cellbase.core.api.query.ProjectionQueryOptions;
-import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.iterator.CellBaseIterator;
+import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.FacetField;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.commons.datastore.mongodb.MongoDataStore;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -114,33 +111,27 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements CellBaseCoreDB
         return new CellBaseDataResult<>(apiKeyStatsMongoDBCollection.find(query, null, ApiKeyStats.class, QueryOptions.empty()));
     }
 
-    public CellBaseDataResult initApiKeyStats(String apiKey, String date) throws CellBaseException {
-        try {
-            ApiKeyStats apiKeyStats = new ApiKeyStats(apiKey, date);
-            Document document = Document.parse(new ObjectMapper().writeValueAsString(apiKeyStats));
-            return new CellBaseDataResult<>(apiKeyStatsMongoDBCollection.insert(document, QueryOptions.empty()));
-        } catch (IOException e) {
-            throw new CellBaseException("Error initializing quota for API key '" + apiKey.substring(0, 10) + "...': " + e.getMessage());
-        }
+    public CellBaseDataResult<ApiKeyStats> getQuotas(List<String> apiKeys, String date) {
+        Bson query = Filters.and(Filters.in("apiKey", apiKeys), Filters.eq("date", date));
+        return new CellBaseDataResult<>(apiKeyStatsMongoDBCollection.find(query, null, ApiKeyStats.class, QueryOptions.empty()));
     }
 
-    public CellBaseDataResult incApiKeyStats(String apiKey, String date, long incNumQueries, long incDuration, long incBytes) {
-        List<Bson> andBsonList = new ArrayList<>();
-        andBsonList.add(Filters.eq("apiKey", apiKey));
-        andBsonList.add(Filters.eq("date", date));
-        Bson query = Filters.and(andBsonList);
-
-        Bson update = Updates.combine(Updates.inc("numQueries", incNumQueries),
-                Updates.inc("duration", incDuration),
-                Updates.inc("bytes", incBytes));
-
-        Document projection = new Document("numQueries", true)
-                .append("duration", true)
-                .append("bytes", true);
-
-        QueryOptions queryOptions = new QueryOptions("replace", true);
-
-        return new CellBaseDataResult<>(apiKeyStatsMongoDBCollection.findAndUpdate(query, projection, null, update, ApiKeyStats.class,
-                queryOptions));
+    /**
+     * Adds the given numbers of queries, duration and bytes to the stats of each API key and date in one bulk write,
+     * creating the stats documents not found.
+     *
+     * @param increments increments by API key and date
+     * @return result of the bulk update
+     */
+    public DataResult incApiKeyStats(List<ApiKeyStats> increments) {
+        List<Bson> queries = new ArrayList<>(increments.size());
+        List<Bson> updates = new ArrayList<>(increments.size());
+        for (ApiKeyStats increment : increments) {
+            queries.add(Filters.and(Filters.eq("apiKey", increment.getApiKey()), Filters.eq("date", increment.getDate())));
+            updates.add(Updates.combine(Updates.inc("numQueries", increment.getNumQueries()),
+                    Updates.inc("duration", increment.getDuration()),
+                    Updates.inc("bytes", increment.getBytes())));
+        }
+        return apiKeyStatsMongoDBCollection.update(queries, updates, new QueryOptions("upsert", true));
     }
 }
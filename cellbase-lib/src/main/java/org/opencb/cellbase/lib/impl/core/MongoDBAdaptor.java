@@ -29,6 +29,7 @@ import org.opencb.cellbase.core.api.query.LogicalList;
 import org.opencb.cellbase.core.api.query.ProjectionQueryOptions;
 import org.opencb.cellbase.core.common.IntervalFeatureFrequency;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryParam;
@@ -41,9 +42,16 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MongoDBAdaptor {
 
+    // Results are read into lists presized to the limit, up to this size
+    private static final int MAX_PRESIZED_RESULTS = 1000;
+    // Bounded pool shared by all the adaptors to run the queries of a list and their counts in parallel
+    private static final ExecutorService QUERY_EXECUTOR = newQueryExecutor();
+
     protected MongoDataStore mongoDataStore;
 
     protected ObjectMapper objectMapper;
@@ -490,43 +498,101 @@ public class MongoDBAdaptor {
 
     protected List<CellBaseDataResult> executeQueryList2(List<? extends Object> ids, List<Document> queries, QueryOptions options,
                                                   MongoDBCollection mongoDBCollection2) {
-        List<CellBaseDataResult> cellBaseDataResults = new ArrayList<>(ids.size());
-        long dbTimeStart, dbTimeEnd;
-
+        // Queries of the list run in parallel, the calling thread runs the ones no pool thread has started yet
+        List<FutureTask<CellBaseDataResult>> tasks = new ArrayList<>(queries.size());
         for (int i = 0; i < queries.size(); i++) {
+            Object id = ids.get(i);
             Document query = queries.get(i);
-            CellBaseDataResult cellBaseDataResult = new CellBaseDataResult();
-            cellBaseDataResult.setId(ids.get(i).toString());
-            logger.debug("query: {}", query.toJson());
-            logger.debug("QueryOptions: {}", options.toJson());
-            // Execute query and calculate time
-            dbTimeStart = System.currentTimeMillis();
-            if (options.containsKey("count") && options.getBoolean("count")) {
-                cellBaseDataResult = new CellBaseDataResult(mongoDBCollection2.count(query));
-            } else {
-                MongoDBIterator<Document> iterator = mongoDBCollection2.nativeQuery().find(query, options);
-                List<Document> dbObjectList = new LinkedList<>();
-                while (iterator.hasNext()) {
-                    dbObjectList.add(iterator.next());
-                }
-                cellBaseDataResult.setNumResults(dbObjectList.size());
-                cellBaseDataResult.setResults(dbObjectList);
+            FutureTask<CellBaseDataResult> task = new FutureTask<>(() -> executeQuery2(id, query, options, mongoDBCollection2));
+            if (queries.size() > 1) {
+                QUERY_EXECUTOR.execute(task);
+            }
+            tasks.add(task);
+        }
 
-                // Limit is set in queryOptions, count number of total results
-                if (options != null && options.getInt("limit", 0) > 0
-                        && mongoDBCollection2.count(query).getResults().size() > 0) {
-                    cellBaseDataResult.setNumMatches(mongoDBCollection2.count(query).first());
-                } else {
-                    cellBaseDataResult.setNumMatches(dbObjectList.size());
-                }
+        List<CellBaseDataResult> cellBaseDataResults = new ArrayList<>(tasks.size());
+        for (FutureTask<CellBaseDataResult> task : tasks) {
+            cellBaseDataResults.add(runAndGet(task));
+        }
+        return cellBaseDataResults;
+    }
+
+    private CellBaseDataResult executeQuery2(Object id, Document query, QueryOptions options, MongoDBCollection mongoDBCollection2) {
+        CellBaseDataResult cellBaseDataResult = new CellBaseDataResult();
+        cellBaseDataResult.setId(id.toString());
+        logger.debug("query: {}", query.toJson());
+        logger.debug("QueryOptions: {}", options.toJson());
+        // Execute query and calculate time
+        long dbTimeStart = System.currentTimeMillis();
+        if (options.containsKey("count") && options.getBoolean("count")) {
+            cellBaseDataResult = new CellBaseDataResult(mongoDBCollection2.count(query));
+        } else {
+            // Limit is set in queryOptions, count number of total results while the results are read
+            int limit = options.getInt("limit", 0);
+            FutureTask<DataResult<Long>> countTask = null;
+            if (limit > 0 && !options.getBoolean(QueryOptions.SKIP_COUNT, false)) {
+                countTask = new FutureTask<>(() -> mongoDBCollection2.count(query));
+                QUERY_EXECUTOR.execute(countTask);
             }
-            dbTimeEnd = System.currentTimeMillis();
-            cellBaseDataResult.setTime(Long.valueOf(dbTimeEnd - dbTimeStart).intValue());
 
-            cellBaseDataResults.add(cellBaseDataResult);
+            MongoDBIterator<Document> iterator = mongoDBCollection2.nativeQuery().find(query, options);
+            List<Document> dbObjectList = new ArrayList<>(limit > 0 ? Math.min(limit, MAX_PRESIZED_RESULTS) : 10);
+            while (iterator.hasNext()) {
+                dbObjectList.add(iterator.next());
+            }
+            cellBaseDataResult.setNumResults(dbObjectList.size());
+            cellBaseDataResult.setResults(dbObjectList);
+
+            if (countTask != null) {
+                DataResult<Long> countResult = runAndGet(countTask);
+                cellBaseDataResult.setNumMatches(countResult.getResults().size() > 0 ? countResult.first() : dbObjectList.size());
+            } else {
+                // Matches are unknown when the count is skipped
+                cellBaseDataResult.setNumMatches(limit > 0 ? -1 : dbObjectList.size());
+            }
         }
+        long dbTimeEnd = System.currentTimeMillis();
+        cellBaseDataResult.setTime(Long.valueOf(dbTimeEnd - dbTimeStart).intValue());
+        return cellBaseDataResult;
+    }
 
-        return cellBaseDataResults;
+    /**
+     * Returns the result of a task submitted to QUERY_EXECUTOR, running it in the calling thread if no pool thread has
+     * started it yet. Tasks waiting for other tasks never block the pool this way, even when it is saturated.
+     *
+     * @param task task
+     * @param <T>  type of the result
+     * @return result of the task
+     */
+    private static <T> T runAndGet(FutureTask<T> task) {
+        // No-op if the task has already been started by a pool thread
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the database", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ExecutorService newQueryExecutor() {
+        int numThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "cellbase-mongodb-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Tasks not accepted are discarded, runAndGet runs them in the calling thread
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(numThreads * 16), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
     }
 
     protected CellBaseDataResult executeAggregation2(Object id, List<Bson> pipeline, QueryOptions options,
@@ -155,6 +155,72 @@ public class ProteinMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
 
     }
 
+    /**
+     * Batch version of getSubstitutionScores. SIFT and PolyPhen scores for all the requested substitutions are fetched
+     * with one single $in query on the transcript IDs, only the requested aa positions are projected.
+     *
+     * @param transcriptIds Ensembl transcript IDs, version is ignored
+     * @param positions aa positions, one per transcript ID
+     * @param aaAlternates alternate aa (three letter code), one per transcript ID
+     * @param dataRelease data release
+     * @return list of SIFT/PolyPhen scores in the same order as the input lists, null if no scores were found
+     * @throws CellBaseException if the protein substitution collection does not exist for the data release
+     */
+    public List<List<Score>> getSubstitutionScores(List<String> transcriptIds, List<Integer> positions, List<String> aaAlternates,
+                                                   int dataRelease) throws CellBaseException {
+        List<List<Score>> scoreLists = new ArrayList<>(transcriptIds.size());
+        if (transcriptIds.isEmpty()) {
+            return scoreLists;
+        }
+
+        Set<String> transcriptIdSet = new HashSet<>();
+        Set<String> includes = new HashSet<>();
+        includes.add("transcriptId");
+        for (int i = 0; i < transcriptIds.size(); i++) {
+            transcriptIdSet.add(transcriptIds.get(i).split("\\.")[0]);
+            includes.add("aaPositions." + positions.get(i));
+        }
+
+        MongoDBCollection mongoDBCollection = getCollectionByRelease(proteinSubstitutionMongoDBCollectionByRelease, dataRelease);
+        Bson bson = Filters.in("transcriptId", transcriptIdSet);
+        Bson projection = Projections.include(new ArrayList<>(includes));
+        CellBaseDataResult<Document> cellBaseDataResult = new CellBaseDataResult<>(mongoDBCollection.find(bson, projection,
+                new QueryOptions()));
+
+        // Only the first document of each transcript is taken into account, as in the single substitution query
+        Map<String, Document> aaPositionsByTranscript = new HashMap<>();
+        for (Document document : cellBaseDataResult.getResults()) {
+            aaPositionsByTranscript.putIfAbsent(document.getString("transcriptId"), (Document) document.get("aaPositions"));
+        }
+
+        for (int i = 0; i < transcriptIds.size(); i++) {
+            Document aaPositionsDocument = aaPositionsByTranscript.get(transcriptIds.get(i).split("\\.")[0]);
+            String aaShortName = aaShortNameMap.get(aaAlternates.get(i).toUpperCase());
+            List<Score> scoreList = null;
+            if (aaPositionsDocument != null && aaShortName != null) {
+                Document positionDocument = (Document) aaPositionsDocument.get(Integer.toString(positions.get(i)));
+                if (positionDocument != null && positionDocument.get(aaShortName) != null) {
+                    scoreList = parseSubstitutionScores((Document) positionDocument.get(aaShortName));
+                }
+            }
+            scoreLists.add(scoreList);
+        }
+        return scoreLists;
+    }
+
+    private List<Score> parseSubstitutionScores(Document aaDocument) {
+        List<Score> scoreList = new ArrayList<>(NUM_PROTEIN_SUBSTITUTION_SCORE_METHODS);
+        if (aaDocument.get("ss") != null) {
+            scoreList.add(new Score(Double.parseDouble("" + aaDocument.get("ss")),
+                    "sift", VariantAnnotationUtils.SIFT_DESCRIPTIONS.get(aaDocument.get("se"))));
+        }
+        if (aaDocument.get("ps") != null) {
+            scoreList.add(new Score(Double.parseDouble("" + aaDocument.get("ps")),
+                    "polyphen", VariantAnnotationUtils.POLYPHEN_DESCRIPTIONS.get(aaDocument.get("pe"))));
+        }
+        return scoreList;
+    }
+
 //    public CellBaseDataResult<Score> getSubstitutionScores(Query query, QueryOptions options) {
 //        CellBaseDataResult result = null;
 //
@@ -219,6 +285,27 @@ public class ProteinMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
     public CellBaseDataResult<ProteinVariantAnnotation> getVariantAnnotation(String ensemblTranscriptId, int position, String aaReference,
                                                                       String aaAlternate, QueryOptions options, int dataRelease)
             throws CellBaseException {
+        return getVariantAnnotation(ensemblTranscriptId, position, aaReference, aaAlternate, true, options, dataRelease);
+    }
+
+    /**
+     * Returns the protein annotation of an amino acid change.
+     *
+     * @param ensemblTranscriptId         Ensembl transcript ID
+     * @param position                    amino acid position
+     * @param aaReference                 reference amino acid
+     * @param aaAlternate                 alternate amino acid
+     * @param includeSubstitutionScores   whether SIFT/PolyPhen are queried, false when the caller fetches them in batch, see
+     *                                    getSubstitutionScores
+     * @param options                     query options
+     * @param dataRelease                 data release
+     * @return protein annotation
+     * @throws CellBaseException if the annotation cannot be queried
+     */
+    public CellBaseDataResult<ProteinVariantAnnotation> getVariantAnnotation(String ensemblTranscriptId, int position, String aaReference,
+                                                                      String aaAlternate, boolean includeSubstitutionScores,
+                                                                      QueryOptions options, int dataRelease)
+            throws CellBaseException {
         CellBaseDataResult<ProteinVariantAnnotation> cellBaseDataResult = new CellBaseDataResult<>();
         cellBaseDataResult.setId(ensemblTranscriptId + "/" + position + "/" + aaAlternate);
         long dbTimeStart = System.currentTimeMillis();
@@ -231,7 +318,7 @@ public class ProteinMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
         // Stop_gain/lost variants do not have SIFT/POLYPHEN scores
 //        System.out.println("aaReference = " + aaReference);
 //        System.out.println("aaAlternate = " + aaAlternate);
-        if (!aaAlternate.equals("STOP") && !aaReference.equals("STOP")) {
+        if (!aaAlternate.equals("STOP") && !aaReference.equals("STOP") && includeSubstitutionScores) {
             TranscriptQuery query = new TranscriptQuery();
             query.setTranscriptsId(Collections.singletonList(ensemblTranscriptId));
             query.setDataRelease(dataRelease);
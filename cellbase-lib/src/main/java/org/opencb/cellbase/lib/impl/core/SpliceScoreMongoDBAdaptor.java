@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.bson.conversions.Bson;
 import org.opencb.biodata.models.core.SpliceScore;
 import org.opencb.biodata.models.core.SpliceScoreAlternate;
+import org.opencb.biodata.models.variant.Variant;
 import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.EtlCommons;
@@ -29,12 +30,12 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.commons.datastore.mongodb.MongoDataStore;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 public class SpliceScoreMongoDBAdaptor extends CellBaseDBAdaptor {
 
+    private static final int SPLICE_SCORE_BATCH_SIZE = 1000;
+
     public SpliceScoreMongoDBAdaptor(MongoDataStore mongoDataStore) {
         super(mongoDataStore);
 
@@ -89,4 +90,78 @@ public class SpliceScoreMongoDBAdaptor extends CellBaseDBAdaptor {
         int dbTime = Long.valueOf(System.currentTimeMillis() - dbTimeStart).intValue();
         return new CellBaseDataResult<>(id, dbTime, new ArrayList<>(), results.size(), results, results.size());
     }
+
+    /**
+     * Queries the splice scores of all the variants of the list with one single query per SPLICE_SCORE_BATCH_SIZE variants,
+     * using the chromosome/position index, and matches the returned documents to the variants by position, reference and
+     * alternate alleles.
+     * @param variants list of Variant objects to query
+     * @param dataRelease release of the data (aka, version)
+     * @return list of CellBaseDataResult of SpliceScore objects, same size and order as the "variants" list
+     * @throws CellBaseException CellBase exception
+     */
+    public List<CellBaseDataResult<SpliceScore>> getScores(List<Variant> variants, int dataRelease) throws CellBaseException {
+        List<CellBaseDataResult<SpliceScore>> results = new ArrayList<>(variants.size());
+        MongoDBCollection mongoDBCollection = getCollectionByRelease(mongoDBCollectionByRelease, dataRelease);
+
+        for (int from = 0; from < variants.size(); from += SPLICE_SCORE_BATCH_SIZE) {
+            long dbTimeStart = System.currentTimeMillis();
+            List<Variant> batch = variants.subList(from, Math.min(from + SPLICE_SCORE_BATCH_SIZE, variants.size()));
+
+            // key = chromosome:position:reference, value = alternates queried for that key
+            Map<String, Set<String>> alternatesByKey = new HashMap<>();
+            Map<String, Set<Integer>> positionsByChromosome = new LinkedHashMap<>();
+            for (Variant variant : batch) {
+                String ref = StringUtils.isEmpty(variant.getReference()) ? "-" : variant.getReference();
+                String alt = StringUtils.isEmpty(variant.getAlternate()) ? "-" : variant.getAlternate();
+                alternatesByKey.computeIfAbsent(getKey(variant.getChromosome(), variant.getStart(), ref), k -> new HashSet<>())
+                        .add(alt);
+                positionsByChromosome.computeIfAbsent(variant.getChromosome(), k -> new TreeSet<>()).add(variant.getStart());
+            }
+
+            List<Bson> orBsonList = new ArrayList<>(positionsByChromosome.size());
+            for (Map.Entry<String, Set<Integer>> entry : positionsByChromosome.entrySet()) {
+                orBsonList.add(Filters.and(Filters.eq("chromosome", entry.getKey()), Filters.in("position", entry.getValue())));
+            }
+            Bson query = orBsonList.size() == 1 ? orBsonList.get(0) : Filters.or(orBsonList);
+            DataResult<SpliceScore> spliceScoreDataResult = mongoDBCollection.find(query, null, SpliceScore.class, new QueryOptions());
+
+            // key = chromosome:position:reference:alternate, value = scores with that alternate only
+            Map<String, List<SpliceScore>> scoresById = new HashMap<>();
+            for (SpliceScore score : spliceScoreDataResult.getResults()) {
+                String key = getKey(score.getChromosome(), score.getPosition(), score.getRefAllele());
+                Set<String> alternates = alternatesByKey.get(key);
+                if (alternates == null) {
+                    continue;
+                }
+                List<SpliceScoreAlternate> scoreAlternates = new ArrayList<>();
+                for (SpliceScoreAlternate scoreAlternate : score.getAlternates()) {
+                    if (alternates.contains(scoreAlternate.getAltAllele())) {
+                        scoreAlternates.add(scoreAlternate);
+                    }
+                }
+                for (SpliceScoreAlternate scoreAlternate : scoreAlternates) {
+                    // Each variant gets its own copy when several alternates of the same document have been queried
+                    SpliceScore result = scoreAlternates.size() == 1 ? score : objectMapper.convertValue(score, SpliceScore.class);
+                    result.setAlternates(Collections.singletonList(scoreAlternate));
+                    scoresById.computeIfAbsent(key + ":" + scoreAlternate.getAltAllele(), k -> new ArrayList<>()).add(result);
+                }
+            }
+
+            int dbTime = Long.valueOf(System.currentTimeMillis() - dbTimeStart).intValue();
+            for (Variant variant : batch) {
+                String ref = StringUtils.isEmpty(variant.getReference()) ? "-" : variant.getReference();
+                String alt = StringUtils.isEmpty(variant.getAlternate()) ? "-" : variant.getAlternate();
+                String id = getKey(variant.getChromosome(), variant.getStart(), ref) + ":" + alt;
+                List<SpliceScore> scores = scoresById.getOrDefault(id, Collections.emptyList());
+                results.add(new CellBaseDataResult<>(id, dbTime, new ArrayList<>(), scores.size(), new ArrayList<>(scores),
+                        scores.size()));
+            }
+        }
+        return results;
+    }
+
+    private String getKey(String chromosome, int position, String reference) {
+        return chromosome + ":" + position + ":" + reference;
+    }
 }
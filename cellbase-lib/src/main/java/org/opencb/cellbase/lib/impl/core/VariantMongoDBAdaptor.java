@@ -70,6 +70,7 @@ public class VariantMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
     private static final float DECIMAL_RESOLUTION = 100f;
     private static final String ENSEMBL_GENE_ID_PATTERN = "ENSG00";
     private static final String ENSEMBL_TRANSCRIPT_ID_PATTERN = "ENST00";
+    private static final int POPULATION_FREQUENCY_BATCH_SIZE = 1000;
     private static PopulationFrequencyPhasedQueryManager populationFrequencyPhasedQueryManager
             = new PopulationFrequencyPhasedQueryManager();
 
@@ -580,9 +581,70 @@ public class VariantMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
         CellBaseDataResult result = executeQuery(chromosome + "_" + position + "_" + reference + "_" + alternate,
                 query, queryOptions, mongoDBCollection);
 
+        result.setResults(getFunctionalScores((List<Document>) result.getResults(), position, alternate));
+        return result;
+    }
+
+    /**
+     * Batch version of getFunctionalScoreVariant. CADD chunks are fetched once for the whole list, neighbouring SNVs in
+     * sorted batches usually share the same chunk, and the scores of each variant are decoded from the fetched chunks.
+     * Variants other than SNVs get an empty result.
+     * @param variants list of Variant objects to query
+     * @param queryOptions query options
+     * @param dataRelease release of the data (aka, version)
+     * @return list of CellBaseDataResult of Score objects, same size and order as the "variants" list
+     * @throws CellBaseException CellBase exception
+     */
+    public List<CellBaseDataResult<Score>> getFunctionalScoreVariant(List<Variant> variants, QueryOptions queryOptions,
+                                                                     int dataRelease) throws CellBaseException {
+        List<String> chunkIds = new ArrayList<>(variants.size());
+        Map<String, List<Document>> documentsByChunkId = new HashMap<>();
+        for (Variant variant : variants) {
+            if (variant.getType() == VariantType.SNV) {
+                String chunkId = getChunkIdPrefix(variant.getChromosome(), variant.getStart(), VARIATION_FUNCTIONAL_SCORE_CHUNK_SIZE);
+                if (!documentsByChunkId.containsKey(chunkId)) {
+                    documentsByChunkId.put(chunkId, new ArrayList<>());
+                    chunkIds.add(chunkId);
+                }
+            }
+        }
+
+        int time = 0;
+        if (!chunkIds.isEmpty()) {
+            MongoDBCollection mongoDBCollection = getCollectionByRelease(caddDBCollectionByRelease, dataRelease);
+            Bson bson = Filters.in("_chunkIds", chunkIds);
+            logger.debug("query: {}", bson.toBsonDocument().toJson());
+            long dbTimeStart = System.currentTimeMillis();
+            MongoDBIterator<Document> iterator = mongoDBCollection.nativeQuery().find(bson, queryOptions);
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                for (Object chunkId : document.get("_chunkIds", List.class)) {
+                    List<Document> documents = documentsByChunkId.get(chunkId.toString());
+                    if (documents != null) {
+                        documents.add(document);
+                    }
+                }
+            }
+            time = Long.valueOf(System.currentTimeMillis() - dbTimeStart).intValue();
+        }
+
+        List<CellBaseDataResult<Score>> results = new ArrayList<>(variants.size());
+        for (Variant variant : variants) {
+            if (variant.getType() == VariantType.SNV) {
+                String chunkId = getChunkIdPrefix(variant.getChromosome(), variant.getStart(), VARIATION_FUNCTIONAL_SCORE_CHUNK_SIZE);
+                List<Score> scores = getFunctionalScores(documentsByChunkId.get(chunkId), variant.getStart(), variant.getAlternate());
+                results.add(new CellBaseDataResult<>(variant.getChromosome() + "_" + variant.getStart() + "_" + variant.getReference()
+                        + "_" + variant.getAlternate(), time, new ArrayList<>(), scores.size(), scores, scores.size()));
+            } else {
+                results.add(new CellBaseDataResult<>(variant.toString(), 0, Collections.emptyList(), 0));
+            }
+        }
+        return results;
+    }
+
+    private List<Score> getFunctionalScores(List<Document> documents, int position, String alternate) {
         List<Score> scores = new ArrayList<>();
-        for (Object object : result.getResults()) {
-            Document dbObject = (Document) object;
+        for (Document dbObject : documents) {
             int chunkStart = dbObject.getInteger("start");
             int chunkEnd = dbObject.getInteger("end");
             // CADD positions are not continuous through the whole chromosome. Several documents may be associated with
@@ -644,8 +706,7 @@ public class VariantMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
             }
         }
 
-        result.setResults(scores);
-        return result;
+        return scores;
     }
 
     /**
@@ -660,9 +721,14 @@ public class VariantMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
      */
     public List<CellBaseDataResult<Variant>> getPopulationFrequencyByVariant(List<Variant> variants, QueryOptions queryOptions,
                                                                              int dataRelease) throws CellBaseException {
-        List<CellBaseDataResult<Variant>> results = new ArrayList<>(variants.size());
-        for (Variant variant: variants) {
-            results.add(getByVariant(variant, queryOptions, dataRelease));
+        List<CellBaseDataResult<Variant>> results;
+        if (isBatchQueryable(queryOptions)) {
+            results = getShortVariantsByVariant(variants, queryOptions, dataRelease);
+        } else {
+            results = new ArrayList<>(variants.size());
+            for (Variant variant: variants) {
+                results.add(getByVariant(variant, queryOptions, dataRelease));
+            }
         }
 
         if (queryOptions.get(ParamConstants.QueryParams.PHASE.key()) != null && queryOptions.getBoolean(
@@ -673,16 +739,112 @@ public class VariantMongoDBAdaptor extends CellBaseDBAdaptor implements CellBase
         return results;
     }
 
+    /**
+     * Queries all short variants of the list with one single $or query per POPULATION_FREQUENCY_BATCH_SIZE variants and
+     * demultiplexes the returned documents back to the input order. Imprecise structural variants (i.e. providing CIPOS and
+     * CIEND) and variants which cannot be matched by an exact chromosome/start/reference/alternate query are still queried
+     * one by one.
+     * @param variants list of Variant objects to query
+     * @param queryOptions query options
+     * @param dataRelease release of the data (aka, version)
+     * @return list of CellBaseDataResult of Variant objects, same size and order as the "variants" list
+     * @throws CellBaseException CellBase exception
+     */
+    private List<CellBaseDataResult<Variant>> getShortVariantsByVariant(List<Variant> variants, QueryOptions queryOptions,
+                                                                        int dataRelease) throws CellBaseException {
+        List<CellBaseDataResult<Variant>> results = new ArrayList<>(Collections.nCopies(variants.size(), null));
+
+        List<Integer> shortVariantIndexes = new ArrayList<>(variants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            if (isShortVariantQuery(variants.get(i))) {
+                shortVariantIndexes.add(i);
+            } else {
+                results.set(i, getByVariant(variants.get(i), queryOptions, dataRelease));
+            }
+        }
+
+        if (!shortVariantIndexes.isEmpty()) {
+            // Documents must contain the fields used to demultiplex them, and counting each $or query makes no sense here
+            QueryOptions options = addVariantPrivateExcludeOptions(new QueryOptions(queryOptions));
+            if (options.containsKey(QueryOptions.INCLUDE)) {
+                options.put(QueryOptions.INCLUDE, options.getString(QueryOptions.INCLUDE) + ",chromosome,start,reference,alternate");
+            }
+            options.remove(QueryOptions.COUNT);
+            MongoDBCollection mongoDBCollection = getCollectionByRelease(mongoDBCollectionByRelease, dataRelease);
+
+            for (int from = 0; from < shortVariantIndexes.size(); from += POPULATION_FREQUENCY_BATCH_SIZE) {
+                List<Integer> indexes = shortVariantIndexes.subList(from,
+                        Math.min(from + POPULATION_FREQUENCY_BATCH_SIZE, shortVariantIndexes.size()));
+
+                List<Bson> orBsonList = new ArrayList<>(indexes.size());
+                Map<String, List<Variant>> variantsByKey = new HashMap<>();
+                for (int index : indexes) {
+                    Variant variant = variants.get(index);
+                    String key = getShortVariantKey(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                            variant.getAlternate());
+                    // Duplicated variants in the batch are queried only once
+                    if (!variantsByKey.containsKey(key)) {
+                        variantsByKey.put(key, new ArrayList<>());
+                        orBsonList.add(Filters.and(Filters.eq("chromosome", variant.getChromosome()),
+                                Filters.eq("start", variant.getStart()),
+                                Filters.eq("reference", variant.getReference()),
+                                Filters.eq("alternate", variant.getAlternate())));
+                    }
+                }
+
+                Bson bson = orBsonList.size() == 1 ? orBsonList.get(0) : Filters.or(orBsonList);
+                logger.debug("query: {}", bson.toBsonDocument().toJson());
+                DataResult<Variant> dataResult = mongoDBCollection.find(bson, null, Variant.class, options);
+                for (Variant variant : dataResult.getResults()) {
+                    List<Variant> variantList = variantsByKey.get(getShortVariantKey(variant.getChromosome(), variant.getStart(),
+                            variant.getReference(), variant.getAlternate()));
+                    if (variantList != null) {
+                        variantList.add(variant);
+                    }
+                }
+
+                for (int index : indexes) {
+                    Variant variant = variants.get(index);
+                    List<Variant> variantList = variantsByKey.get(getShortVariantKey(variant.getChromosome(), variant.getStart(),
+                            variant.getReference(), variant.getAlternate()));
+                    results.set(index, new CellBaseDataResult<>(variant.toString(), dataResult.getTime(), new ArrayList<>(),
+                            variantList.size(), new ArrayList<>(variantList), variantList.size()));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private boolean isBatchQueryable(QueryOptions queryOptions) {
+        // Pagination is applied per variant, this cannot be reproduced by a single query for the whole batch
+        return queryOptions.getInt(QueryOptions.LIMIT, 0) <= 0 && queryOptions.getInt(QueryOptions.SKIP, 0) <= 0;
+    }
+
+    private boolean isShortVariantQuery(Variant variant) {
+        return !isImpreciseVariant(variant)
+                && variant.getReference() != null && !variant.getReference().contains(",")
+                && variant.getAlternate() != null && !variant.getAlternate().contains(",");
+    }
+
+    private boolean isImpreciseVariant(Variant variant) {
+        return variant.getSv() != null
+                && variant.getSv().getCiStartLeft() != null
+                && variant.getSv().getCiStartRight() != null
+                && variant.getSv().getCiEndLeft() != null
+                && variant.getSv().getCiEndRight() != null;
+    }
+
+    private String getShortVariantKey(String chromosome, int start, String reference, String alternate) {
+        return chromosome + ":" + start + ":" + reference + ":" + alternate;
+    }
+
     CellBaseDataResult getByVariant(Variant variant, QueryOptions options, int dataRelease) throws CellBaseException {
         Query query;
 //        if (VariantType.CNV.equals(variant.getType())) {
 
         // Queries for CNVs,SVs are different from simple short variants queries
-        if (variant.getSv() != null
-                && variant.getSv().getCiStartLeft() != null
-                && variant.getSv().getCiStartRight() != null
-                && variant.getSv().getCiEndLeft() != null
-                && variant.getSv().getCiEndRight() != null) {
+        if (isImpreciseVariant(variant)) {
             query = new Query(ParamConstants.QueryParams.CHROMOSOME.key(), variant.getChromosome());
             // Imprecise queries can just be enabled for structural variants providing CIPOS positions. Imprecise queries
             // can be disabled by using the imprecise=false query option
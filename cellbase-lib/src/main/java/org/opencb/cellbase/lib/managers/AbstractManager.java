@@ -18,8 +18,11 @@ package org.opencb.cellbase.lib.managers;
 
 import org.apache.commons.lang3.StringUtils;
 import org.opencb.cellbase.core.api.key.ApiKeyManager;
+import org.opencb.cellbase.core.api.query.ProjectionQueryOptions;
 import org.opencb.cellbase.core.config.CellBaseConfiguration;
+import org.opencb.cellbase.core.config.InfoCacheProperties;
 import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.core.utils.SpeciesUtils;
 import org.opencb.cellbase.lib.db.MongoDBManager;
 import org.opencb.cellbase.lib.impl.core.MongoDBAdaptorFactory;
@@ -30,7 +33,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import static org.opencb.cellbase.core.ParamConstants.API_KEY_PARAM;
 
@@ -86,6 +92,60 @@ public class AbstractManager implements AutoCloseable {
         return queryOptions.getString(API_KEY_PARAM);
     }
 
+    /**
+     * Returns the info results from the info cache if enabled, otherwise or if the API key is not valid they are queried.
+     * Results depend on the data release, the sources licensed by the API key, the ids, the source and the projection.
+     *
+     * @param type         data type, e.g.: gene
+     * @param ids          ids
+     * @param queryOptions projection
+     * @param source       source, null if not applicable
+     * @param dataRelease  data release, already resolved (not 0)
+     * @param apiKey       API key
+     * @param loader       queries the info results
+     * @param <T>          data model
+     * @return the info results
+     * @throws CellBaseException if the results cannot be queried
+     */
+    protected <T> List<CellBaseDataResult<T>> cachedInfo(String type, List<String> ids, ProjectionQueryOptions queryOptions, String source,
+                                                         int dataRelease, String apiKey, Callable<List<CellBaseDataResult<T>>> loader)
+            throws CellBaseException {
+        InfoCacheProperties properties = configuration.getServer() != null ? configuration.getServer().getInfoCache() : null;
+        Collection<String> validSources = null;
+        if (properties != null && properties.isEnabled() && ids != null) {
+            try {
+                validSources = new TreeSet<>(apiKeyManager.getValidSources(apiKey));
+            } catch (IllegalArgumentException e) {
+                // Invalid API key, the loader reports it
+                validSources = null;
+            }
+        }
+        if (validSources == null) {
+            try {
+                return loader.call();
+            } catch (CellBaseException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CellBaseException(e.getMessage(), e);
+            }
+        }
+
+        StringBuilder key = new StringBuilder(mongoDatastore.getDatabaseName()).append(':').append(type)
+                .append(':').append(dataRelease)
+                .append(':').append(source)
+                .append(':').append(String.join(",", validSources))
+                .append(':').append(String.join(",", ids));
+        if (queryOptions != null) {
+            if (queryOptions.getIncludes() != null) {
+                key.append(":include=").append(String.join(",", new TreeSet<>(queryOptions.getIncludes())));
+            }
+            if (queryOptions.getExcludes() != null) {
+                key.append(":exclude=").append(String.join(",", new TreeSet<>(queryOptions.getExcludes())));
+            }
+        }
+        return InfoCache.getInstance(properties).get(key.toString(), loader);
+    }
+
     @Deprecated
     protected List<Query> createQueries(Query query, String csvField, String queryKey, String... args) {
         String[] ids = csvField.split(",");
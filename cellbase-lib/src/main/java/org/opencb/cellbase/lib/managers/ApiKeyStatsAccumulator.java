@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.managers;
+
+import org.opencb.cellbase.core.api.key.ApiKeyStats;
+import org.opencb.cellbase.core.config.ApiKeyStatsProperties;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.lib.impl.core.MetaMongoDBAdaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the queries, duration and bytes of each API key in memory and flushes them to the database in bulk, in a
+ * background thread, every ApiKeyStatsProperties.flushInterval milliseconds. Quotas are checked against the number of
+ * queries read from the database the first time an API key is used, which is refreshed at every flush with the queries
+ * of all servers, plus the queries counted here and not flushed yet.
+ */
+class ApiKeyStatsAccumulator implements AutoCloseable {
+
+    private final MetaMongoDBAdaptor metaDBAdaptor;
+    private final int quotaTolerance;
+    private final ConcurrentMap<String, Counters> countersMap;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested;
+    private final Thread shutdownHook;
+
+    private static Logger logger = LoggerFactory.getLogger(ApiKeyStatsAccumulator.class);
+
+    ApiKeyStatsAccumulator(MetaMongoDBAdaptor metaDBAdaptor, ApiKeyStatsProperties properties) {
+        this.metaDBAdaptor = metaDBAdaptor;
+        this.quotaTolerance = Math.max(1, properties.getQuotaTolerance());
+        this.countersMap = new ConcurrentHashMap<>();
+        this.flushRequested = new AtomicBoolean(false);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cellbase-apikey-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushInterval = Math.max(1, properties.getFlushInterval());
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+        // Counts not flushed yet are written when the server stops
+        this.shutdownHook = new Thread(this::flush, "cellbase-apikey-stats-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Number of queries of an API key in a month, including the ones not flushed yet. The number stored in the database
+     * is read only the first time.
+     *
+     * @param apiKey API key
+     * @param date   year and month, e.g.: 202309
+     * @return number of queries
+     */
+    long getNumQueries(String apiKey, String date) {
+        Counters counters = getCounters(apiKey, date);
+        if (!counters.loaded) {
+            synchronized (counters) {
+                if (!counters.loaded) {
+                    counters.storedNumQueries = readNumQueries(apiKey, date);
+                    counters.loaded = true;
+                }
+            }
+        }
+        return counters.storedNumQueries + counters.numQueries.sum();
+    }
+
+    void inc(String apiKey, String date, long incNumQueries, long incDuration, long incBytes) {
+        Counters counters = getCounters(apiKey, date);
+        counters.numQueries.add(incNumQueries);
+        counters.duration.add(incDuration);
+        counters.bytes.add(incBytes);
+        if (counters.numQueries.sum() >= quotaTolerance && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes the counts not flushed yet in one bulk update and reads back the number of queries of the API keys in use,
+     * including the ones of the other servers. Counts that could not be written are kept for the next flush.
+     */
+    synchronized void flush() {
+        flushRequested.set(false);
+        try {
+            List<Counters> flushedCounters = new ArrayList<>();
+            List<ApiKeyStats> increments = new ArrayList<>();
+            for (Counters counters : countersMap.values()) {
+                ApiKeyStats increment = new ApiKeyStats(counters.apiKey, counters.date, counters.numQueries.sum(),
+                        counters.duration.sum(), counters.bytes.sum());
+                if (increment.getNumQueries() != 0 || increment.getDuration() != 0 || increment.getBytes() != 0) {
+                    flushedCounters.add(counters);
+                    increments.add(increment);
+                }
+            }
+            if (!increments.isEmpty()) {
+                writeApiKeyStats(increments);
+            }
+
+            Map<String, Long> storedNumQueries = readStoredNumQueries();
+
+            // The flushed counts are now part of the stored ones
+            for (int i = 0; i < flushedCounters.size(); i++) {
+                Counters counters = flushedCounters.get(i);
+                counters.numQueries.add(-increments.get(i).getNumQueries());
+                counters.duration.add(-increments.get(i).getDuration());
+                counters.bytes.add(-increments.get(i).getBytes());
+            }
+            for (Counters counters : countersMap.values()) {
+                Long numQueries = storedNumQueries.get(getKey(counters.apiKey, counters.date));
+                if (numQueries != null) {
+                    counters.storedNumQueries = numQueries;
+                    counters.loaded = true;
+                }
+            }
+
+            // Counters of past months are not needed anymore once flushed
+            String date = MetaManager.getApiKeyStatsDate();
+            countersMap.values().removeIf(counters -> !counters.date.equals(date) && counters.numQueries.sum() == 0
+                    && counters.duration.sum() == 0 && counters.bytes.sum() == 0);
+        } catch (Exception e) {
+            logger.warn("Error flushing API key stats, they will be flushed next time: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down, the hook flushes
+            return;
+        }
+        flush();
+    }
+
+    private Map<String, Long> readStoredNumQueries() {
+        Map<String, List<String>> apiKeysByDate = new HashMap<>();
+        for (Counters counters : countersMap.values()) {
+            apiKeysByDate.computeIfAbsent(counters.date, date -> new ArrayList<>()).add(counters.apiKey);
+        }
+
+        Map<String, Long> storedNumQueries = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : apiKeysByDate.entrySet()) {
+            for (ApiKeyStats apiKeyStats : readApiKeyStats(entry.getValue(), entry.getKey())) {
+                storedNumQueries.put(getKey(apiKeyStats.getApiKey(), apiKeyStats.getDate()), apiKeyStats.getNumQueries());
+            }
+        }
+        return storedNumQueries;
+    }
+
+    long readNumQueries(String apiKey, String date) {
+        CellBaseDataResult<ApiKeyStats> result = metaDBAdaptor.getQuota(apiKey, date);
+        return result.getNumResults() > 0 ? result.first().getNumQueries() : 0;
+    }
+
+    List<ApiKeyStats> readApiKeyStats(List<String> apiKeys, String date) {
+        return metaDBAdaptor.getQuotas(apiKeys, date).getResults();
+    }
+
+    void writeApiKeyStats(List<ApiKeyStats> increments) {
+        metaDBAdaptor.incApiKeyStats(increments);
+    }
+
+    private Counters getCounters(String apiKey, String date) {
+        return countersMap.computeIfAbsent(getKey(apiKey, date), key -> new Counters(apiKey, date));
+    }
+
+    private static String getKey(String apiKey, String date) {
+        return date + ":" + apiKey;
+    }
+
+    private static class Counters {
+        private final String apiKey;
+        private final String date;
+        // Counts not flushed yet
+        private final LongAdder numQueries = new LongAdder();
+        private final LongAdder duration = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        // Number of queries in the database, of all servers, at the last flush
+        private volatile long storedNumQueries;
+        private volatile boolean loaded;
+
+        Counters(String apiKey, String date) {
+            this.apiKey = apiKey;
+            this.date = date;
+        }
+    }
+}
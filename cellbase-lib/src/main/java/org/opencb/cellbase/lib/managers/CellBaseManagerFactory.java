@@ -69,6 +69,10 @@ public class CellBaseManagerFactory {
         pharmacogenomicsManagers = new HashMap<>();
     }
 
+    public CellBaseConfiguration getConfiguration() {
+        return configuration;
+    }
+
     private String getMultiKey(String species, String assembly) {
         return species + "_" + assembly;
     }
@@ -290,7 +294,8 @@ public class CellBaseManagerFactory {
         return tfManagers.get(multiKey);
     }
 
-    public MetaManager getMetaManager() throws CellBaseException {
+    public synchronized MetaManager getMetaManager() throws CellBaseException {
+        // Only one MetaManager, the API key stats of all the requests are accumulated and flushed by its ApiKeyStatsAccumulator
         if (metaManager == null) {
             metaManager = new MetaManager(configuration);
         }
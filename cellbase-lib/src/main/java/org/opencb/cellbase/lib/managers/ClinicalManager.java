@@ -174,7 +174,13 @@ public class ClinicalManager extends AbstractManager implements AggregationApi<C
 
     public List<CellBaseDataResult<Variant>> getByVariant(List<Variant> variants, List<Gene> geneList,
                                                           QueryOptions queryOptions, int dataRelease) throws CellBaseException {
-        List<CellBaseDataResult<Variant>> results = clinicalDBAdaptor.getByVariant(variants, geneList, queryOptions, dataRelease);
+        return getByVariant(variants, geneList, null, queryOptions, dataRelease);
+    }
+
+    public List<CellBaseDataResult<Variant>> getByVariant(List<Variant> variants, List<Gene> geneList, List<List<String>> hgvsList,
+                                                          QueryOptions queryOptions, int dataRelease) throws CellBaseException {
+        List<CellBaseDataResult<Variant>> results = clinicalDBAdaptor.getByVariant(variants, geneList, hgvsList, queryOptions,
+                dataRelease);
 
         Set<String> validSources = apiKeyManager.getValidSources(getApiKey(queryOptions), ApiKeyLicensedDataUtils.UNLICENSED_CLINICAL_DATA);
 
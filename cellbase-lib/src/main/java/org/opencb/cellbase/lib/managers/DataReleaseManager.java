@@ -124,7 +124,9 @@ public class DataReleaseManager extends AbstractManager {
     }
 
     public DataRelease update(int release, List<String> versions) throws CellBaseException {
-        return releaseDBAdaptor.update(release, versions).first();
+        DataRelease dataRelease = releaseDBAdaptor.update(release, versions).first();
+        invalidateInfoCache();
+        return dataRelease;
     }
 
     public DataRelease update(int release, String collection, String data, List<Path> dataSourcePaths)
@@ -205,6 +207,15 @@ public class DataReleaseManager extends AbstractManager {
             }
             releaseDBAdaptor.update(dataRelase.getRelease(), "sources", tmp);
         }
+        invalidateInfoCache();
+    }
+
+    private void invalidateInfoCache() {
+        // Cached info results may come from the collections or sources just updated
+        InfoCache infoCache = InfoCache.getInstance();
+        if (infoCache != null) {
+            infoCache.invalidate(mongoDatastore.getDatabaseName());
+        }
     }
 
     public String getMaintenanceFlagFile() {
@@ -37,6 +37,22 @@ public interface FeatureApi<Q extends AbstractQuery, T> {
         return getDBAdaptor().query(query);
     }
 
+    /**
+     * Same as search, but the results are read from the database as the returned iterator is consumed. The iterator
+     * must be closed.
+     *
+     * @param query query
+     * @return iterator over the results of the query
+     * @throws QueryException if the query is not valid
+     * @throws IllegalAccessException if the query parameters can not be accessed
+     * @throws CellBaseException if the database can not be queried
+     */
+    default CellBaseIterator<T> searchIterator(Q query) throws QueryException, IllegalAccessException, CellBaseException {
+        query.setDefaults();
+        query.validate();
+        return getDBAdaptor().iterator(query);
+    }
+
     default List<CellBaseDataResult<T>> search(List<Q> queries) throws QueryException, IllegalAccessException, CellBaseException {
         List<CellBaseDataResult<T>> results = new ArrayList<>();
         for (Q query : queries) {
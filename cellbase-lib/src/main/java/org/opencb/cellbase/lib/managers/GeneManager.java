@@ -60,7 +60,8 @@ public class GeneManager extends AbstractManager implements AggregationApi<GeneQ
 
     public List<CellBaseDataResult<Gene>> info(List<String> ids, ProjectionQueryOptions query, String source, int dataRelease,
                                                String apiKey) throws CellBaseException {
-        return geneDBAdaptor.info(ids, query, source, dataRelease, apiKey);
+        return cachedInfo("gene", ids, query, source, dataRelease, apiKey,
+                () -> geneDBAdaptor.info(ids, query, source, dataRelease, apiKey));
     }
 
     public CellBaseDataResult<GenomeSequenceFeature> getSequence(GeneQuery query) throws CellBaseException {
@@ -95,6 +96,11 @@ public class GeneManager extends AbstractManager implements AggregationApi<GeneQ
         return geneQueryResults;
     }
 
+    public CellBaseDataResult<Gene> getByChromosome(String chromosome, String source, List<String> includes, int dataRelease)
+            throws CellBaseException {
+        return geneDBAdaptor.getByChromosome(chromosome, source, includes, dataRelease);
+    }
+
     public CellBaseDataResult<Gene> startsWith(String query, QueryOptions queryOptions, int dataRelease) throws CellBaseException {
         return geneDBAdaptor.startsWith(query, queryOptions, dataRelease);
     }
@@ -17,6 +17,7 @@
 package org.opencb.cellbase.lib.managers;
 
 import com.google.common.base.Splitter;
+import org.apache.commons.lang3.StringUtils;
 import org.opencb.biodata.models.core.*;
 import org.opencb.biodata.models.variant.avro.Cytoband;
 import org.opencb.biodata.models.variant.avro.Score;
@@ -24,13 +25,19 @@ import org.opencb.cellbase.core.ParamConstants;
 import org.opencb.cellbase.core.api.GenomeQuery;
 import org.opencb.cellbase.core.api.query.CellBaseQueryOptions;
 import org.opencb.cellbase.core.config.CellBaseConfiguration;
+import org.opencb.cellbase.core.config.GenomeProperties;
 import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.core.utils.SpeciesUtils;
 import org.opencb.cellbase.lib.impl.core.CellBaseCoreDBAdaptor;
 import org.opencb.cellbase.lib.impl.core.GenomeMongoDBAdaptor;
+import org.opencb.cellbase.lib.impl.core.GenomeSequenceTwoBitAdaptor;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -39,6 +46,8 @@ import java.util.Set;
 public class GenomeManager extends AbstractManager implements AggregationApi<GenomeQuery, Chromosome> {
 
     private GenomeMongoDBAdaptor genomeDBAdaptor;
+    // Null if genome sequences are read from MongoDB
+    private GenomeSequenceTwoBitAdaptor genomeSequenceTwoBitAdaptor;
 
     public GenomeManager(String species, CellBaseConfiguration configuration) throws CellBaseException {
         this(species, null, configuration);
@@ -51,8 +60,23 @@ public class GenomeManager extends AbstractManager implements AggregationApi<Gen
         this.init();
     }
 
-    private void init() {
+    private void init() throws CellBaseException {
         genomeDBAdaptor = dbAdaptorFactory.getGenomeDBAdaptor();
+
+        GenomeProperties genomeProperties = configuration.getGenome();
+        if (genomeProperties != null && genomeProperties.isTwoBitBackend()) {
+            String sequenceAssembly = StringUtils.isEmpty(assembly)
+                    ? SpeciesUtils.getSpecies(configuration, species, assembly).getAssembly()
+                    : assembly;
+            Path twoBitFile = Paths.get(genomeProperties.getSequenceDirectory())
+                    .resolve(species + "_" + sequenceAssembly.toLowerCase())
+                    .resolve(GenomeProperties.TWO_BIT_FILE_NAME);
+            if (Files.exists(twoBitFile)) {
+                genomeSequenceTwoBitAdaptor = GenomeSequenceTwoBitAdaptor.getInstance(twoBitFile);
+            } else {
+                logger.warn("Genome sequence file {} not found, genome sequences will be read from MongoDB", twoBitFile);
+            }
+        }
     }
 
     @Override
@@ -87,7 +111,7 @@ public class GenomeManager extends AbstractManager implements AggregationApi<Gen
     public List<CellBaseDataResult<GenomeSequenceFeature>> getByRegions(GenomeQuery query) throws CellBaseException {
         List<CellBaseDataResult<GenomeSequenceFeature>> queryResults = new ArrayList<>();
         for (Region region : query.getRegions()) {
-            queryResults.add(genomeDBAdaptor.getSequence(region, query.toQueryOptions(), query.getDataRelease()));
+            queryResults.add(getSequence(region, query.toQueryOptions(), query.getDataRelease()));
         }
 
         for (int i = 0; i < query.getRegions().size(); i++) {
@@ -102,7 +126,7 @@ public class GenomeManager extends AbstractManager implements AggregationApi<Gen
         List<Region> regionList = Region.parseRegions(regions);
         List<CellBaseDataResult<GenomeSequenceFeature>> queryResults = new ArrayList<>();
         for (Region region : regionList) {
-            queryResults.add(genomeDBAdaptor.getSequence(region, queryOptions, dataRelease));
+            queryResults.add(getSequence(region, queryOptions, dataRelease));
         }
 
         for (int i = 0; i < regionList.size(); i++) {
@@ -116,7 +140,7 @@ public class GenomeManager extends AbstractManager implements AggregationApi<Gen
                                                                  int dataRelease) throws CellBaseException {
         query.put(ParamConstants.QueryParams.REGION.key(), regions);
         query.put("strand", strand);
-        CellBaseDataResult queryResult = genomeDBAdaptor.getGenomicSequence(query, queryOptions, dataRelease);
+        CellBaseDataResult queryResult = getGenomicSequence(query, queryOptions, dataRelease);
         queryResult.setId(regions);
         return queryResult;
     }
@@ -154,13 +178,33 @@ public class GenomeManager extends AbstractManager implements AggregationApi<Gen
         return genomeDBAdaptor.getAllScoresByRegionList(regionList, options, dataRelease);
     }
 
+    public List<CellBaseDataResult<Score>> getAllScoresByRegionBatch(List<Region> regionList, int dataRelease) throws CellBaseException {
+        return genomeDBAdaptor.getAllScoresByRegionBatch(regionList, dataRelease);
+    }
+
+    /**
+     * Returns the sequence of a region, from the .2bit genome sequence file when configured. The file contains the
+     * sequence of the assembly, the data release is only used when reading from MongoDB.
+     *
+     * @param region       region
+     * @param queryOptions query options, only used when reading from MongoDB
+     * @param dataRelease  data release
+     * @return sequence of the region
+     * @throws CellBaseException if the data release is not valid
+     */
     public CellBaseDataResult<GenomeSequenceFeature> getSequence(Region region, QueryOptions queryOptions, int dataRelease)
             throws CellBaseException {
+        if (genomeSequenceTwoBitAdaptor != null) {
+            return genomeSequenceTwoBitAdaptor.getSequence(region);
+        }
         return genomeDBAdaptor.getSequence(region, queryOptions, dataRelease);
     }
 
     public CellBaseDataResult<GenomeSequenceFeature> getGenomicSequence(Query query, QueryOptions queryOptions, int dataRelease)
             throws CellBaseException {
+        if (genomeSequenceTwoBitAdaptor != null) {
+            return genomeSequenceTwoBitAdaptor.getSequence(Region.parseRegion(query.getString("region")));
+        }
         return genomeDBAdaptor.getGenomicSequence(query, queryOptions, dataRelease);
     }
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.managers;
+
+import org.opencb.cellbase.core.config.InfoCacheProperties;
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.lib.cache.LoadingCache;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Info results shared by all the managers of the JVM, keyed by database, data release, licensed sources, ids and
+ * projection. Concurrent requests of the same key wait for one single query. The least recently used entries are evicted
+ * once InfoCacheProperties.maxEntries are cached, entries expire InfoCacheProperties.expireAfterWrite milliseconds after
+ * being loaded and the entries of a database are invalidated when one of its data releases is updated.
+ * Callers get their own copy of the results, the data models inside are shared and must not be modified.
+ */
+public final class InfoCache {
+
+    private static InfoCache instance;
+
+    // Each entry weighs 1, the weight is the number of entries
+    private final LoadingCache<String, List<? extends CellBaseDataResult<?>>> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    private static Logger logger = LoggerFactory.getLogger(InfoCache.class);
+
+    InfoCache(InfoCacheProperties properties) {
+        this.cache = new LoadingCache<>("info", properties.getMaxEntries(), results -> 1,
+                TimeUnit.MILLISECONDS.toNanos(properties.getExpireAfterWrite()));
+        logger.info("Info cache created, max. {} entries, expire after {} ms", properties.getMaxEntries(),
+                properties.getExpireAfterWrite());
+    }
+
+    /**
+     * Returns the cache of the JVM, created on the first call. Later calls get the same cache whatever the properties.
+     *
+     * @param properties info cache properties, defaults are used if null
+     * @return the shared cache
+     */
+    public static synchronized InfoCache getInstance(InfoCacheProperties properties) {
+        if (instance == null) {
+            instance = new InfoCache(properties != null ? properties : new InfoCacheProperties());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cache of the JVM without creating it.
+     *
+     * @return the shared cache, null if the info cache is not in use
+     */
+    public static synchronized InfoCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the results cached under the key, querying them if not cached yet or expired.
+     *
+     * @param key    cache key, must start with the database name followed by ':'
+     * @param loader returns the results to be cached under the key
+     * @param <T>    data model
+     * @return a copy of the cached results
+     * @throws CellBaseException if the results cannot be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<CellBaseDataResult<T>> get(String key, Callable<List<CellBaseDataResult<T>>> loader) throws CellBaseException {
+        List<? extends CellBaseDataResult<?>> results = cache.get(key, loader);
+        List<CellBaseDataResult<T>> copy = new ArrayList<>(results.size());
+        for (CellBaseDataResult<?> result : results) {
+            copy.add(copy((CellBaseDataResult<T>) result));
+        }
+        return copy;
+    }
+
+    /**
+     * Removes the entries of a database, e.g. because one of its data releases has been updated.
+     *
+     * @param databaseName database name
+     */
+    public void invalidate(String databaseName) {
+        String prefix = databaseName + ":";
+        int numRemoved = cache.invalidateIf(key -> key.startsWith(prefix));
+        invalidations.add(numRemoved);
+        logger.info("Info cache invalidated for {}, {} entries removed", prefix, numRemoved);
+    }
+
+    /**
+     * Returns the size and hit/miss counters of the cache, the weight being the number of entries.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = cache.getStats();
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private static <T> CellBaseDataResult<T> copy(CellBaseDataResult<T> result) {
+        return new CellBaseDataResult<>(result.getId(), result.getTime(),
+                result.getEvents() != null ? new ArrayList<>(result.getEvents()) : null, result.getNumResults(),
+                result.getResults() != null ? new ArrayList<>(result.getResults()) : null, result.getNumMatches(),
+                result.getNumInserted(), result.getNumUpdated(), result.getNumDeleted(),
+                result.getAttributes() != null ? new ObjectMap(result.getAttributes()) : null);
+    }
+}
@@ -17,7 +17,7 @@
 package org.opencb.cellbase.lib.managers;
 
 import org.opencb.cellbase.core.api.key.ApiKeyJwtPayload;
-import org.opencb.cellbase.core.api.key.ApiKeyStats;
+import org.opencb.cellbase.core.config.ApiKeyStatsProperties;
 import org.opencb.cellbase.core.config.CellBaseConfiguration;
 import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
@@ -29,8 +29,16 @@ import java.util.Map;
 
 public class MetaManager extends AbstractManager {
 
+    private final ApiKeyStatsAccumulator apiKeyStatsAccumulator;
+
     public MetaManager(CellBaseConfiguration configuration) throws CellBaseException {
         super("Homo sapiens", null, configuration);
+
+        ApiKeyStatsProperties apiKeyStatsProperties = configuration.getServer() != null
+                && configuration.getServer().getApiKeyStats() != null
+                ? configuration.getServer().getApiKeyStats()
+                : new ApiKeyStatsProperties();
+        apiKeyStatsAccumulator = new ApiKeyStatsAccumulator(dbAdaptorFactory.getMetaDBAdaptor(), apiKeyStatsProperties);
     }
 
     @Deprecated
@@ -56,32 +64,33 @@ public class MetaManager extends AbstractManager {
         return this.mongoDBManager.getDatabaseStatus(species, assembly);
     }
 
+    /**
+     * Checks the number of queries of the API key this month, counted in memory and flushed to the database in the
+     * background, see ApiKeyStatsProperties.
+     *
+     * @param apiKey  API key
+     * @param payload decoded API key
+     * @throws CellBaseException if the quota of the API key has been reached
+     */
     public void checkQuota(String apiKey, ApiKeyJwtPayload payload) throws CellBaseException {
-        String date = getApiKeyStatsDate();
-
-        MetaMongoDBAdaptor metaDBAdaptor = dbAdaptorFactory.getMetaDBAdaptor();
-        CellBaseDataResult<ApiKeyStats> quotaResult = metaDBAdaptor.getQuota(apiKey, date);
-
-        long numQueries = 0;
-        if (quotaResult.getNumResults() == 0) {
-            metaDBAdaptor.initApiKeyStats(apiKey, date);
-        } else {
-            numQueries = quotaResult.first().getNumQueries();
-        }
+        long numQueries = apiKeyStatsAccumulator.getNumQueries(apiKey, getApiKeyStatsDate());
         if (numQueries >= payload.getQuota().getMaxNumQueries()) {
             throw new CellBaseException("Maximum query limit reached: Your current API key has a quota of "
                     + payload.getQuota().getMaxNumQueries() + " queries");
         }
     }
 
-    public CellBaseDataResult incApiKeyStats(String apiKey, long incNumQueries, long incDuration, long incBytes) {
-        String date = getApiKeyStatsDate();
+    public void incApiKeyStats(String apiKey, long incNumQueries, long incDuration, long incBytes) {
+        apiKeyStatsAccumulator.inc(apiKey, getApiKeyStatsDate(), incNumQueries, incDuration, incBytes);
+    }
 
-        MetaMongoDBAdaptor metaDBAdaptor = dbAdaptorFactory.getMetaDBAdaptor();
-        return metaDBAdaptor.incApiKeyStats(apiKey, date, incNumQueries, incDuration, incBytes);
+    @Override
+    public void close() {
+        apiKeyStatsAccumulator.close();
+        super.close();
     }
 
-    private String getApiKeyStatsDate() {
+    static String getApiKeyStatsDate() {
         // Get the current year and month as yyyymm, e.g.:202309
         LocalDate currentDate = LocalDate.now();
         return currentDate.getYear() + String.format("%02d", currentDate.getMonthValue());
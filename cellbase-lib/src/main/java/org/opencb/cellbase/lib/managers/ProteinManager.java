@@ -103,8 +103,15 @@ public class ProteinManager extends AbstractManager implements AggregationApi<Pr
     public CellBaseDataResult<ProteinVariantAnnotation> getVariantAnnotation(Variant variant, String ensemblTranscriptId, int aaPosition,
                                                                              String aaReference, String aaAlternate, QueryOptions options,
                                                                              int dataRelease) throws CellBaseException {
+        return getVariantAnnotation(variant, ensemblTranscriptId, aaPosition, aaReference, aaAlternate, true, options, dataRelease);
+    }
+
+    public CellBaseDataResult<ProteinVariantAnnotation> getVariantAnnotation(Variant variant, String ensemblTranscriptId, int aaPosition,
+                                                                             String aaReference, String aaAlternate,
+                                                                             boolean includeSubstitutionScores, QueryOptions options,
+                                                                             int dataRelease) throws CellBaseException {
         CellBaseDataResult<ProteinVariantAnnotation> proteinVariantAnnotation = proteinDBAdaptor.getVariantAnnotation(ensemblTranscriptId,
-                aaPosition, aaReference, aaAlternate, options, dataRelease);
+                aaPosition, aaReference, aaAlternate, includeSubstitutionScores, options, dataRelease);
         CellBaseDataResult<TranscriptMissenseVariantFunctionalScore> revelResults =
                 missenseVariationFunctionalScoreMongoDBAdaptor.getScores(
                         variant.getChromosome(), variant.getStart(), variant.getReference(), variant.getAlternate(),
@@ -119,6 +126,11 @@ public class ProteinManager extends AbstractManager implements AggregationApi<Pr
         return proteinVariantAnnotation;
     }
 
+    public List<List<Score>> getSubstitutionScores(List<String> transcriptIds, List<Integer> positions, List<String> aaAlternates,
+                                                   int dataRelease) throws CellBaseException {
+        return proteinDBAdaptor.getSubstitutionScores(transcriptIds, positions, aaAlternates, dataRelease);
+    }
+
     public CellBaseDataResult<Object> getProteinSubstitutionRawData(List<String> transcriptIds, CellBaseQueryOptions options,
                                                                     int dataRelease) throws CellBaseException {
         return proteinDBAdaptor.getProteinSubstitutionRawData(transcriptIds, options, dataRelease);
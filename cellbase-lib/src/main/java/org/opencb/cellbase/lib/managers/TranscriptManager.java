@@ -56,7 +56,8 @@ public class TranscriptManager extends AbstractManager implements AggregationApi
 
     public List<CellBaseDataResult<Transcript>> info(List<String> ids, ProjectionQueryOptions query, String source, int dataRelease,
                                                      String apiKey) throws CellBaseException {
-        return transcriptDBAdaptor.info(ids, query, source, dataRelease, apiKey);
+        return cachedInfo("transcript", ids, query, source, dataRelease, apiKey,
+                () -> transcriptDBAdaptor.info(ids, query, source, dataRelease, apiKey));
     }
 
 
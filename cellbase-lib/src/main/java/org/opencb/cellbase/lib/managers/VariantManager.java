@@ -22,7 +22,6 @@ import org.opencb.biodata.models.variant.VariantBuilder;
 import org.opencb.biodata.models.variant.avro.SampleEntry;
 import org.opencb.biodata.models.variant.avro.Score;
 import org.opencb.biodata.models.variant.avro.VariantAnnotation;
-import org.opencb.biodata.models.variant.avro.VariantType;
 import org.opencb.cellbase.core.ParamConstants;
 import org.opencb.cellbase.core.api.SnpQuery;
 import org.opencb.cellbase.core.api.VariantQuery;
@@ -40,6 +39,7 @@ import org.opencb.cellbase.lib.impl.core.SpliceScoreMongoDBAdaptor;
 import org.opencb.cellbase.lib.impl.core.VariantMongoDBAdaptor;
 import org.opencb.cellbase.lib.variant.VariantAnnotationUtils;
 import org.opencb.cellbase.lib.variant.annotation.CellBaseNormalizerSequenceAdaptor;
+import org.opencb.cellbase.lib.variant.annotation.GenomicIntervalIndex;
 import org.opencb.cellbase.lib.variant.annotation.VariantAnnotationCalculator;
 import org.opencb.cellbase.lib.variant.hgvs.HgvsCalculator;
 import org.opencb.commons.datastore.core.Query;
@@ -87,6 +87,13 @@ public class VariantManager extends AbstractManager implements AggregationApi<Va
         return variantDBAdaptor;
     }
 
+    @Override
+    public List<CellBaseDataResult<Variant>> info(List<String> ids, CellBaseQueryOptions queryOptions, int dataRelease, String apiKey)
+            throws CellBaseException {
+        return cachedInfo("variant", ids, queryOptions, null, dataRelease, apiKey,
+                () -> variantDBAdaptor.info(ids, queryOptions, dataRelease, apiKey));
+    }
+
     public CellBaseDataResult get(Query query, QueryOptions queryOptions, int dataRelease) throws CellBaseException {
         return variantDBAdaptor.nativeGet(query, queryOptions, dataRelease);
     }
@@ -99,8 +106,9 @@ public class VariantManager extends AbstractManager implements AggregationApi<Va
         VariantAnnotationCalculator variantAnnotationCalculator = new VariantAnnotationCalculator(species, assembly,
                 dataRelease, "", cellbaseManagerFactory);
         List<Gene> batchGeneList = variantAnnotationCalculator.getBatchGeneList(variantList);
+        GenomicIntervalIndex<Gene> batchGeneIndex = variantAnnotationCalculator.getBatchGeneIndex(batchGeneList);
         for (Variant variant : variantList) {
-            List<Gene> variantGeneList = variantAnnotationCalculator.getAffectedGenes(batchGeneList, variant);
+            List<Gene> variantGeneList = variantAnnotationCalculator.getAffectedGenes(batchGeneIndex, variant);
             List<String> hgvsStrings = hgvsCalculator.run(variant, variantGeneList, false);
             results.add(new CellBaseDataResult<>(variant.getId(), 0, new ArrayList<>(), hgvsStrings.size(), hgvsStrings, -1));
         }
@@ -296,15 +304,7 @@ public class VariantManager extends AbstractManager implements AggregationApi<Va
 
     public List<CellBaseDataResult<Score>> getFunctionalScoreVariant(List<Variant> variants, QueryOptions options, int dataRelease)
             throws CellBaseException {
-        List<CellBaseDataResult<Score>> cellBaseDataResults = new ArrayList<>(variants.size());
-        for (Variant variant: variants) {
-            if (variant.getType() == VariantType.SNV) {
-                cellBaseDataResults.add(getFunctionalScoreVariant(variant, options, dataRelease));
-            } else {
-                cellBaseDataResults.add(new CellBaseDataResult<>(variant.toString(), 0, Collections.emptyList(), 0));
-            }
-        }
-        return cellBaseDataResults;
+        return variantDBAdaptor.getFunctionalScoreVariant(variants, options, dataRelease);
     }
 
     public List<CellBaseDataResult<Variant>> getPopulationFrequencyByVariant(List<Variant> variants, QueryOptions queryOptions,
@@ -329,16 +329,10 @@ public class VariantManager extends AbstractManager implements AggregationApi<Va
             throws CellBaseException {
         Set<String> validSources = apiKeyManager.getValidSources(apiKey, ApiKeyLicensedDataUtils.UNLICENSED_SPLICE_SCORES_DATA);
 
-        List<CellBaseDataResult<SpliceScore>> cellBaseDataResults = new ArrayList<>(variants.size());
+        List<CellBaseDataResult<SpliceScore>> cellBaseDataResults = spliceDBAdaptor.getScores(variants, dataRelease);
         if (ApiKeyLicensedDataUtils.needFiltering(validSources, ApiKeyLicensedDataUtils.LICENSED_SPLICE_SCORES_DATA)) {
-            for (Variant variant : variants) {
-                cellBaseDataResults.add(ApiKeyLicensedDataUtils.filterDataSources(spliceDBAdaptor.getScores(variant.getChromosome(),
-                        variant.getStart(), variant.getReference(), variant.getAlternate(), dataRelease), validSources));
-            }
-        } else {
-            for (Variant variant : variants) {
-                cellBaseDataResults.add(spliceDBAdaptor.getScores(variant.getChromosome(), variant.getStart(), variant.getReference(),
-                        variant.getAlternate(), dataRelease));
+            for (int i = 0; i < cellBaseDataResults.size(); i++) {
+                cellBaseDataResults.set(i, ApiKeyLicensedDataUtils.filterDataSources(cellBaseDataResults.get(i), validSources));
             }
         }
         return cellBaseDataResults;
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.opencb.cellbase.core.config.AnnotationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadlines of the annotator futures of one annotation batch. Each annotator must finish within its own timeout, counted
+ * from the moment it is submitted, so that annotators submitted after the main loop get the same time as the rest. All
+ * of them must also finish within the batch timeout, counted from the moment the batch starts waiting for the first one,
+ * i.e. the main loop is not charged to the annotators. A timeout of 0 means no timeout. Waiting for one annotator does not
+ * delay the deadline of the others. Annotators not finished on time are cancelled and reported as missing, the rest of the
+ * annotation is still returned.
+ */
+public class AnnotatorDeadline {
+
+    private final AnnotationProperties properties;
+    private final AnnotatorExecutor executor;
+    // Submission time of each annotator
+    private final Map<String, Long> submitTimes;
+    // Moment the batch started waiting for its annotators, 0 until then
+    private long waitStartTime;
+    private final List<String> missingAnnotations;
+
+    private static Logger logger = LoggerFactory.getLogger(AnnotatorDeadline.class);
+
+    public AnnotatorDeadline(AnnotationProperties properties, AnnotatorExecutor executor) {
+        this.properties = properties != null ? properties : new AnnotationProperties();
+        this.executor = executor;
+        this.submitTimes = new HashMap<>();
+        this.missingAnnotations = new ArrayList<>();
+    }
+
+    /**
+     * Submits an annotator task to the executor and starts its clock.
+     *
+     * @param annotator annotator name, e.g. conservation
+     * @param callable  annotator task
+     * @param <T>       type of the task result
+     * @return future of the task
+     * @throws InterruptedException if interrupted while waiting for a free slot in the executor
+     */
+    public <T> Future<T> submit(String annotator, Callable<T> callable) throws InterruptedException {
+        submitTimes.put(annotator, System.currentTimeMillis());
+        return executor.submit(annotator, callable);
+    }
+
+    /**
+     * Waits for the result of an annotator until its deadline. If the deadline passes the task is cancelled, the
+     * annotator is added to the missing annotations and null is returned.
+     *
+     * @param annotator annotator name, e.g. conservation
+     * @param future    future of the annotator task
+     * @param <T>       type of the task result
+     * @return the task result, null if not finished on time
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if the task failed
+     */
+    public <T> T get(String annotator, Future<T> future) throws InterruptedException, ExecutionException {
+        long now = System.currentTimeMillis();
+        if (waitStartTime == 0) {
+            waitStartTime = now;
+        }
+        long deadline = Long.MAX_VALUE;
+        long timeout = properties.getTimeout(annotator);
+        if (timeout > 0) {
+            deadline = submitTimes.getOrDefault(annotator, now) + timeout;
+        }
+        if (properties.getBatchTimeout() > 0) {
+            deadline = Math.min(deadline, waitStartTime + properties.getBatchTimeout());
+        }
+        if (deadline == Long.MAX_VALUE) {
+            return future.get();
+        }
+
+        try {
+            return future.get(Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            missingAnnotations.add(annotator);
+            logger.warn("Annotator '{}' did not finish in {}ms, its annotation will be missing", annotator,
+                    System.currentTimeMillis() - submitTimes.getOrDefault(annotator, now));
+            return null;
+        }
+    }
+
+    public List<String> getMissingAnnotations() {
+        return Collections.unmodifiableList(missingAnnotations);
+    }
+}
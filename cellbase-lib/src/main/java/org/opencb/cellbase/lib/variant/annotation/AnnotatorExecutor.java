@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.opencb.cellbase.core.config.AnnotationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor shared by all VariantAnnotationCalculator instances to run the annotator futures. The number of running
+ * tasks is bounded by AnnotationProperties.numThreads. On platform threads the tasks waiting are bounded by
+ * AnnotationProperties.queueSize and, once the queue is full, the submitting thread runs the task itself, which slows
+ * down the callers instead of creating more threads. On virtual threads the submitting thread blocks until one of the
+ * running tasks finishes. Queue time and run time are recorded per annotator name.
+ */
+public final class AnnotatorExecutor {
+
+    private static final String THREAD_NAME_PREFIX = "cellbase-annotator-";
+
+    private static AnnotatorExecutor instance;
+
+    private final ExecutorService executorService;
+    // Only used on virtual threads, these have no pool nor queue to bound the number of running tasks
+    private final Semaphore permits;
+    private final Map<String, AnnotatorMetrics> metrics;
+
+    private static Logger logger = LoggerFactory.getLogger(AnnotatorExecutor.class);
+
+    private AnnotatorExecutor(AnnotationProperties properties) {
+        int numThreads = Math.max(1, properties.getNumThreads());
+        ExecutorService virtualThreadExecutor = properties.isVirtualThreads() ? newVirtualThreadExecutor() : null;
+        if (virtualThreadExecutor != null) {
+            this.executorService = virtualThreadExecutor;
+            this.permits = new Semaphore(numThreads);
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, properties.getQueueSize())), threadFactory,
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            this.executorService = threadPoolExecutor;
+            this.permits = null;
+        }
+        this.metrics = new ConcurrentHashMap<>();
+        logger.info("Variant annotator executor created: {}", properties);
+    }
+
+    /**
+     * Returns the executor of the JVM, created on the first call. Later calls get the same executor whatever the properties.
+     *
+     * @param properties annotation properties, defaults are used if null
+     * @return the shared executor
+     */
+    public static synchronized AnnotatorExecutor getInstance(AnnotationProperties properties) {
+        if (instance == null) {
+            instance = new AnnotatorExecutor(properties != null ? properties : new AnnotationProperties());
+        }
+        return instance;
+    }
+
+    /**
+     * Submits an annotator task.
+     *
+     * @param name      annotator name, e.g. populationFrequencies, used to group the metrics
+     * @param callable  task
+     * @param <T>       type of the task result
+     * @return future of the task
+     * @throws InterruptedException if interrupted while waiting for a free slot (virtual threads only)
+     */
+    public <T> Future<T> submit(String name, Callable<T> callable) throws InterruptedException {
+        AnnotatorMetrics annotatorMetrics = metrics.computeIfAbsent(name, k -> new AnnotatorMetrics());
+        long submitTime = System.nanoTime();
+        if (permits != null) {
+            permits.acquire();
+        }
+        AnnotatorTask<T> task = new AnnotatorTask<>(() -> {
+            long startTime = System.nanoTime();
+            try {
+                return callable.call();
+            } finally {
+                long endTime = System.nanoTime();
+                annotatorMetrics.add(startTime - submitTime, endTime - startTime);
+                logger.debug("Annotator '{}' waited {}ms and ran in {}ms", name,
+                        TimeUnit.NANOSECONDS.toMillis(startTime - submitTime), TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+            }
+        }, permits);
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Never run, cancelling it releases the permit
+            task.cancel(false);
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of every annotator name submitted so far.
+     *
+     * @return map from annotator name to metrics, sorted by name
+     */
+    public Map<String, AnnotatorMetrics> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
+    public String getMetricsSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, AnnotatorMetrics> entry : getMetrics().entrySet()) {
+            sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        // CellBase is built with Java 8, virtual threads are created by reflection when running on Java 21+
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Virtual threads are not supported by this JVM ({}), using a pool of platform threads instead",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * Annotator task that releases its permit (virtual threads only) once done, whether it ran, failed or was cancelled,
+     * including tasks cancelled by a deadline before they started.
+     */
+    private static class AnnotatorTask<T> extends FutureTask<T> {
+
+        private final Semaphore permits;
+
+        AnnotatorTask(Callable<T> callable, Semaphore permits) {
+            super(callable);
+            this.permits = permits;
+        }
+
+        @Override
+        protected void done() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Queue and run times of the tasks submitted under one annotator name.
+     */
+    public static class AnnotatorMetrics {
+
+        private final LongAdder numTasks = new LongAdder();
+        private final LongAdder totalQueueTimeNanos = new LongAdder();
+        private final LongAdder totalRunTimeNanos = new LongAdder();
+        private final LongAccumulator maxQueueTimeNanos = new LongAccumulator(Long::max, 0);
+        private final LongAccumulator maxRunTimeNanos = new LongAccumulator(Long::max, 0);
+
+        void add(long queueTimeNanos, long runTimeNanos) {
+            numTasks.increment();
+            totalQueueTimeNanos.add(queueTimeNanos);
+            totalRunTimeNanos.add(runTimeNanos);
+            maxQueueTimeNanos.accumulate(queueTimeNanos);
+            maxRunTimeNanos.accumulate(runTimeNanos);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("AnnotatorMetrics{");
+            sb.append("numTasks=").append(getNumTasks());
+            sb.append(", meanQueueTimeMillis=").append(getMeanQueueTimeMillis());
+            sb.append(", maxQueueTimeMillis=").append(getMaxQueueTimeMillis());
+            sb.append(", meanRunTimeMillis=").append(getMeanRunTimeMillis());
+            sb.append(", maxRunTimeMillis=").append(getMaxRunTimeMillis());
+            sb.append('}');
+            return sb.toString();
+        }
+
+        public long getNumTasks() {
+            return numTasks.sum();
+        }
+
+        public double getMeanQueueTimeMillis() {
+            long n = numTasks.sum();
+            return n == 0 ? 0 : totalQueueTimeNanos.sum() / 1e6 / n;
+        }
+
+        public double getMeanRunTimeMillis() {
+            long n = numTasks.sum();
+            return n == 0 ? 0 : totalRunTimeNanos.sum() / 1e6 / n;
+        }
+
+        public long getMaxQueueTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxQueueTimeNanos.get());
+        }
+
+        public long getMaxRunTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxRunTimeNanos.get());
+        }
+    }
+}
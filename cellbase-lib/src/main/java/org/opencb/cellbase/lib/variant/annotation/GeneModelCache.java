@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.opencb.biodata.models.core.Gene;
+import org.opencb.cellbase.core.config.AnnotationProperties;
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.lib.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Gene models shared by all VariantAnnotationCalculator instances. Genes are loaded one chromosome at a time, keyed by
+ * species, assembly, data release, source and chromosome, and indexed for overlap queries. Gene models never change
+ * within a data release so entries are never refreshed, the least recently used chromosomes are evicted once the number
+ * of cached genes exceeds AnnotationProperties.geneCacheMaxGenes. Concurrent requests of the same chromosome wait for
+ * one single load. Cached genes are shared, callers must not modify them.
+ */
+public final class GeneModelCache {
+
+    private static GeneModelCache instance;
+
+    // Each chromosome weighs its number of genes
+    private final LoadingCache<String, GenomicIntervalIndex<Gene>> cache;
+
+    private static Logger logger = LoggerFactory.getLogger(GeneModelCache.class);
+
+    GeneModelCache(AnnotationProperties properties) {
+        this.cache = new LoadingCache<>("gene models", properties.getGeneCacheMaxGenes(), GenomicIntervalIndex::size,
+                Long.MAX_VALUE);
+        logger.info("Gene model cache created, max. {} genes", properties.getGeneCacheMaxGenes());
+    }
+
+    /**
+     * Returns the cache of the JVM, created on the first call. Later calls get the same cache whatever the properties.
+     *
+     * @param properties annotation properties, defaults are used if null
+     * @return the shared cache
+     */
+    public static synchronized GeneModelCache getInstance(AnnotationProperties properties) {
+        if (instance == null) {
+            instance = new GeneModelCache(properties != null ? properties : new AnnotationProperties());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cache of the JVM without creating it.
+     *
+     * @return the shared cache, null if the gene cache is not in use
+     */
+    public static synchronized GeneModelCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the index of the genes cached under the key, loading them if not cached yet.
+     *
+     * @param key    cache key, e.g. species, assembly, data release, source and chromosome
+     * @param loader returns the genes to be cached under the key
+     * @return index of the cached genes
+     * @throws CellBaseException if the genes cannot be loaded
+     */
+    public GenomicIntervalIndex<Gene> get(String key, Callable<List<Gene>> loader) throws CellBaseException {
+        try {
+            return cache.get(key, () -> new GenomicIntervalIndex<>(loader.call(), Gene::getChromosome, Gene::getStart,
+                    Gene::getEnd));
+        } catch (RuntimeException e) {
+            throw new CellBaseException("Error loading gene models " + key, e);
+        }
+    }
+
+    /**
+     * Returns the size and hit/miss counters of the cache, the weight being the number of genes.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStats() {
+        return cache.getStats();
+    }
+}
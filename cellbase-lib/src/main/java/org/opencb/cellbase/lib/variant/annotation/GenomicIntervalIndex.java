@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory index over a list of genomic features prefetched for an annotation batch. Features are grouped by
+ * chromosome and sorted by start, a running maximum of the end coordinate allows overlap (stabbing) queries to stop
+ * as soon as no earlier feature can reach the queried interval. Coordinates are 1-based and inclusive, as in Mongo
+ * region queries: a feature overlaps [start, end] if feature.start &lt;= end and feature.end &gt;= start.
+ *
+ * @param <T> feature type, e.g. Gene or RegulatoryFeature
+ */
+public class GenomicIntervalIndex<T> {
+
+    private final List<T> features;
+    private final Map<String, ChromosomeIntervals> chromosomeIntervalsMap;
+
+    public GenomicIntervalIndex(List<T> features, Function<T, String> chromosome, ToIntFunction<T> start, ToIntFunction<T> end) {
+        this.features = features;
+        this.chromosomeIntervalsMap = new HashMap<>();
+
+        Map<String, List<Integer>> indexesByChromosome = new HashMap<>();
+        for (int i = 0; i < features.size(); i++) {
+            String featureChromosome = chromosome.apply(features.get(i));
+            if (featureChromosome != null) {
+                indexesByChromosome.computeIfAbsent(featureChromosome, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : indexesByChromosome.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            // Stable sort, features with the same start keep their input order
+            indexes.sort(Comparator.comparingInt(i -> start.applyAsInt(features.get(i))));
+
+            ChromosomeIntervals intervals = new ChromosomeIntervals(indexes.size());
+            int maxEnd = Integer.MIN_VALUE;
+            for (int i = 0; i < indexes.size(); i++) {
+                T feature = features.get(indexes.get(i));
+                intervals.indexes[i] = indexes.get(i);
+                intervals.starts[i] = start.applyAsInt(feature);
+                intervals.ends[i] = end.applyAsInt(feature);
+                maxEnd = Math.max(maxEnd, intervals.ends[i]);
+                intervals.maxEnds[i] = maxEnd;
+            }
+            chromosomeIntervalsMap.put(entry.getKey(), intervals);
+        }
+    }
+
+    /**
+     * Adds to the list the positions, in the original feature list, of all features overlapping the interval.
+     * Positions are added in no particular order.
+     *
+     * @param chromosome chromosome of the interval
+     * @param start      interval start (inclusive)
+     * @param end        interval end (inclusive)
+     * @param indexes    list where the positions of the overlapping features are added
+     */
+    public void collectIndexes(String chromosome, int start, int end, List<Integer> indexes) {
+        ChromosomeIntervals intervals = chromosomeIntervalsMap.get(chromosome);
+        if (intervals == null) {
+            return;
+        }
+        for (int i = intervals.lastStartingBefore(end); i >= 0 && intervals.maxEnds[i] >= start; i--) {
+            if (intervals.ends[i] >= start) {
+                indexes.add(intervals.indexes[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns all features overlapping the interval, in the same order they were provided to the index.
+     *
+     * @param chromosome chromosome of the interval
+     * @param start      interval start (inclusive)
+     * @param end        interval end (inclusive)
+     * @return overlapping features
+     */
+    public List<T> query(String chromosome, int start, int end) {
+        List<Integer> indexes = new ArrayList<>();
+        collectIndexes(chromosome, start, end, indexes);
+        if (indexes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(indexes);
+        List<T> result = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            result.add(features.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether any feature overlapping the interval satisfies the predicate.
+     *
+     * @param chromosome chromosome of the interval
+     * @param start      interval start (inclusive)
+     * @param end        interval end (inclusive)
+     * @param predicate  condition to be satisfied by the feature
+     * @return true if at least one overlapping feature satisfies the predicate
+     */
+    public boolean anyMatch(String chromosome, int start, int end, Predicate<T> predicate) {
+        ChromosomeIntervals intervals = chromosomeIntervalsMap.get(chromosome);
+        if (intervals == null) {
+            return false;
+        }
+        for (int i = intervals.lastStartingBefore(end); i >= 0 && intervals.maxEnds[i] >= start; i--) {
+            if (intervals.ends[i] >= start && predicate.test(features.get(intervals.indexes[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public T get(int index) {
+        return features.get(index);
+    }
+
+    public int size() {
+        return features.size();
+    }
+
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    private static class ChromosomeIntervals {
+        // Position of the feature in the original list
+        private final int[] indexes;
+        private final int[] starts;
+        private final int[] ends;
+        // maxEnds[i] is the maximum end of features 0..i, sorted by start
+        private final int[] maxEnds;
+
+        ChromosomeIntervals(int size) {
+            indexes = new int[size];
+            starts = new int[size];
+            ends = new int[size];
+            maxEnds = new int[size];
+        }
+
+        /**
+         * Binary search of the last feature whose start is lower or equal than the position.
+         *
+         * @param position genomic position
+         * @return index in the sorted arrays, -1 if all features start after the position
+         */
+        int lastStartingBefore(int position) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.core.RegulatoryFeature;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantType;
+import org.opencb.cellbase.core.ParamConstants;
+import org.opencb.cellbase.core.api.RegulationQuery;
+import org.opencb.cellbase.core.api.query.QueryException;
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.lib.managers.RegulatoryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Calculates whether variants overlap regulatory regions and transcription factor binding sites. All regulatory features
+ * overlapping an annotation batch are fetched with one single query and indexed in memory, so that per-variant overlap
+ * checks do not need any database round trip. Variants spanning large regions, i.e. longer than
+ * MAX_PREFETCH_REGION_SIZE, are not prefetched and are checked against the database as before.
+ */
+public class RegulatoryRegionOverlapCalculator {
+
+    // SVs can span several megabases, these are queried one by one to avoid fetching too many features
+    private static final int MAX_PREFETCH_REGION_SIZE = 100000;
+
+    private static final String REGULATORY_REGION_FEATURE_TYPE_ATTRIBUTE = "featureType";
+    private static final String TF_BINDING_SITE = ParamConstants.FeatureType.TF_binding_site.name();
+    private static final String TF_BINDING_SITE_MOTIF = ParamConstants.FeatureType.TF_binding_site_motif.name();
+
+    private RegulatoryManager regulationManager;
+    private int dataRelease;
+
+    private GenomicIntervalIndex<RegulatoryFeature> batchRegulatoryFeatureIndex;
+
+    private static Logger logger = LoggerFactory.getLogger(RegulatoryRegionOverlapCalculator.class);
+
+    public RegulatoryRegionOverlapCalculator(RegulatoryManager regulationManager, int dataRelease) {
+        this.regulationManager = regulationManager;
+        this.dataRelease = dataRelease;
+    }
+
+    /**
+     * Fetches all regulatory features overlapping the variants of the batch with one single query. Overlapping
+     * regions are merged before querying.
+     *
+     * @param variantList variants of the annotation batch
+     * @return regulatory features overlapping the batch, only chromosome, start, end and featureType are returned
+     * @throws QueryException if the regulation query is not valid
+     * @throws IllegalAccessException if the regulation query can not be parsed
+     * @throws CellBaseException if the regulation query fails
+     */
+    public List<RegulatoryFeature> getBatchRegulatoryFeatureList(List<Variant> variantList)
+            throws QueryException, IllegalAccessException, CellBaseException {
+        List<Region> regionList = new ArrayList<>(variantList.size());
+        for (Variant variant : variantList) {
+            for (Region region : variantToRegionList(variant)) {
+                if (isPrefetchable(region)) {
+                    regionList.add(region);
+                }
+            }
+        }
+        regionList = mergeRegions(regionList);
+        if (regionList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        RegulationQuery query = new RegulationQuery();
+        query.setDataRelease(dataRelease);
+        query.setExcludes(Collections.singletonList("_id"));
+        query.setIncludes(Arrays.asList("chromosome", "start", "end", REGULATORY_REGION_FEATURE_TYPE_ATTRIBUTE));
+        query.setRegions(regionList);
+        return regulationManager.search(query).getResults();
+    }
+
+    /**
+     * Prefetches and indexes the regulatory features overlapping the batch. Subsequent calls to
+     * getRegulatoryRegionOverlaps will be resolved in memory.
+     *
+     * @param variantList variants of the annotation batch
+     * @throws QueryException if the regulation query is not valid
+     * @throws IllegalAccessException if the regulation query can not be parsed
+     * @throws CellBaseException if the regulation query fails
+     */
+    public void loadBatch(List<Variant> variantList) throws QueryException, IllegalAccessException, CellBaseException {
+        long startTime = System.currentTimeMillis();
+        List<RegulatoryFeature> regulatoryFeatureList = getBatchRegulatoryFeatureList(variantList);
+        batchRegulatoryFeatureIndex = new GenomicIntervalIndex<>(regulatoryFeatureList, RegulatoryFeature::getChromosome,
+                RegulatoryFeature::getStart, RegulatoryFeature::getEnd);
+        logger.debug("Regulatory prefetch performance is {}ms for {} variants, {} regulatory features found",
+                System.currentTimeMillis() - startTime, variantList.size(), regulatoryFeatureList.size());
+    }
+
+    /**
+     * Checks whether the variant overlaps any regulatory region and any transcription factor binding site.
+     *
+     * @param variant variant to check
+     * @return array of two booleans, 0: overlaps any regulatory region type, 1: overlaps transcription factor binding site
+     * @throws QueryException if the regulation query is not valid
+     * @throws IllegalAccessException if the regulation query can not be parsed
+     * @throws CellBaseException if the regulation query fails
+     */
+    public boolean[] getRegulatoryRegionOverlaps(Variant variant) throws QueryException, IllegalAccessException, CellBaseException {
+        // 0: overlaps any regulatory region type
+        // 1: overlaps transcription factor binding site
+        boolean[] overlapsRegulatoryRegion = {false, false};
+
+        // Variant type checked in expected order of frequency of occurrence to minimize number of checks
+        // Most queries will be SNVs - it's worth implementing an special case for them
+        if (VariantType.SNV.equals(variant.getType())) {
+            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart());
+        } else if (VariantType.INDEL.equals(variant.getType()) && StringUtils.isBlank(variant.getReference())) {
+            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart() - 1, variant.getEnd());
+            // Short deletions and symbolic variants except breakends
+        } else if (!VariantType.BREAKEND.equals(variant.getType())) {
+            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart(), variant.getEnd());
+            // Breakend "variants" only annotate features overlapping the exact positions
+        } else  {
+            overlapsRegulatoryRegion = getRegulatoryRegionOverlaps(variant.getChromosome(), Math.max(1, variant.getStart()));
+            // If already found one overlapping regulatory region there's no need to keep checking
+            if (overlapsRegulatoryRegion[0]) {
+                return overlapsRegulatoryRegion;
+                // Otherwise check the other breakend in case exists
+            } else {
+                if (hasMate(variant)) {
+                    return getRegulatoryRegionOverlaps(variant.getSv().getBreakend().getMate().getChromosome(),
+                            Math.max(1, variant.getSv().getBreakend().getMate().getPosition()));
+                } else {
+                    return overlapsRegulatoryRegion;
+                }
+            }
+        }
+    }
+
+    private boolean[] getRegulatoryRegionOverlaps(String chromosome, Integer position)
+            throws QueryException, IllegalAccessException, CellBaseException {
+        // 0: overlaps any regulatory region type
+        // 1: overlaps transcription factor binding site
+        boolean[] overlapsRegulatoryRegion = {false, false};
+
+        if (batchRegulatoryFeatureIndex != null) {
+            overlapsRegulatoryRegion[0] = batchRegulatoryFeatureIndex.anyMatch(chromosome, position, position,
+                    regulatoryFeature -> true);
+            if (overlapsRegulatoryRegion[0]) {
+                overlapsRegulatoryRegion[1] = batchRegulatoryFeatureIndex.anyMatch(chromosome, position, position,
+                        regulatoryFeature -> TF_BINDING_SITE.equals(regulatoryFeature.getFeatureType())
+                                || TF_BINDING_SITE_MOTIF.equals(regulatoryFeature.getFeatureType()));
+            }
+            return overlapsRegulatoryRegion;
+        }
+
+        RegulationQuery query = new RegulationQuery();
+        query.setDataRelease(dataRelease);
+        query.setIncludes(Collections.singletonList(REGULATORY_REGION_FEATURE_TYPE_ATTRIBUTE));
+        query.setRegions(Collections.singletonList(new Region(chromosome, position)));
+        CellBaseDataResult<RegulatoryFeature> cellBaseDataResult = regulationManager.search(query);
+
+        if (cellBaseDataResult.getNumResults() > 0) {
+            overlapsRegulatoryRegion[0] = true;
+            boolean tfbsFound = false;
+            for (int i = 0; (i < cellBaseDataResult.getResults().size() && !tfbsFound); i++) {
+                String regulatoryRegionType = cellBaseDataResult.getResults().get(i).getFeatureType();
+                tfbsFound = regulatoryRegionType != null
+                        && (regulatoryRegionType.equals(TF_BINDING_SITE)
+                        || cellBaseDataResult.getResults().get(i).getFeatureType().equals(TF_BINDING_SITE_MOTIF));
+            }
+            overlapsRegulatoryRegion[1] = tfbsFound;
+        }
+
+        return overlapsRegulatoryRegion;
+    }
+
+    private boolean[] getRegulatoryRegionOverlaps(String chromosome, Integer start, Integer end)
+            throws QueryException, IllegalAccessException, CellBaseException {
+        // 0: overlaps any regulatory region type
+        // 1: overlaps transcription factor binding site
+        boolean[] overlapsRegulatoryRegion = {false, false};
+
+        if (batchRegulatoryFeatureIndex != null && isPrefetchable(new Region(chromosome, start, end))) {
+            overlapsRegulatoryRegion[1] = batchRegulatoryFeatureIndex.anyMatch(chromosome, start, end,
+                    regulatoryFeature -> TF_BINDING_SITE.equals(regulatoryFeature.getFeatureType()));
+            overlapsRegulatoryRegion[0] = overlapsRegulatoryRegion[1]
+                    || batchRegulatoryFeatureIndex.anyMatch(chromosome, start, end, regulatoryFeature -> true);
+            return overlapsRegulatoryRegion;
+        }
+
+        RegulationQuery query = new RegulationQuery();
+        query.setDataRelease(dataRelease);
+        query.setExcludes(Collections.singletonList("_id"));
+        query.setIncludes(Collections.singletonList("chromosome"));
+        query.setLimit(1);
+        query.setRegions(Collections.singletonList(new Region(chromosome, start, end)));
+        query.setFeatureTypes(Collections.singletonList(TF_BINDING_SITE));
+
+        CellBaseDataResult<RegulatoryFeature> cellBaseDataResult = regulationManager.search(query);
+
+        // Overlaps transcription factor binding site - it's therefore a regulatory variant
+        if (cellBaseDataResult.getNumResults() == 1) {
+            overlapsRegulatoryRegion[0] = true;
+            overlapsRegulatoryRegion[1] = true;
+            // Does not overlap transcription factor binding site - check any other regulatory region type
+        } else {
+            query.setFeatureTypes(null);
+            cellBaseDataResult = regulationManager.search(query);
+            // Does overlap other types of regulatory regions
+            if (cellBaseDataResult.getNumResults() == 1) {
+                overlapsRegulatoryRegion[0] = true;
+            }
+        }
+
+        return overlapsRegulatoryRegion;
+    }
+
+    /**
+     * Regions checked by getRegulatoryRegionOverlaps for this variant, in the same order.
+     *
+     * @param variant variant
+     * @return list of regions
+     */
+    private List<Region> variantToRegionList(Variant variant) {
+        if (VariantType.SNV.equals(variant.getType())) {
+            return Collections.singletonList(new Region(variant.getChromosome(), variant.getStart(), variant.getStart()));
+        } else if (VariantType.INDEL.equals(variant.getType()) && StringUtils.isBlank(variant.getReference())) {
+            return Collections.singletonList(new Region(variant.getChromosome(), variant.getStart() - 1, variant.getEnd()));
+        } else if (!VariantType.BREAKEND.equals(variant.getType())) {
+            return Collections.singletonList(new Region(variant.getChromosome(), variant.getStart(), variant.getEnd()));
+        } else {
+            List<Region> regionList = new ArrayList<>(2);
+            int position = Math.max(1, variant.getStart());
+            regionList.add(new Region(variant.getChromosome(), position, position));
+            if (hasMate(variant)) {
+                int matePosition = Math.max(1, variant.getSv().getBreakend().getMate().getPosition());
+                regionList.add(new Region(variant.getSv().getBreakend().getMate().getChromosome(), matePosition, matePosition));
+            }
+            return regionList;
+        }
+    }
+
+    private boolean hasMate(Variant variant) {
+        return variant.getSv() != null && variant.getSv().getBreakend() != null && variant.getSv().getBreakend().getMate() != null;
+    }
+
+    private boolean isPrefetchable(Region region) {
+        return region.getChromosome() != null && region.getEnd() - region.getStart() < MAX_PREFETCH_REGION_SIZE;
+    }
+
+    /**
+     * Sorts and merges overlapping or adjacent regions, so that the batch query contains as few regions as possible.
+     *
+     * @param regionList regions to merge
+     * @return merged regions
+     */
+    private List<Region> mergeRegions(List<Region> regionList) {
+        regionList.sort(Comparator.comparing(Region::getChromosome).thenComparingInt(Region::getStart));
+        List<Region> mergedRegionList = new ArrayList<>(regionList.size());
+        Region current = null;
+        for (Region region : regionList) {
+            if (current != null && current.getChromosome().equals(region.getChromosome()) && region.getStart() <= current.getEnd() + 1) {
+                current.setEnd(Math.max(current.getEnd(), region.getEnd()));
+            } else {
+                current = new Region(region.getChromosome(), region.getStart(), region.getEnd());
+                mergedRegionList.add(current);
+            }
+        }
+        return mergedRegionList;
+    }
+}
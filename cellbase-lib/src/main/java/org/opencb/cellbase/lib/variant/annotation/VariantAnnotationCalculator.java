@@ -29,10 +29,10 @@ import org.opencb.biodata.tools.variant.VariantNormalizer;
 import org.opencb.biodata.tools.variant.exceptions.VariantNormalizerException;
 import org.opencb.cellbase.core.ParamConstants;
 import org.opencb.cellbase.core.api.GeneQuery;
-import org.opencb.cellbase.core.api.RegulationQuery;
 import org.opencb.cellbase.core.api.RepeatsQuery;
 import org.opencb.cellbase.core.api.query.LogicalList;
 import org.opencb.cellbase.core.api.query.QueryException;
+import org.opencb.cellbase.core.config.AnnotationProperties;
 import org.opencb.cellbase.core.exception.CellBaseException;
 import org.opencb.cellbase.core.models.DataRelease;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
@@ -40,9 +40,11 @@ import org.opencb.cellbase.lib.EtlCommons;
 import org.opencb.cellbase.lib.managers.*;
 import org.opencb.cellbase.lib.variant.VariantAnnotationUtils;
 import org.opencb.cellbase.lib.variant.annotation.futures.FuturePharmacogenomicsAnnotator;
+import org.opencb.cellbase.lib.variant.annotation.futures.FutureProteinSubstitutionScoreAnnotator;
 import org.opencb.cellbase.lib.variant.annotation.futures.FutureSnpAnnotator;
 import org.opencb.cellbase.lib.variant.annotation.futures.FutureSpliceScoreAnnotator;
 import org.opencb.cellbase.lib.variant.hgvs.HgvsCalculator;
+import org.opencb.commons.datastore.core.Event;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +70,8 @@ public class VariantAnnotationCalculator {
 
     private static final String EMPTY_STRING = "";
     private static final String ALTERNATE = "1";
+    private static final List<String> CACHED_GENE_FIELDS = getIncludedGeneFields(new HashSet<>(Arrays.asList("expression",
+            "geneDisease", "drugInteraction", "geneConstraints", "mirnaTargets", "cancerGeneAssociation", "cancerHotspots")));
     private GenomeManager genomeManager;
     private GeneManager geneManager;
     private RegulatoryManager regulationManager;
@@ -86,6 +90,8 @@ public class VariantAnnotationCalculator {
     private boolean decompose = false;
     private boolean leftAlign = false;
     private boolean phased = true;
+    // Missing annotations fail the batch instead of being reported as events, e.g. when annotating files
+    private boolean failOnMissingAnnotations = false;
     private Boolean imprecise = true;
     private Integer svExtraPadding = 0;
     private Integer cnvExtraPadding = 0;
@@ -93,11 +99,12 @@ public class VariantAnnotationCalculator {
     private String consequenceTypeSource = null;
 
     private HgvsCalculator hgvsCalculator;
+    private AnnotatorExecutor annotatorExecutor;
+    private AnnotationProperties annotationProperties;
+    // Null if gene models are queried for every batch
+    private GeneModelCache geneModelCache;
+    private String geneModelCacheKeyPrefix;
 
-    private static final String REGULATORY_REGION_FEATURE_TYPE_ATTRIBUTE = "featureType";
-    private static final String TF_BINDING_SITE = ParamConstants.FeatureType.TF_binding_site.name();
-
-    private static final ExecutorService CACHED_THREAD_POOL = Executors.newCachedThreadPool();
     private static Logger logger = LoggerFactory.getLogger(VariantAnnotationCalculator.class);
 
     public VariantAnnotationCalculator(String species, String assembly, DataRelease dataRelease, String apiKey,
@@ -122,6 +129,14 @@ public class VariantAnnotationCalculator {
 
         hgvsCalculator = new HgvsCalculator(genomeManager, this.dataRelease.getRelease());
 
+        // Annotator futures of all calculators run on one bounded executor
+        annotationProperties = cellbaseManagerFactory.getConfiguration().getAnnotation();
+        annotatorExecutor = AnnotatorExecutor.getInstance(annotationProperties);
+        if (annotationProperties != null && annotationProperties.isGeneCache()) {
+            geneModelCache = GeneModelCache.getInstance(annotationProperties);
+            geneModelCacheKeyPrefix = species + "_" + assembly + "_" + this.dataRelease.getRelease() + "_";
+        }
+
         logger.debug("VariantAnnotationMongoDBAdaptor: in 'constructor'");
     }
 
@@ -147,8 +162,11 @@ public class VariantAnnotationCalculator {
         List<Gene> batchGeneList = getBatchGeneList(Collections.singletonList(variant));
         List<Gene> geneList = getAffectedGenes(batchGeneList, variant);
 
-        // TODO the last 'true' parameter needs to be changed by annotatorSet.contains("regulatory") once is ready
-        List<ConsequenceType> consequenceTypeList = getConsequenceTypeList(variant, geneList, true, queryOptions, dataRelease.getRelease());
+        // TODO the regulatory overlap calculator should only be passed if annotatorSet.contains("regulatory") once is ready
+        RegulatoryRegionOverlapCalculator regulatoryOverlapCalculator = new RegulatoryRegionOverlapCalculator(regulationManager,
+                dataRelease.getRelease());
+        List<ConsequenceType> consequenceTypeList = getConsequenceTypeList(variant, geneList, regulatoryOverlapCalculator, queryOptions,
+                dataRelease.getRelease(), null);
 
         CellBaseDataResult cellBaseDataResult = new CellBaseDataResult();
         cellBaseDataResult.setId(variant.toString());
@@ -186,13 +204,18 @@ public class VariantAnnotationCalculator {
         // Normalized variants already contain updated VariantAnnotation objects since runAnnotationProcess will
         // write on them if available (if not will create and set them) - i.e. no need to use variantAnnotationList
         // really
-        List<VariantAnnotation> variantAnnotationList = runAnnotationProcess(normalizedVariantList, dataRelease);
+        AnnotatorDeadline deadline = new AnnotatorDeadline(annotationProperties, annotatorExecutor);
+        List<VariantAnnotation> variantAnnotationList = runAnnotationProcess(normalizedVariantList, dataRelease, deadline);
+        if (failOnMissingAnnotations && !deadline.getMissingAnnotations().isEmpty()) {
+            throw new CellBaseException("Annotators " + deadline.getMissingAnnotations() + " did not finish on time for the batch of "
+                    + variantList.size() + " variants starting at " + variantList.get(0));
+        }
 
-        return generateCellBaseDataResultList(variantList, normalizedVariantList, startTime);
+        return generateCellBaseDataResultList(variantList, normalizedVariantList, startTime, deadline.getMissingAnnotations());
     }
     private List<CellBaseDataResult<VariantAnnotation>> generateCellBaseDataResultList(List<Variant> variantList,
                                                                                        List<Variant> normalizedVariantList,
-                                                                                       long startTime) {
+                                                                                       long startTime, List<String> missingAnnotations) {
 
         List<CellBaseDataResult<VariantAnnotation>> annotationResultList = new ArrayList<>(variantList.size());
 
@@ -202,7 +225,7 @@ public class VariantAnnotationCalculator {
         if (!decompose || variantList.size() == normalizedVariantList.size()) {
             for (int i = 0; i < variantList.size(); i++) {
                 CellBaseDataResult<VariantAnnotation> cellBaseDataResult = new CellBaseDataResult<>(variantList.get(i).toString(),
-                        (int) (System.currentTimeMillis() - startTime), null, 1,
+                        (int) (System.currentTimeMillis() - startTime), getMissingAnnotationEvents(missingAnnotations), 1,
                         Collections.singletonList(normalizedVariantList.get(i).getAnnotation()), 1);
                 annotationResultList.add(cellBaseDataResult);
             }
@@ -219,7 +242,8 @@ public class VariantAnnotationCalculator {
                     List<VariantAnnotation> variantAnnotationList = new ArrayList<>(1);
                     variantAnnotationList.add(normalizedVariant.getAnnotation());
                     cellBaseDataResult = new CellBaseDataResult<>(variantList.get(originalVariantListCounter).toString(),
-                            (int) (System.currentTimeMillis() - startTime), null, 1, variantAnnotationList, 1);
+                            (int) (System.currentTimeMillis() - startTime), getMissingAnnotationEvents(missingAnnotations), 1,
+                            variantAnnotationList, 1);
                     annotationResultList.add(cellBaseDataResult);
                     previousCall = getCall(normalizedVariant);
                     originalVariantListCounter++;
@@ -230,6 +254,18 @@ public class VariantAnnotationCalculator {
         return annotationResultList;
     }
 
+    private List<Event> getMissingAnnotationEvents(List<String> missingAnnotations) {
+        if (missingAnnotations.isEmpty()) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>(missingAnnotations.size());
+        for (String missingAnnotation : missingAnnotations) {
+            events.add(new Event(Event.Type.WARNING, "Annotator '" + missingAnnotation
+                    + "' did not finish on time, this annotation is missing"));
+        }
+        return events;
+    }
+
     private boolean isSameMnv(String previousCall, Variant variant) {
         if (!StringUtils.isBlank(previousCall)) {
             String call = getCall(variant);
@@ -445,7 +481,8 @@ public class VariantAnnotationCalculator {
         return geneMirnaTargets;
     }
 
-    private List<VariantAnnotation> runAnnotationProcess(List<Variant> normalizedVariantList, DataRelease dataRelease)
+    private List<VariantAnnotation> runAnnotationProcess(List<Variant> normalizedVariantList, DataRelease dataRelease,
+                                                         AnnotatorDeadline deadline)
             throws InterruptedException, ExecutionException, QueryException, IllegalAccessException, CellBaseException {
         long globalStartTime = System.currentTimeMillis();
 
@@ -459,19 +496,27 @@ public class VariantAnnotationCalculator {
         FutureVariationAnnotator futureVariationAnnotator = null;
         Future<List<CellBaseDataResult<Variant>>> variationFuture = null;
         List<Gene> batchGeneList = getBatchGeneList(normalizedVariantList);
+        GenomicIntervalIndex<Gene> batchGeneIndex = getBatchGeneIndex(batchGeneList);
+
+        // Regulatory features overlapping the batch are fetched at once, overlaps are then checked in memory
+        RegulatoryRegionOverlapCalculator regulatoryOverlapCalculator = null;
+        if (annotatorSet.contains("consequenceType")) {
+            regulatoryOverlapCalculator = new RegulatoryRegionOverlapCalculator(regulationManager, dataRelease.getRelease());
+            regulatoryOverlapCalculator.loadBatch(normalizedVariantList);
+        }
 
         if (annotatorSet.contains("variation") || annotatorSet.contains("populationFrequencies")) {
             futureVariationAnnotator = new FutureVariationAnnotator(normalizedVariantList, new QueryOptions("include",
                     "id,annotation.populationFrequencies,annotation.additionalAttributes.dgvSpecificAttributes")
                     .append("imprecise", imprecise), dataRelease.getRelease());
-            variationFuture = CACHED_THREAD_POOL.submit(futureVariationAnnotator);
+            variationFuture = deadline.submit("variation", futureVariationAnnotator);
         }
 
         FutureSnpAnnotator futureSnpAnnotator = null;
         Future<List<CellBaseDataResult<Snp>>> snpFuture = null;
         if (annotatorSet.contains("xrefs") && dataRelease.getCollections().containsKey(EtlCommons.SNP_COLLECTION_NAME)) {
             futureSnpAnnotator = new FutureSnpAnnotator(normalizedVariantList, dataRelease.getRelease(), variantManager, logger);
-            snpFuture = CACHED_THREAD_POOL.submit(futureSnpAnnotator);
+            snpFuture = deadline.submit("xrefs", futureSnpAnnotator);
         }
 
         FutureConservationAnnotator futureConservationAnnotator = null;
@@ -479,7 +524,7 @@ public class VariantAnnotationCalculator {
         if (annotatorSet.contains("conservation")) {
             futureConservationAnnotator = new FutureConservationAnnotator(normalizedVariantList, QueryOptions.empty(),
                     dataRelease.getRelease());
-            conservationFuture = CACHED_THREAD_POOL.submit(futureConservationAnnotator);
+            conservationFuture = deadline.submit("conservation", futureConservationAnnotator);
         }
 
         FutureVariantFunctionalScoreAnnotator futureVariantFunctionalScoreAnnotator = null;
@@ -487,7 +532,7 @@ public class VariantAnnotationCalculator {
         if (annotatorSet.contains("functionalScore")) {
             futureVariantFunctionalScoreAnnotator = new FutureVariantFunctionalScoreAnnotator(normalizedVariantList, QueryOptions.empty(),
                     dataRelease.getRelease());
-            variantFunctionalScoreFuture = CACHED_THREAD_POOL.submit(futureVariantFunctionalScoreAnnotator);
+            variantFunctionalScoreFuture = deadline.submit("functionalScore", futureVariantFunctionalScoreAnnotator);
         }
 
         FutureClinicalAnnotator futureClinicalAnnotator = null;
@@ -499,21 +544,27 @@ public class VariantAnnotationCalculator {
             queryOptions.add(ParamConstants.QueryParams.CHECK_AMINO_ACID_CHANGE.key(), checkAminoAcidChange);
             queryOptions.add(API_KEY_PARAM, apiKey);
             futureClinicalAnnotator = new FutureClinicalAnnotator(normalizedVariantList, batchGeneList, queryOptions);
-            clinicalFuture = CACHED_THREAD_POOL.submit(futureClinicalAnnotator);
+            // Protein HGVS are needed to check the amino acid change. If they are calculated in the main loop the clinical
+            // query is submitted after it, with those HGVS, instead of calculating them again while the loop runs. The main
+            // loop does not normalize the variants for the HGVS, so they are only reused if the batch has been normalized,
+            // otherwise the clinical query calculates its own normalized HGVS as before
+            if (!checkAminoAcidChange || !annotatorSet.contains("hgvs") || !normalize) {
+                clinicalFuture = deadline.submit("traitAssociation", futureClinicalAnnotator);
+            }
         }
 
         FutureRepeatsAnnotator futureRepeatsAnnotator = null;
         Future<List<CellBaseDataResult<Repeat>>> repeatsFuture = null;
         if (annotatorSet.contains("repeats")) {
             futureRepeatsAnnotator = new FutureRepeatsAnnotator(normalizedVariantList, dataRelease.getRelease());
-            repeatsFuture = CACHED_THREAD_POOL.submit(futureRepeatsAnnotator);
+            repeatsFuture = deadline.submit("repeats", futureRepeatsAnnotator);
         }
 
         FutureCytobandAnnotator futureCytobandAnnotator = null;
         Future<List<CellBaseDataResult<Cytoband>>> cytobandFuture = null;
         if (annotatorSet.contains("cytoband")) {
             futureCytobandAnnotator = new FutureCytobandAnnotator(normalizedVariantList, QueryOptions.empty(), dataRelease.getRelease());
-            cytobandFuture = CACHED_THREAD_POOL.submit(futureCytobandAnnotator);
+            cytobandFuture = deadline.submit("cytoband", futureCytobandAnnotator);
         }
 
         FutureSpliceScoreAnnotator futureSpliceScoreAnnotator = null;
@@ -521,7 +572,7 @@ public class VariantAnnotationCalculator {
         if (annotatorSet.contains("consequenceType")) {
             futureSpliceScoreAnnotator = new FutureSpliceScoreAnnotator(normalizedVariantList, dataRelease.getRelease(), apiKey,
                     variantManager, logger);
-            spliceScoreFuture = CACHED_THREAD_POOL.submit(futureSpliceScoreAnnotator);
+            spliceScoreFuture = deadline.submit("spliceScore", futureSpliceScoreAnnotator);
         }
 
         FuturePharmacogenomicsAnnotator futurePharmacogenomicsAnnotator = null;
@@ -529,7 +580,14 @@ public class VariantAnnotationCalculator {
         if (annotatorSet.contains("pharmacogenomics") && dataRelease.getCollections().containsKey(EtlCommons.PHARMACOGENOMICS_DATA)) {
             futurePharmacogenomicsAnnotator = new FuturePharmacogenomicsAnnotator(normalizedVariantList, QueryOptions.empty(),
                     dataRelease.getRelease(), pharmacogenomicsManager, logger);
-            pharmacogenomicsFuture = CACHED_THREAD_POOL.submit(futurePharmacogenomicsAnnotator);
+            pharmacogenomicsFuture = deadline.submit("pharmacogenomics", futurePharmacogenomicsAnnotator);
+        }
+
+        // SIFT/PolyPhen scores of the batch are collected in the main loop and fetched at once after it
+        FutureProteinSubstitutionScoreAnnotator futureSubstitutionScoreAnnotator = null;
+        if (annotatorSet.contains("consequenceType")) {
+            futureSubstitutionScoreAnnotator = new FutureProteinSubstitutionScoreAnnotator(dataRelease.getRelease(), proteinManager,
+                    logger);
         }
 
         // We iterate over all variants to get the rest of the annotations and to create the VariantAnnotation objects
@@ -554,80 +612,15 @@ public class VariantAnnotationCalculator {
             variantAnnotation.setAlternate(variant.getAlternate());
 
             // Get variant overlapping genes
-            List<Gene> affectedGenes = getAffectedGenes(batchGeneList, variant);
-
-            // Better not run HGVS calculation with a Future for the following reasons:
-            //   * affectedGenes is needed in order to calculate the hgvs for ALL VARIANTS
-            //   * hgvsCalculator will raise an additional database query to get the genome sequence JUST FOR INDELS
-            //   * If a Future is used and a list of variants is provided to the hgvsCalculator, then the hgvsCalculator
-            //   will require to raise an additional query to the database (that would be performed asynchronously)
-            //   in order to get the affectedGenes FOR ALL VARIANTS
-            //   * If no future is used, then the genome sequence query will be performed synchronously but JUST
-            //   FOR INDELS
-            // Given that the number of indels is expected to be negligible if compared to the number of SNVs, the
-            // decision is to run it synchronously
+            List<Gene> affectedGenes = getAffectedGenes(batchGeneIndex, variant);
+
             if (annotatorSet.contains("hgvs")) {
-                try {
-                    // Decided to always set normalize = false for a number of reasons:
-                    //   * was raising problems with the normalizer - it could potentially fail in weird multiallelic
-                    //     cases if the normalizer is called twice over the same variant,
-                    //     i.e. normalize(normalize(variant)). Calling the normalizer twice happens when annotating from
-                    //     a VCF, since normalization is carried out before sending variant to the VariantAnnotationCalculator.
-                    //     Therefore, normalize would be false within the VariantAnnotationCalculator, it kept as it was
-                    //     before, !normalize for hgvsCalculator, it'd run normalization twice.
-                    //     This incorrect behaviour of the normalizer must and will be fixed in the future, it was decided not to
-                    //     include it as a hotfix since touches the very core of the normalizer
-                    //   * if normalize = true, the variants in normalizedVariantList are already normalized for sure
-                    //     and should not be normalized again.
-                    //   * if normalize = false, then we could potentially find things like CT/C. In this case, the
-                    //     annotator will consider this as an MNV and the rest of annotation will not exactly be what
-                    //     a typical user would expect for the deletion of the T (which is what it is). Thus, we don't
-                    //     really care that much at this point if the hgvs is not perfectly normalized. Knowing that
-                    //     variants are not normalized the user should always select normalize=true.
-                    variantAnnotation.setHgvs(hgvsCalculator.run(variant, affectedGenes, false));
-                } catch (VariantNormalizerException e) {
-                    logger.error("Unable to normalize variant {}. Leaving empty HGVS.", variant.toString());
-                }
+                setHgvsAnnotation(variant, affectedGenes);
             }
 
             if (annotatorSet.contains("consequenceType")) {
-                try {
-                    List<ConsequenceType> consequenceTypeList = getConsequenceTypeList(variant, affectedGenes, true, QueryOptions.empty(),
-                            dataRelease.getRelease());
-                    variantAnnotation.setConsequenceTypes(consequenceTypeList);
-                    if (phased) {
-                        checkAndAdjustPhasedConsequenceTypes(variant, variantBuffer, dataRelease.getRelease());
-                    }
-                    variantAnnotation
-                            .setDisplayConsequenceType(getMostSevereConsequenceType(variant.getAnnotation().getConsequenceTypes()));
-
-                    // Update HGVS inside the consequence type (if HGVS are provided)
-                    if (CollectionUtils.isNotEmpty(variantAnnotation.getHgvs())) {
-                        for (ConsequenceType consequenceType : consequenceTypeList) {
-                            List<String> selectedHgvs = new ArrayList<>();
-                            for (String hgvs : variantAnnotation.getHgvs()) {
-                                if (consequenceType.getTranscriptId() != null && hgvs.startsWith(consequenceType.getTranscriptId())) {
-                                    // Add Transcript ID
-                                    selectedHgvs.add(hgvs);
-                                } else {
-                                    // Add Protein ID
-                                    if (consequenceType.getProteinVariantAnnotation() != null
-                                            && consequenceType.getProteinVariantAnnotation().getProteinId() != null
-                                            && hgvs.startsWith(consequenceType.getProteinVariantAnnotation().getProteinId())) {
-                                        selectedHgvs.add(hgvs);
-                                    }
-                                }
-                            }
-                            if (CollectionUtils.isNotEmpty(selectedHgvs)) {
-                                consequenceType.setHgvs(selectedHgvs);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    variantAnnotation.setDisplayConsequenceType(VariantAnnotationUtils.FUNCTION_UNCERTAIN_VARIANT);
-                    variantAnnotation.setConsequenceTypes(Collections.emptyList());
-                    logger.error("Something wrong happened when calculation consequence type for variant " + variant, e);
-                }
+                setConsequenceTypeAnnotation(variant, affectedGenes, regulatoryOverlapCalculator, variantBuffer,
+                        futureSubstitutionScoreAnnotator);
             }
 
             // Get the gene annotation info
@@ -639,52 +632,147 @@ public class VariantAnnotationCalculator {
         // Adjust phase of two last variants - if still anything remaining to adjust. This can happen if the two last
         // variants in the batch are phased and the distance between them < 3nts
         if (phased && variantBuffer.size() > 1) {
-            adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease.getRelease());
+            adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease.getRelease(), futureSubstitutionScoreAnnotator);
         }
 
         logger.debug("Main loop iteration annotation performance is {}ms for {} variants", System.currentTimeMillis()
                 - startTime, normalizedVariantList.size());
 
+        if (futureClinicalAnnotator != null && clinicalFuture == null) {
+            List<List<String>> hgvsList = new ArrayList<>(variantAnnotationList.size());
+            for (VariantAnnotation variantAnnotation : variantAnnotationList) {
+                hgvsList.add(variantAnnotation.getHgvs());
+            }
+            futureClinicalAnnotator.setHgvsList(hgvsList);
+            clinicalFuture = deadline.submit("traitAssociation", futureClinicalAnnotator);
+        }
+
+        // All SIFT/PolyPhen substitutions of the batch are known now, they are fetched with one single query
+        Future<List<List<Score>>> substitutionScoreFuture = null;
+        if (futureSubstitutionScoreAnnotator != null && !futureSubstitutionScoreAnnotator.isEmpty()) {
+            substitutionScoreFuture = deadline.submit("substitutionScores", futureSubstitutionScoreAnnotator);
+        }
+
         /*
          * Now, hopefully the other annotations have finished and we can store the results.
          * Method 'processResults' has been implemented in the same class for sanity.
          */
         if (futureVariationAnnotator != null) {
-            futureVariationAnnotator.processResults(variationFuture, variantAnnotationList, annotatorSet);
+            futureVariationAnnotator.processResults(variationFuture, variantAnnotationList, annotatorSet, deadline);
         }
         if (futureSnpAnnotator != null) {
-            futureSnpAnnotator.processResults(snpFuture, variantAnnotationList);
+            futureSnpAnnotator.processResults(snpFuture, variantAnnotationList, deadline);
         }
         if (futureConservationAnnotator != null) {
-            futureConservationAnnotator.processResults(conservationFuture, variantAnnotationList);
+            futureConservationAnnotator.processResults(conservationFuture, variantAnnotationList, deadline);
         }
         if (futureVariantFunctionalScoreAnnotator != null) {
-            futureVariantFunctionalScoreAnnotator.processResults(variantFunctionalScoreFuture, variantAnnotationList);
+            futureVariantFunctionalScoreAnnotator.processResults(variantFunctionalScoreFuture, variantAnnotationList, deadline);
         }
         if (futureClinicalAnnotator != null) {
-            futureClinicalAnnotator.processResults(clinicalFuture, variantAnnotationList);
+            futureClinicalAnnotator.processResults(clinicalFuture, variantAnnotationList, deadline);
         }
         if (futureRepeatsAnnotator != null) {
-            futureRepeatsAnnotator.processResults(repeatsFuture, variantAnnotationList);
+            futureRepeatsAnnotator.processResults(repeatsFuture, variantAnnotationList, deadline);
         }
         if (futureCytobandAnnotator != null) {
-            futureCytobandAnnotator.processResults(cytobandFuture, variantAnnotationList);
+            futureCytobandAnnotator.processResults(cytobandFuture, variantAnnotationList, deadline);
         }
         if (futureSpliceScoreAnnotator != null) {
-            futureSpliceScoreAnnotator.processResults(spliceScoreFuture, variantAnnotationList);
+            futureSpliceScoreAnnotator.processResults(spliceScoreFuture, variantAnnotationList, deadline);
         }
         if (futurePharmacogenomicsAnnotator != null) {
-            futurePharmacogenomicsAnnotator.processResults(pharmacogenomicsFuture, variantAnnotationList);
+            futurePharmacogenomicsAnnotator.processResults(pharmacogenomicsFuture, variantAnnotationList, deadline);
+        }
+        if (substitutionScoreFuture != null) {
+            futureSubstitutionScoreAnnotator.processResults(substitutionScoreFuture, deadline);
         }
-
-        // Not needed with newCachedThreadPool
-        // fixedThreadPool.shutdown();
 
         logger.debug("Total batch annotation performance is {}ms for {} variants", System.currentTimeMillis()
                 - globalStartTime, normalizedVariantList.size());
         return variantAnnotationList;
     }
 
+    private void setHgvsAnnotation(Variant variant, List<Gene> affectedGenes) throws CellBaseException {
+        VariantAnnotation variantAnnotation = variant.getAnnotation();
+
+        // Better not run HGVS calculation with a Future for the following reasons:
+        //   * affectedGenes is needed in order to calculate the hgvs for ALL VARIANTS
+        //   * hgvsCalculator will raise an additional database query to get the genome sequence JUST FOR INDELS
+        //   * If a Future is used and a list of variants is provided to the hgvsCalculator, then the hgvsCalculator
+        //   will require to raise an additional query to the database (that would be performed asynchronously)
+        //   in order to get the affectedGenes FOR ALL VARIANTS
+        //   * If no future is used, then the genome sequence query will be performed synchronously but JUST
+        //   FOR INDELS
+        // Given that the number of indels is expected to be negligible if compared to the number of SNVs, the
+        // decision is to run it synchronously
+        try {
+            // Decided to always set normalize = false for a number of reasons:
+            //   * was raising problems with the normalizer - it could potentially fail in weird multiallelic
+            //     cases if the normalizer is called twice over the same variant,
+            //     i.e. normalize(normalize(variant)). Calling the normalizer twice happens when annotating from
+            //     a VCF, since normalization is carried out before sending variant to the VariantAnnotationCalculator.
+            //     Therefore, normalize would be false within the VariantAnnotationCalculator, it kept as it was
+            //     before, !normalize for hgvsCalculator, it'd run normalization twice.
+            //     This incorrect behaviour of the normalizer must and will be fixed in the future, it was decided not to
+            //     include it as a hotfix since touches the very core of the normalizer
+            //   * if normalize = true, the variants in normalizedVariantList are already normalized for sure
+            //     and should not be normalized again.
+            //   * if normalize = false, then we could potentially find things like CT/C. In this case, the
+            //     annotator will consider this as an MNV and the rest of annotation will not exactly be what
+            //     a typical user would expect for the deletion of the T (which is what it is). Thus, we don't
+            //     really care that much at this point if the hgvs is not perfectly normalized. Knowing that
+            //     variants are not normalized the user should always select normalize=true.
+            variantAnnotation.setHgvs(hgvsCalculator.run(variant, affectedGenes, false));
+        } catch (VariantNormalizerException e) {
+            logger.error("Unable to normalize variant {}. Leaving empty HGVS.", variant.toString());
+        }
+    }
+
+    private void setConsequenceTypeAnnotation(Variant variant, List<Gene> affectedGenes,
+                                              RegulatoryRegionOverlapCalculator regulatoryOverlapCalculator,
+                                              Queue<Variant> variantBuffer,
+                                              FutureProteinSubstitutionScoreAnnotator substitutionScoreAnnotator) {
+        VariantAnnotation variantAnnotation = variant.getAnnotation();
+        try {
+            List<ConsequenceType> consequenceTypeList = getConsequenceTypeList(variant, affectedGenes,
+                    regulatoryOverlapCalculator, QueryOptions.empty(), dataRelease.getRelease(), substitutionScoreAnnotator);
+            variantAnnotation.setConsequenceTypes(consequenceTypeList);
+            if (phased) {
+                checkAndAdjustPhasedConsequenceTypes(variant, variantBuffer, dataRelease.getRelease(), substitutionScoreAnnotator);
+            }
+            variantAnnotation
+                    .setDisplayConsequenceType(getMostSevereConsequenceType(variant.getAnnotation().getConsequenceTypes()));
+
+            // Update HGVS inside the consequence type (if HGVS are provided)
+            if (CollectionUtils.isNotEmpty(variantAnnotation.getHgvs())) {
+                for (ConsequenceType consequenceType : consequenceTypeList) {
+                    List<String> selectedHgvs = new ArrayList<>();
+                    for (String hgvs : variantAnnotation.getHgvs()) {
+                        if (consequenceType.getTranscriptId() != null && hgvs.startsWith(consequenceType.getTranscriptId())) {
+                            // Add Transcript ID
+                            selectedHgvs.add(hgvs);
+                        } else {
+                            // Add Protein ID
+                            if (consequenceType.getProteinVariantAnnotation() != null
+                                    && consequenceType.getProteinVariantAnnotation().getProteinId() != null
+                                    && hgvs.startsWith(consequenceType.getProteinVariantAnnotation().getProteinId())) {
+                                selectedHgvs.add(hgvs);
+                            }
+                        }
+                    }
+                    if (CollectionUtils.isNotEmpty(selectedHgvs)) {
+                        consequenceType.setHgvs(selectedHgvs);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            variantAnnotation.setDisplayConsequenceType(VariantAnnotationUtils.FUNCTION_UNCERTAIN_VARIANT);
+            variantAnnotation.setConsequenceTypes(Collections.emptyList());
+            logger.error("Something wrong happened when calculation consequence type for variant " + variant, e);
+        }
+    }
+
     public List<Gene> getBatchGeneList(List<Variant> variantList)
             throws QueryException, IllegalAccessException, CellBaseException {
         List<Region> regionList = variantListToRegionList(variantList);
@@ -694,33 +782,66 @@ public class VariantAnnotationCalculator {
             region.setEnd(region.getEnd() + 5000);
         }
 
-        List<Gene> geneList = new ArrayList<>();
-        GeneQuery geneQuery = new GeneQuery();
-        geneQuery.setDataRelease(dataRelease.getRelease());
-        geneQuery.setIncludes(includeGeneFields);
-        geneQuery.setRegions(regionList);
-
+        List<String> sourceList = new ArrayList<>(2);
         if (StringUtils.isNotEmpty(consequenceTypeSource)) {
             // sources can be "ensembl" and/or "refseq". query is validated before execution, will fail if invalid value
             String[] sources = consequenceTypeSource.split(",");
             for (String source : sources) {
                 if (source.equalsIgnoreCase(ParamConstants.QueryParams.ENSEMBL.key())) {
-                    geneQuery.setSource(Collections.singletonList(ParamConstants.QueryParams.ENSEMBL.key()));
-                    geneList.addAll(new CellBaseDataResult<>(geneManager.search(geneQuery)).getResults());
+                    sourceList.add(ParamConstants.QueryParams.ENSEMBL.key());
                 }
                 if (source.equalsIgnoreCase(ParamConstants.QueryParams.REFSEQ.key())) {
-                    geneQuery.setSource(Collections.singletonList(ParamConstants.QueryParams.REFSEQ.key()));
-                    geneList.addAll(new CellBaseDataResult<>(geneManager.search(geneQuery)).getResults());
+                    sourceList.add(ParamConstants.QueryParams.REFSEQ.key());
                 }
             }
         } else {
             // if no source specified, default to ensembl
-            geneQuery.setSource(Collections.singletonList(ParamConstants.QueryParams.ENSEMBL.key()));
+            sourceList.add(ParamConstants.QueryParams.ENSEMBL.key());
+        }
+
+        List<Gene> geneList = new ArrayList<>();
+        if (geneModelCache != null) {
+            for (String source : sourceList) {
+                geneList.addAll(getCachedGeneList(regionList, source));
+            }
+            return geneList;
+        }
+
+        GeneQuery geneQuery = new GeneQuery();
+        geneQuery.setDataRelease(dataRelease.getRelease());
+        geneQuery.setIncludes(includeGeneFields);
+        geneQuery.setRegions(regionList);
+        for (String source : sourceList) {
+            geneQuery.setSource(Collections.singletonList(source));
             geneList.addAll(new CellBaseDataResult<>(geneManager.search(geneQuery)).getResults());
         }
         return geneList;
     }
 
+    private List<Gene> getCachedGeneList(List<Region> regionList, String source) throws CellBaseException {
+        Map<String, List<Region>> regionsByChromosome = new LinkedHashMap<>();
+        for (Region region : regionList) {
+            regionsByChromosome.computeIfAbsent(region.getChromosome(), k -> new ArrayList<>()).add(region);
+        }
+
+        List<Gene> geneList = new ArrayList<>();
+        for (Map.Entry<String, List<Region>> entry : regionsByChromosome.entrySet()) {
+            String chromosome = entry.getKey();
+            // Cached genes include the fields of all annotators, fields not requested are ignored when annotating
+            GenomicIntervalIndex<Gene> geneIndex = geneModelCache.get(geneModelCacheKeyPrefix + source + "_" + chromosome,
+                    () -> geneManager.getByChromosome(chromosome, source, CACHED_GENE_FIELDS, dataRelease.getRelease()).getResults());
+            // Each gene is returned once even if overlapping several regions, as in a region query
+            List<Integer> geneIndexes = new ArrayList<>();
+            for (Region region : entry.getValue()) {
+                geneIndex.collectIndexes(chromosome, region.getStart(), region.getEnd(), geneIndexes);
+            }
+            for (Integer geneIndexPosition : new TreeSet<>(geneIndexes)) {
+                geneList.add(geneIndex.get(geneIndexPosition));
+            }
+        }
+        return geneList;
+    }
+
     private void parseQueryParam(QueryOptions queryOptions) {
         // We process include and exclude query options to know which annotators to use.
         // Include parameter has preference over exclude.
@@ -786,7 +907,8 @@ public class VariantAnnotationCalculator {
         logger.debug("consequenceTypeSource = {}", consequenceTypeSource);
     }
 
-    private void checkAndAdjustPhasedConsequenceTypes(Variant variant, Queue<Variant> variantBuffer, int dataRelease)
+    private void checkAndAdjustPhasedConsequenceTypes(Variant variant, Queue<Variant> variantBuffer, int dataRelease,
+                                                      FutureProteinSubstitutionScoreAnnotator substitutionScoreAnnotator)
             throws CellBaseException {
         // Only SNVs are currently considered for phase adjustment
         if (variant.getType().equals(VariantType.SNV)) {
@@ -806,11 +928,11 @@ public class VariantAnnotationCalculator {
                 case 2:
                     if (potentialCodingSNVOverlap(variantBuffer.peek(), variant)) {
                         variantBuffer.add(variant);
-                        adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease);
+                        adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease, substitutionScoreAnnotator);
                         variantBuffer.poll();
                     } else {
                         // Adjust consequence types for the two previous variants
-                        adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease);
+                        adjustPhasedConsequenceTypes(variantBuffer.toArray(), dataRelease, substitutionScoreAnnotator);
                         // Remove the two previous variants after adjustment
                         variantBuffer.poll();
                         variantBuffer.poll();
@@ -822,7 +944,9 @@ public class VariantAnnotationCalculator {
         }
     }
 
-    private void adjustPhasedConsequenceTypes(Object[] variantArray, int dataRelease) throws CellBaseException {
+    private void adjustPhasedConsequenceTypes(Object[] variantArray, int dataRelease,
+                                              FutureProteinSubstitutionScoreAnnotator substitutionScoreAnnotator)
+            throws CellBaseException {
         Variant variant0 = (Variant) variantArray[0];
         Variant variant1 = null;
         Variant variant2 = null;
@@ -879,7 +1003,8 @@ public class VariantAnnotationCalculator {
                         consequenceType3.setCdsPosition(cdsPosition);
                         consequenceType3.setCodon(codon);
                         consequenceType3.getProteinVariantAnnotation().setAlternate(alternateAA);
-                        newProteinVariantAnnotation = getProteinAnnotation(variant2, consequenceType3, dataRelease);
+                        newProteinVariantAnnotation = getProteinAnnotation(variant2, consequenceType3, dataRelease,
+                                substitutionScoreAnnotator);
                         consequenceType3.setProteinVariantAnnotation(newProteinVariantAnnotation);
                         consequenceType3.setSequenceOntologyTerms(soTerms);
 
@@ -921,7 +1046,8 @@ public class VariantAnnotationCalculator {
                     consequenceType1.setCodon(codon);
                     consequenceType1.getProteinVariantAnnotation().setAlternate(alternateAA);
                     consequenceType1.setProteinVariantAnnotation(newProteinVariantAnnotation == null
-                            ? getProteinAnnotation(variant1, consequenceType1, dataRelease) : newProteinVariantAnnotation);
+                            ? getProteinAnnotation(variant1, consequenceType1, dataRelease,
+                                    substitutionScoreAnnotator) : newProteinVariantAnnotation);
                     consequenceType1.setSequenceOntologyTerms(soTerms);
                     consequenceType2.setCdnaPosition(cdnaPosition);
                     consequenceType2.setCdsPosition(cdsPosition);
@@ -1190,7 +1316,7 @@ public class VariantAnnotationCalculator {
         return annotatorSet;
     }
 
-    private List<String> getIncludedGeneFields(Set<String> annotatorSet) {
+    private static List<String> getIncludedGeneFields(Set<String> annotatorSet) {
         List<String> includeGeneFields = new ArrayList<>(Arrays.asList("name", "id", "chromosome", "start", "end", "transcripts.id",
                 "transcripts.proteinId", "transcripts.chromosome", "transcripts.start", "transcripts.end", "transcripts.cdnaSequence",
                 "transcripts.proteinSequence", "transcripts.strand", "transcripts.cdsLength", "transcripts.flags", "transcripts.biotype",
@@ -1223,15 +1349,26 @@ public class VariantAnnotationCalculator {
         return includeGeneFields;
     }
 
+    public GenomicIntervalIndex<Gene> getBatchGeneIndex(List<Gene> batchGeneList) {
+        return new GenomicIntervalIndex<>(batchGeneList, Gene::getChromosome, Gene::getStart, Gene::getEnd);
+    }
+
     public List<Gene> getAffectedGenes(List<Gene> batchGeneList, Variant variant) {
-        List<Gene> geneList = new ArrayList<>(batchGeneList.size());
-        for (Gene gene : batchGeneList) {
-            for (Region region : variantToRegionList(variant)) {
-                if (region.getChromosome().equals(gene.getChromosome()) && gene.getStart() <= (region.getEnd() + 5000)
-                        && gene.getEnd() >= Math.max(1, region.getStart() - 5000)) {
-                    geneList.add(gene);
-                }
-            }
+        return getAffectedGenes(getBatchGeneIndex(batchGeneList), variant);
+    }
+
+    public List<Gene> getAffectedGenes(GenomicIntervalIndex<Gene> batchGeneIndex, Variant variant) {
+        List<Integer> geneIndexes = new ArrayList<>();
+        for (Region region : variantToRegionList(variant)) {
+            batchGeneIndex.collectIndexes(region.getChromosome(), Math.max(1, region.getStart() - 5000), region.getEnd() + 5000,
+                    geneIndexes);
+        }
+        // Genes are returned in the same order as in the batch gene list. A gene overlapping the two regions of a
+        // breakend is returned twice, once per region
+        Collections.sort(geneIndexes);
+        List<Gene> geneList = new ArrayList<>(geneIndexes.size());
+        for (Integer geneIndex : geneIndexes) {
+            geneList.add(batchGeneIndex.get(geneIndex));
         }
         return geneList;
     }
@@ -1248,7 +1385,19 @@ public class VariantAnnotationCalculator {
         }
     }
 
-    private ProteinVariantAnnotation getProteinAnnotation(Variant variant, ConsequenceType consequenceType, int dataRelease)
+    /**
+     * Returns the protein annotation of a consequence type. If a substitution score annotator is passed the SIFT/PolyPhen
+     * scores are not queried here, the annotation is added to the annotator to fetch them for the whole batch at once.
+     *
+     * @param variant                    variant
+     * @param consequenceType            consequence type
+     * @param dataRelease                data release
+     * @param substitutionScoreAnnotator substitution scores of the batch, null to query them here
+     * @return protein annotation, null if the consequence type has none
+     * @throws CellBaseException if the protein annotation cannot be queried
+     */
+    private ProteinVariantAnnotation getProteinAnnotation(Variant variant, ConsequenceType consequenceType, int dataRelease,
+                                                          FutureProteinSubstitutionScoreAnnotator substitutionScoreAnnotator)
             throws CellBaseException {
         ProteinVariantAnnotation proteinVariantAnnotation = null;
         if (consequenceType.getProteinVariantAnnotation() != null) {
@@ -1257,16 +1406,21 @@ public class VariantAnnotationCalculator {
             if (transcriptId != null && transcriptId.contains(".")) {
                 transcriptId = transcriptId.split("\\.")[0];
             }
+            String aaReference = consequenceType.getProteinVariantAnnotation().getReference();
+            String aaAlternate = consequenceType.getProteinVariantAnnotation().getAlternate();
             CellBaseDataResult<ProteinVariantAnnotation> results = proteinManager.getVariantAnnotation(variant,
                     transcriptId,
                     consequenceType.getProteinVariantAnnotation().getPosition(),
-                    consequenceType.getProteinVariantAnnotation().getReference(),
-                    consequenceType.getProteinVariantAnnotation().getAlternate(), new QueryOptions(), dataRelease);
+                    aaReference, aaAlternate, substitutionScoreAnnotator == null, new QueryOptions(), dataRelease);
 
             // Set proteinId
             results.getResults().get(0).setProteinId(consequenceType.getProteinVariantAnnotation().getProteinId());
             if (results.getNumResults() > 0) {
                 proteinVariantAnnotation = results.getResults().get(0);
+                // Stop_gain/lost variants do not have SIFT/POLYPHEN scores
+                if (substitutionScoreAnnotator != null && !"STOP".equals(aaReference) && !"STOP".equals(aaAlternate)) {
+                    substitutionScoreAnnotator.add(transcriptId, proteinVariantAnnotation);
+                }
             }
         }
         return proteinVariantAnnotation;
@@ -1303,119 +1457,14 @@ public class VariantAnnotationCalculator {
         }
     }
 
-    private boolean[] getRegulatoryRegionOverlaps(Variant variant) throws QueryException, IllegalAccessException, CellBaseException {
-        // 0: overlaps any regulatory region type
-        // 1: overlaps transcription factor binding site
-        boolean[] overlapsRegulatoryRegion = {false, false};
-
-        // Variant type checked in expected order of frequency of occurrence to minimize number of checks
-        // Most queries will be SNVs - it's worth implementing an special case for them
-        if (VariantType.SNV.equals(variant.getType())) {
-            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart());
-        } else if (VariantType.INDEL.equals(variant.getType()) && StringUtils.isBlank(variant.getReference())) {
-            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart() - 1, variant.getEnd());
-            // Short deletions and symbolic variants except breakends
-        } else if (!VariantType.BREAKEND.equals(variant.getType())) {
-            return getRegulatoryRegionOverlaps(variant.getChromosome(), variant.getStart(), variant.getEnd());
-            // Breakend "variants" only annotate features overlapping the exact positions
-        } else  {
-            overlapsRegulatoryRegion = getRegulatoryRegionOverlaps(variant.getChromosome(), Math.max(1, variant.getStart()));
-            // If already found one overlapping regulatory region there's no need to keep checking
-            if (overlapsRegulatoryRegion[0]) {
-                return overlapsRegulatoryRegion;
-                // Otherwise check the other breakend in case exists
-            } else {
-                if (variant.getSv() != null && variant.getSv().getBreakend() != null
-                        && variant.getSv().getBreakend().getMate() != null) {
-                    return getRegulatoryRegionOverlaps(variant.getSv().getBreakend().getMate().getChromosome(),
-                            Math.max(1, variant.getSv().getBreakend().getMate().getPosition()));
-                } else {
-                    return overlapsRegulatoryRegion;
-                }
-            }
-        }
-    }
-
-    private boolean[] getRegulatoryRegionOverlaps(String chromosome, Integer position)
-            throws QueryException, IllegalAccessException, CellBaseException {
-        // 0: overlaps any regulatory region type
-        // 1: overlaps transcription factor binding site
-        boolean[] overlapsRegulatoryRegion = {false, false};
-
-        RegulationQuery query = new RegulationQuery();
-        query.setDataRelease(dataRelease.getRelease());
-        query.setIncludes(Collections.singletonList(REGULATORY_REGION_FEATURE_TYPE_ATTRIBUTE));
-        query.setRegions(Collections.singletonList(new Region(chromosome, position)));
-        CellBaseDataResult<RegulatoryFeature> cellBaseDataResult = regulationManager.search(query);
-
-        if (cellBaseDataResult.getNumResults() > 0) {
-            overlapsRegulatoryRegion[0] = true;
-            boolean tfbsFound = false;
-            for (int i = 0; (i < cellBaseDataResult.getResults().size() && !tfbsFound); i++) {
-                String regulatoryRegionType = cellBaseDataResult.getResults().get(i).getFeatureType();
-                tfbsFound = regulatoryRegionType != null
-                        && (regulatoryRegionType.equals(ParamConstants.FeatureType.TF_binding_site.name())
-                        || cellBaseDataResult.getResults().get(i).getFeatureType()
-                        .equals(ParamConstants.FeatureType.TF_binding_site_motif.name()));
-            }
-            overlapsRegulatoryRegion[1] = tfbsFound;
-        }
-
-        return overlapsRegulatoryRegion;
-    }
-
-    private boolean[] getRegulatoryRegionOverlaps(String chromosome, Integer start, Integer end)
-            throws QueryException, IllegalAccessException, CellBaseException {
-        // 0: overlaps any regulatory region type
-        // 1: overlaps transcription factor binding site
-        boolean[] overlapsRegulatoryRegion = {false, false};
-
-        RegulationQuery query = new RegulationQuery();
-        query.setDataRelease(dataRelease.getRelease());
-        query.setExcludes(Collections.singletonList("_id"));
-        query.setIncludes(Collections.singletonList("chromosome"));
-        query.setLimit(1);
-        query.setRegions(Collections.singletonList(new Region(chromosome, start, end)));
-        query.setFeatureTypes(Collections.singletonList(TF_BINDING_SITE));
-
-        CellBaseDataResult<RegulatoryFeature> cellBaseDataResult = regulationManager.search(query);
-
-        // Overlaps transcription factor binding site - it's therefore a regulatory variant
-        if (cellBaseDataResult.getNumResults() == 1) {
-            overlapsRegulatoryRegion[0] = true;
-            overlapsRegulatoryRegion[1] = true;
-            // Does not overlap transcription factor binding site - check any other regulatory region type
-        } else {
-            query.setFeatureTypes(null);
-            cellBaseDataResult = regulationManager.search(query);
-            // Does overlap other types of regulatory regions
-            if (cellBaseDataResult.getNumResults() == 1) {
-                overlapsRegulatoryRegion[0] = true;
-            }
-        }
-
-        return overlapsRegulatoryRegion;
-    }
-
-    private String toRegionString(String chromosome, Integer position) {
-        return toRegionString(chromosome, position, position);
-    }
-
-    private String toRegionString(String chromosome, Integer start, Integer end) {
-        StringBuilder stringBuilder = new StringBuilder(chromosome);
-        stringBuilder.append(":");
-        stringBuilder.append(start);
-        stringBuilder.append("-");
-        stringBuilder.append(end == null ? start : end);
-        return stringBuilder.toString();
-    }
-
-    private List<ConsequenceType> getConsequenceTypeList(Variant variant, List<Gene> geneList, boolean regulatoryAnnotation,
-                                                         QueryOptions queryOptions, int dataRelease)
+    private List<ConsequenceType> getConsequenceTypeList(Variant variant, List<Gene> geneList,
+                                                         RegulatoryRegionOverlapCalculator regulatoryOverlapCalculator,
+                                                         QueryOptions queryOptions, int dataRelease,
+                                                         FutureProteinSubstitutionScoreAnnotator substitutionScoreAnnotator)
             throws QueryException, IllegalAccessException, CellBaseException {
         boolean[] overlapsRegulatoryRegion = {false, false};
-        if (regulatoryAnnotation) {
-            overlapsRegulatoryRegion = getRegulatoryRegionOverlaps(variant);
+        if (regulatoryOverlapCalculator != null) {
+            overlapsRegulatoryRegion = regulatoryOverlapCalculator.getRegulatoryRegionOverlaps(variant);
         }
         ConsequenceTypeCalculator consequenceTypeCalculator = getConsequenceTypeCalculator(variant);
         List<ConsequenceType> consequenceTypeList = consequenceTypeCalculator.run(variant, geneList,
@@ -1424,7 +1473,8 @@ public class VariantAnnotationCalculator {
                 || Variant.inferType(variant.getReference(), variant.getAlternate()) == VariantType.SNV) {
             for (ConsequenceType consequenceType : consequenceTypeList) {
                 if (nonSynonymous(consequenceType, variant.getChromosome().equals("MT"))) {
-                    consequenceType.setProteinVariantAnnotation(getProteinAnnotation(variant, consequenceType, dataRelease));
+                    consequenceType.setProteinVariantAnnotation(getProteinAnnotation(variant, consequenceType, dataRelease,
+                            substitutionScoreAnnotator));
                 }
             }
         }
@@ -1572,14 +1622,8 @@ public class VariantAnnotationCalculator {
 
         public void processResults(Future<List<CellBaseDataResult<Variant>>> variationFuture,
                                    List<VariantAnnotation> variantAnnotationList,
-                                   Set<String> annotatorSet) throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Variant>> variationCellBaseDataResults;
-            try {
-                variationCellBaseDataResults = variationFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                variationFuture.cancel(true);
-                throw new ExecutionException("Unable to finish variant query on time", e);
-            }
+                                   Set<String> annotatorSet, AnnotatorDeadline deadline) throws InterruptedException, ExecutionException {
+            List<CellBaseDataResult<Variant>> variationCellBaseDataResults = deadline.get("variation", variationFuture);
 
             if (variationCellBaseDataResults != null) {
                 for (int i = 0; i < variantAnnotationList.size(); i++) {
@@ -1623,31 +1667,39 @@ public class VariantAnnotationCalculator {
             List<CellBaseDataResult<Score>> cellBaseDataResultList = new ArrayList<>(variantList.size());
 
             logger.debug("Query conservation");
-            // Want to return only one CellBaseDataResult object per Variant
-            for (Variant variant : variantList) {
-
+            // All regions of the batch are queried at once, numRegions keeps track of the regions of each variant
+            List<Region> regionList = new ArrayList<>(variantList.size());
+            int[] numRegions = new int[variantList.size()];
+            for (int i = 0; i < variantList.size(); i++) {
                 // Truncate region size of SVs to avoid server collapse
-                List<Region> regionList
-                        = variantToRegionList(variant)
-                        .stream()
-                        .map(region -> region.size() > 50
-                                ? (new Region(region.getChromosome(), region.getStart(), region.getStart() + 49))
-                                : region).collect(Collectors.toList());
-
-                List<CellBaseDataResult<Score>> tmpCellBaseDataResultList = genomeManager.getAllScoresByRegionList(regionList,
-                        queryOptions, dataRelease);
+                for (Region region : variantToRegionList(variantList.get(i))) {
+                    regionList.add(region.size() > 50
+                            ? (new Region(region.getChromosome(), region.getStart(), region.getStart() + 49))
+                            : region);
+                    numRegions[i]++;
+                }
+            }
+            List<CellBaseDataResult<Score>> regionCellBaseDataResultList = genomeManager.getAllScoresByRegionBatch(regionList,
+                    dataRelease);
 
+            // Want to return only one CellBaseDataResult object per Variant
+            int regionIndex = 0;
+            for (int i = 0; i < variantList.size(); i++) {
                 // There may be more than one CellBaseDataResult per variant for breakends
                 // Reuse one of the CellBaseDataResult objects returned by the adaptor
-                CellBaseDataResult<Score> newCellBaseDataResult = tmpCellBaseDataResultList.get(0);
-                if (tmpCellBaseDataResultList.size() > 1 && tmpCellBaseDataResultList.get(1).getResults() != null) {
+                CellBaseDataResult<Score> newCellBaseDataResult = regionCellBaseDataResultList.get(regionIndex);
+                if (numRegions[i] > 1 && regionCellBaseDataResultList.get(regionIndex + 1).getResults() != null) {
                     // Reuse one of the CellBaseDataResult objects - new result is the set formed by the scores corresponding
                     // to the two breakpoints
-                    newCellBaseDataResult.getResults().addAll(tmpCellBaseDataResultList.get(1).getResults());
+                    if (newCellBaseDataResult.getResults() == null) {
+                        newCellBaseDataResult.setResults(new ArrayList<>());
+                    }
+                    newCellBaseDataResult.getResults().addAll(regionCellBaseDataResultList.get(regionIndex + 1).getResults());
                     newCellBaseDataResult.setNumResults(newCellBaseDataResult.getResults().size());
                     newCellBaseDataResult.setNumMatches(newCellBaseDataResult.getResults().size());
                 }
                 cellBaseDataResultList.add(newCellBaseDataResult);
+                regionIndex += numRegions[i];
             }
 
             logger.debug("Conservation query performance is {}ms for {} variants", System.currentTimeMillis() - startTime,
@@ -1656,15 +1708,9 @@ public class VariantAnnotationCalculator {
         }
 
         public void processResults(Future<List<CellBaseDataResult<Score>>> conservationFuture,
-                                   List<VariantAnnotation> variantAnnotationList)
+                                   List<VariantAnnotation> variantAnnotationList, AnnotatorDeadline deadline)
                 throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Score>> conservationCellBaseDataResults;
-            try {
-                conservationCellBaseDataResults = conservationFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                conservationFuture.cancel(true);
-                throw new ExecutionException("Unable to finish conservation score query on time", e);
-            }
+            List<CellBaseDataResult<Score>> conservationCellBaseDataResults = deadline.get("conservation", conservationFuture);
 
             if (conservationCellBaseDataResults != null) {
                 for (int i = 0; i < variantAnnotationList.size(); i++) {
@@ -1698,15 +1744,10 @@ public class VariantAnnotationCalculator {
         }
 
         public void processResults(Future<List<CellBaseDataResult<Score>>> variantFunctionalScoreFuture,
-                                   List<VariantAnnotation> variantAnnotationList)
+                                   List<VariantAnnotation> variantAnnotationList, AnnotatorDeadline deadline)
                 throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Score>> variantFunctionalScoreCellBaseDataResults;
-            try {
-                variantFunctionalScoreCellBaseDataResults = variantFunctionalScoreFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                variantFunctionalScoreFuture.cancel(true);
-                throw new ExecutionException("Unable to finish variant functional score query on time", e);
-            }
+            List<CellBaseDataResult<Score>> variantFunctionalScoreCellBaseDataResults = deadline.get("functionalScore",
+                    variantFunctionalScoreFuture);
 
             if (variantFunctionalScoreCellBaseDataResults != null) {
                 for (int i = 0; i < variantAnnotationList.size(); i++) {
@@ -1722,6 +1763,8 @@ public class VariantAnnotationCalculator {
     class FutureClinicalAnnotator implements Callable<List<CellBaseDataResult<Variant>>> {
         private List<Variant> variantList;
         private List<Gene> batchGeneList;
+        // HGVS already calculated for each variant, null if not calculated
+        private List<List<String>> hgvsList;
         private QueryOptions queryOptions;
 
         FutureClinicalAnnotator(List<Variant> variantList, List<Gene> batchGeneList, QueryOptions queryOptions) {
@@ -1730,25 +1773,23 @@ public class VariantAnnotationCalculator {
             this.queryOptions = queryOptions;
         }
 
+        void setHgvsList(List<List<String>> hgvsList) {
+            this.hgvsList = hgvsList;
+        }
+
         @Override
         public List<CellBaseDataResult<Variant>> call() throws Exception {
             long startTime = System.currentTimeMillis();
             List<CellBaseDataResult<Variant>> clinicalCellBaseDataResultList = clinicalManager.getByVariant(variantList, batchGeneList,
-                    queryOptions, dataRelease.getRelease());
+                    hgvsList, queryOptions, dataRelease.getRelease());
             logger.debug("Clinical query performance is {}ms for {} variants", System.currentTimeMillis() - startTime, variantList.size());
             return clinicalCellBaseDataResultList;
         }
 
         public void processResults(Future<List<CellBaseDataResult<Variant>>> clinicalFuture,
-                                   List<VariantAnnotation> variantAnnotationList)
+                                   List<VariantAnnotation> variantAnnotationList, AnnotatorDeadline deadline)
                 throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Variant>> clinicalCellBaseDataResults;
-            try {
-                clinicalCellBaseDataResults = clinicalFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                clinicalFuture.cancel(true);
-                throw new ExecutionException("Unable to finish clinical variant query on time", e);
-            }
+            List<CellBaseDataResult<Variant>> clinicalCellBaseDataResults = deadline.get("traitAssociation", clinicalFuture);
 
             if (clinicalCellBaseDataResults != null) {
                 for (int i = 0; i < variantAnnotationList.size(); i++) {
@@ -1825,15 +1866,9 @@ public class VariantAnnotationCalculator {
         }
 
         public void processResults(Future<List<CellBaseDataResult<Repeat>>> repeatsFuture,
-                                   List<VariantAnnotation> variantAnnotationResults)
+                                   List<VariantAnnotation> variantAnnotationResults, AnnotatorDeadline deadline)
                 throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Repeat>> cellBaseDataResultList;
-            try {
-                cellBaseDataResultList = repeatsFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                repeatsFuture.cancel(true);
-                throw new ExecutionException("Unable to finish repeat query on time", e);
-            }
+            List<CellBaseDataResult<Repeat>> cellBaseDataResultList = deadline.get("repeats", repeatsFuture);
 
             if (cellBaseDataResultList != null) {
                 for (int i = 0; i < variantAnnotationResults.size(); i++) {
@@ -1891,15 +1926,9 @@ public class VariantAnnotationCalculator {
         }
 
         public void processResults(Future<List<CellBaseDataResult<Cytoband>>> cytobandFuture,
-                                   List<VariantAnnotation> variantAnnotationList)
+                                   List<VariantAnnotation> variantAnnotationList, AnnotatorDeadline deadline)
                 throws InterruptedException, ExecutionException {
-            List<CellBaseDataResult<Cytoband>> cellBaseDataResultList;
-            try {
-                cellBaseDataResultList = cytobandFuture.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                cytobandFuture.cancel(true);
-                throw new ExecutionException("Unable to finish cytoband query on time", e);
-            }
+            List<CellBaseDataResult<Cytoband>> cellBaseDataResultList = deadline.get("cytoband", cytobandFuture);
 
             if (cellBaseDataResultList != null) {
                 if (cellBaseDataResultList.isEmpty()) {
@@ -1933,4 +1962,13 @@ public class VariantAnnotationCalculator {
         this.apiKey = apiKey;
         return this;
     }
+
+    public boolean isFailOnMissingAnnotations() {
+        return failOnMissingAnnotations;
+    }
+
+    public VariantAnnotationCalculator setFailOnMissingAnnotations(boolean failOnMissingAnnotations) {
+        this.failOnMissingAnnotations = failOnMissingAnnotations;
+        return this;
+    }
 }
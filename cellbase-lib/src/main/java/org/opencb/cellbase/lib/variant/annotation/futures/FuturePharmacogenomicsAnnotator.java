@@ -27,6 +27,7 @@ import org.opencb.biodata.models.variant.avro.VariantAnnotation;
 import org.opencb.cellbase.core.api.PharmaChemicalQuery;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.managers.PharmacogenomicsManager;
+import org.opencb.cellbase.lib.variant.annotation.AnnotatorDeadline;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.slf4j.Logger;
 
@@ -96,15 +97,9 @@ public class FuturePharmacogenomicsAnnotator implements Callable<List<CellBaseDa
     }
 
     public void processResults(Future<List<CellBaseDataResult<PharmaChemical>>> pharmaFuture,
-                               List<VariantAnnotation> variantAnnotationList)
+                               List<VariantAnnotation> variantAnnotationList, AnnotatorDeadline deadline)
             throws InterruptedException, ExecutionException {
-        List<CellBaseDataResult<PharmaChemical>> pharmaChemicalCellBaseDataResults;
-        try {
-            pharmaChemicalCellBaseDataResults = pharmaFuture.get(30, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            pharmaFuture.cancel(true);
-            throw new ExecutionException("Unable to finish pharmacogenomics query on time", e);
-        }
+        List<CellBaseDataResult<PharmaChemical>> pharmaChemicalCellBaseDataResults = deadline.get("pharmacogenomics", pharmaFuture);
 
         if (CollectionUtils.isNotEmpty(pharmaChemicalCellBaseDataResults)) {
             for (int i = 0; i < variantAnnotationList.size(); i++) {
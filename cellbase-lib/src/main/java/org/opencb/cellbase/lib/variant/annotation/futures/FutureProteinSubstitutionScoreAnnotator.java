@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation.futures;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.opencb.biodata.models.variant.avro.ProteinVariantAnnotation;
+import org.opencb.biodata.models.variant.avro.Score;
+import org.opencb.cellbase.lib.managers.ProteinManager;
+import org.opencb.cellbase.lib.variant.annotation.AnnotatorDeadline;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * SIFT and PolyPhen scores for all the non-synonymous substitutions of a batch. Substitutions are registered while the
+ * consequence types are calculated and all of them are then resolved with one single query.
+ */
+public class FutureProteinSubstitutionScoreAnnotator implements Callable<List<List<Score>>> {
+    private ProteinManager proteinManager;
+
+    private List<String> transcriptIds;
+    private List<ProteinVariantAnnotation> proteinVariantAnnotations;
+    private int dataRelease;
+
+    private Logger logger;
+
+    public FutureProteinSubstitutionScoreAnnotator(int dataRelease, ProteinManager proteinManager, Logger logger) {
+        this.proteinManager = proteinManager;
+
+        this.transcriptIds = new ArrayList<>();
+        this.proteinVariantAnnotations = new ArrayList<>();
+        this.dataRelease = dataRelease;
+
+        this.logger = logger;
+    }
+
+    /**
+     * Registers a protein substitution whose SIFT and PolyPhen scores must be fetched. Scores will be added at the
+     * beginning of the substitution scores of the ProteinVariantAnnotation object when processing the results.
+     *
+     * @param transcriptId Ensembl transcript ID
+     * @param proteinVariantAnnotation protein variant annotation with the aa position and alternate
+     */
+    public void add(String transcriptId, ProteinVariantAnnotation proteinVariantAnnotation) {
+        transcriptIds.add(transcriptId);
+        proteinVariantAnnotations.add(proteinVariantAnnotation);
+        // Scores are always set for non-STOP substitutions, even if empty
+        if (proteinVariantAnnotation.getSubstitutionScores() == null) {
+            proteinVariantAnnotation.setSubstitutionScores(new ArrayList<>());
+        }
+    }
+
+    public boolean isEmpty() {
+        return transcriptIds.isEmpty();
+    }
+
+    @Override
+    public List<List<Score>> call() throws Exception {
+        long startTime = System.currentTimeMillis();
+
+        List<Integer> positions = new ArrayList<>(proteinVariantAnnotations.size());
+        List<String> aaAlternates = new ArrayList<>(proteinVariantAnnotations.size());
+        for (ProteinVariantAnnotation proteinVariantAnnotation : proteinVariantAnnotations) {
+            positions.add(proteinVariantAnnotation.getPosition());
+            aaAlternates.add(proteinVariantAnnotation.getAlternate());
+        }
+
+        logger.debug("Query protein substitution scores");
+        List<List<Score>> scoreLists = proteinManager.getSubstitutionScores(transcriptIds, positions, aaAlternates, dataRelease);
+        logger.debug("Protein substitution score query performance is {}ms for {} substitutions",
+                System.currentTimeMillis() - startTime, transcriptIds.size());
+        return scoreLists;
+    }
+
+    public void processResults(Future<List<List<Score>>> substitutionScoreFuture, AnnotatorDeadline deadline)
+            throws InterruptedException, ExecutionException {
+        List<List<Score>> scoreLists = deadline.get("substitutionScores", substitutionScoreFuture);
+
+        if (CollectionUtils.isNotEmpty(scoreLists)) {
+            for (int i = 0; i < proteinVariantAnnotations.size(); i++) {
+                if (CollectionUtils.isNotEmpty(scoreLists.get(i))) {
+                    // SIFT and PolyPhen go first, other scores such as REVEL may have been already added
+                    proteinVariantAnnotations.get(i).getSubstitutionScores().addAll(0, scoreLists.get(i));
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.opencb.biodata.models.variant.avro.Xref;
 import org.opencb.cellbase.core.api.SnpQuery;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.managers.VariantManager;
+import org.opencb.cellbase.lib.variant.annotation.AnnotatorDeadline;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
@@ -74,15 +75,10 @@ public class FutureSnpAnnotator implements Callable<List<CellBaseDataResult<Snp>
         return cellBaseDataResultList;
     }
 
-    public void processResults(Future<List<CellBaseDataResult<Snp>>> snpFuture, List<VariantAnnotation> variantAnnotationList)
+    public void processResults(Future<List<CellBaseDataResult<Snp>>> snpFuture, List<VariantAnnotation> variantAnnotationList,
+                               AnnotatorDeadline deadline)
             throws InterruptedException, ExecutionException {
-        List<CellBaseDataResult<Snp>> snpCellBaseDataResults;
-        try {
-            snpCellBaseDataResults = snpFuture.get(30, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            snpFuture.cancel(true);
-            throw new ExecutionException("Unable to finish SNP query on time", e);
-        }
+        List<CellBaseDataResult<Snp>> snpCellBaseDataResults = deadline.get("xrefs", snpFuture);
 
         if (CollectionUtils.isNotEmpty(snpCellBaseDataResults)) {
             for (int i = 0; i < variantAnnotationList.size(); i++) {
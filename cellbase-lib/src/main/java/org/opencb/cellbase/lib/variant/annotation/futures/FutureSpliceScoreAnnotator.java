@@ -26,6 +26,7 @@ import org.opencb.biodata.models.variant.avro.SpliceScores;
 import org.opencb.biodata.models.variant.avro.VariantAnnotation;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.managers.VariantManager;
+import org.opencb.cellbase.lib.variant.annotation.AnnotatorDeadline;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
@@ -56,27 +57,19 @@ public class FutureSpliceScoreAnnotator implements Callable<List<CellBaseDataRes
     public List<CellBaseDataResult<SpliceScore>> call() throws Exception {
         long startTime = System.currentTimeMillis();
 
-        List<CellBaseDataResult<SpliceScore>> cellBaseDataResultList = new ArrayList<>(variantList.size());
-
         logger.debug("Query splice");
         // Want to return only one CellBaseDataResult object per Variant
-        for (Variant variant : variantList) {
-            cellBaseDataResultList.add(variantManager.getSpliceScoreVariant(variant, apiKey, dataRelease));
-        }
+        List<CellBaseDataResult<SpliceScore>> cellBaseDataResultList = variantManager.getSpliceScoreVariant(variantList, apiKey,
+                dataRelease);
         logger.debug("Splice score query performance is {}ms for {} variants", System.currentTimeMillis() - startTime,
                 variantList.size());
         return cellBaseDataResultList;
     }
 
-    public void processResults(Future<List<CellBaseDataResult<SpliceScore>>> spliceFuture, List<VariantAnnotation> variantAnnotationList)
+    public void processResults(Future<List<CellBaseDataResult<SpliceScore>>> spliceFuture, List<VariantAnnotation> variantAnnotationList,
+                               AnnotatorDeadline deadline)
             throws InterruptedException, ExecutionException {
-        List<CellBaseDataResult<SpliceScore>> spliceCellBaseDataResults;
-        try {
-            spliceCellBaseDataResults = spliceFuture.get(30, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            spliceFuture.cancel(true);
-            throw new ExecutionException("Unable to finish splice score query on time", e);
-        }
+        List<CellBaseDataResult<SpliceScore>> spliceCellBaseDataResults = deadline.get("spliceScore", spliceFuture);
 
         if (CollectionUtils.isNotEmpty(spliceCellBaseDataResults)) {
             for (int i = 0; i < variantAnnotationList.size(); i++) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.builders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildSchedulerTest {
+
+    @Test
+    public void dependencies() throws Exception {
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        Map<String, BuildScheduler.Status> statuses = new BuildScheduler(4, 1000)
+                .add("clinical", Collections.singletonList("gene"), 100, () -> builder("clinical", 10, finished))
+                .add("gene", Collections.singletonList("genome"), 100, () -> builder("gene", 50, finished))
+                .add("genome", null, 100, () -> builder("genome", 50, finished))
+                .add("protein", Collections.singletonList("missing"), 100, () -> builder("protein", 10, finished))
+                .run();
+
+        assertEquals(Arrays.asList("clinical", "gene", "genome", "protein"), new ArrayList<>(statuses.keySet()));
+        for (BuildScheduler.Status status : statuses.values()) {
+            assertEquals(BuildScheduler.Status.DONE, status);
+        }
+        assertTrue(finished.indexOf("genome") < finished.indexOf("gene"));
+        assertTrue(finished.indexOf("gene") < finished.indexOf("clinical"));
+        // Independent builders run concurrently with the slower ones
+        assertTrue(finished.indexOf("protein") < finished.indexOf("genome"));
+    }
+
+    @Test
+    public void failedDependency() throws Exception {
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        Map<String, BuildScheduler.Status> statuses = new BuildScheduler(2, 1000)
+                .add("genome", null, 100, () -> {
+                    throw new IllegalStateException("genome");
+                })
+                .add("gene", Collections.singletonList("genome"), 100, () -> builder("gene", 10, finished))
+                .add("clinical", Collections.singletonList("gene"), 100, () -> builder("clinical", 10, finished))
+                .add("a", Collections.singletonList("b"), 100, () -> builder("a", 10, finished))
+                .add("b", Collections.singletonList("a"), 100, () -> builder("b", 10, finished))
+                .run();
+
+        assertEquals(BuildScheduler.Status.FAILED, statuses.get("genome"));
+        assertEquals(BuildScheduler.Status.SKIPPED, statuses.get("gene"));
+        assertEquals(BuildScheduler.Status.SKIPPED, statuses.get("clinical"));
+        assertEquals(BuildScheduler.Status.SKIPPED, statuses.get("a"));
+        assertEquals(BuildScheduler.Status.SKIPPED, statuses.get("b"));
+        assertTrue(finished.isEmpty());
+    }
+
+    @Test
+    public void failedBuilderBefore() throws Exception {
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        Map<String, BuildScheduler.Status> statuses = new BuildScheduler(4, 1000)
+                .add("refseq", null, Arrays.asList("genome", "gene"), 100, () -> builder("refseq", 10, finished))
+                .add("gene", null, Collections.singletonList("genome"), 100, () -> builder("gene", 10, finished))
+                .add("genome", null, null, 100, () -> new TestBuilder(() -> {
+                    Thread.sleep(50);
+                    finished.add("genome");
+                    throw new IllegalStateException("genome");
+                }))
+                .add("clinical", Collections.singletonList("genome"), 100, () -> builder("clinical", 10, finished))
+                .run();
+
+        assertEquals(BuildScheduler.Status.FAILED, statuses.get("genome"));
+        // Builders only run after the failed one are not skipped, builders depending on its data are
+        assertEquals(BuildScheduler.Status.DONE, statuses.get("gene"));
+        assertEquals(BuildScheduler.Status.DONE, statuses.get("refseq"));
+        assertEquals(BuildScheduler.Status.SKIPPED, statuses.get("clinical"));
+        assertEquals(Arrays.asList("genome", "gene", "refseq"), finished);
+    }
+
+    @Test
+    public void memoryBudget() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        BuildScheduler scheduler = new BuildScheduler(4, 1000);
+        for (int i = 0; i < 6; i++) {
+            scheduler.add("data" + i, null, 400, () -> new TestBuilder(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+            }));
+        }
+        // A builder needing more than the budget runs alone
+        scheduler.add("big", null, 5000, () -> new TestBuilder(() -> assertEquals(0, running.get())));
+
+        Map<String, BuildScheduler.Status> statuses = scheduler.run();
+        assertEquals(7, statuses.size());
+        assertTrue(statuses.values().stream().allMatch(BuildScheduler.Status.DONE::equals));
+        assertEquals(2, maxRunning.get());
+    }
+
+    private static CellBaseBuilder builder(String name, long time, List<String> finished) {
+        return new TestBuilder(() -> {
+            Thread.sleep(time);
+            finished.add(name);
+        });
+    }
+
+    private interface Parser {
+        void parse() throws Exception;
+    }
+
+    private static class TestBuilder extends CellBaseBuilder {
+        private final Parser parser;
+
+        TestBuilder(Parser parser) {
+            super(null);
+            this.parser = parser;
+        }
+
+        @Override
+        public void parse() throws Exception {
+            parser.parse();
+        }
+
+        @Override
+        public void disconnect() {
+        }
+    }
+}
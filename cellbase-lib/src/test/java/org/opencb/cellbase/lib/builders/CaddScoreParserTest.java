@@ -16,15 +16,31 @@
 
 package org.opencb.cellbase.lib.builders;
 
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.core.GenomicScoreRegion;
 import org.opencb.cellbase.core.serializer.CellBaseJsonFileSerializer;
 import org.opencb.cellbase.core.serializer.CellBaseSerializer;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 
 
@@ -99,4 +115,127 @@ public class CaddScoreParserTest {
         assertEquals(0.748f, g, 1 / DECIMAL_RESOLUTION, "Error getting G score value from scaled CADD");
         assertEquals(0f, t, 1 / DECIMAL_RESOLUTION, "Error getting T score value from scaled CADD");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParseChunks() throws Exception {
+        List<GenomicScoreRegion<Long>> regions = new ArrayList<>();
+        CellBaseSerializer cellBaseSerializer = new CellBaseSerializer() {
+            @Override
+            public void serialize(Object object) {
+                GenomicScoreRegion<Long> region = (GenomicScoreRegion<Long>) object;
+                // Values are copied, the builder reuses its chunks
+                regions.add(new GenomicScoreRegion<>(region.getChromosome(), region.getStart(), region.getEnd(),
+                        region.getSource(), new ArrayList<>(region.getValues())));
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Path getOutdir() {
+                return null;
+            }
+
+            @Override
+            public String getFileName() {
+                return null;
+            }
+        };
+
+        Path inputPath = Paths.get(getClass().getResource("/cadd_example.txt.gz").toURI());
+        new CaddScoreBuilder(inputPath, cellBaseSerializer).parse();
+
+        // 1:69100, 10:14981854, then 1:10001-10999 and 1:11000-11999, raw and scaled
+        assertEquals(8, regions.size());
+        GenomicScoreRegion<Long> scaled = regions.get(1);
+        assertEquals("1", scaled.getChromosome());
+        assertEquals(69100, scaled.getStart());
+        assertEquals(69100, scaled.getEnd());
+        assertEquals("cadd_scaled", scaled.getSource());
+        // 1  69100  G  A  4.408347  24.1, C 22.8, T 35, G is the reference
+        long value = scaled.getValues().get(0);
+        assertEquals((short) (24.1f * 100), (short) (value >> 48));
+        assertEquals((short) (22.8f * 100), (short) (value >> 32));
+        assertEquals(0, (short) (value >> 16));
+        assertEquals((short) (35f * 100), (short) value);
+
+        assertEquals("10", regions.get(2).getChromosome());
+        assertEquals(10001, regions.get(4).getStart());
+        assertEquals(10999, regions.get(4).getEnd());
+        assertEquals(999, regions.get(4).getValues().size());
+        assertEquals(11000, regions.get(6).getStart());
+        assertEquals(11999, regions.get(6).getEnd());
+        assertEquals(1000, regions.get(7).getValues().size());
+    }
+
+    @Test
+    public void testParseNumbers() {
+        String[] values = {"0", "-0", "6.046", "-0.527445", "24.1", "35", "0.000001", "16777217", "123456789.5", "1e-5", "NaN",
+                "4.07", "-12.00", "+3.5"};
+        for (String value : values) {
+            byte[] bytes = ("\t" + value + "\t").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(CaddScoreBuilder.parseFloat(bytes, 1, bytes.length - 1)), value);
+        }
+
+        byte[] bytes = "1\t14981854\tG".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(14981854, CaddScoreBuilder.parseInt(bytes, 2, 10));
+    }
+
+    @Test
+    public void testParseByChromosome() throws Exception {
+        Path directory = Files.createTempDirectory("cadd");
+        Path caddFilePath = directory.resolve("whole_genome_SNVs.tsv.gz");
+        writeIndexedCaddFile(caddFilePath);
+
+        Path sequentialFolder = Files.createDirectory(directory.resolve("sequential"));
+        new CaddScoreBuilder(caddFilePath, 1, new CellBaseJsonFileSerializer(sequentialFolder, "cadd")).parse();
+        Path parallelFolder = Files.createDirectory(directory.resolve("parallel"));
+        new CaddScoreBuilder(caddFilePath, 2, new CellBaseJsonFileSerializer(parallelFolder, "cadd")).parse();
+
+        List<String> expected = readLines(sequentialFolder.resolve("cadd.json.gz"));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, readLines(parallelFolder.resolve("cadd.json.gz")));
+        // Files of each chromosome are removed once appended
+        assertEquals(1, parallelFolder.toFile().list().length);
+    }
+
+    /**
+     * Writes a bgzip CADD file, with several chunks in the first chromosome, and its tabix index.
+     */
+    private static void writeIndexedCaddFile(Path caddFilePath) throws IOException {
+        String[] chromosomes = {"1", "2", "10"};
+        int[][] positions = {{10001, 12200}, {100, 150}, {500, 520}};
+        String nucleotides = "ACGT";
+
+        TabixIndexCreator indexCreator = new TabixIndexCreator(new TabixFormat(TabixFormat.GENERIC_FLAGS, 1, 2, 0, '#', 0));
+        Index index;
+        try (BlockCompressedOutputStream outputStream = new BlockCompressedOutputStream(caddFilePath.toFile())) {
+            outputStream.write("## CADD test file\n#Chrom\tPos\tRef\tAlt\tRawScore\tPHRED\n".getBytes(StandardCharsets.US_ASCII));
+            for (int i = 0; i < chromosomes.length; i++) {
+                for (int position = positions[i][0]; position <= positions[i][1]; position++) {
+                    char reference = nucleotides.charAt(position % 4);
+                    for (char alternate : nucleotides.toCharArray()) {
+                        if (alternate != reference) {
+                            long filePointer = outputStream.getFilePointer();
+                            String line = chromosomes[i] + "\t" + position + "\t" + reference + "\t" + alternate + "\t"
+                                    + (position % 3 == 0 ? "-" : "") + (position % 7) + "." + ((position + alternate) % 100) + "\t"
+                                    + (position % 30) + "." + (position % 10) + "\n";
+                            outputStream.write(line.getBytes(StandardCharsets.US_ASCII));
+                            indexCreator.addFeature(new SimpleFeature(chromosomes[i], position, position), filePointer);
+                        }
+                    }
+                }
+            }
+            index = indexCreator.finalizeIndex(outputStream.getFilePointer());
+        }
+        index.write(Paths.get(caddFilePath + ".tbi").toFile());
+    }
+
+    private static List<String> readLines(Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path))))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
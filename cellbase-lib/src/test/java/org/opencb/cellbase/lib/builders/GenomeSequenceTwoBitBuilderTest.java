@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.builders;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.core.GenomeSequenceFeature;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.lib.impl.core.GenomeSequenceTwoBitAdaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GenomeSequenceTwoBitBuilderTest {
+
+    private static final String SEQUENCE_1 = "NNNNACGTacgtRYACGTNNacgtnnGGCCTTAA";
+    private static final String SEQUENCE_2 = "TTTTgggg";
+
+    @Test
+    public void testParse() throws Exception {
+        Path directory = Files.createTempDirectory("genome_2bit");
+        Path fastaFile = directory.resolve("genome.fa");
+        Files.write(fastaFile, Arrays.asList(
+                ">1 dna:chromosome chromosome:GRCh38:1:1:34:1 REF", SEQUENCE_1.substring(0, 20), SEQUENCE_1.substring(20),
+                ">HSCHR1_1_CTG3 dna:chromosome chromosome:GRCh38:HSCHR1_1_CTG3:1:4:1 REF", "ACGT",
+                ">MT dna:chromosome chromosome:GRCh38:MT:1:8:1 REF", SEQUENCE_2));
+        Path twoBitFile = directory.resolve("genome_sequence.2bit");
+        new GenomeSequenceTwoBitBuilder(fastaFile, twoBitFile).parse();
+
+        GenomeSequenceTwoBitAdaptor adaptor = GenomeSequenceTwoBitAdaptor.getInstance(twoBitFile);
+        assertEquals(new HashSet<>(Arrays.asList("1", "MT")), adaptor.getSequenceNames());
+
+        // IUPAC codes other than N are stored as N
+        String expected = SEQUENCE_1.replace('R', 'N').replace('Y', 'N');
+        for (int start = 1; start <= expected.length(); start++) {
+            for (int end = start; end <= expected.length(); end++) {
+                assertEquals(expected.substring(start - 1, end), getSequence(adaptor, new Region("1", start, end)).getSequence());
+            }
+        }
+
+        GenomeSequenceFeature feature = getSequence(adaptor, new Region("MT", 3, 100));
+        assertEquals("TTgggg", feature.getSequence());
+        assertEquals("chromosome", feature.getSequenceType());
+        assertEquals("GRCh38", feature.getAssembly());
+
+        assertEquals(0, adaptor.getSequence(new Region("2", 1, 10)).getNumResults());
+    }
+
+    private GenomeSequenceFeature getSequence(GenomeSequenceTwoBitAdaptor adaptor, Region region) {
+        CellBaseDataResult<GenomeSequenceFeature> result = adaptor.getSequence(region);
+        assertEquals(1, result.getNumResults());
+        return result.first();
+    }
+}
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.opencb.biodata.models.core.Gene;
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.VariantBuilder;
 import org.opencb.biodata.models.variant.avro.SampleEntry;
@@ -34,6 +35,7 @@ import org.opencb.cellbase.lib.GenericMongoDBAdaptorTest;
 import org.opencb.cellbase.lib.managers.ClinicalManager;
 import org.opencb.commons.datastore.core.QueryOptions;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -545,6 +547,51 @@ public class ClinicalMongoDBAdaptorTest extends GenericMongoDBAdaptorTest {
 
     }
 
+    @Test
+    public void batchQueryMatchesPerVariantQueryTest() throws Exception {
+        ClinicalManager clinicalManager = cellBaseManagerFactory.getClinicalManager(SPECIES, ASSEMBLY);
+        ClinicalVariantQuery query = new ClinicalVariantQuery();
+        query.setRegions(Collections.singletonList(Region.parseRegion("10:113588287-113588287")));
+        query.setDataRelease(dataRelease.getRelease());
+        List<Variant> variants = new ArrayList<>();
+        for (Variant clinicalVariant : clinicalManager.search(query).getResults()) {
+            variants.add(new Variant(clinicalVariant.getChromosome(), clinicalVariant.getStart(), clinicalVariant.getReference(),
+                    clinicalVariant.getAlternate()));
+        }
+        variants.add(new Variant("2:170361068:G:C"));
+        // Not a clinical variant
+        variants.add(new Variant("1:10000:A:T"));
+        // Duplicated variants are matched as the rest
+        variants.add(new Variant("2:170361068:G:C"));
+        List<Gene> geneList = loadGeneList();
+
+        for (boolean checkAminoAcidChange : new boolean[]{false, true}) {
+            QueryOptions queryOptions = new QueryOptions(ParamConstants.QueryParams.CHECK_AMINO_ACID_CHANGE.key(), checkAminoAcidChange);
+            List<CellBaseDataResult<Variant>> batchResults = clinicalManager.getByVariant(variants, geneList, queryOptions,
+                    dataRelease.getRelease());
+            // A limit makes the adaptor query the variants one by one
+            List<CellBaseDataResult<Variant>> perVariantResults = clinicalManager.getByVariant(variants, geneList,
+                    new QueryOptions(queryOptions).append(QueryOptions.LIMIT, 1000), dataRelease.getRelease());
+
+            assertEquals(perVariantResults.size(), batchResults.size());
+            for (int i = 0; i < variants.size(); i++) {
+                assertEquals(perVariantResults.get(i).getId(), batchResults.get(i).getId());
+                assertEquals(perVariantResults.get(i).getNumResults(), batchResults.get(i).getNumResults());
+                assertEquals(perVariantResults.get(i).getNumMatches(), batchResults.get(i).getNumMatches());
+                assertEquals(getSortedResults(perVariantResults.get(i)), getSortedResults(batchResults.get(i)));
+            }
+        }
+    }
+
+    private List<String> getSortedResults(CellBaseDataResult<Variant> cellBaseDataResult) {
+        List<String> results = new ArrayList<>();
+        for (Variant variant : cellBaseDataResult.getResults()) {
+            results.add(variant.toString() + " " + variant.getAnnotation());
+        }
+        Collections.sort(results);
+        return results;
+    }
+
     private List<Gene> loadGeneList() throws CellBaseException, QueryException, IllegalAccessException {
         GeneQuery geneQuery = new GeneQuery();
         geneQuery.setDataRelease(dataRelease.getRelease());
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.lib.impl.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.model.Filters;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.core.SpliceScore;
+import org.opencb.biodata.models.core.SpliceScoreAlternate;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+import org.opencb.cellbase.lib.EtlCommons;
+import org.opencb.cellbase.lib.GenericMongoDBAdaptorTest;
+import org.opencb.cellbase.lib.db.MongoDBManager;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.mongodb.MongoDBCollection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpliceScoreMongoDBAdaptorTest extends GenericMongoDBAdaptorTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    public SpliceScoreMongoDBAdaptorTest() {
+        super();
+    }
+
+    @Test
+    public void batchQueryMatchesPerVariantQueryTest() throws Exception {
+        MongoDBManager mongoDBManager = new MongoDBManager(cellBaseConfiguration);
+        try {
+            SpliceScoreMongoDBAdaptor dbAdaptor = new MongoDBAdaptorFactory(mongoDBManager.createMongoDBDatastore(SPECIES, ASSEMBLY))
+                    .getSpliceScoreDBAdaptor();
+            MongoDBCollection mongoDBCollection = dbAdaptor.getCollectionByRelease(
+                    dbAdaptor.buildCollectionByReleaseMap(EtlCommons.SPLICE_SCORE_DATA), dataRelease.getRelease());
+
+            // Several alternates of the same document
+            List<Variant> variants = new ArrayList<>(getVariants(mongoDBCollection, Filters.exists("alternates.1")));
+            assertFalse(variants.isEmpty());
+            // Insertions and deletions, stored with "-" alleles
+            List<Variant> indels = new ArrayList<>(getVariants(mongoDBCollection, Filters.eq("refAllele", "-")));
+            indels.addAll(getVariants(mongoDBCollection, Filters.eq("alternates.altAllele", "-")));
+            assertFalse(indels.isEmpty());
+            variants.addAll(indels);
+            // Variants with no score: an alternate missing in a document, an unknown position and an insertion with an empty
+            // reference allele
+            Variant variant = variants.get(0);
+            variants.add(new Variant(variant.getChromosome(), variant.getStart(), variant.getReference(), "N"));
+            variants.add(new Variant("1", 10000, "A", "T"));
+            variants.add(new Variant("1", 10000, "", "T"));
+            // Duplicated variants are matched as the rest
+            variants.add(variant);
+
+            List<CellBaseDataResult<SpliceScore>> batchResults = dbAdaptor.getScores(variants, dataRelease.getRelease());
+
+            assertEquals(variants.size(), batchResults.size());
+            for (int i = 0; i < variants.size(); i++) {
+                CellBaseDataResult<SpliceScore> perVariantResult = dbAdaptor.getScores(variants.get(i).getChromosome(),
+                        variants.get(i).getStart(), variants.get(i).getReference(), variants.get(i).getAlternate(),
+                        dataRelease.getRelease());
+                assertEquals(perVariantResult.getId(), batchResults.get(i).getId());
+                assertEquals(perVariantResult.getNumResults(), batchResults.get(i).getNumResults());
+                assertEquals(getSortedResults(perVariantResult), getSortedResults(batchResults.get(i)));
+            }
+            assertEquals(0, batchResults.get(variants.size() - 4).getNumResults());
+            assertEquals(0, batchResults.get(variants.size() - 3).getNumResults());
+            assertEquals(0, batchResults.get(variants.size() - 2).getNumResults());
+            assertTrue(batchResults.get(variants.size() - 1).getNumResults() > 0);
+        } finally {
+            mongoDBManager.close();
+        }
+    }
+
+    private List<Variant> getVariants(MongoDBCollection mongoDBCollection, Bson query) {
+        List<Variant> variants = new ArrayList<>();
+        for (SpliceScore score : mongoDBCollection.find(query, null, SpliceScore.class, new QueryOptions(QueryOptions.LIMIT, 5))
+                .getResults()) {
+            for (SpliceScoreAlternate scoreAlternate : score.getAlternates()) {
+                variants.add(new Variant(score.getChromosome(), score.getPosition(), score.getRefAllele(),
+                        scoreAlternate.getAltAllele()));
+            }
+        }
+        return variants;
+    }
+
+    private List<String> getSortedResults(CellBaseDataResult<SpliceScore> cellBaseDataResult) throws JsonProcessingException {
+        List<String> results = new ArrayList<>();
+        for (SpliceScore score : cellBaseDataResult.getResults()) {
+            results.add(objectMapper.writeValueAsString(score));
+        }
+        Collections.sort(results);
+        return results;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.lib.managers;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.cellbase.core.api.key.ApiKeyStats;
+import org.opencb.cellbase.core.config.ApiKeyStatsProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiKeyStatsAccumulatorTest {
+
+    private static final String API_KEY = "apiKey1";
+    private static final String OTHER_API_KEY = "apiKey2";
+
+    @Test
+    public void testGetNumQueries() {
+        String date = MetaManager.getApiKeyStatsDate();
+        try (TestApiKeyStatsAccumulator accumulator = new TestApiKeyStatsAccumulator(100)) {
+            accumulator.setStoredNumQueries(API_KEY, date, 10);
+
+            assertEquals(10, accumulator.getNumQueries(API_KEY, date));
+            accumulator.inc(API_KEY, date, 1, 5, 100);
+            accumulator.inc(API_KEY, date, 1, 5, 100);
+            assertEquals(12, accumulator.getNumQueries(API_KEY, date));
+            assertEquals(0, accumulator.getNumQueries(OTHER_API_KEY, date));
+
+            // The stored number of queries is only read the first time
+            assertEquals(2, accumulator.numReads.get());
+            assertTrue(accumulator.writes.isEmpty());
+        }
+    }
+
+    @Test
+    public void testFlush() {
+        String date = MetaManager.getApiKeyStatsDate();
+        try (TestApiKeyStatsAccumulator accumulator = new TestApiKeyStatsAccumulator(100)) {
+            accumulator.setStoredNumQueries(API_KEY, date, 10);
+            assertEquals(10, accumulator.getNumQueries(API_KEY, date));
+            accumulator.inc(API_KEY, date, 1, 5, 100);
+            accumulator.inc(API_KEY, date, 1, 7, 200);
+            accumulator.inc(OTHER_API_KEY, date, 1, 1, 10);
+            // Queries of another server
+            accumulator.setStoredNumQueries(API_KEY, date, 15);
+
+            accumulator.flush();
+
+            assertEquals(1, accumulator.writes.size());
+            List<ApiKeyStats> increments = new ArrayList<>(accumulator.writes.get(0));
+            increments.sort((stats1, stats2) -> stats1.getApiKey().compareTo(stats2.getApiKey()));
+            assertEquals(2, increments.size());
+            assertApiKeyStats(API_KEY, date, 2, 12, 300, increments.get(0));
+            assertApiKeyStats(OTHER_API_KEY, date, 1, 1, 10, increments.get(1));
+
+            // Flushed queries are not counted twice, queries of all servers are read back
+            assertEquals(17, accumulator.getNumQueries(API_KEY, date));
+            assertEquals(1, accumulator.getNumQueries(OTHER_API_KEY, date));
+            assertEquals(1, accumulator.numReads.get());
+
+            // Nothing to write
+            accumulator.flush();
+            assertEquals(1, accumulator.writes.size());
+        }
+    }
+
+    @Test
+    public void testFailedFlush() {
+        String date = MetaManager.getApiKeyStatsDate();
+        try (TestApiKeyStatsAccumulator accumulator = new TestApiKeyStatsAccumulator(100)) {
+            accumulator.setStoredNumQueries(API_KEY, date, 10);
+            accumulator.inc(API_KEY, date, 3, 5, 100);
+
+            accumulator.failWrites = true;
+            accumulator.flush();
+            assertTrue(accumulator.writes.isEmpty());
+            assertEquals(13, accumulator.getNumQueries(API_KEY, date));
+
+            // Counts are kept for the next flush
+            accumulator.failWrites = false;
+            accumulator.flush();
+            assertEquals(1, accumulator.writes.size());
+            assertApiKeyStats(API_KEY, date, 3, 5, 100, accumulator.writes.get(0).get(0));
+            assertEquals(13, accumulator.getNumQueries(API_KEY, date));
+        }
+    }
+
+    @Test
+    public void testPastMonthCountersRemoved() {
+        String date = "202001";
+        try (TestApiKeyStatsAccumulator accumulator = new TestApiKeyStatsAccumulator(100)) {
+            accumulator.inc(API_KEY, date, 1, 5, 100);
+            accumulator.flush();
+            assertEquals(1, accumulator.writes.size());
+
+            // Counters were removed, the number of queries is read again
+            assertEquals(1, accumulator.getNumQueries(API_KEY, date));
+            assertEquals(1, accumulator.numReads.get());
+        }
+    }
+
+    @Test
+    public void testQuotaTolerance() throws InterruptedException {
+        String date = MetaManager.getApiKeyStatsDate();
+        try (TestApiKeyStatsAccumulator accumulator = new TestApiKeyStatsAccumulator(5)) {
+            for (int i = 0; i < 4; i++) {
+                accumulator.inc(API_KEY, date, 1, 5, 100);
+            }
+            assertFalse(accumulator.written.await(100, TimeUnit.MILLISECONDS));
+
+            // Reaching the tolerance flushes before the flush interval
+            accumulator.inc(API_KEY, date, 1, 5, 100);
+            assertTrue(accumulator.written.await(10, TimeUnit.SECONDS));
+            assertApiKeyStats(API_KEY, date, 5, 25, 500, accumulator.writes.get(0).get(0));
+        }
+    }
+
+    private static void assertApiKeyStats(String apiKey, String date, long numQueries, long duration, long bytes,
+                                          ApiKeyStats apiKeyStats) {
+        assertEquals(apiKey, apiKeyStats.getApiKey());
+        assertEquals(date, apiKeyStats.getDate());
+        assertEquals(numQueries, apiKeyStats.getNumQueries());
+        assertEquals(duration, apiKeyStats.getDuration());
+        assertEquals(bytes, apiKeyStats.getBytes());
+    }
+
+    /**
+     * Keeps the number of queries of each API key in memory instead of the database, as the $inc upsert does.
+     */
+    private static class TestApiKeyStatsAccumulator extends ApiKeyStatsAccumulator {
+
+        private final Map<String, Long> storedNumQueries = new ConcurrentHashMap<>();
+        private final AtomicInteger numReads = new AtomicInteger();
+        private final List<List<ApiKeyStats>> writes = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch written = new CountDownLatch(1);
+        private volatile boolean failWrites;
+
+        TestApiKeyStatsAccumulator(int quotaTolerance) {
+            // Flushes are only triggered by the tests
+            super(null, new ApiKeyStatsProperties().setFlushInterval(TimeUnit.HOURS.toMillis(1)).setQuotaTolerance(quotaTolerance));
+        }
+
+        void setStoredNumQueries(String apiKey, String date, long numQueries) {
+            storedNumQueries.put(date + ":" + apiKey, numQueries);
+        }
+
+        @Override
+        long readNumQueries(String apiKey, String date) {
+            numReads.incrementAndGet();
+            return storedNumQueries.getOrDefault(date + ":" + apiKey, 0L);
+        }
+
+        @Override
+        List<ApiKeyStats> readApiKeyStats(List<String> apiKeys, String date) {
+            List<ApiKeyStats> apiKeyStatsList = new ArrayList<>();
+            for (String apiKey : apiKeys) {
+                Long numQueries = storedNumQueries.get(date + ":" + apiKey);
+                if (numQueries != null) {
+                    apiKeyStatsList.add(new ApiKeyStats(apiKey, date, numQueries, 0, 0));
+                }
+            }
+            return apiKeyStatsList;
+        }
+
+        @Override
+        void writeApiKeyStats(List<ApiKeyStats> increments) {
+            if (failWrites) {
+                throw new IllegalStateException("Database not available");
+            }
+            for (ApiKeyStats increment : increments) {
+                storedNumQueries.merge(increment.getDate() + ":" + increment.getApiKey(), increment.getNumQueries(), Long::sum);
+            }
+            writes.add(increments);
+            written.countDown();
+        }
+    }
+}
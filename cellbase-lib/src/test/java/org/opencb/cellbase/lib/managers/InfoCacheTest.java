@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.lib.managers;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.cellbase.core.config.InfoCacheProperties;
+import org.opencb.cellbase.core.exception.CellBaseException;
+import org.opencb.cellbase.core.result.CellBaseDataResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InfoCacheTest {
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        InfoCache infoCache = new InfoCache(new InfoCacheProperties());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger numLoads = new AtomicInteger();
+        Callable<List<CellBaseDataResult<String>>> loader = () -> {
+            numLoads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return results("BRCA2");
+        };
+
+        int numThreads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<List<CellBaseDataResult<String>>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executorService.submit(() -> infoCache.get("db:gene:BRCA2", loader)));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // Let the other threads reach the cache while the first load is blocked
+            Thread.sleep(100);
+            release.countDown();
+
+            List<List<CellBaseDataResult<String>>> allResults = new ArrayList<>();
+            for (Future<List<CellBaseDataResult<String>>> future : futures) {
+                List<CellBaseDataResult<String>> results = future.get(10, TimeUnit.SECONDS);
+                assertEquals("BRCA2", results.get(0).first());
+                allResults.add(results);
+            }
+            assertEquals(1, numLoads.get());
+            // Each caller gets its own copy
+            assertNotSame(allResults.get(0).get(0), allResults.get(1).get(0));
+            assertNotSame(allResults.get(0).get(0).getResults(), allResults.get(1).get(0).getResults());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        InfoCache infoCache = new InfoCache(new InfoCacheProperties().setMaxEntries(2));
+        CountingLoader loader = new CountingLoader();
+
+        infoCache.get("db:gene:A", loader.of("A"));
+        infoCache.get("db:gene:B", loader.of("B"));
+        // A is now more recently used than B
+        infoCache.get("db:gene:A", loader.of("A"));
+        infoCache.get("db:gene:C", loader.of("C"));
+        assertEquals(3, loader.numLoads.get());
+
+        infoCache.get("db:gene:A", loader.of("A"));
+        infoCache.get("db:gene:C", loader.of("C"));
+        assertEquals(3, loader.numLoads.get());
+        infoCache.get("db:gene:B", loader.of("B"));
+        assertEquals(4, loader.numLoads.get());
+
+        assertEquals(2, infoCache.getStats().get("numEntries"));
+        assertEquals(2L, infoCache.getStats().get("evictions"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        InfoCache infoCache = new InfoCache(new InfoCacheProperties().setExpireAfterWrite(50));
+        CountingLoader loader = new CountingLoader();
+
+        infoCache.get("db:gene:A", loader.of("A"));
+        infoCache.get("db:gene:A", loader.of("A"));
+        assertEquals(1, loader.numLoads.get());
+
+        Thread.sleep(100);
+        assertEquals("A", infoCache.get("db:gene:A", loader.of("A")).get(0).first());
+        assertEquals(2, loader.numLoads.get());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        InfoCache infoCache = new InfoCache(new InfoCacheProperties());
+        CountingLoader loader = new CountingLoader();
+
+        infoCache.get("db1:gene:A", loader.of("A"));
+        infoCache.get("db1:transcript:A", loader.of("A"));
+        infoCache.get("db10:gene:A", loader.of("A"));
+        infoCache.get("db2:gene:A", loader.of("A"));
+        assertEquals(4, loader.numLoads.get());
+
+        infoCache.invalidate("db1");
+        assertEquals(2L, infoCache.getStats().get("invalidations"));
+
+        // Only the entries of db1 are loaded again
+        infoCache.get("db10:gene:A", loader.of("A"));
+        infoCache.get("db2:gene:A", loader.of("A"));
+        assertEquals(4, loader.numLoads.get());
+        infoCache.get("db1:gene:A", loader.of("A"));
+        infoCache.get("db1:transcript:A", loader.of("A"));
+        assertEquals(6, loader.numLoads.get());
+    }
+
+    @Test
+    public void testFailedLoadRetried() throws Exception {
+        InfoCache infoCache = new InfoCache(new InfoCacheProperties());
+        CellBaseException exception = new CellBaseException("Database not available");
+
+        CellBaseException thrown = assertThrows(CellBaseException.class, () -> infoCache.get("db:gene:A", () -> {
+            throw exception;
+        }));
+        assertSame(exception, thrown);
+        assertThrows(IllegalStateException.class, () -> infoCache.get("db:gene:A", () -> {
+            throw new IllegalStateException("Database not available");
+        }));
+
+        CountingLoader loader = new CountingLoader();
+        assertEquals("A", infoCache.get("db:gene:A", loader.of("A")).get(0).first());
+        assertEquals(1, loader.numLoads.get());
+        assertEquals(1, infoCache.getStats().get("numEntries"));
+    }
+
+    private static List<CellBaseDataResult<String>> results(String result) {
+        List<CellBaseDataResult<String>> results = new ArrayList<>();
+        results.add(new CellBaseDataResult<>(result, 0, new ArrayList<>(), 1, new ArrayList<>(Collections.singletonList(result)), 1));
+        return results;
+    }
+
+    private static class CountingLoader {
+        private final AtomicInteger numLoads = new AtomicInteger();
+
+        Callable<List<CellBaseDataResult<String>>> of(String result) {
+            return () -> {
+                numLoads.incrementAndGet();
+                return results(result);
+            };
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.core.Gene;
+import org.opencb.cellbase.core.config.AnnotationProperties;
+import org.opencb.cellbase.core.exception.CellBaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneModelCacheTest {
+
+    @Test
+    public void testConcurrentLoadsShareOneLoad() throws Exception {
+        GeneModelCache geneModelCache = new GeneModelCache(new AnnotationProperties());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger numLoads = new AtomicInteger();
+        Callable<List<Gene>> loader = () -> {
+            numLoads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return genes("1", 2);
+        };
+
+        int numThreads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<GenomicIntervalIndex<Gene>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executorService.submit(() -> geneModelCache.get("hsapiens:grch38:1:ensembl:1", loader)));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // Let the other threads reach the cache while the first load is blocked
+            Thread.sleep(100);
+            release.countDown();
+
+            GenomicIntervalIndex<Gene> geneIndex = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<GenomicIntervalIndex<Gene>> future : futures) {
+                assertSame(geneIndex, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, numLoads.get());
+            assertEquals(1, geneIndex.query("1", 1200, 1200).size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEvictionByNumberOfGenes() throws Exception {
+        GeneModelCache geneModelCache = new GeneModelCache(new AnnotationProperties().setGeneCacheMaxGenes(5));
+        CountingLoader loader = new CountingLoader();
+
+        geneModelCache.get("1", loader.of("1", 3));
+        geneModelCache.get("2", loader.of("2", 2));
+        // 1 is now more recently used than 2
+        geneModelCache.get("1", loader.of("1", 3));
+        assertEquals(2, loader.numLoads.get());
+
+        // 7 genes, 2 is evicted
+        geneModelCache.get("3", loader.of("3", 2));
+        assertEquals(5L, geneModelCache.getStats().get("weight"));
+        geneModelCache.get("1", loader.of("1", 3));
+        geneModelCache.get("3", loader.of("3", 2));
+        assertEquals(3, loader.numLoads.get());
+        geneModelCache.get("2", loader.of("2", 2));
+        assertEquals(4, loader.numLoads.get());
+
+        // A chromosome with more genes than the cache is kept alone
+        GenomicIntervalIndex<Gene> geneIndex = geneModelCache.get("4", loader.of("4", 10));
+        assertEquals(10, geneIndex.size());
+        assertEquals(1, geneModelCache.getStats().get("numEntries"));
+        assertEquals(10L, geneModelCache.getStats().get("weight"));
+        geneModelCache.get("4", loader.of("4", 10));
+        assertEquals(5, loader.numLoads.get());
+    }
+
+    @Test
+    public void testFailedLoadNotCached() throws Exception {
+        GeneModelCache geneModelCache = new GeneModelCache(new AnnotationProperties());
+        CellBaseException exception = new CellBaseException("Database not available");
+
+        assertSame(exception, assertThrows(CellBaseException.class, () -> geneModelCache.get("1", () -> {
+            throw exception;
+        })));
+        // Runtime exceptions of the loader are reported as CellBaseExceptions
+        CellBaseException thrown = assertThrows(CellBaseException.class, () -> geneModelCache.get("1", () -> {
+            throw new IllegalStateException("Database not available");
+        }));
+        assertTrue(thrown.getCause() instanceof IllegalStateException);
+        assertEquals(0, geneModelCache.getStats().get("numEntries"));
+
+        CountingLoader loader = new CountingLoader();
+        assertEquals(3, geneModelCache.get("1", loader.of("1", 3)).size());
+        assertEquals(1, loader.numLoads.get());
+    }
+
+    private static List<Gene> genes(String chromosome, int numGenes) {
+        List<Gene> genes = new ArrayList<>(numGenes);
+        for (int i = 0; i < numGenes; i++) {
+            Gene gene = new Gene();
+            gene.setId("GENE" + chromosome + "_" + i);
+            gene.setChromosome(chromosome);
+            gene.setStart(i * 1000 + 1);
+            gene.setEnd(i * 1000 + 500);
+            genes.add(gene);
+        }
+        return genes;
+    }
+
+    private static class CountingLoader {
+        private final AtomicInteger numLoads = new AtomicInteger();
+
+        Callable<List<Gene>> of(String chromosome, int numGenes) {
+            return () -> {
+                numLoads.incrementAndGet();
+                return genes(chromosome, numGenes);
+            };
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.cellbase.lib.variant.annotation;
+
+import org.junit.jupiter.api.Test;
+import org.opencb.biodata.models.core.Region;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenomicIntervalIndexTest {
+
+    @Test
+    public void testQuery() {
+        Region region1 = new Region("1", 100, 200);
+        Region region2 = new Region("1", 150, 1000);
+        Region region3 = new Region("1", 300, 400);
+        Region region4 = new Region("2", 100, 200);
+        GenomicIntervalIndex<Region> index = new GenomicIntervalIndex<>(Arrays.asList(region1, region2, region3, region4),
+                Region::getChromosome, Region::getStart, Region::getEnd);
+
+        assertEquals(Arrays.asList(region1, region2), index.query("1", 200, 200));
+        assertEquals(Arrays.asList(region2, region3), index.query("1", 350, 350));
+        assertEquals(Arrays.asList(region2), index.query("1", 500, 2000));
+        assertEquals(Arrays.asList(region4), index.query("2", 1, 100));
+        assertTrue(index.query("1", 1, 99).isEmpty());
+        assertTrue(index.query("3", 1, 1000).isEmpty());
+
+        assertTrue(index.anyMatch("1", 350, 350, region -> region.getStart() == 300));
+        assertFalse(index.anyMatch("1", 350, 350, region -> region.getStart() == 100));
+    }
+
+    @Test
+    public void testQueryMatchesLinearScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int numRegions = random.nextInt(100);
+            List<Region> regionList = new ArrayList<>(numRegions);
+            for (int j = 0; j < numRegions; j++) {
+                int start = random.nextInt(10000) + 1;
+                regionList.add(new Region(String.valueOf(random.nextInt(3) + 1), start, start + random.nextInt(2000)));
+            }
+            GenomicIntervalIndex<Region> index = new GenomicIntervalIndex<>(regionList, Region::getChromosome, Region::getStart,
+                    Region::getEnd);
+
+            for (int j = 0; j < 20; j++) {
+                String chromosome = String.valueOf(random.nextInt(3) + 1);
+                int start = random.nextInt(12000) + 1;
+                int end = start + random.nextInt(500);
+                List<Region> expected = new ArrayList<>();
+                for (Region region : regionList) {
+                    if (chromosome.equals(region.getChromosome()) && region.getStart() <= end && region.getEnd() >= start) {
+                        expected.add(region);
+                    }
+                }
+                assertEquals(expected, index.query(chromosome, start, end));
+            }
+        }
+    }
+}
@@ -92,7 +92,8 @@ public class RestServer  {
         webapp.setClassLoader(this.getClass().getClassLoader());
         webapp.setInitParameter("CELLBASE_HOME", cellbaseHome.toFile().toString());
 
-        // This enables the compression of the response
+        // This enables the compression of the response. Responses of the web services are already compressed by Jersey,
+        // see web.xml, and are not compressed again
         final GzipHandler gzipHandler = new GzipHandler();
         gzipHandler.addIncludedMimeTypes("text/html", "text/xml", "text/css", "text/plain", "text/javascript", "application/javascript",
                 "application/json", "application/xml");
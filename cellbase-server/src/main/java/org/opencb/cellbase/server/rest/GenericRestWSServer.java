@@ -17,10 +17,13 @@
 package org.opencb.cellbase.server.rest;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.factories.SchemaFactoryWrapper;
 import io.swagger.annotations.ApiOperation;
@@ -36,6 +39,8 @@ import org.opencb.cellbase.core.models.DataRelease;
 import org.opencb.cellbase.core.result.CellBaseDataResponse;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.core.utils.SpeciesUtils;
+import org.opencb.cellbase.lib.impl.core.CellBaseCoreDBAdaptor;
+import org.opencb.cellbase.lib.iterator.CellBaseIterator;
 import org.opencb.cellbase.lib.managers.CellBaseManagerFactory;
 import org.opencb.cellbase.lib.managers.DataReleaseManager;
 import org.opencb.cellbase.lib.managers.MetaManager;
@@ -55,7 +60,9 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.*;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -81,6 +88,7 @@ public class GenericRestWSServer implements IWSServer {
     protected HttpServletRequest httpServletRequest;
     protected static ObjectMapper jsonObjectMapper;
     protected static ObjectWriter jsonObjectWriter;
+    protected static ObjectWriter smileObjectWriter;
     protected String SERVICE_START_DATE;
     protected StopWatch WATCH;
     private static final AtomicBoolean INITIALIZED = new AtomicBoolean(false);
@@ -145,6 +153,11 @@ public class GenericRestWSServer implements IWSServer {
             jsonObjectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
             jsonObjectWriter = jsonObjectMapper.writer();
 
+            ObjectMapper smileObjectMapper = new ObjectMapper(new SmileFactory());
+            smileObjectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            smileObjectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+            smileObjectWriter = smileObjectMapper.writer();
+
             logger = LoggerFactory.getLogger(this.getClass());
 
             // We must load the configuration file from CELLBASE_HOME, this must happen only the first time!
@@ -421,43 +434,125 @@ public class GenericRestWSServer implements IWSServer {
         queryResponse.setResponses(list);
         logQuery(OK);
 
-        Response jsonResponse = createJsonResponse(queryResponse);
+        // API key stats are not updated for meta queries
+        return createStreamingResponse((writer, outputStream) -> writer.writeValue(outputStream, queryResponse),
+                !uriInfo.getPath().contains("/meta/"));
+    }
 
-        // Update API key stats, if necessary
+    /**
+     * Streams the results of a search as they are read from the database, instead of collecting them into a
+     * CellBaseDataResult first. The body is the same CellBaseDataResponse, with a single CellBaseDataResult, that
+     * createOkResponse returns. The iterator is closed once the body is written.
+     *
+     * @param iterator iterator over the search results
+     * @param <T> type of the results
+     * @return response whose body is written to the client as the iterator is consumed
+     */
+    protected <T> Response createStreamingOkResponse(CellBaseIterator<T> iterator) {
+        int dataRelease = 0;
         try {
-            if (!uriInfo.getPath().contains("/meta/")) {
-                String apiKey = getApiKey();
-                MetaManager metaManager = cellBaseManagerFactory.getMetaManager();
-                long bytes = (jsonResponse.getEntity() != null) ? jsonResponse.getEntity().toString().length() : 0;
-                metaManager.incApiKeyStats(apiKey, 1, queryResponse.getTime(), bytes);
-            }
+            dataRelease = getDataRelease();
         } catch (CellBaseException e) {
-            return createErrorResponse(e);
+            logger.warn("Impossible to set the data release used in the query response", e);
         }
+        String apiKey = getApiKey();
+        ObjectMap params = new ObjectMap();
+        params.put("species", species);
+        params.putAll(uriParams);
+        logQuery(OK);
 
-        return  jsonResponse;
+        final int responseDataRelease = dataRelease;
+        return createStreamingResponse((writer, outputStream) -> {
+            // Each result is written on its own, flushing after every one would defeat the output buffer
+            ObjectWriter resultWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (CellBaseIterator<T> results = iterator;
+                 JsonGenerator generator = writer.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeStringField("apiVersion", version);
+                generator.writeNumberField("dataRelease", responseDataRelease);
+                if (apiKey != null) {
+                    generator.writeStringField("apiKey", apiKey);
+                }
+                generator.writeFieldName("params");
+                resultWriter.writeValue(generator, params);
+
+                long searchStartTime = System.currentTimeMillis();
+                generator.writeArrayFieldStart("responses");
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("results");
+                int numResults = 0;
+                while (results.hasNext() && numResults < CellBaseCoreDBAdaptor.MAX_ROWS) {
+                    resultWriter.writeValue(generator, results.next());
+                    numResults++;
+                }
+                generator.writeEndArray();
+                generator.writeNumberField("numResults", numResults);
+                generator.writeNumberField("numMatches", results.getNumMatches());
+                generator.writeNumberField("time", System.currentTimeMillis() - searchStartTime);
+                generator.writeEndObject();
+                generator.writeEndArray();
+
+                generator.writeNumberField("time", System.currentTimeMillis() - startTime);
+                generator.writeEndObject();
+            }
+        }, true);
     }
 
     protected Response createJsonResponse(CellBaseDataResponse queryResponse) {
-        try {
-            String value = jsonObjectWriter.writeValueAsString(queryResponse);
-            ResponseBuilder ok = Response.ok(value, MediaType.APPLICATION_JSON_TYPE.withCharset("utf-8"));
-            Response response = buildResponse(ok);
-            return response;
-        } catch (JsonProcessingException e) {
-            logger.error("Error parsing queryResponse object", e);
-            return createErrorResponse("", "Error parsing QueryResponse object:\n" + Arrays.toString(e.getStackTrace()));
-        }
+        return createStreamingResponse((writer, outputStream) -> writer.writeValue(outputStream, queryResponse), false);
     }
 
     protected Response createJsonResponse(Object obj) {
-        try {
-            return buildResponse(Response.ok(jsonObjectWriter.writeValueAsString(obj),
-                    MediaType.APPLICATION_JSON_TYPE.withCharset("utf-8")));
-        } catch (JsonProcessingException e) {
-            logger.error("Error parsing object", e);
-            return createErrorResponse("", "Error parsing object:\n" + Arrays.toString(e.getStackTrace()));
-        }
+        return buildResponse(Response.ok((StreamingOutput) outputStream -> jsonObjectWriter.writeValue(outputStream, obj),
+                MediaType.APPLICATION_JSON_TYPE.withCharset("utf-8")));
+    }
+
+    /**
+     * Builds a response whose body is serialized straight to the servlet output stream when the container writes it,
+     * so that no String or byte array holding the whole body is ever allocated. The body size used in the API key
+     * stats is the number of bytes written to the stream. Errors while writing happen once the status and headers
+     * have been sent, so they can only be logged.
+     *
+     * @param bodyWriter        writes the body with the given ObjectWriter, Smile or JSON depending on the Accept header
+     * @param updateApiKeyStats whether the query is counted in the API key stats
+     * @return the response
+     */
+    private Response createStreamingResponse(ResponseBodyWriter bodyWriter, boolean updateApiKeyStats) {
+        boolean smile = acceptsSmile();
+        ObjectWriter writer = smile ? smileObjectWriter : jsonObjectWriter;
+        String apiKey = updateApiKeyStats ? getApiKey() : null;
+        StreamingOutput streamingOutput = outputStream -> {
+            CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+            try {
+                bodyWriter.write(writer, countingOutputStream);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error writing response of {}", uriInfo.getAbsolutePath(), e);
+                throw e;
+            } finally {
+                if (updateApiKeyStats) {
+                    try {
+                        cellBaseManagerFactory.getMetaManager().incApiKeyStats(apiKey, 1, System.currentTimeMillis() - startTime,
+                                countingOutputStream.getCount());
+                    } catch (Exception e) {
+                        logger.warn("Impossible to update the stats of the API key", e);
+                    }
+                }
+            }
+        };
+        return buildResponse(smile
+                ? Response.ok(streamingOutput, ParamConstants.SMILE_MEDIA_TYPE)
+                : Response.ok(streamingOutput, MediaType.APPLICATION_JSON_TYPE.withCharset("utf-8")));
+    }
+
+    /**
+     * Clients asking for Smile, e.g. the Java client, get the CellBaseDataResponse encoded in Smile, a binary JSON format
+     * smaller and faster to write and parse than JSON. Any other client gets JSON.
+     *
+     * @return whether the Accept header of the request includes the Smile media type
+     */
+    private boolean acceptsSmile() {
+        String accept = httpServletRequest != null ? httpServletRequest.getHeader(HttpHeaders.ACCEPT) : null;
+        return accept != null && accept.contains(ParamConstants.SMILE_MEDIA_TYPE);
     }
 
     private Response buildResponse(ResponseBuilder responseBuilder) {
@@ -468,4 +563,34 @@ public class GenericRestWSServer implements IWSServer {
                 .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
                 .build();
     }
+
+    @FunctionalInterface
+    private interface ResponseBodyWriter {
+        void write(ObjectWriter writer, OutputStream outputStream) throws IOException;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
 }
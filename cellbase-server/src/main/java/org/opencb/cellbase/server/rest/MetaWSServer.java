@@ -32,7 +32,10 @@ import org.opencb.cellbase.core.models.DataReleaseSource;
 import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.core.utils.SpeciesUtils;
 import org.opencb.cellbase.lib.managers.DataReleaseManager;
+import org.opencb.cellbase.lib.managers.InfoCache;
 import org.opencb.cellbase.lib.managers.MetaManager;
+import org.opencb.cellbase.lib.variant.annotation.AnnotatorExecutor;
+import org.opencb.cellbase.lib.variant.annotation.GeneModelCache;
 import org.opencb.cellbase.server.exception.CellBaseServerException;
 import org.opencb.cellbase.server.rest.clinical.ClinicalWSServer;
 import org.opencb.cellbase.server.rest.feature.GeneWSServer;
@@ -360,6 +363,27 @@ public class MetaWSServer extends GenericRestWSServer {
         return createOkResponse(queryResult);
     }
 
+    @GET
+    @Path("/annotation/metrics")
+    @ApiOperation(httpMethod = "GET", value = "Returns the metrics of the variant annotation executor, gene model cache "
+            + "and info cache of this server.", response = Map.class, responseContainer = "QueryResponse")
+    public Response getAnnotationMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        AnnotatorExecutor annotatorExecutor = AnnotatorExecutor.getInstance(cellBaseConfiguration.getAnnotation());
+        metrics.put("annotators", annotatorExecutor.getMetrics());
+        GeneModelCache geneModelCache = GeneModelCache.getInstance();
+        metrics.put("geneCache", geneModelCache != null ? geneModelCache.getStats() : Collections.emptyMap());
+        InfoCache infoCache = InfoCache.getInstance();
+        metrics.put("infoCache", infoCache != null ? infoCache.getStats() : Collections.emptyMap());
+
+        CellBaseDataResult queryResult = new CellBaseDataResult();
+        queryResult.setId("annotationMetrics");
+        queryResult.setTime(0);
+        queryResult.setResults(Collections.singletonList(metrics));
+
+        return createOkResponse(queryResult);
+    }
+
     @GET
     @Path("/{species}/status")
     @ApiOperation(httpMethod = "GET", value = "Reports on the overall system status based on the status of such things "
@@ -104,8 +104,7 @@ public class OntologyWSServer extends GenericRestWSServer {
             OntologyQuery query = new OntologyQuery(uriParams);
             query.setDataRelease(getDataRelease());
             logger.info("/search OntologyQuery: " + query.toString());
-            CellBaseDataResult<OntologyTerm> queryResults = ontologyManager.search(query);
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(ontologyManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
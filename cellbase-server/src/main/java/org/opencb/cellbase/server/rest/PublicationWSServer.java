@@ -20,7 +20,6 @@ import io.swagger.annotations.*;
 import org.opencb.biodata.formats.pubmed.v233jaxb.PubmedArticle;
 import org.opencb.cellbase.core.ParamConstants;
 import org.opencb.cellbase.core.api.PublicationQuery;
-import org.opencb.cellbase.core.result.CellBaseDataResult;
 import org.opencb.cellbase.lib.managers.PublicationManager;
 import org.opencb.cellbase.server.exception.CellBaseServerException;
 
@@ -109,8 +108,7 @@ public class PublicationWSServer extends GenericRestWSServer {
             PublicationQuery query = new PublicationQuery(uriParams);
             query.setDataRelease(getDataRelease());
             logger.info("/search PublicationQuery: " + query);
-            CellBaseDataResult<PubmedArticle> queryResults = publicationManager.search(query);
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(publicationManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
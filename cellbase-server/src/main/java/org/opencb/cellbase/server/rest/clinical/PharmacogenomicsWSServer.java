@@ -124,9 +124,7 @@ public class PharmacogenomicsWSServer extends GenericRestWSServer {
         try {
             PharmaChemicalQuery query = new PharmaChemicalQuery(uriParams);
             query.setDataRelease(getDataRelease());
-            CellBaseDataResult<PharmaChemical> queryResults = pharmacogenomicsManager.search(query);
-
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(pharmacogenomicsManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
@@ -289,8 +289,7 @@ public class GeneWSServer extends GenericRestWSServer {
                 GeneQuery geneQuery = new GeneQuery(uriParams);
                 geneQuery.setDataRelease(getDataRelease());
                 logger.info("/search GeneQuery: {} ", geneQuery.toString());
-                CellBaseDataResult<Gene> queryResults = geneManager.search(geneQuery);
-                return createOkResponse(queryResults);
+                return createStreamingOkResponse(geneManager.searchIterator(geneQuery));
             }
 
         } catch (Exception e) {
@@ -135,8 +135,7 @@ public class ProteinWSServer extends GenericRestWSServer {
         try {
             ProteinQuery query = new ProteinQuery(uriParams);
             query.setDataRelease(getDataRelease());
-            CellBaseDataResult<Entry> queryResults = proteinManager.search(query);
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(proteinManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
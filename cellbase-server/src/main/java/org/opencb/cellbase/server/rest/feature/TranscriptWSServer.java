@@ -191,8 +191,7 @@ public class TranscriptWSServer extends GenericRestWSServer {
             TranscriptQuery query = new TranscriptQuery(uriParams);
             query.setDataRelease(getDataRelease());
             logger.info("/search TranscriptQuery: {}", query.toString());
-            CellBaseDataResult<Transcript> queryResult = transcriptManager.search(query);
-            return createOkResponse(queryResult);
+            return createStreamingOkResponse(transcriptManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
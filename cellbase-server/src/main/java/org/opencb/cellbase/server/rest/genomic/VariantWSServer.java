@@ -418,8 +418,7 @@ public class VariantWSServer extends GenericRestWSServer {
             VariantQuery query = new VariantQuery(uriParams);
             query.setDataRelease(getDataRelease());
             logger.info("/search VariantQuery: {}", query.toString());
-            CellBaseDataResult<Variant> queryResults = variantManager.search(query);
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(variantManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }
@@ -161,8 +161,7 @@ public class RegulatoryWSServer extends GenericRestWSServer {
         try {
             RegulationQuery query = new RegulationQuery(uriParams);
             query.setDataRelease(getDataRelease());
-            CellBaseDataResult<RegulatoryFeature> queryResults = regulatoryManager.search(query);
-            return createOkResponse(queryResults);
+            return createStreamingOkResponse(regulatoryManager.searchIterator(query));
         } catch (Exception e) {
             return createErrorResponse(e);
         }